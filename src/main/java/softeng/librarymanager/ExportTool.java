@@ -0,0 +1,66 @@
+/**
+ * @file ExportTool.java
+ * @brief Esportazione dei registri da riga di comando, senza interfaccia grafica.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager
+ */
+
+package softeng.librarymanager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import softeng.librarymanager.models.Library;
+import softeng.librarymanager.models.LibraryJournal;
+import softeng.librarymanager.models.RegisterExporter;
+
+/**
+ * @class ExportTool
+ * @brief Punto di ingresso alternativo che esporta uno o più registri di un file di biblioteca.
+ * @details Uso: {@code ExportTool <biblioteca> <studenti|libri|prestiti> <file.csv|file.jsonl> [<registro> <file>]...}
+ *          La biblioteca viene letta in sola lettura, comprese le modifiche registrate nel journal, e non viene
+ *          modificata. Il formato di ciascun file dipende dalla sua estensione.
+ * @see RegisterExporter
+ */
+public final class ExportTool {
+
+    private ExportTool() {
+    }
+
+    /**
+     * @brief Esporta i registri indicati e riporta il numero di righe scritte per ciascun file.
+     * @param[in] args Il file della biblioteca seguito da coppie registro/file di destinazione.
+     * @post In caso di argomenti non validi o di errore di lettura/scrittura il processo termina con stato 1 (uso) o 2 (I/O).
+     */
+    public static void main(String[] args) {
+        if (args.length < 3 || args.length % 2 == 0) usage("Numero di argomenti non valido.");
+        RegisterExporter.Kind[] kinds = new RegisterExporter.Kind[args.length / 2];
+        for (int i = 0; i < kinds.length; i++) {
+            try {
+                kinds[i] = RegisterExporter.Kind.forLabel(args[1 + 2 * i]);
+            } catch (IllegalArgumentException ex) {
+                usage(ex.getMessage());
+            }
+        }
+
+        try {
+            Library library = LibraryJournal.read(Paths.get(args[0]), null);
+            RegisterExporter exporter = RegisterExporter.of(library);
+            for (int i = 0; i < kinds.length; i++) {
+                Path target = Paths.get(args[2 + 2 * i]);
+                long rows = exporter.export(kinds[i], target);
+                System.out.printf("%s: %,d righe esportate in %s%n", kinds[i].getLabel(), rows, target);
+            }
+        } catch (IOException ex) {
+            System.err.println("Esportazione non riuscita: " + ex);
+            System.exit(2);
+        }
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Uso: ExportTool <biblioteca> <studenti|libri|prestiti> <file.csv|file.jsonl> [<registro> <file>]...");
+        System.exit(1);
+    }
+}
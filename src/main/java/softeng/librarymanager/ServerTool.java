@@ -0,0 +1,82 @@
+/**
+ * @file ServerTool.java
+ * @brief Avvio del servizio HTTP della biblioteca da riga di comando, senza interfaccia grafica.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager
+ */
+
+package softeng.librarymanager;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import softeng.librarymanager.models.LibraryJournal;
+import softeng.librarymanager.server.LibraryServer;
+
+/**
+ * @class ServerTool
+ * @brief Punto di ingresso alternativo che espone un file di biblioteca tramite {@link LibraryServer}.
+ * @details Uso: {@code ServerTool <biblioteca> [porta]} (porta predefinita {@value #DEFAULT_PORT}).
+ *          La biblioteca viene aperta con il journal, come nell'interfaccia grafica: prestiti e restituzioni sono
+ *          registrati sul disco man mano che avvengono, e alla terminazione del processo il servizio viene arrestato
+ *          e il journal sincronizzato e chiuso. Il file non deve essere aperto contemporaneamente dall'applicazione.
+ *
+ *          Se non è indicata all'avvio della JVM, viene impostata la proprietà di sistema {@value #NODELAY_PROPERTY}:
+ *          il server HTTP del JDK scrive intestazioni e corpo della risposta in due segmenti TCP e, con l'algoritmo di
+ *          Nagle, il secondo attende l'ACK del primo, che il client ritarda fino a 40 ms. La proprietà vale per tutti i
+ *          server HTTP del JDK creati nel processo, per questo è impostata qui e non dal servizio.
+ * @see LibraryServer
+ */
+public final class ServerTool {
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private ServerTool() {
+    }
+
+    /**
+     * @brief Avvia il servizio e resta in ascolto fino alla terminazione del processo.
+     * @param[in] args Il file della biblioteca, seguito facoltativamente dalla porta.
+     * @post In caso di argomenti non validi o di errore di lettura il processo termina con stato 1 (uso) o 2 (I/O).
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) usage("Numero di argomenti non valido.");
+        int port = DEFAULT_PORT;
+        if (args.length == 2) {
+            try {
+                port = Integer.parseInt(args[1]);
+                if (port < 0 || port > 65535) usage("Porta non valida: " + args[1]);
+            } catch (NumberFormatException ex) {
+                usage("Porta non valida: " + args[1]);
+            }
+        }
+
+        // Letta alla creazione del primo server HTTP del processo
+        if (System.getProperty(NODELAY_PROPERTY) == null) System.setProperty(NODELAY_PROPERTY, "true");
+        try {
+            LibraryJournal journal = LibraryJournal.open(Paths.get(args[0]));
+            LibraryServer server = LibraryServer.start(journal.getLibrary(), new InetSocketAddress(port));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                try {
+                    journal.sync();
+                    journal.close();
+                } catch (IOException ex) {
+                    System.err.println("Salvataggio non riuscito: " + ex);
+                }
+            }, "library-server-shutdown"));
+            System.out.printf("Biblioteca %s disponibile sulla porta %d%n", journal.getPath(), server.getPort());
+        } catch (IOException ex) {
+            System.err.println("Avvio non riuscito: " + ex);
+            System.exit(2);
+        }
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Uso: ServerTool <biblioteca> [porta]");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * @file DebouncedSearch.java
+ * @brief Esecuzione in background delle ricerche sulle tabelle dei registri.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.controllers
+ */
+
+package softeng.librarymanager.controllers;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.Platform;
+
+/**
+ * @class DebouncedSearch
+ * @brief Esegue le ricerche digitate nella barra di ricerca fuori dal JavaFX Application Thread.
+ * @details Ogni richiesta viene ritardata di un breve intervallo (debounce): se nel frattempo arriva una nuova
+ *          richiesta, la precedente viene annullata, anche se già in esecuzione. Il risultato viene pubblicato
+ *          sul JavaFX Application Thread solo se appartiene all'ultima richiesta effettuata, così che la tabella
+ *          non mostri mai i risultati di una query superata.
+ *          Per ogni query pubblicata viene registrata la latenza (dalla richiesta alla pubblicazione) e il tempo
+ *          di esecuzione della ricerca, consultabili tramite {@link #getLastLatencyNanos()} e il logger della classe.
+ * @tparam T Il tipo di elemento mostrato nella tabella.
+ */
+public class DebouncedSearch<T> {
+
+    /**
+     * @brief Ritardo applicato alle richieste generate dalla digitazione.
+     */
+    public static final long DEBOUNCE_MILLIS = 150;
+
+    private static final Logger LOGGER = Logger.getLogger(DebouncedSearch.class.getName());
+
+    /**
+     * @brief Esecutore condiviso dalle tabelle: un solo thread demone, così che le ricerche non si sovrappongano.
+     */
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "register-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Consumer<List<T>> publisher;
+    private long generation; ///< @brief Numero dell'ultima richiesta, accessibile solo dal JavaFX Application Thread.
+    private Future<?> pending;
+    private volatile long lastLatencyNanos = -1;
+
+    /**
+     * @brief Costruttore.
+     * @param[in] publisher Azione che mostra i risultati, eseguita sul JavaFX Application Thread.
+     */
+    public DebouncedSearch(Consumer<List<T>> publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * @brief Richiede una ricerca dopo l'intervallo di debounce, annullando quella ancora in corso.
+     * @param[in] query Il testo cercato.
+     * @param[in] search La ricerca da eseguire in background; non deve accedere ai componenti grafici.
+     * @pre Il metodo deve essere invocato dal JavaFX Application Thread.
+     */
+    public void request(String query, Function<? super String, List<T>> search) {
+        schedule(query, search, DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * @brief Richiede una ricerca immediata (es. dopo una modifica del registro), annullando quella ancora in corso.
+     * @param[in] query Il testo cercato.
+     * @param[in] search La ricerca da eseguire in background; non deve accedere ai componenti grafici.
+     * @pre Il metodo deve essere invocato dal JavaFX Application Thread.
+     */
+    public void requestNow(String query, Function<? super String, List<T>> search) {
+        schedule(query, search, 0);
+    }
+
+    /**
+     * @brief Annulla la ricerca in corso, così che il suo risultato non venga pubblicato.
+     * @details Da invocare quando la tabella viene aggiornata in altro modo (es. mostrando l'intero registro).
+     * @pre Il metodo deve essere invocato dal JavaFX Application Thread.
+     */
+    public void cancel() {
+        generation++;
+        if (pending != null) pending.cancel(true);
+        pending = null;
+    }
+
+    /**
+     * @brief Restituisce la latenza dell'ultima query pubblicata.
+     * @return long Nanosecondi trascorsi tra la richiesta e la pubblicazione del risultato, -1 se nessuna query è stata pubblicata.
+     */
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    private void schedule(String query, Function<? super String, List<T>> search, long delayMillis) {
+        cancel();
+        final long requestGeneration = generation;
+        final long requestedAt = System.nanoTime();
+
+        pending = EXECUTOR.schedule(() -> {
+            long startedAt = System.nanoTime();
+            List<T> result;
+            try {
+                result = search.apply(query == null ? "" : query);
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.SEVERE, "Ricerca \"" + query + "\" non riuscita", ex);
+                return;
+            }
+            long searchNanos = System.nanoTime() - startedAt;
+            if (Thread.currentThread().isInterrupted()) return;
+
+            Platform.runLater(() -> {
+                if (requestGeneration != generation) return;
+                publisher.accept(result);
+                lastLatencyNanos = System.nanoTime() - requestedAt;
+                LOGGER.log(Level.FINE, "Ricerca \"{0}\": {1} risultati, ricerca {2} us, latenza {3} us",
+                        new Object[]{query, result.size(), searchNanos / 1_000, lastLatencyNanos / 1_000});
+            });
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
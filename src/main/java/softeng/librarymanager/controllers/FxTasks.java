@@ -0,0 +1,45 @@
+/**
+ * @file FxTasks.java
+ * @brief Consegna sul JavaFX Application Thread dei risultati delle operazioni in background.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.controllers
+ */
+
+package softeng.librarymanager.controllers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import javafx.application.Platform;
+import softeng.librarymanager.models.BlockingTasks;
+
+/**
+ * @class FxTasks
+ * @brief Riporta sul JavaFX Application Thread, tramite Platform.runLater, l'esito delle operazioni bloccanti
+ *        avviate dai controller.
+ * @details Le operazioni vengono eseguite sugli esecutori condivisi di {@link BlockingTasks}, mai su thread creati dai
+ *          controller; l'azione di completamento riceve il risultato oppure l'eccezione originale, senza l'involucro
+ *          CompletionException aggiunto da CompletableFuture.
+ */
+public final class FxTasks {
+
+    private FxTasks() {
+    }
+
+    /**
+     * @brief Consegna sul JavaFX Application Thread l'esito di un'operazione già avviata.
+     * @param[in] future Il completamento dell'operazione.
+     * @param[in] done L'azione che riceve il risultato (o null) e l'eccezione (o null).
+     * @return CompletableFuture Lo stesso future ricevuto.
+     */
+    public static <T> CompletableFuture<T> onFxThread(CompletableFuture<T> future, BiConsumer<? super T, ? super Throwable> done) {
+        future.whenComplete((result, ex) -> Platform.runLater(() -> done.accept(result, unwrap(ex))));
+        return future;
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        while (ex instanceof CompletionException && ex.getCause() != null) ex = ex.getCause();
+        return ex;
+    }
+}
@@ -7,33 +7,80 @@
  */
 package softeng.librarymanager.controllers;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
+import javafx.scene.control.ProgressBar;
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
+import softeng.librarymanager.models.BlockingTasks;
 import softeng.librarymanager.models.Library;
 import softeng.librarymanager.models.LibraryIOManager;
+import softeng.librarymanager.models.LoanRegister;
+import softeng.librarymanager.models.ProgressListener;
+import softeng.librarymanager.models.RegisterExporter;
+import softeng.librarymanager.models.RegisterImporter;
+import softeng.librarymanager.models.ReminderOutbox;
+import softeng.librarymanager.models.ReminderScheduler;
 import javafx.scene.control.Alert;
 import java.io.File;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * @class MenuBarController
  * @brief Classe controller che gestisce le operazioni della barra dei menu (File I/O).
  * @details Questa classe è responsabile della gestione del ciclo di vita dei file della libreria.
- * Gestisce l'apertura, il salvataggio e la chiusura dei file di libreria (.obj) interagendo
- * con il {@link LibraryIOManager}. Inoltre, notifica il controller principale tramite
+ * Gestisce l'apertura, il salvataggio e la chiusura dei file di libreria (.lms, in formato snapshot) interagendo
+ * con il {@link LibraryIOManager}; possono essere aperti anche i file .obj salvati dalla prima versione, che vengono
+ * riscritti in formato snapshot al primo salvataggio. Inoltre, notifica il controller principale tramite
  * l'interfaccia {@link Refresh} quando viene caricata una nuova libreria.
+ * Permette inoltre di importare studenti e libri da file CSV/TSV tramite {@link RegisterImporter} e di esportare
+ * i registri in file CSV o JSON Lines tramite {@link RegisterExporter}.
+ * Salvataggi, caricamenti, importazioni, esportazioni e chiusure vengono eseguiti in background sugli esecutori di
+ * {@link BlockingTasks}, con l'esito riportato sul JavaFX Application Thread da {@link FxTasks}: durante l'operazione
+ * il menu File è disabilitato e la barra dei menu ne mostra l'avanzamento, mentre le tabelle restano utilizzabili.
+ * Le finestre di selezione dei file restano sul JavaFX Application Thread, come richiesto da JavaFX.
+ * Se abilitato con la proprietà di sistema {@link #REMINDERS_PROPERTY}, per la biblioteca associata a un file viene
+ * avviato un {@link ReminderScheduler}, che accoda i promemoria di scadenza dei prestiti nel file
+ * "<biblioteca>.promemoria.jsonl"; in modo predefinito non viene creato alcun file accanto alla biblioteca.
  */
 public class MenuBarController implements ResultActions {
 
+    private static final Logger LOGGER = Logger.getLogger(MenuBarController.class.getName());
+
+    /**
+     * @brief Proprietà di sistema che abilita l'accodamento dei promemoria su file (es. -Dlibrarymanager.reminders=true).
+     */
+    public static final String REMINDERS_PROPERTY = "librarymanager.reminders";
+
+    /**
+     * @brief Giorni di anticipo con cui vengono segnalati i prestiti in scadenza.
+     */
+    private static final int REMINDER_LEAD_DAYS = 3;
+
     @FXML
     private MenuBar menuBar;
 
+    @FXML
+    private Menu fileMenu;
+
+    @FXML
+    private Menu progressMenu;
+
+    @FXML
+    private ProgressBar progressBar;
+
     private LibraryIOManager libraryIOManager;
     private String defaultSavePath;
     private Refresh mainRefresher;
     private Library library;
+    private ReminderScheduler reminders;
+    private String remindersPath;
 
     /**
      * @brief Metodo di inizializzazione del controller.
@@ -68,17 +115,27 @@ public class MenuBarController implements ResultActions {
     private void openFile(ActionEvent event) {
         File selectedFile = fileSelection(true);
         if (selectedFile != null) {
-            this.defaultSavePath = selectedFile.getAbsolutePath();
-            Library loaded = libraryIOManager.loadLibrary(this.defaultSavePath);
-            if (loaded != null) {
+            String path = selectedFile.getAbsolutePath();
+            ProgressTracker tracker = startProgress("Apertura", selectedFile.length(), 0);
+            FxTasks.onFxThread(libraryIOManager.loadLibraryAsync(path, tracker), (loaded, ex) -> {
+                stopProgress(tracker);
+                if (ex != null || loaded == null) {
+                    LOGGER.log(Level.SEVERE, "Caricamento non riuscito", ex);
+                    failure();
+                    return;
+                }
+                this.defaultSavePath = path;
                 this.library = loaded;
+                startReminders(path);
                 if (mainRefresher != null) mainRefresher.refresh(loaded);
-            }
+            });
         }
     }
 
     @FXML
     private void closeFile(ActionEvent event) {
+        libraryIOManager.closeLibrary();
+        stopReminders();
         this.defaultSavePath = null;
         this.library = new Library();
         if (mainRefresher != null) mainRefresher.refresh(this.library);
@@ -90,7 +147,7 @@ public class MenuBarController implements ResultActions {
             saveFileWithName(event);
         } else {
             if (library != null)
-                libraryIOManager.saveLibrary(library, defaultSavePath);
+                save(defaultSavePath);
             else
                 failure();
         }
@@ -101,15 +158,161 @@ public class MenuBarController implements ResultActions {
         File selectedFile = fileSelection(false);
         if (selectedFile != null) {
             this.defaultSavePath = selectedFile.getAbsolutePath();
-            if (library != null) libraryIOManager.saveLibrary(library, this.defaultSavePath);
+            if (library != null) save(this.defaultSavePath);
         }
         else failure();
     }
 
+    @FXML
+    private void importStudents(ActionEvent event) {
+        if (library != null) importFile("Importazione studenti", RegisterImporter.forStudents(library.getStudentRegister()));
+    }
+
+    @FXML
+    private void importBooks(ActionEvent event) {
+        if (library != null) importFile("Importazione libri", RegisterImporter.forBooks(library.getBookRegister()));
+    }
+
+    /*
+     * Il file viene letto in background, mentre gli inserimenti avvengono a gruppi sul JavaFX Application Thread.
+     */
+    private void importFile(String label, RegisterImporter<?> importer) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Selezione file da importare");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("File CSV/TSV (*.csv, *.tsv, *.txt)", "*.csv", "*.tsv", "*.txt"));
+        File selectedFile = fileChooser.showOpenDialog(menuBar.getScene() != null ? menuBar.getScene().getWindow() : null);
+        if (selectedFile == null) return;
+
+        ProgressTracker tracker = startProgress(label, selectedFile.length(), 0);
+        importer.setInsertExecutor(Platform::runLater).setProgressListener(tracker);
+        FxTasks.onFxThread(libraryIOManager.importAsync(importer, selectedFile.getAbsolutePath()), (result, ex) -> {
+            stopProgress(tracker);
+            if (ex != null) {
+                LOGGER.log(Level.SEVERE, "Importazione non riuscita", ex);
+                failure();
+                return;
+            }
+            if (mainRefresher != null) mainRefresher.refresh(library);
+            showAlert(Alert.AlertType.INFORMATION, "Esito importazione",
+                    String.format("%,d elementi importati su %,d righe.", result.getImported(), result.getRows()),
+                    result.getRejectsFile() == null ? "Nessuna riga scartata."
+                            : String.format("%,d righe scartate, riportate in %s", result.getRejected(), result.getRejectsFile()));
+        });
+    }
+
+    @FXML
+    private void exportStudents(ActionEvent event) {
+        exportRegister("Esportazione studenti", RegisterExporter.Kind.STUDENTS);
+    }
+
+    @FXML
+    private void exportBooks(ActionEvent event) {
+        exportRegister("Esportazione libri", RegisterExporter.Kind.BOOKS);
+    }
+
+    @FXML
+    private void exportLoans(ActionEvent event) {
+        exportRegister("Esportazione prestiti", RegisterExporter.Kind.LOANS);
+    }
+
+    /*
+     * La copia dei dati avviene subito, la scrittura del file in background.
+     */
+    private void exportRegister(String label, RegisterExporter.Kind kind) {
+        if (library == null) return;
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Selezione file di esportazione");
+        fileChooser.setInitialFileName(kind.getLabel() + ".csv");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("File CSV (*.csv)", "*.csv"),
+                new FileChooser.ExtensionFilter("File JSON Lines (*.jsonl)", "*.jsonl"));
+        File selectedFile = fileChooser.showSaveDialog(menuBar.getScene() != null ? menuBar.getScene().getWindow() : null);
+        if (selectedFile == null) return;
+
+        RegisterExporter exporter = RegisterExporter.of(library);
+        ProgressTracker tracker = startProgress(label, 0, exporter.size(kind));
+        exporter.setProgressListener(tracker);
+        FxTasks.onFxThread(libraryIOManager.exportAsync(exporter, kind, selectedFile.getAbsolutePath()), (rows, ex) -> {
+            stopProgress(tracker);
+            if (ex != null) {
+                LOGGER.log(Level.SEVERE, "Esportazione non riuscita", ex);
+                failure();
+                return;
+            }
+            showAlert(Alert.AlertType.INFORMATION, "Esito esportazione",
+                    String.format("%,d elementi esportati.", rows), selectedFile.getAbsolutePath());
+        });
+    }
+
+    /*
+     * Avvia il salvataggio in background: la copia dei dati avviene subito, quindi la biblioteca resta modificabile.
+     */
+    private void save(String path) {
+        long records = (long) library.getStudentRegister().getRegisterList().size()
+                + library.getBookRegister().getRegisterList().size()
+                + library.getLoanRegister().getRegisterList().size();
+        ProgressTracker tracker = startProgress("Salvataggio", 0, records);
+        FxTasks.onFxThread(libraryIOManager.saveLibraryAsync(library, path, tracker), (ignored, ex) -> {
+            stopProgress(tracker);
+            if (ex != null) {
+                LOGGER.log(Level.SEVERE, "Salvataggio non riuscito", ex);
+                failure();
+            } else {
+                if (!path.equals(remindersPath)) startReminders(path);
+                success();
+            }
+        });
+    }
+
+    /*
+     * I promemoria della biblioteca aperta vengono accodati accanto al file della biblioteca, solo se richiesto.
+     */
+    private void startReminders(String path) {
+        stopReminders();
+        if (!Boolean.getBoolean(REMINDERS_PROPERTY)) return;
+        reminders = new ReminderScheduler((LoanRegister) library.getLoanRegister(),
+                new ReminderOutbox(Paths.get(path + ".promemoria.jsonl")), REMINDER_LEAD_DAYS);
+        remindersPath = path;
+        reminders.start();
+    }
+
+    /*
+     * La chiusura attende la conclusione di una consegna in corso: avviene in background.
+     */
+    private void stopReminders() {
+        if (reminders == null) return;
+        ReminderScheduler closing = reminders;
+        BlockingTasks.blocking().execute(closing::close);
+        reminders = null;
+        remindersPath = null;
+    }
+
+    /*
+     * Mostra l'avanzamento nella barra dei menu e disabilita il menu File fino alla conclusione dell'operazione.
+     */
+    private ProgressTracker startProgress(String label, long totalBytes, long totalRecords) {
+        ProgressTracker tracker = new ProgressTracker(label, totalBytes, totalRecords);
+        fileMenu.setDisable(true);
+        progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        progressMenu.setText(label + "...");
+        progressMenu.setVisible(true);
+        return tracker;
+    }
+
+    private void stopProgress(ProgressTracker tracker) {
+        tracker.stopped = true;
+        fileMenu.setDisable(false);
+        progressMenu.setVisible(false);
+    }
+
     private File fileSelection(boolean openFile) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Selezione file");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("File Libreria (*.obj)", "*.obj"));
+        if (openFile) {
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("File Libreria (*.lms, *.obj)", "*.lms", "*.obj"));
+        } else {
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("File Libreria (*.lms)", "*.lms"));
+        }
 
         Window window = (menuBar.getScene() != null) ? menuBar.getScene().getWindow() : null;
 
@@ -136,6 +339,43 @@ public class MenuBarController implements ResultActions {
         showAlert(Alert.AlertType.INFORMATION,"Esito operazione", "Operazione completata con successo!", "La Libreria è stata correttamente salvata.");
     }
 
+    /**
+     * @brief Riporta sul JavaFX Application Thread l'avanzamento notificato dal thread di I/O.
+     * @details Le notifiche ravvicinate vengono accorpate: finché un aggiornamento è in attesa di essere eseguito
+     *          ne viene aggiornato soltanto il valore, senza accodarne altri.
+     */
+    private final class ProgressTracker implements ProgressListener {
+        private final String label;
+        private final long totalBytes;
+        private final long totalRecords;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long bytes;
+        private volatile long records;
+        private boolean stopped; ///< @brief Accessibile solo dal JavaFX Application Thread.
+
+        private ProgressTracker(String label, long totalBytes, long totalRecords) {
+            this.label = label;
+            this.totalBytes = totalBytes;
+            this.totalRecords = totalRecords;
+        }
+
+        @Override
+        public void progress(long bytes, long records) {
+            this.bytes = bytes;
+            this.records = records;
+            if (scheduled.compareAndSet(false, true)) Platform.runLater(this::update);
+        }
+
+        private void update() {
+            scheduled.set(false);
+            if (stopped) return;
+            long currentBytes = bytes, currentRecords = records;
+            if (totalBytes > 0) progressBar.setProgress(Math.min(1.0, (double) currentBytes / totalBytes));
+            else if (totalRecords > 0) progressBar.setProgress(Math.min(1.0, (double) currentRecords / totalRecords));
+            progressMenu.setText(String.format("%s: %,d record, %,d KB", label, currentRecords, currentBytes / 1024));
+        }
+    }
+
     private void showAlert(Alert.AlertType type, String title, String header, String content) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
@@ -0,0 +1,63 @@
+/**
+ * @file RefiningSearch.java
+ * @brief Cache dell'ultima ricerca effettuata su un registro, per raffinare le query che si allungano.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.controllers
+ */
+
+package softeng.librarymanager.controllers;
+
+import java.util.List;
+import java.util.function.Function;
+import softeng.librarymanager.models.Register;
+
+/**
+ * @class RefiningSearch
+ * @brief Esegue le ricerche su un registro riutilizzando il risultato della query precedente.
+ * @details Durante la digitazione la query tipicamente si allunga ("ros", "ross", "rossi"): ogni parola della
+ *          nuova query estende quella precedente, quindi i risultati sono un sottoinsieme di quelli già trovati
+ *          e basta filtrarli. Se la query si accorcia o cambia, oppure se il registro è stato modificato nel
+ *          frattempo, la ricerca torna all'indice del registro.
+ * @tparam T Il tipo di elemento contenuto nel registro.
+ */
+public class RefiningSearch<T> implements Function<String, List<T>> {
+
+    private final Register<T> register;
+    private String lastQuery;
+    private List<T> lastResult;
+    private long lastModificationCount;
+
+    /**
+     * @brief Costruttore.
+     * @param[in] register Il registro su cui effettuare le ricerche.
+     */
+    public RefiningSearch(Register<T> register) {
+        this.register = register;
+    }
+
+    /**
+     * @brief Cerca gli elementi del registro corrispondenti alla query.
+     * @param[in] query Il testo cercato.
+     * @return Una nuova lista, nell'ordine del registro, degli elementi corrispondenti.
+     */
+    @Override
+    public synchronized List<T> apply(String query) {
+        long modificationCount = register.getModificationCount();
+        List<T> result;
+        if (refinesLastQuery(query) && modificationCount == lastModificationCount)
+            result = register.search(query, lastResult);
+        else
+            result = register.search(query);
+
+        lastQuery = query;
+        lastResult = result;
+        lastModificationCount = modificationCount;
+        return result;
+    }
+
+    private boolean refinesLastQuery(String query) {
+        // Una query vuota corrisponde all'intero registro: filtrarlo costerebbe più che consultare l'indice
+        return lastResult != null && !lastQuery.trim().isEmpty() && query.startsWith(lastQuery);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * @file TableItems.java
+ * @brief Collegamento delle tabelle alle viste dei registri senza copiarle.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.controllers
+ */
+
+package softeng.librarymanager.controllers;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.TableView;
+
+/**
+ * @class TableItems
+ * @brief Mostra in una TableView una lista del modello (vista del registro o risultato di una ricerca).
+ * @details Finché l'utente non ordina la tabella per colonna, la lista viene mostrata tramite un adattatore in sola
+ *          lettura che ne legge gli elementi su richiesta: l'aggiornamento della tabella costa O(1) più le sole righe
+ *          visibili, anche per i registri di grandi dimensioni. Con un ordinamento per colonna attivo, la lista viene
+ *          copiata e ordinata, perché la vista del registro non può essere riordinata. L'adattatore fissa il numero
+ *          di righe al momento di setAll(): gli elementi inseriti in seguito (es. dai gruppi di un'importazione)
+ *          compaiono alla successiva invocazione, senza che la tabella legga un numero di righe diverso da quello
+ *          che conosce.
+ * @tparam T Il tipo di elemento mostrato nella tabella.
+ * @note La lista mostrata va letta sul JavaFX Application Thread, come la vista restituita da getRegisterList().
+ */
+public class TableItems<T> {
+
+    private final TableView<T> table;
+    private List<T> source = Collections.emptyList();
+
+    /**
+     * @brief Costruttore.
+     * @param[in] table La tabella da aggiornare; la sua politica di ordinamento viene sostituita.
+     */
+    public TableItems(TableView<T> table) {
+        this.table = table;
+        table.setSortPolicy(view -> {
+            show();
+            return true;
+        });
+    }
+
+    /**
+     * @brief Mostra nella tabella gli elementi indicati, nell'ordine ricevuto o in quello scelto dall'utente.
+     * @param[in] items Gli elementi da mostrare; la lista non viene copiata.
+     * @pre Il metodo deve essere invocato dal JavaFX Application Thread.
+     */
+    public void setAll(List<T> items) {
+        source = items;
+        show();
+        table.refresh();
+    }
+
+    private void show() {
+        Comparator<T> comparator = table.getComparator();
+        if (comparator == null) {
+            table.setItems(new ReadOnlyItems<>(source));
+            return;
+        }
+        ObservableList<T> sorted = FXCollections.observableArrayList(source);
+        FXCollections.sort(sorted, comparator);
+        table.setItems(sorted);
+    }
+
+    /*
+     * Adattatore in sola lettura: non genera eventi, la tabella rilegge gli elementi a ogni nuovo adattatore.
+     * La dimensione viene fissata alla creazione, perché la tabella ne conserva il valore finché non riceve un
+     * evento: le liste mostrate vengono solo estese tra due setAll(), quindi le righe fissate restano leggibili.
+     */
+    private static final class ReadOnlyItems<T> extends ObservableListBase<T> {
+        private final List<T> items;
+        private final int size;
+
+        private ReadOnlyItems(List<T> items) {
+            this.items = items;
+            this.size = items.size();
+        }
+
+        @Override
+        public T get(int index) {
+            return items.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -13,8 +13,6 @@ import java.util.Optional;
 import javafx.beans.binding.Binding;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -26,7 +24,10 @@ import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import softeng.librarymanager.controllers.DebouncedSearch;
+import softeng.librarymanager.controllers.RefiningSearch;
 import softeng.librarymanager.controllers.SideBarController;
+import softeng.librarymanager.controllers.TableItems;
 import softeng.librarymanager.models.Book;
 import softeng.librarymanager.models.Register;
 
@@ -61,12 +62,19 @@ public class BookRegisterController {
 
     private final Register<Book> bookRegister;
 
+    private TableItems<Book> bookItems;
+
+    private final DebouncedSearch<Book> bookSearch = new DebouncedSearch<>(books -> bookItems.setAll(books));
+
+    private final RefiningSearch<Book> bookQueries;
+
     /**
      * @brief Costruttore del controller.
      * @param[in] bookRegister L'istanza del registro libri.
      */
     public BookRegisterController(Register<Book> bookRegister) {
         this.bookRegister = bookRegister;
+        this.bookQueries = new RefiningSearch<>(bookRegister);
     }
 
     /**
@@ -77,11 +85,12 @@ public class BookRegisterController {
      */
     @FXML
     public void initialize() {
+        bookItems = new TableItems<>(bookTable);
         updateTableView();
 
         // Configurazione Colonne:
         titleClm.setCellValueFactory(row -> new SimpleStringProperty(row.getValue().getTitle()));
-        authorsClm.setCellValueFactory(row -> new SimpleStringProperty(String.join(", ", row.getValue().getAuthors())));
+        authorsClm.setCellValueFactory(row -> new SimpleStringProperty(row.getValue().getAuthorsText()));
         publishmentYearClm
                 .setCellValueFactory(row -> new SimpleIntegerProperty(row.getValue().getPublishmentYear()).asObject());
         bookIdClm.setCellValueFactory(row -> new SimpleStringProperty(row.getValue().getBookId()));
@@ -198,27 +207,16 @@ public class BookRegisterController {
             return;
         }
 
-        ObservableList<Book> allBooks = FXCollections.observableArrayList(bookRegister.getRegisterList());
-        String lowerCaseSearchText = searchText.toLowerCase();
-        ObservableList<Book> filteredBooks = FXCollections.observableArrayList();
-
-        for (Book book : allBooks) {
-            // Cerca per Titolo, Autore o ISBN
-            if (book.getTitle().toLowerCase().contains(lowerCaseSearchText) ||
-                    String.join(", ", book.getAuthors()).toLowerCase().contains(lowerCaseSearchText) ||
-                    book.getBookId().toLowerCase().contains(lowerCaseSearchText)) {
-                filteredBooks.add(book);
-            }
-        }
-        bookTable.setItems(filteredBooks);
+        // Cerca per Titolo, Autore o ISBN tramite l'indice del registro, fuori dal JavaFX Application Thread
+        bookSearch.request(searchText, bookQueries);
     }
 
     /**
      * @brief Aggiorna la TableView con i dati attuali del registro.
      */
     public void updateTableView() {
-        bookTable.setItems(FXCollections.observableArrayList(bookRegister.getRegisterList()));
-        bookTable.refresh();
+        bookSearch.cancel();
+        bookItems.setAll(bookRegister.getRegisterList());
     }
 
 }
\ No newline at end of file
@@ -85,10 +85,7 @@ public class LoanInsertPopupController extends LoanPopupController {
                 if (!student.isAvailableForLoan()) return false;
                 
                 // Ricerca per nome, cognome e matricola
-                String lowerCaseSearchText = newValue.toLowerCase();
-                return student.getName().toLowerCase().contains(lowerCaseSearchText) ||
-                        student.getSurname().toLowerCase().contains(lowerCaseSearchText) ||
-                        student.getStudentId().toLowerCase().contains(lowerCaseSearchText);
+                return student.getSearchKey().contains(newValue.toLowerCase());
             });
         });
 
@@ -122,9 +119,7 @@ public class LoanInsertPopupController extends LoanPopupController {
                 //if (newValue == null || newValue.isEmpty()) return true;
                 
                 // Ricerca per nome, cognome e matricola
-                String lowerCaseSearchText = newValue.toLowerCase();
-                return book.getTitle().toLowerCase().contains(lowerCaseSearchText) ||
-                        book.getBookId().toLowerCase().contains(lowerCaseSearchText);
+                return book.getSearchKey().contains(newValue.toLowerCase());
             });
         });
 
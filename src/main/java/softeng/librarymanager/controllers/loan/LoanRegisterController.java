@@ -15,14 +15,14 @@ import javafx.scene.control.TableView;
 import softeng.librarymanager.models.Library;
 import softeng.librarymanager.models.Loan;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import javafx.collections.ObservableList;
 import javafx.beans.binding.Binding;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.BooleanBinding;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -33,7 +33,10 @@ import javafx.scene.control.ComboBox;
 import javafx.scene.control.TableRow;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import softeng.librarymanager.controllers.DebouncedSearch;
+import softeng.librarymanager.controllers.RefiningSearch;
 import softeng.librarymanager.controllers.SideBarController;
+import softeng.librarymanager.controllers.TableItems;
 
 /**
  * @class LoanRegisterController
@@ -68,6 +71,12 @@ public class LoanRegisterController {
     private ComboBox<String> filterCB;
 
     private final Library library;
+
+    private TableItems<Loan> loanItems;
+
+    private final DebouncedSearch<Loan> loanSearch = new DebouncedSearch<>(loans -> loanItems.setAll(loans));
+
+    private final RefiningSearch<Loan> loanQueries;
     
     /**
      * @brief Costruttore del controller.
@@ -75,6 +84,7 @@ public class LoanRegisterController {
      */
     public LoanRegisterController(Library library) {
         this.library = library;
+        this.loanQueries = new RefiningSearch<>(library.getLoanRegister());
     }
 
     /**
@@ -84,6 +94,8 @@ public class LoanRegisterController {
      */
     @FXML
     public void initialize() {        
+        loanItems = new TableItems<>(loanTable);
+
         // Configurazione dei colori per le righe delle tabelle se il prestito è restituito o in ritardo
         loanTable.setRowFactory(tableView -> new TableRow<Loan>() {
             @Override
@@ -114,7 +126,7 @@ public class LoanRegisterController {
         sideBarController.getRemoveBtn().setOnAction(event -> removeFromRegister());
         
         // Listener per la ricerca
-        sideBarController.getSearchBarTF().textProperty().addListener( (observable, oldValue, newValue) -> updateTableView());
+        sideBarController.getSearchBarTF().textProperty().addListener( (observable, oldValue, newValue) -> searchLoans());
         
         // Aggiunta del tasto restituisci
         Button returnBtn = sideBarController.createReturnBtn();
@@ -227,47 +239,36 @@ public class LoanRegisterController {
         }
     }
     
+    private void searchLoans() {
+        // Recupero testo ricerca e selezione combobox sul JavaFX Application Thread
+        String searchText = sideBarController.getSearchBarTF().getText();
+        String filterType = filterCB.getValue();
+
+        // Ricerca digitata: viene eseguita in background dopo una breve pausa nella digitazione
+        loanSearch.request(searchText, query -> filterLoans(query, filterType));
+    }
+
     private void updateTableView() {
-        // Recupero testo ricerca
+        // Recupero testo ricerca e selezione combobox sul JavaFX Application Thread
         String searchText = sideBarController.getSearchBarTF().getText();
-        String lowerCaseSearchText = searchText.toLowerCase();
-        
-        // Recupero selezione combobox
         String filterType = filterCB.getValue();
+
+        loanSearch.requestNow(searchText, query -> filterLoans(query, filterType));
+    }
+
+    private List<Loan> filterLoans(String searchText, String filterType) {
+        // Filtro per ricerca (Search bar): raffina il risultato precedente se la query si è allungata
+        List<Loan> matchingLoans = loanQueries.apply(searchText);
+        List<Loan> filteredLoans = new ArrayList<>();
         
-        ObservableList<Loan> allLoans = FXCollections.observableArrayList(library.getLoanRegister().getRegisterList());
-        ObservableList<Loan> filteredLoans = FXCollections.observableArrayList();
-        
-        for (Loan loan : allLoans) {
+        for (Loan loan : matchingLoans) {
             // Filtro per stato (Combobox)
             if (filterType.equals("Prestiti estinti") && !loan.isReturned()) continue;
             if (filterType.equals("Prestiti attivi") && loan.isReturned()) continue;
             
-            // Filtro per ricerca (Search bar)
-            if (lowerCaseSearchText.isEmpty()) {
-                filteredLoans.add(loan);
-                continue;
-            }
-            
-            String studentName = loan.getStudent().getName().toLowerCase();
-            String studentSurname = loan.getStudent().getSurname().toLowerCase();
-            String studentId = loan.getStudent().getStudentId();
-            String fullName = studentName + " " + studentSurname;
-            String fullNameReverse = studentSurname + " " + studentName;
-            
-            if (fullName.contains(lowerCaseSearchText) ||
-                fullNameReverse.contains(lowerCaseSearchText) ||
-                studentId.contains(lowerCaseSearchText) ||
-                loan.getBook().getTitle().toLowerCase().contains(lowerCaseSearchText) ||
-                String.join(", ", loan.getBook().getAuthors()).toLowerCase().contains(lowerCaseSearchText) ||
-                loan.getBook().getBookId().contains(lowerCaseSearchText)) {
-
-                filteredLoans.add(loan);
-            }
+            filteredLoans.add(loan);
         }
-        
-        loanTable.setItems(filteredLoans);
-        loanTable.refresh();
+        return filteredLoans;
     }
     
     private void returnLoan() {
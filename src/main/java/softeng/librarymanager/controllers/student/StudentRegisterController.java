@@ -10,8 +10,6 @@ package softeng.librarymanager.controllers.student;
 
 import javafx.beans.binding.Binding;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -27,7 +25,10 @@ import java.util.Optional;
 import javafx.beans.property.SimpleIntegerProperty;
 import softeng.librarymanager.models.Register;
 import softeng.librarymanager.models.Student;
+import softeng.librarymanager.controllers.DebouncedSearch;
+import softeng.librarymanager.controllers.RefiningSearch;
 import softeng.librarymanager.controllers.SideBarController;
+import softeng.librarymanager.controllers.TableItems;
 
 /**
  * @class StudentRegisterController
@@ -55,6 +56,12 @@ public class StudentRegisterController {
     private SideBarController sideBarController;
     
     private final Register<Student> studentRegister;
+
+    private TableItems<Student> studentItems;
+
+    private final DebouncedSearch<Student> studentSearch = new DebouncedSearch<>(students -> studentItems.setAll(students));
+
+    private final RefiningSearch<Student> studentQueries;
     
     /**
      * @brief Costruttore del controller.
@@ -62,6 +69,7 @@ public class StudentRegisterController {
      */
     public StudentRegisterController(Register<Student> studentRegister) {
         this.studentRegister = studentRegister;
+        this.studentQueries = new RefiningSearch<>(studentRegister);
     }
 
     /**
@@ -72,6 +80,7 @@ public class StudentRegisterController {
     @FXML
     public void initialize() {
         // Inizializza la tabella
+        studentItems = new TableItems<>(studentTable);
         updateTableView();
 
         // Configurazione Colonne: Usa SimpleStringProperty per avvolgere i getter della classe POJO Book
@@ -182,8 +191,8 @@ public class StudentRegisterController {
      * @brief Aggiorna la TableView con i dati attuali del registro.
      */
     public void updateTableView() {
-        studentTable.setItems(FXCollections.observableArrayList(studentRegister.getRegisterList()));
-        studentTable.refresh();
+        studentSearch.cancel();
+        studentItems.setAll(studentRegister.getRegisterList());
     }
 
     private void searchBook() {
@@ -195,24 +204,8 @@ public class StudentRegisterController {
             return;
         }
 
-        ObservableList<Student> allStudents = FXCollections.observableArrayList(studentRegister.getRegisterList());
-        String lowerCaseSearchText = searchText.toLowerCase();
-        ObservableList<Student> filteredStudents = FXCollections.observableArrayList();
-
-        for (Student student : allStudents) {
-            String studentName = student.getName().toLowerCase();
-            String studentSurname = student.getSurname().toLowerCase();
-            String studentId = student.getStudentId();
-            String fullName = studentName + " " + studentSurname;
-            String fullNameReverse = studentSurname + " " + studentName;
-                
-           if (fullName.contains(lowerCaseSearchText) ||
-                   fullNameReverse.contains(lowerCaseSearchText) ||
-                   studentId.contains(lowerCaseSearchText)) {
-               filteredStudents.add(student);
-           }
-        }
-        studentTable.setItems(filteredStudents);
+        // Cerca per Nome, Cognome, Matricola o Email tramite l'indice del registro, fuori dal JavaFX Application Thread
+        studentSearch.request(searchText, studentQueries);
     }
 
 }
@@ -0,0 +1,186 @@
+/**
+ * @file BlockingTasks.java
+ * @brief Esecutori condivisi per le operazioni bloccanti (file, rete) dell'applicazione.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * @class BlockingTasks
+ * @brief Unico livello di esecuzione per il lavoro bloccante avviato dall'interfaccia grafica e dagli strumenti.
+ * @details Ogni operazione viene eseguita su un proprio virtual thread se la JVM li supporta (Java 21 o successiva),
+ *          altrimenti su un pool di thread demone di piattaforma che crea i thread su richiesta. I virtual thread sono
+ *          ottenuti per riflessione, perché il progetto è compilato per Java 8.
+ *
+ *          Le operazioni sul disco passano da {@link #disk()}, che ne esegue al più {@link #DISK_CONCURRENCY}
+ *          contemporaneamente (proprietà di sistema {@link #DISK_CONCURRENCY_PROPERTY}) e accoda le altre in ordine
+ *          di richiesta, senza occupare thread durante l'attesa: più operazioni concorrenti sullo stesso disco
+ *          si rallenterebbero a vicenda. Le operazioni che devono avvenire nell'ordine di richiesta, come quelle sul
+ *          file della biblioteca, usano una corsia sequenziale ({@link #sequential(Executor)}) sopra {@link #disk()}.
+ * @note Le operazioni non devono accedere ai componenti grafici: i risultati vanno riportati sul JavaFX
+ *       Application Thread dal chiamante.
+ */
+public final class BlockingTasks {
+
+    /**
+     * @brief Proprietà di sistema con il numero massimo di operazioni concorrenti sul disco (es. -Dlibrarymanager.io.concurrency=4).
+     */
+    public static final String DISK_CONCURRENCY_PROPERTY = "librarymanager.io.concurrency";
+
+    /**
+     * @brief Numero massimo predefinito di operazioni concorrenti sul disco.
+     */
+    public static final int DISK_CONCURRENCY = 2;
+
+    private static final Logger LOGGER = Logger.getLogger(BlockingTasks.class.getName());
+
+    private static final ExecutorService BLOCKING = newPerTaskExecutor("library-worker-", 0);
+    private static final Executor DISK = bounded(BLOCKING, diskConcurrency());
+
+    private BlockingTasks() {
+    }
+
+    /**
+     * @brief Restituisce l'esecutore delle operazioni bloccanti che non accedono al disco (es. attese, rete).
+     * @return Executor Un esecutore senza limite di concorrenza, con un thread per operazione.
+     */
+    public static Executor blocking() {
+        return BLOCKING;
+    }
+
+    /**
+     * @brief Restituisce l'esecutore delle operazioni sul disco.
+     * @return Executor Un esecutore che esegue al più {@link #DISK_CONCURRENCY} operazioni alla volta, in ordine di richiesta.
+     */
+    public static Executor disk() {
+        return DISK;
+    }
+
+    /**
+     * @brief Crea una corsia che esegue le operazioni una alla volta, nell'ordine di richiesta, tramite l'esecutore indicato.
+     * @param[in] parent L'esecutore su cui vengono eseguite le operazioni (es. {@link #disk()}).
+     * @return Executor La corsia sequenziale.
+     */
+    public static Executor sequential(Executor parent) {
+        return bounded(parent, 1);
+    }
+
+    /**
+     * @brief Crea un esecutore con un thread per operazione, da arrestare con shutdown() al termine dell'uso.
+     * @param[in] name Il prefisso del nome dei thread.
+     * @param[in] platformThreads Il numero di thread del pool usato in assenza di virtual thread, 0 per crearli su richiesta.
+     * @return ExecutorService L'esecutore.
+     */
+    public static ExecutorService newPerTaskExecutor(String name, int platformThreads) {
+        try {
+            // Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 1).factory())
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, name, 1L);
+            ThreadFactory factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory factory = task -> {
+                Thread thread = new Thread(task, name + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return platformThreads > 0 ? Executors.newFixedThreadPool(platformThreads, factory)
+                    : Executors.newCachedThreadPool(factory);
+        }
+    }
+
+    /**
+     * @brief Crea un esecutore che esegue al più limit operazioni alla volta tramite parent.
+     * @details Le operazioni oltre il limite vengono accodate, senza occupare thread, e affidate a parent
+     *          all'uscita di una di quelle in corso.
+     * @param[in] parent L'esecutore su cui vengono eseguite le operazioni.
+     * @param[in] limit Il numero massimo di operazioni in corso.
+     * @return Executor L'esecutore limitato.
+     * @pre limit > 0
+     */
+    static Executor bounded(Executor parent, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Limite non valido: " + limit);
+        return new Bounded(parent, limit);
+    }
+
+    private static int diskConcurrency() {
+        Integer value = Integer.getInteger(DISK_CONCURRENCY_PROPERTY, DISK_CONCURRENCY);
+        if (value > 0) return value;
+        LOGGER.log(Level.WARNING, "Numero di operazioni concorrenti sul disco non valido: {0}", value);
+        return DISK_CONCURRENCY;
+    }
+
+    /*
+     * Le operazioni in attesa sono in una coda FIFO; all'uscita di un'operazione la successiva viene affidata a
+     * parent, in coda alle altre sue richieste.
+     */
+    private static final class Bounded implements Executor {
+        private final Executor parent;
+        private final int limit;
+        private final Deque<Runnable> waiting = new ArrayDeque<>();
+        private int running; ///< @brief Operazioni affidate a parent e non ancora concluse (accesso sotto il monitor).
+
+        private Bounded(Executor parent, int limit) {
+            this.parent = parent;
+            this.limit = limit;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            Objects.requireNonNull(task);
+            synchronized (this) {
+                if (running >= limit) {
+                    waiting.add(task);
+                    return;
+                }
+                running++;
+            }
+            launch(task);
+        }
+
+        private void launch(Runnable task) {
+            try {
+                parent.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        next();
+                    }
+                });
+            } catch (RuntimeException ex) {
+                next();
+                throw ex;
+            }
+        }
+
+        private void next() {
+            Runnable task;
+            synchronized (this) {
+                task = waiting.poll();
+                if (task == null) {
+                    running--;
+                    return;
+                }
+            }
+            launch(task);
+        }
+    }
+}
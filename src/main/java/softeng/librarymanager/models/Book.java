@@ -7,9 +7,13 @@
  */
 package softeng.librarymanager.models;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * @class Book
@@ -25,6 +29,11 @@ import java.util.Objects;
  */
 public class Book implements Comparable<Book>, Serializable {
 
+    /*
+     * Identico a quello della prima versione, con cui sono stati salvati i file .obj.
+     */
+    private static final long serialVersionUID = 7049644090400895914L;
+
     /**
      * @brief Titolo del libro.
      */
@@ -46,9 +55,27 @@ public class Book implements Comparable<Book>, Serializable {
     private int publishmentYear;
 
     /**
-     * @brief Numero di copie disponibili.
+     * @brief Numero di copie disponibili, aggiornato dai prestiti con operazioni atomiche (vedi tryReserveCopy()).
+     */
+    private volatile int availableCopies;
+
+    private static final AtomicIntegerFieldUpdater<Book> AVAILABLE_COPIES =
+            AtomicIntegerFieldUpdater.newUpdater(Book.class, "availableCopies");
+
+    /**
+     * @brief Autori concatenati nell'ordine di inserimento, separati da ", " (calcolato in costruzione e in copy()).
      */
-    private int availableCopies;
+    private transient String authorsText;
+
+    /**
+     * @brief Chiave di ordinamento per Titolo e Autori (calcolata in costruzione e in copy()).
+     */
+    private transient String sortKey;
+
+    /**
+     * @brief Chiave di ricerca normalizzata in minuscolo su Titolo, Autori e ISBN (calcolata in costruzione e in copy()).
+     */
+    private transient String searchKey;
 
     /**
      * @brief Costruttore parametrizzato.
@@ -68,6 +95,7 @@ public class Book implements Comparable<Book>, Serializable {
         this.publishmentYear = publishmentYear;
         this.availableCopies = availableCopies;
         if(!this.isValid()) throw new IllegalArgumentException("Impossibile creare un libro con i seguenti valori");
+        updateKeys();
     }
 
     /**
@@ -86,6 +114,34 @@ public class Book implements Comparable<Book>, Serializable {
         return this.authors;
     }
 
+    /**
+     * @brief Restituisce gli autori concatenati, separati da ", ".
+     * @return String La stringa contenente gli autori, calcolata una sola volta per ogni modifica del libro.
+     */
+    public String getAuthorsText() {
+        return this.authorsText;
+    }
+
+    /**
+     * @brief Restituisce la chiave di ordinamento per Titolo e Autori.
+     * @details Titolo e autori sono separati dal carattere nullo, così che il confronto tra chiavi
+     *          equivalga al confronto per Titolo e, a parità, per Autori.
+     * @return String La chiave di ordinamento.
+     */
+    public String getSortKey() {
+        return this.sortKey;
+    }
+
+    /**
+     * @brief Restituisce la chiave di ricerca normalizzata in minuscolo.
+     * @details Contiene Titolo, Autori e ISBN separati da '\n', così che una ricerca non possa
+     *          corrispondere a testo a cavallo di due campi.
+     * @return String La chiave di ricerca.
+     */
+    public String getSearchKey() {
+        return this.searchKey;
+    }
+
     /**
      * @brief Restituisce l'identificativo univoco.
      * @return String L'ISBN del libro.
@@ -118,7 +174,31 @@ public class Book implements Comparable<Book>, Serializable {
      */
     public void setAvailableCopies(int availableCopies) {
         if(!isAvailableCopiesValid(availableCopies)) throw new IllegalArgumentException("Impossibile impostare un numero di copie disponibili negativo");
-        this.availableCopies = availableCopies;
+        AVAILABLE_COPIES.set(this, availableCopies);
+    }
+
+    /**
+     * @brief Riserva una copia del libro per un prestito.
+     * @details Il decremento avviene con un ciclo compare-and-set, senza lock: più prestiti concorrenti dello stesso libro
+     *          non possono riservare più copie di quelle disponibili.
+     * @return boolean true se una copia è stata riservata, false se non ci sono copie disponibili.
+     * @post Se il metodo restituisce true il numero di copie disponibili è diminuito di uno.
+     */
+    public boolean tryReserveCopy() {
+        int copies;
+        do {
+            copies = this.availableCopies;
+            if (copies <= 0) return false;
+        } while (!AVAILABLE_COPIES.compareAndSet(this, copies, copies - 1));
+        return true;
+    }
+
+    /**
+     * @brief Rende di nuovo disponibile una copia riservata con tryReserveCopy().
+     * @post Il numero di copie disponibili è aumentato di uno.
+     */
+    public void releaseCopy() {
+        AVAILABLE_COPIES.incrementAndGet(this);
     }
 
     /**
@@ -126,13 +206,27 @@ public class Book implements Comparable<Book>, Serializable {
      * @param[in] newData Il libro da cui verranno prelevati i nuovi valori.
      * @details Questo metodo sostituisce i tradizionali setter, permettendo di aggiornare
      *          in un'unica chiamata i principali campi modificabili del libro (titolo, autori, anno di pubblicazione, numero di copie disponibili).
+     *          Il numero di copie viene scritto tramite lo stesso aggiornamento atomico di tryReserveCopy(): una
+     *          prenotazione concorrente ancora da confermare fallisce il proprio compare-and-set e riprova sul nuovo valore.
      * @post I campi modificabili del libro sono aggiornati con quelli del libro specificato
      */
     public void copy(Book newData){
         this.title = newData.getTitle();
         this.authors = newData.getAuthors();
         this.publishmentYear = newData.getPublishmentYear();
-        this.availableCopies = newData.getAvailableCopies();
+        AVAILABLE_COPIES.set(this, newData.getAvailableCopies());
+        updateKeys();
+    }
+
+    private void updateKeys() {
+        this.authorsText = String.join(", ", authors);
+        this.sortKey = title + '\u0000' + authorsText;
+        this.searchKey = (title + '\n' + authorsText + '\n' + bookId).toLowerCase(Locale.ROOT);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        updateKeys();
     }
 
     /**
@@ -7,27 +7,66 @@
  */
 package softeng.librarymanager.models;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 
 
 /**
  * @brief Implementa un catalogo libri e le funzionalità per la sua gestione.
  * @details Questa classe fornisce metodi per l'aggiunta, la rimozione, la modifica e la verifica dell'univocità di un libro.
  * Inoltre, fornisce un metodo per la restituzione del catalogo come lista ordinata.
+ * L'accesso è regolato da un lock di lettura/scrittura: ricerche e consultazioni possono essere eseguite in parallelo
+ * da più thread (es. ricerche in background, salvataggi), mentre le modifiche sono eseguite in modo esclusivo e
+ * notificano gli osservatori prima di rilasciare il lock.
  * @see Register
  * @see Book
  * @invariant bookRegister != null
  */
 public class BookRegister implements Register<Book>, Serializable {
 
-    private Set<Book> bookRegister; ///< @brief Struttura dati interna per la memorizzazione del catalogo.
+    private static final long serialVersionUID = 8803254569602259845L;
+
+    /*
+     * Forma serializzata della prima versione, in cui il catalogo era un insieme ordinato: i file .obj salvati da
+     * quella versione restano leggibili, e viceversa. La mappa e le strutture di visualizzazione sono ricostruite
+     * alla lettura.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("bookRegister", Set.class)
+    };
+
+    /**
+     * @brief Ordinamento di visualizzazione: Titolo, Autori e, a parità, bookId.
+     */
+    private static final Comparator<Book> DISPLAY_ORDER = Comparator.comparing(Book::getSortKey).
+            thenComparing(Book::getBookId);
+
+    private transient Map<String, Book> bookRegister; ///< @brief Struttura dati interna per la memorizzazione del catalogo, indicizzata per bookId.
+
+    private transient SortedView<Book> sortedBooks; ///< @brief Catalogo mantenuto nell'ordine di visualizzazione.
+
+    private transient SearchIndex<Book> searchIndex; ///< @brief Indice invertito su Titolo, Autori e ISBN.
+
+    private transient ReentrantReadWriteLock lock; ///< @brief Lock condiviso dalle letture ed esclusivo per le modifiche.
+
+    private transient List<RegisterListener<Book>> listeners; ///< @brief Osservatori notificati ad ogni modifica del catalogo.
+
+    private transient long modificationCount; ///< @brief Numero di modifiche subite dal catalogo dall'apertura.
 
     /**
      * @post Il catalogo libri è correttamente inizializzato ed è vuoto.
      */
     public BookRegister() {
-        this.bookRegister = new TreeSet<>();
+        this.bookRegister = new TreeMap<>();
+        initIndexes();
     }
 
     /**
@@ -40,7 +79,16 @@ public class BookRegister implements Register<Book>, Serializable {
      */
     @Override
     public void add(Book toAdd) {
-        bookRegister.add(toAdd);
+        lock.writeLock().lock();
+        try {
+            bookRegister.put(toAdd.getBookId(), toAdd);
+            sortedBooks.add(toAdd);
+            searchIndex.add(toAdd);
+            modificationCount++;
+            for (RegisterListener<Book> listener : listeners) listener.added(toAdd);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -55,10 +103,49 @@ public class BookRegister implements Register<Book>, Serializable {
      */
     @Override
     public void modify(Book old, Book newObj) {
-        for(Book book : bookRegister)
-            if(book.equals(old)){
-                book.copy(newObj);
-            }
+        modifyById(old.getBookId(), newObj);
+    }
+
+    /**
+     * @brief Modifica i dati del libro avente il bookId specificato.
+     * @details Il libro viene individuato tramite l'indice della chiave primaria in tempo O(log n).
+     * @param[in] id Il bookId del libro da modificare.
+     * @param[in] newObj Libro contenente i nuovi dati aggiornati.
+     * @return true se il libro è presente nel catalogo ed è stato modificato, false altrimenti.
+     * @pre newObj != null
+     * @post Se presente, i dati del libro specificato sono aggiornati con quelli di 'newObj'.
+     */
+    @Override
+    public boolean modifyById(String id, Book newObj) {
+        lock.writeLock().lock();
+        try {
+            Book book = bookRegister.get(id);
+            if (book == null) return false;
+            sortedBooks.remove(book);
+            book.copy(newObj);
+            sortedBooks.add(book);
+            searchIndex.update(book);
+            modificationCount++;
+            for (RegisterListener<Book> listener : listeners) listener.modified(book);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Cerca un libro tramite il suo bookId.
+     * @param[in] id Il bookId del libro cercato.
+     * @return Il libro avente il bookId specificato, null se non è presente nel catalogo.
+     */
+    @Override
+    public Book findById(String id) {
+        lock.readLock().lock();
+        try {
+            return bookRegister.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -69,7 +156,137 @@ public class BookRegister implements Register<Book>, Serializable {
      */
     @Override
     public void remove(Book toRemove) {
-        bookRegister.remove(toRemove);
+        lock.writeLock().lock();
+        try {
+            Book removed = bookRegister.remove(toRemove.getBookId());
+            if (removed == null) return;
+            sortedBooks.remove(removed);
+            searchIndex.remove(removed);
+            modificationCount++;
+            for (RegisterListener<Book> listener : listeners) listener.removed(removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Aggiunge un gruppo di libri al catalogo.
+     * @details Le strutture di visualizzazione vengono aggiornate in un solo passaggio e gli osservatori notificati una sola volta.
+     * @param[in] toAdd I libri da aggiungere al catalogo.
+     * @pre Ogni elemento di toAdd rispetta le precondizioni di add() e i bookId sono distinti.
+     * @post I libri specificati sono presenti nel catalogo.
+     */
+    @Override
+    public void addAll(Collection<? extends Book> toAdd) {
+        lock.writeLock().lock();
+        try {
+            if (toAdd.isEmpty()) return;
+            for (Book book : toAdd) {
+                bookRegister.put(book.getBookId(), book);
+                searchIndex.add(book);
+            }
+            sortedBooks.addAll(toAdd);
+            modificationCount++;
+            for (RegisterListener<Book> listener : listeners) listener.addedAll(toAdd);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Aggiunge i libri non duplicati di un gruppo.
+     * @details Le verifiche e l'inserimento avvengono sotto il lock in scrittura, quindi nessun altro thread può aggiungere nel frattempo un elemento con lo stesso identificativo.
+     * @param[in] toAdd I libri da aggiungere.
+     * @return List<Book> I libri scartati perché duplicati.
+     */
+    @Override
+    public List<Book> addAllUnique(Collection<? extends Book> toAdd) {
+        lock.writeLock().lock();
+        try {
+            List<Book> rejected = new ArrayList<>();
+            Set<Book> unique = new LinkedHashSet<>(toAdd.size() * 2);
+            for (Book item : toAdd)
+                if (!isUnique(item) || !unique.add(item)) rejected.add(item);
+            addAll(unique);
+            return rejected;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Modifica i dati dei libri aventi i bookId specificati.
+     * @details Come modifyById(), ma con un solo aggiornamento della vista ordinata e una sola notifica agli osservatori.
+     * @param[in] changes Associa il bookId di ogni libro da modificare al libro contenente i nuovi dati.
+     * @return Il numero di libri presenti nel catalogo e modificati.
+     */
+    @Override
+    public int modifyAll(Map<String, ? extends Book> changes) {
+        lock.writeLock().lock();
+        try {
+            List<Book> modified = new ArrayList<>(changes.size());
+            for (String id : changes.keySet()) {
+                Book book = bookRegister.get(id);
+                if (book != null) modified.add(book);
+            }
+            if (modified.isEmpty()) return 0;
+            sortedBooks.removeAll(modified);
+            for (Book book : modified) {
+                book.copy(changes.get(book.getBookId()));
+                searchIndex.update(book);
+            }
+            sortedBooks.addAll(modified);
+            modificationCount++;
+            for (RegisterListener<Book> listener : listeners) listener.modifiedAll(modified);
+            return modified.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Rimuove un gruppo di libri dal catalogo.
+     * @param[in] toRemove I libri da rimuovere; quelli non presenti nel catalogo vengono ignorati.
+     * @post Nessuno dei libri specificati è presente nel catalogo.
+     */
+    @Override
+    public void removeAll(Collection<? extends Book> toRemove) {
+        lock.writeLock().lock();
+        try {
+            List<Book> removed = new ArrayList<>(toRemove.size());
+            for (Book book : toRemove) {
+                Book current = bookRegister.remove(book.getBookId());
+                if (current != null) removed.add(current);
+            }
+            removeIndexed(removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Rimuove dal catalogo i libri che soddisfano la condizione specificata.
+     * @param[in] filter La condizione da verificare.
+     * @return Il numero di libri rimossi.
+     */
+    @Override
+    public int removeIf(Predicate<? super Book> filter) {
+        lock.writeLock().lock();
+        try {
+            List<Book> removed = new ArrayList<>();
+            Iterator<Book> iterator = bookRegister.values().iterator();
+            while (iterator.hasNext()) {
+                Book book = iterator.next();
+                if (filter.test(book)) {
+                    iterator.remove();
+                    removed.add(book);
+                }
+            }
+            removeIndexed(removed);
+            return removed.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -80,19 +297,151 @@ public class BookRegister implements Register<Book>, Serializable {
      */
     @Override
     public boolean isUnique(Book toVerify) {
-        return !this.bookRegister.contains(toVerify);
+        lock.readLock().lock();
+        try {
+            return !this.bookRegister.containsKey(toVerify.getBookId());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
      * @brief Restituisce una lista ordinata di tutti i libri presenti nel catalogo.
      * @details L'ordinamento avviene prima per Titolo e poi per Autori (questi ultimi sono concatenati seguendo lo stesso ordine di inserimento).
-     * @return Una lista (ordinata per Titolo e Autori) contenente tutti i libri del catalogo
+     *          L'ordine è mantenuto ad ogni modifica del catalogo, quindi la lista non viene né copiata né riordinata.
+     *          La vista riflette le modifiche successive e va letta dal thread che modifica il catalogo.
+     * @return Una vista in sola lettura (ordinata per Titolo e Autori) contenente tutti i libri del catalogo
      */
     @Override
     public List<Book> getRegisterList() {
-        List<Book> list = new ArrayList<>(bookRegister);
-        list.sort(Comparator.comparing(Book::getTitle).
-                thenComparing(book -> String.join(", ", book.getAuthors())));
-        return list;
+        return sortedBooks.asList();
+    }
+
+    /**
+     * @brief Cerca i libri corrispondenti al testo specificato.
+     * @details La ricerca avviene sull'indice invertito di Titolo, Autori e ISBN: ogni parola della query
+     *          deve essere l'inizio di una parola del libro, senza distinzione tra maiuscole, minuscole e accenti.
+     * @param[in] query Il testo cercato.
+     * @return Una nuova lista (ordinata per Titolo e Autori) dei libri corrispondenti, tutti i libri se la query è vuota.
+     */
+    @Override
+    public List<Book> search(String query) {
+        lock.readLock().lock();
+        try {
+            Collection<Book> matches = searchIndex.search(query);
+            if (matches.size() == bookRegister.size()) return new ArrayList<>(sortedBooks.asList());
+            List<Book> result = new ArrayList<>(matches);
+            result.sort(DISPLAY_ORDER);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Cerca, tra i candidati specificati, quelli corrispondenti al testo.
+     * @param[in] query Il testo cercato.
+     * @param[in] candidates Gli elementi tra cui cercare, tipicamente il risultato di search() per una query più corta.
+     * @return Una nuova lista, nello stesso ordine di 'candidates', dei libri ancora presenti nel catalogo e corrispondenti.
+     */
+    @Override
+    public List<Book> search(String query, Collection<? extends Book> candidates) {
+        lock.readLock().lock();
+        try {
+            return searchIndex.filter(candidates, query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Restituisce il numero di modifiche subite dal catalogo.
+     * @return long Il contatore delle modifiche, incrementato ad ogni aggiunta, modifica o rimozione.
+     */
+    @Override
+    public long getModificationCount() {
+        lock.readLock().lock();
+        try {
+            return modificationCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Registra un osservatore delle modifiche al catalogo.
+     * @param[in] listener L'osservatore da registrare.
+     */
+    @Override
+    public void addListener(RegisterListener<Book> listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.add(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Rimuove un osservatore delle modifiche al catalogo.
+     * @param[in] listener L'osservatore da rimuovere.
+     */
+    @Override
+    public void removeListener(RegisterListener<Book> listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.remove(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeIndexed(List<Book> removed) {
+        if (removed.isEmpty()) return;
+        sortedBooks.removeAll(removed);
+        for (Book book : removed) searchIndex.remove(book);
+        modificationCount++;
+        for (RegisterListener<Book> listener : listeners) listener.removedAll(removed);
+    }
+
+    private void initIndexes() {
+        this.lock = new ReentrantReadWriteLock();
+        this.sortedBooks = new SortedView<>(DISPLAY_ORDER);
+        this.searchIndex = new SearchIndex<>(book -> book.getTitle() + ' ' + book.getAuthorsText() + ' ' + book.getBookId());
+        this.listeners = new ArrayList<>();
+        for (Book book : bookRegister.values()) {
+            sortedBooks.add(book);
+            searchIndex.add(book);
+        }
+    }
+
+    /**
+     * @brief Restituisce il lock in lettura del registro.
+     * @details Usato da {@link LibraryVersions} per leggere insieme più registri senza modifiche concorrenti.
+     * @return Lock Il lock condiviso dalle letture.
+     */
+    Lock readLock() {
+        return lock.readLock();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            ObjectOutputStream.PutField fields = out.putFields();
+            fields.put("bookRegister", new TreeSet<>(bookRegister.values()));
+            out.writeFields();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Collection<Book> stored = (Collection<Book>) fields.get("bookRegister", null);
+        if (stored == null) throw new InvalidObjectException("Registro dei libri mancante");
+        bookRegister = new TreeMap<>();
+        for (Book item : stored) bookRegister.put(item.getBookId(), item);
+        initIndexes();
     }
 }
\ No newline at end of file
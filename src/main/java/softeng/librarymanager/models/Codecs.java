@@ -0,0 +1,201 @@
+/**
+ * @file Codecs.java
+ * @brief Codec di compressione disponibili per i file della biblioteca.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * @class Codecs
+ * @brief Registro dei {@link CompressionCodec} e codec predefiniti basati su java.util.zip.
+ * @details Un file compresso inizia con la firma {@link #MAGIC}, seguita dall'identificativo del codec (1 byte) e dal
+ *          file non compresso (snapshot o serializzazione Java) codificato dal codec. In caricamento sono accettati
+ *          anche i file compressi esternamente con gzip (es. i backup), riconosciuti dalla firma del formato GZIP.
+ *          I file compressi non possono essere aperti con {@link MappedLibraryFile}.
+ */
+public final class Codecs {
+
+    /**
+     * @brief Firma iniziale dei file compressi ("LMSZ").
+     */
+    static final byte[] MAGIC = {'L', 'M', 'S', 'Z'};
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1F, (byte) 0x8B};
+
+    /**
+     * @brief Nessuna compressione: il file resta uno snapshot leggibile anche da {@link MappedLibraryFile}.
+     */
+    public static final CompressionCodec NONE = new CompressionCodec() {
+        @Override public int getId() { return 0; }
+        @Override public String getName() { return "none"; }
+        @Override public OutputStream compress(OutputStream out) { return out; }
+        @Override public InputStream decompress(InputStream in) { return in; }
+    };
+
+    public static final CompressionCodec DEFLATE_FAST = deflate("deflate-fast", Deflater.BEST_SPEED);      ///< @brief Deflater, livello 1.
+    public static final CompressionCodec DEFLATE = deflate("deflate", Deflater.DEFAULT_COMPRESSION);       ///< @brief Deflater, livello predefinito (6).
+    public static final CompressionCodec DEFLATE_BEST = deflate("deflate-best", Deflater.BEST_COMPRESSION); ///< @brief Deflater, livello 9.
+
+    /**
+     * @brief Formato GZIP, con intestazione e CRC32 dei dati, al livello di compressione predefinito.
+     */
+    public static final CompressionCodec GZIP = new CompressionCodec() {
+        @Override public int getId() { return 2; }
+        @Override public String getName() { return "gzip"; }
+        @Override public OutputStream compress(OutputStream out) throws IOException { return new GZIPOutputStream(out, BUFFER_SIZE); }
+        @Override public InputStream decompress(InputStream in) throws IOException { return new GZIPInputStream(in, BUFFER_SIZE); }
+    };
+
+    private static final Map<String, CompressionCodec> BY_NAME = new LinkedHashMap<>();
+    private static final CompressionCodec[] BY_ID = new CompressionCodec[256];
+
+    static {
+        for (CompressionCodec codec : Arrays.asList(NONE, DEFLATE, DEFLATE_FAST, DEFLATE_BEST, GZIP)) register(codec);
+    }
+
+    private Codecs() {
+    }
+
+    /**
+     * @brief Registra un codec, rendendolo disponibile per nome e, in caricamento, per identificativo.
+     * @details Per un identificativo già registrato resta valido, in caricamento, il primo codec registrato.
+     * @param[in] codec Il codec da registrare.
+     * @pre 0 <= codec.getId() <= 255
+     */
+    public static synchronized void register(CompressionCodec codec) {
+        if (codec.getId() < 0 || codec.getId() > 255) throw new IllegalArgumentException("Identificativo non valido: " + codec.getId());
+        BY_NAME.put(codec.getName(), codec);
+        if (BY_ID[codec.getId()] == null) BY_ID[codec.getId()] = codec;
+    }
+
+    /**
+     * @brief Cerca un codec registrato tramite il suo nome.
+     * @param[in] name Il nome del codec.
+     * @return CompressionCodec Il codec, null se non è registrato.
+     */
+    public static synchronized CompressionCodec forName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * @brief Restituisce i codec registrati.
+     * @return List I codec, nell'ordine di registrazione.
+     */
+    public static synchronized List<CompressionCodec> all() {
+        return Collections.unmodifiableList(new ArrayList<>(BY_NAME.values()));
+    }
+
+    /**
+     * @brief Crea un codec Deflater (formato zlib) con il livello di compressione indicato.
+     * @param[in] name Il nome del codec.
+     * @param[in] level Il livello di compressione, da 0 a 9 (o Deflater.DEFAULT_COMPRESSION).
+     * @return CompressionCodec Il codec, con identificativo 1.
+     */
+    public static CompressionCodec deflate(String name, int level) {
+        return new CompressionCodec() {
+            @Override public int getId() { return 1; }
+            @Override public String getName() { return name; }
+
+            @Override
+            public OutputStream compress(OutputStream out) {
+                Deflater deflater = new Deflater(level);
+                return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            deflater.end();
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public InputStream decompress(InputStream in) {
+                Inflater inflater = new Inflater();
+                return new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * @brief Prepara uno stream per la scrittura di un file compresso con il codec indicato.
+     * @param[in] out Lo stream del file.
+     * @param[in] codec Il codec da usare.
+     * @return OutputStream Lo stream su cui scrivere il contenuto non compresso.
+     * @throws IOException Se la scrittura dell'intestazione fallisce.
+     */
+    static OutputStream compressing(OutputStream out, CompressionCodec codec) throws IOException {
+        if (codec == null || codec.getId() == 0) return out;
+        out.write(MAGIC);
+        out.write(codec.getId());
+        return codec.compress(out);
+    }
+
+    /**
+     * @brief Prepara uno stream per la lettura di un file, decomprimendolo se necessario.
+     * @param[in] in Lo stream del file.
+     * @return BufferedInputStream Lo stream del contenuto non compresso, con supporto a mark e reset.
+     * @throws IOException Se la lettura fallisce o il codec del file non è registrato.
+     */
+    static BufferedInputStream decompressing(BufferedInputStream in) throws IOException {
+        byte[] header = new byte[MAGIC.length + 1];
+        in.mark(header.length);
+        int length = readHeader(in, header);
+        in.reset();
+
+        if (length == header.length && Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC)) {
+            CompressionCodec codec;
+            synchronized (Codecs.class) {
+                codec = BY_ID[header[MAGIC.length] & 0xFF];
+            }
+            if (codec == null) throw new IOException("Codec di compressione sconosciuto: " + (header[MAGIC.length] & 0xFF));
+            in.skip(header.length);
+            return new BufferedInputStream(codec.decompress(in), BUFFER_SIZE);
+        }
+        if (length >= GZIP_MAGIC.length && header[0] == GZIP_MAGIC[0] && header[1] == GZIP_MAGIC[1])
+            return new BufferedInputStream(GZIP.decompress(in), BUFFER_SIZE);
+        return in;
+    }
+
+    private static int readHeader(InputStream in, byte[] header) throws IOException {
+        int read = 0;
+        while (read < header.length) {
+            int n = in.read(header, read, header.length - read);
+            if (n < 0) break;
+            read += n;
+        }
+        return read;
+    }
+}
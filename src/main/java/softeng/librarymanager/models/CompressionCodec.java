@@ -0,0 +1,52 @@
+/**
+ * @file CompressionCodec.java
+ * @brief Interfaccia per la compressione dei file della biblioteca.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * @interface CompressionCodec
+ * @brief Interfaccia che definisce il contratto di un algoritmo di compressione a flusso.
+ * @details Il codec viene identificato nel file da un byte, così che in caricamento venga scelto automaticamente
+ *          quello registrato in {@link Codecs} con lo stesso identificativo. Codec diversi possono condividere
+ *          l'identificativo se producono lo stesso formato (es. Deflater con livelli di compressione diversi).
+ */
+public interface CompressionCodec {
+
+    /**
+     * @brief Restituisce l'identificativo scritto nel file.
+     * @return int Un valore tra 1 e 255 (0 è riservato ai file non compressi).
+     */
+    int getId();
+
+    /**
+     * @brief Restituisce il nome del codec, usato per sceglierlo nella configurazione.
+     * @return String Il nome del codec (es. "gzip").
+     */
+    String getName();
+
+    /**
+     * @brief Crea uno stream che comprime i dati e li scrive su quello ricevuto.
+     * @param[in] out Lo stream di destinazione.
+     * @return OutputStream Lo stream di compressione; la sua chiusura completa i dati compressi e chiude 'out'.
+     * @throws IOException Se la scrittura dell'intestazione del formato fallisce.
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * @brief Crea uno stream che decomprime i dati letti da quello ricevuto.
+     * @param[in] in Lo stream di origine.
+     * @return InputStream Lo stream dei dati decompressi; la sua chiusura chiude 'in'.
+     * @throws IOException Se la lettura dell'intestazione del formato fallisce.
+     */
+    InputStream decompress(InputStream in) throws IOException;
+
+}
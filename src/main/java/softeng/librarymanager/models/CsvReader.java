@@ -0,0 +1,149 @@
+/**
+ * @file CsvReader.java
+ * @brief Lettura a flusso di file CSV e TSV.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @class CsvReader
+ * @brief Legge un file delimitato (CSV, TSV) una riga alla volta, con memoria costante.
+ * @details Segue le regole di RFC 4180 con separatore configurabile: un campo racchiuso tra virgolette può contenere
+ *          separatori, a capo e virgolette raddoppiate (""). Sono accettati i fine riga "\n", "\r\n" e "\r";
+ *          le righe vuote vengono saltate. I caratteri vengono letti a blocchi da {@link #CHUNK_SIZE}.
+ */
+final class CsvReader {
+
+    /**
+     * @brief Numero di caratteri letti dallo stream a ogni accesso.
+     */
+    static final int CHUNK_SIZE = 1 << 16;
+
+    private static final String[] NO_FIELDS = new String[0];
+
+    private final Reader in;
+    private final char delimiter;
+    private final char[] chunk = new char[CHUNK_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> fields = new ArrayList<>();
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long recordLine;
+
+    /**
+     * @brief Costruttore.
+     * @param[in] in Lo stream dei caratteri, non chiuso dal reader.
+     * @param[in] delimiter Il separatore dei campi (es. ',', ';' o '\t').
+     */
+    CsvReader(Reader in, char delimiter) {
+        this.in = in;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * @brief Sceglie il separatore più frequente, fuori dalle virgolette, nella riga indicata.
+     * @param[in] firstLine La prima riga del file.
+     * @return char Il separatore tra tabulazione, punto e virgola e virgola (predefinito).
+     */
+    static char detectDelimiter(String firstLine) {
+        int tabs = 0, semicolons = 0, commas = 0;
+        boolean quoted = false;
+        for (int i = 0; i < firstLine.length(); i++) {
+            char c = firstLine.charAt(i);
+            if (c == '"') quoted = !quoted;
+            else if (quoted) continue;
+            else if (c == '\t') tabs++;
+            else if (c == ';') semicolons++;
+            else if (c == ',') commas++;
+        }
+        if (tabs > 0 && tabs >= semicolons && tabs >= commas) return '\t';
+        return semicolons > commas ? ';' : ',';
+    }
+
+    /**
+     * @brief Legge la riga successiva.
+     * @return String[] I campi della riga, null alla fine del file.
+     * @throws IOException Se la lettura fallisce o il file termina all'interno di un campo tra virgolette.
+     */
+    String[] next() throws IOException {
+        int c;
+        // Righe vuote saltate
+        while ((c = read()) == '\n' || c == '\r') {
+            if (c == '\r' && peek() == '\n') read();
+            line++;
+        }
+        if (c < 0) return null;
+
+        recordLine = line;
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) throw new IOException("Virgolette non chiuse nella riga " + recordLine);
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n' || (c == '\r' && peek() != '\n')) line++;
+                    field.append((char) c);
+                }
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c < 0) {
+                if (c == '\r' && peek() == '\n') read();
+                if (c >= 0) line++;
+                fields.add(field.toString());
+                return fields.toArray(NO_FIELDS);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * @brief Restituisce il numero della riga del file in cui inizia l'ultima riga letta da next().
+     * @return long Il numero di riga, a partire da 1.
+     */
+    long getLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return chunk[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return chunk[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = in.read(chunk, 0, chunk.length);
+        } while (n == 0);
+        if (n < 0) return false;
+        position = 0;
+        limit = n;
+        return true;
+    }
+}
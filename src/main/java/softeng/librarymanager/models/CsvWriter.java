@@ -0,0 +1,66 @@
+/**
+ * @file CsvWriter.java
+ * @brief Scrittura a flusso di file CSV e TSV.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * @class CsvWriter
+ * @brief Scrive righe delimitate leggibili da {@link CsvReader}.
+ * @details I campi che contengono il separatore, virgolette o fine riga vengono racchiusi tra virgolette,
+ *          raddoppiando quelle interne; ogni riga termina con "\n". Lo stream ricevuto non viene chiuso.
+ */
+final class CsvWriter {
+
+    private final Writer out;
+    private final char delimiter;
+
+    /**
+     * @brief Costruttore.
+     * @param[in] out Lo stream su cui scrivere (si consiglia uno stream bufferizzato).
+     * @param[in] delimiter Il separatore dei campi.
+     */
+    CsvWriter(Writer out, char delimiter) {
+        this.out = out;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * @brief Scrive una riga.
+     * @param[in] fields I campi della riga.
+     * @throws IOException Se la scrittura fallisce.
+     */
+    void writeRow(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) out.write(delimiter);
+            writeField(fields[i] == null ? "" : fields[i]);
+        }
+        out.write('\n');
+    }
+
+    private void writeField(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+    }
+}
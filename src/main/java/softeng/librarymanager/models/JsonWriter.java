@@ -0,0 +1,120 @@
+/**
+ * @file JsonWriter.java
+ * @brief Scrittura a flusso di oggetti JSON.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * @class JsonWriter
+ * @brief Scrive oggetti JSON piatti, uno per riga (formato JSON Lines).
+ * @details I valori possono essere stringhe, numeri, booleani, null, collezioni di questi (scritte come array) o mappe
+ *          (scritte come oggetti annidati, nell'ordine di iterazione).
+ *          Le stringhe vengono racchiuse tra virgolette con le sequenze di escape di RFC 8259; lo stream ricevuto
+ *          non viene chiuso.
+ */
+public final class JsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+
+    /**
+     * @brief Costruttore.
+     * @param[in] out Lo stream su cui scrivere (si consiglia uno stream bufferizzato).
+     */
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * @brief Scrive un oggetto seguito da "\n".
+     * @param[in] names I nomi dei campi.
+     * @param[in] values I valori dei campi, nello stesso ordine dei nomi.
+     * @throws IOException Se la scrittura fallisce.
+     */
+    public void writeObject(String[] names, Object[] values) throws IOException {
+        out.write('{');
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) out.write(',');
+            writeString(names[i]);
+            out.write(':');
+            writeValue(values[i]);
+        }
+        out.write("}\n");
+    }
+
+    /**
+     * @brief Scrive un valore JSON.
+     * @param[in] value Una stringa, un numero, un booleano, null, una collezione o una mappa di questi.
+     * @throws IOException Se la scrittura fallisce.
+     */
+    public void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.write("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.write(value.toString());
+        } else if (value instanceof Map) {
+            out.write('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) out.write(',');
+                writeString(entry.getKey().toString());
+                out.write(':');
+                writeValue(entry.getValue());
+                first = false;
+            }
+            out.write('}');
+        } else if (value instanceof Collection) {
+            out.write('[');
+            boolean first = true;
+            for (Object item : (Collection<?>) value) {
+                if (!first) out.write(',');
+                writeValue(item);
+                first = false;
+            }
+            out.write(']');
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    /**
+     * @brief Scrive una stringa tra virgolette, con le sequenze di escape necessarie.
+     * @param[in] value La stringa da scrivere.
+     * @throws IOException Se la scrittura fallisce.
+     */
+    void writeString(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') continue;
+            out.write(value, start, i - start);
+            start = i + 1;
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    out.write("\\u");
+                    out.write(HEX[c >> 12 & 0xF]);
+                    out.write(HEX[c >> 8 & 0xF]);
+                    out.write(HEX[c >> 4 & 0xF]);
+                    out.write(HEX[c & 0xF]);
+            }
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+}
@@ -7,7 +7,10 @@
  */
 package softeng.librarymanager.models;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.Collection;
 
 /**
  * @class Library
@@ -15,6 +18,11 @@ import java.io.Serializable;
  */
 public class Library implements Serializable {
 
+    /*
+     * Valore della prima versione: i file .obj salvati da quella versione restano leggibili.
+     */
+    private static final long serialVersionUID = -3296789997988350453L;
+
     /**
      * @brief Registro che gestisce l'inventario dei libri.
      * @see Register
@@ -36,6 +44,12 @@ public class Library implements Serializable {
      */
     private final Register<Loan> loanRegister;
 
+    /**
+     * @brief Versioni immutabili dei registri, ricostruite dopo la deserializzazione.
+     * @see LibrarySnapshot
+     */
+    private transient LibraryVersions versions;
+
     /**
      * @brief Costruttore predefinito della classe Library.
      * Inizializza i tre registri concreti.
@@ -44,6 +58,19 @@ public class Library implements Serializable {
         this.bookRegister = new BookRegister();
         this.studentRegister = new StudentRegister();
         this.loanRegister = new LoanRegister();
+        linkRegisters();
+    }
+
+    /**
+     * @brief Restituisce una versione immutabile e coerente dei tre registri.
+     * @details La versione può essere letta da qualsiasi thread mentre la biblioteca continua a essere modificata.
+     *          Se i registri non sono cambiati dalla richiesta precedente viene restituita la stessa versione, in tempo
+     *          costante; altrimenti la nuova versione condivide con la precedente i record non modificati.
+     * @return LibrarySnapshot La versione che include tutte le modifiche concluse.
+     * @see LibrarySnapshot
+     */
+    public LibrarySnapshot snapshot() {
+        return versions.current();
     }
 
     /**
@@ -70,4 +97,56 @@ public class Library implements Serializable {
         return this.loanRegister;
     }
 
+    /**
+     * @brief Collega i registri affinché le modifiche a studenti e libri aggiornino l'indice di ricerca dei prestiti
+     *        e le versioni della biblioteca.
+     */
+    private void linkRegisters() {
+        final LoanRegister loans = (LoanRegister) loanRegister;
+        versions = new LibraryVersions((StudentRegister) studentRegister, (BookRegister) bookRegister, loans);
+        studentRegister.addListener(new RegisterListener<Student>() {
+            @Override
+            public void added(Student item) {
+            }
+
+            @Override
+            public void modified(Student item) {
+                loans.studentModified(item);
+            }
+
+            @Override
+            public void modifiedAll(Collection<? extends Student> items) {
+                loans.studentsModified(items);
+            }
+
+            @Override
+            public void removed(Student item) {
+            }
+        });
+        bookRegister.addListener(new RegisterListener<Book>() {
+            @Override
+            public void added(Book item) {
+            }
+
+            @Override
+            public void modified(Book item) {
+                loans.bookModified(item);
+            }
+
+            @Override
+            public void modifiedAll(Collection<? extends Book> items) {
+                loans.booksModified(items);
+            }
+
+            @Override
+            public void removed(Book item) {
+            }
+        });
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        linkRegisters();
+    }
+
 }
@@ -0,0 +1,119 @@
+/**
+ * @file LibraryCopy.java
+ * @brief Copia puntuale dei dati della biblioteca da salvare.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * @class LibraryCopy
+ * @brief Fotografia immutabile dei campi di studenti, libri e prestiti in un dato istante.
+ * @details Viene creata a partire da una {@link LibrarySnapshot}, copiando soltanto riferimenti a valori immutabili
+ *          (stringhe, liste di autori, UUID) e campi primitivi in array, più compatti da codificare: la versione può
+ *          essere fissata sul thread che modifica la biblioteca e la copia creata e codificata in background.
+ */
+final class LibraryCopy {
+
+    final String[] names;
+    final String[] surnames;
+    final String[] studentIds;
+    final String[] emails;
+
+    final String[] titles;
+    final List<?>[] authors;
+    final String[] bookIds;
+    final int[] publishmentYears;
+    final int[] availableCopies;
+
+    final UUID[] loanIds;
+    final String[] loanStudentIds;
+    final String[] loanBookIds;
+    final long[] loanEnds;
+    final boolean[] returned;
+
+    private LibraryCopy(LibrarySnapshot snapshot) {
+        int count = snapshot.getStudentCount();
+        names = new String[count];
+        surnames = new String[count];
+        studentIds = new String[count];
+        emails = new String[count];
+        int i = 0;
+        for (LibrarySnapshot.StudentRecord student : snapshot.getStudents()) {
+            names[i] = student.getName();
+            surnames[i] = student.getSurname();
+            studentIds[i] = student.getStudentId();
+            emails[i] = student.getEmail();
+            i++;
+        }
+
+        count = snapshot.getBookCount();
+        titles = new String[count];
+        authors = new List<?>[count];
+        bookIds = new String[count];
+        publishmentYears = new int[count];
+        availableCopies = new int[count];
+        i = 0;
+        for (LibrarySnapshot.BookRecord book : snapshot.getBooks()) {
+            titles[i] = book.getTitle();
+            authors[i] = book.getAuthors();
+            bookIds[i] = book.getBookId();
+            publishmentYears[i] = book.getPublishmentYear();
+            availableCopies[i] = book.getAvailableCopies();
+            i++;
+        }
+
+        count = snapshot.getLoanCount();
+        loanIds = new UUID[count];
+        loanStudentIds = new String[count];
+        loanBookIds = new String[count];
+        loanEnds = new long[count];
+        returned = new boolean[count];
+        i = 0;
+        for (LibrarySnapshot.LoanRecord loan : snapshot.getLoans()) {
+            loanIds[i] = loan.getLoanId();
+            loanStudentIds[i] = loan.getStudentId();
+            loanBookIds[i] = loan.getBookId();
+            loanEnds[i] = loan.getLoanEnd().toEpochDay();
+            returned[i] = loan.isReturned();
+            i++;
+        }
+    }
+
+    /**
+     * @brief Crea la copia puntuale di una biblioteca.
+     * @param[in] library La biblioteca da copiare.
+     * @return LibraryCopy La copia dei dati correnti.
+     */
+    static LibraryCopy of(Library library) {
+        return of(library.snapshot());
+    }
+
+    /**
+     * @brief Crea la copia di una versione della biblioteca.
+     * @details Può essere invocato da qualsiasi thread, anche mentre la biblioteca viene modificata.
+     * @param[in] snapshot La versione da copiare.
+     * @return LibraryCopy La copia dei dati della versione.
+     */
+    static LibraryCopy of(LibrarySnapshot snapshot) {
+        return new LibraryCopy(snapshot);
+    }
+
+    /**
+     * @brief Restituisce il numero totale di record copiati.
+     * @return long La somma di studenti, libri e prestiti.
+     */
+    long size() {
+        return (long) studentIds.length + bookIds.length + loanIds.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<String> authorsOf(int book) {
+        return (List<String>) authors[book];
+    }
+}
@@ -11,21 +11,42 @@ package softeng.librarymanager.models;
 
 import softeng.librarymanager.controllers.ResultActions;
 
-import java.io.*;
-import java.nio.file.Files;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * @class LibraryIOManager
  * @brief Classe responsabile della persistenza dei dati dell'applicazione.
- * @details Questa classe fornisce i metodi per serializzare l'intero oggetto {@link Library}
- *          su un file (salvataggio) e per deserializzarlo ripristinando lo stato dell'applicazione
- *          (caricamento). Gestisce le eccezioni di I/O che possono verificarsi durante queste operazioni.
+ * @details Questa classe fornisce i metodi per salvare l'intero oggetto {@link Library}
+ *          su un file nel formato binario compatto descritto da {@link SnapshotFormat} e per ricaricarlo
+ *          ripristinando lo stato dell'applicazione. In caricamento sono accettati anche i file salvati
+ *          in precedenza con la serializzazione Java (.obj), riconosciuti dalla firma iniziale.
+ *          Le modifiche della biblioteca aperta vengono registrate da un {@link LibraryJournal}, così che i
+ *          salvataggi successivi non riscrivano l'intero file. Salvataggi e caricamenti possono essere eseguiti
+ *          in background tramite i metodi asincroni, che restituiscono un future e notificano l'avanzamento.
+ *          Il file può essere compresso con un {@link CompressionCodec}, scelto con setCodec() o con la proprietà
+ *          di sistema {@link #CODEC_PROPERTY}; in caricamento il codec viene riconosciuto automaticamente.
+ *          Ogni file viene scritto in un file temporaneo, forzato sul disco e rinominato, conservando le versioni
+ *          precedenti come copie di sicurezza; un checksum finale permette di riconoscere i file danneggiati.
+ *          Gestisce le eccezioni di I/O che possono verificarsi durante queste operazioni.
  */
 public class LibraryIOManager {
 
+    /**
+     * @brief Proprietà di sistema con il nome del codec predefinito (es. -Dlibrarymanager.codec=gzip).
+     */
+    public static final String CODEC_PROPERTY = "librarymanager.codec";
+
     private final ResultActions resultActions;
+    private LibraryJournal journal;
+    private CompressionCodec codec;
+    private int backups = LibraryJournal.DEFAULT_BACKUPS;
 
     /**
      * @brief Costruttore predefinito.
@@ -35,58 +56,215 @@ public class LibraryIOManager {
      */
     public LibraryIOManager(ResultActions actions) {
         this.resultActions = actions;
+        String name = System.getProperty(CODEC_PROPERTY, Codecs.NONE.getName());
+        this.codec = Codecs.forName(name);
+        if (this.codec == null) {
+            Logger.getLogger(LibraryIOManager.class.getName()).log(Level.WARNING, "Codec sconosciuto: {0}", name);
+            this.codec = Codecs.NONE;
+        }
+    }
+
+    /**
+     * @brief Imposta il codec con cui comprimere i file salvati.
+     * @details Il codec si applica ai salvataggi successivi che riscrivono l'intero file; {@link Codecs#NONE}
+     *          mantiene i file apribili con {@link MappedLibraryFile}.
+     * @param[in] codec Il codec da usare.
+     */
+    public synchronized void setCodec(CompressionCodec codec) {
+        this.codec = codec;
+        if (journal != null) journal.setCodec(codec);
+    }
+
+    /**
+     * @brief Imposta il numero di versioni precedenti del file conservate come copie di sicurezza.
+     * @param[in] backups Il numero di copie, 0 per non conservarne.
+     * @see LibraryJournal#backupFile(Path, int)
+     */
+    public synchronized void setBackups(int backups) {
+        if (journal != null) journal.setBackups(backups);
+        this.backups = backups;
+    }
+
+    /**
+     * @brief Restituisce il codec con cui vengono compressi i file salvati.
+     * @return CompressionCodec Il codec corrente.
+     */
+    public synchronized CompressionCodec getCodec() {
+        return codec;
     }
 
     /**
      * @brief Salva lo stato corrente della biblioteca su file.
-     * @details Serializza l'oggetto Library passato come parametro e lo scrive nel percorso specificato.
+     * @details Attende la conclusione di saveLibraryAsync().
      * @param[in] libraryToSave L'istanza della biblioteca contenente tutti i registri da salvare.
      * @param[in] filePath Il percorso del file (incluso nome ed estensione) su cui scrivere.
-     * @post Serializza la libreria in un file, invocando il metodo success in caso di successo e failure in caso di fallimento.
+     * @post Salva la libreria su file, invocando il metodo success in caso di successo e failure in caso di fallimento.
+     * @see #saveLibraryAsync(Library, String, ProgressListener)
      */
     public void saveLibrary(Library libraryToSave, String filePath) {
-        File fileObj = new File(filePath);
-        try(ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(fileObj.toPath())))){
-            oos.writeObject(libraryToSave);
-            System.out.println("...");
+        try {
+            saveLibraryAsync(libraryToSave, filePath, null).join();
             resultActions.success();
-        } catch (IOException ex) {
-            Logger.getLogger(LibraryIOManager.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (CompletionException ex) {
+            Logger.getLogger(LibraryIOManager.class.getName()).log(Level.SEVERE, null, ex.getCause());
             resultActions.failure();
         }
     }
 
+    /**
+     * @brief Salva lo stato corrente della biblioteca su file, in background.
+     * @details Se la biblioteca è quella aperta o salvata per ultima nello stesso percorso, le sue modifiche sono già
+     *          registrate nel journal e il salvataggio si limita a renderle persistenti sul disco, in un tempo
+     *          proporzionale alle modifiche e non alla dimensione della biblioteca. Altrimenti viene scritto uno
+     *          snapshot completo e la registrazione delle modifiche riparte da quel file.
+     *          Lo snapshot viene scritto a partire da una copia puntuale dei dati, creata prima della restituzione:
+     *          la biblioteca può essere modificata mentre il salvataggio è in corso.
+     * @param[in] libraryToSave L'istanza della biblioteca contenente tutti i registri da salvare.
+     * @param[in] filePath Il percorso del file (incluso nome ed estensione) su cui scrivere.
+     * @param[in] progress L'oggetto da notificare con i byte e i record scritti, null per nessuna notifica.
+     * @return CompletableFuture Il completamento del salvataggio; in caso di errore è completato con l'eccezione.
+     * @pre Il metodo è invocato dal thread che modifica la biblioteca.
+     * @see LibraryJournal
+     */
+    public synchronized CompletableFuture<Void> saveLibraryAsync(Library libraryToSave, String filePath, ProgressListener progress) {
+        Path path = Paths.get(filePath).toAbsolutePath();
+        if (journal == null || journal.getLibrary() != libraryToSave || !journal.getPath().equals(path)) {
+            closeLibrary();
+            try {
+                journal = LibraryJournal.attach(libraryToSave, path);
+                journal.setCodec(codec);
+                journal.setBackups(backups);
+            } catch (IOException ex) {
+                CompletableFuture<Void> failed = new CompletableFuture<>();
+                failed.completeExceptionally(ex);
+                return failed;
+            }
+        }
+        return journal.save(progress);
+    }
+
     /**
      * @brief Carica lo stato della biblioteca da un file.
-     * @details Legge il file dal percorso specificato e deserializza l'oggetto Library.
+     * @details Attende la conclusione di loadLibraryAsync().
      * @param[in] filePath Il percorso del file da cui leggere i dati.
      * @return Library L'istanza della biblioteca ripristinata con tutti i suoi dati.
      * @post Deserializza la libreria invocando il metodo failure in caso di fallimento.
+     * @see #loadLibraryAsync(String, ProgressListener)
      */
     public Library loadLibrary(String filePath) {
-        File fileObj = new File(filePath);
-        Library loadedLibrary = null;
+        try {
+            return loadLibraryAsync(filePath, null).join();
+        } catch (CompletionException ex) {
+            Logger.getLogger(LibraryIOManager.class.getName()).log(Level.SEVERE, null, ex.getCause());
+            resultActions.failure();
+            return null;
+        }
+    }
 
-        try (ObjectInputStream ois = new ObjectInputStream(
-                new BufferedInputStream(new FileInputStream(fileObj)))){
+    /**
+     * @brief Carica lo stato della biblioteca da un file, in background.
+     * @details Legge il file dal percorso specificato e ricostruisce l'oggetto Library, sia dal formato snapshot
+     *          sia dal formato della serializzazione Java usato dalle versioni precedenti, rieseguendo poi le
+     *          modifiche registrate nel journal dopo l'ultimo snapshot. La biblioteca viene costruita interamente
+     *          sul thread di I/O e consegnata solo al completamento. Il journal della biblioteca aperta in precedenza
+     *          viene chiuso solo dopo che quello della nuova biblioteca è stato collegato: se il caricamento fallisce,
+     *          le modifiche della biblioteca aperta continuano a essere registrate.
+     * @param[in] filePath Il percorso del file da cui leggere i dati.
+     * @param[in] progress L'oggetto da notificare con i byte e i record letti, null per nessuna notifica.
+     * @return CompletableFuture La biblioteca ripristinata; in caso di errore il future è completato con l'eccezione.
+     * @post Al completamento, le modifiche successive della biblioteca caricata vengono registrate nel journal.
+     */
+    public CompletableFuture<Library> loadLibraryAsync(String filePath, ProgressListener progress) {
+        Path path = Paths.get(filePath);
+        return CompletableFuture.supplyAsync(() -> {
+            LibraryJournal loaded;
+            try {
+                loaded = LibraryJournal.open(path, progress);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            LibraryJournal previous;
+            synchronized (this) {
+                loaded.setCodec(codec);
+                loaded.setBackups(backups);
+                previous = journal;
+                journal = loaded;
+            }
+            // Già sulla corsia IO: la chiusura resta in ordine rispetto a salvataggi e caricamenti
+            if (previous != null) {
+                try {
+                    close(previous);
+                } catch (UncheckedIOException ex) {
+                    // Già riportato nel log: la biblioteca caricata è comunque collegata al nuovo journal
+                }
+            }
+            return loaded.getLibrary();
+        }, LibraryJournal.IO);
+    }
 
-            Object obj = ois.readObject();
+    /**
+     * @brief Importa in background un file CSV o TSV, scrivendo le righe scartate accanto al file.
+     * @details La lettura avviene su un thread di {@link BlockingTasks#disk()}, senza attendere salvataggi e caricamenti
+     *          in corso; gli inserimenti vengono eseguiti dall'Executor configurato nell'importatore.
+     * @param[in] importer L'importatore, collegato al registro di destinazione.
+     * @param[in] filePath Il percorso del file da importare.
+     * @return CompletableFuture Il riepilogo dell'importazione; in caso di errore il future è completato con l'eccezione.
+     * @see RegisterImporter#rejectsFile(Path)
+     */
+    public CompletableFuture<RegisterImporter.Result> importAsync(RegisterImporter<?> importer, String filePath) {
+        Path source = Paths.get(filePath);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return importer.importFile(source, RegisterImporter.rejectsFile(source));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, BlockingTasks.disk());
+    }
 
-            if(obj instanceof Library){
-                loadedLibrary = (Library) obj;
-            } else {
-                resultActions.failure();
+    /**
+     * @brief Esporta in background un registro in un file CSV o JSON Lines.
+     * @details La scrittura avviene su un thread di {@link BlockingTasks#disk()}, senza attendere salvataggi e
+     *          caricamenti in corso; i dati sono quelli della versione fissata alla creazione dell'esportatore.
+     * @param[in] exporter L'esportatore, creato dalla biblioteca da esportare.
+     * @param[in] kind Il registro da esportare.
+     * @param[in] filePath Il percorso del file da scrivere; il formato dipende dall'estensione.
+     * @return CompletableFuture Il numero di righe scritte; in caso di errore il future è completato con l'eccezione.
+     * @see RegisterExporter.Format#forFile(Path)
+     */
+    public CompletableFuture<Long> exportAsync(RegisterExporter exporter, RegisterExporter.Kind kind, String filePath) {
+        Path target = Paths.get(filePath);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return exporter.export(kind, target);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
             }
+        }, BlockingTasks.disk());
+    }
 
-        } catch (IOException ex){
-            System.out.println("IOException");
-            resultActions.failure();
-        } catch (ClassNotFoundException ex) {
-            System.out.println("ClassNotFoundException");
-            resultActions.failure();
-        }
+    /**
+     * @brief Interrompe la registrazione delle modifiche della biblioteca aperta.
+     * @details Il journal viene scollegato subito e chiuso in background, in ordine rispetto a salvataggi e caricamenti:
+     *          il thread chiamante non attende che il journal sia forzato sul disco. Le modifiche già registrate restano
+     *          nel journal e vengono recuperate alla successiva apertura del file.
+     * @return CompletableFuture Il completamento della chiusura; un errore viene anche riportato nel log.
+     * @post Nessun journal è collegato al gestore.
+     */
+    public synchronized CompletableFuture<Void> closeLibrary() {
+        if (journal == null) return CompletableFuture.completedFuture(null);
+        LibraryJournal closing = journal;
+        journal = null;
+        return CompletableFuture.runAsync(() -> close(closing), LibraryJournal.IO);
+    }
 
-        return loadedLibrary;
+    private static void close(LibraryJournal closing) {
+        try {
+            closing.close();
+        } catch (IOException ex) {
+            Logger.getLogger(LibraryIOManager.class.getName()).log(Level.WARNING, null, ex);
+            throw new UncheckedIOException(ex);
+        }
     }
 
 }
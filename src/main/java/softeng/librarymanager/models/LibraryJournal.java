@@ -0,0 +1,958 @@
+/**
+ * @file LibraryJournal.java
+ * @brief Journal delle modifiche (write-ahead log) della biblioteca.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * @class LibraryJournal
+ * @brief Registra in un file append-only ogni modifica della biblioteca, così che il salvataggio costi O(modifiche).
+ * @details Il journal osserva i tre registri della biblioteca e, per ogni aggiunta, modifica o rimozione (compresa la
+ *          restituzione di un prestito), accoda un piccolo record al file della generazione corrente, scritto subito
+ *          sul sistema operativo: un'interruzione dell'applicazione perde al più il record in corso di scrittura.
+ *          I metodi save() e sync() forzano i record sul disco e sono l'equivalente del salvataggio.
+ *
+ *          Accanto al file della biblioteca (snapshot) si trovano i file "<nome>.<generazione>.journal". La sezione
+ *          {@link SnapshotFormat#META} dello snapshot indica la prima generazione non ancora inclusa: all'apertura
+ *          vengono rieseguite, in ordine, le generazioni successive. Un checkpoint apre una nuova generazione,
+ *          copia i dati della biblioteca e, su un thread in background, ne scrive lo snapshot al posto del file
+ *          precedente (file temporaneo e rinomina) eliminando i journal ormai inclusi. Il checkpoint avviene automaticamente quando il journal
+ *          supera {@link #CHECKPOINT_THRESHOLD} byte, in background, dopo la conclusione della modifica che lo ha richiesto. Lo snapshot può essere compresso con il codec impostato da setCodec().
+ *          Prima della rinomina, lo snapshot sostituito viene conservato come "<nome>.1.bak" e le copie precedenti
+ *          scalano fino a "<nome>.<n>.bak" ({@link #DEFAULT_BACKUPS}, modificabile con setBackups()); ogni copia
+ *          è uno snapshot completo che può essere aperto al posto del file originale.
+ *
+ *          Formato di un journal: firma {@link #MAGIC}, versione e generazione (varint), seguiti da record composti
+ *          dalla lunghezza del contenuto (varint), dal suo CRC32 (4 byte) e dal contenuto: un byte di tipo e i campi
+ *          codificati come nello snapshot. Un record incompleto o con CRC errato conclude la lettura del file.
+ *          Le operazioni di gruppo dei registri (addAll, modifyAll, removeAll, removeIf) producono un unico record
+ *          {@link #BATCH}, rieseguito per intero o per nulla.
+ *
+ * @note Le modifiche vengono registrate sul thread che le esegue, anche da più thread contemporaneamente (es. le
+ *       richieste del servizio HTTP): gli osservatori scrivono i record sotto il monitor del journal, dopo il lock in
+ *       scrittura del registro modificato, e il checkpoint acquisisce i lock in lettura dei registri prima del monitor.
+ *       Per questo save() e checkpoint() non devono essere invocati da un osservatore di un registro.
+ */
+public final class LibraryJournal implements Closeable {
+
+    /**
+     * @brief Firma iniziale dei file di journal ("LMJL").
+     */
+    static final byte[] MAGIC = {'L', 'M', 'J', 'L'};
+
+    /**
+     * @brief Versione del formato dei journal.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * @brief Dimensione del journal oltre la quale viene avviato un checkpoint.
+     */
+    static final long CHECKPOINT_THRESHOLD = 4L << 20;
+
+    /**
+     * @brief Numero predefinito di snapshot precedenti conservati come copie di sicurezza.
+     */
+    public static final int DEFAULT_BACKUPS = 2;
+
+    static final int STUDENT_PUT = 1;    ///< @brief Studente aggiunto o modificato: nome, cognome, matricola, email.
+    static final int STUDENT_REMOVE = 2; ///< @brief Studente rimosso: matricola.
+    static final int BOOK_PUT = 3;       ///< @brief Libro aggiunto o modificato: titolo, autori, ISBN, anno, copie.
+    static final int BOOK_REMOVE = 4;    ///< @brief Libro rimosso: ISBN.
+    static final int LOAN_ADD = 5;       ///< @brief Prestito aggiunto: loanId, matricola, ISBN, scadenza.
+    static final int LOAN_MODIFY = 6;    ///< @brief Prestito modificato o restituito: loanId, scadenza, stato.
+    static final int LOAN_REMOVE = 7;    ///< @brief Prestito rimosso: loanId.
+    static final int BATCH = 8;          ///< @brief Operazione di gruppo: numero di record, seguiti dai record (tipo e campi).
+
+    private static final String SUFFIX = ".journal";
+    private static final Logger LOGGER = Logger.getLogger(LibraryJournal.class.getName());
+
+    /**
+     * @brief Corsia delle operazioni su file della biblioteca (checkpoint, salvataggi, caricamenti e chiusure asincroni).
+     * @details Le operazioni vengono eseguite una alla volta, così che quelle sullo stesso file avvengano nell'ordine
+     *          di richiesta, e rientrano nel limite di concorrenza di {@link BlockingTasks#disk()}.
+     */
+    static final Executor IO = BlockingTasks.sequential(BlockingTasks.disk());
+
+    private final Library library;
+    private final Path path;
+    private final SnapshotEncoder body = new SnapshotEncoder();
+    private final SnapshotEncoder frame = new SnapshotEncoder();
+    private final CRC32 crc = new CRC32();
+
+    private final RegisterListener<Student> studentListener;
+    private final RegisterListener<Book> bookListener;
+    private final RegisterListener<Loan> loanListener;
+
+    private FileChannel channel;
+    private long generation;
+    private long journalSize;
+    private boolean snapshotPending;
+    private boolean checkpointScheduled;
+    private boolean closed;
+    private long checkpointThreshold = CHECKPOINT_THRESHOLD;
+    private IOException failure;
+    private CompressionCodec codec = Codecs.NONE;
+    private int backups = DEFAULT_BACKUPS;
+
+    private LibraryJournal(Library library, Path path, long generation, boolean snapshotPending) throws IOException {
+        this.library = library;
+        this.path = path.toAbsolutePath();
+        this.snapshotPending = snapshotPending;
+        this.generation = generation;
+        // Finché manca uno snapshot di riferimento le modifiche non vengono registrate: le includerà il primo salvataggio
+        if (!snapshotPending) openJournal(generation);
+
+        studentListener = new RegisterListener<Student>() {
+            @Override public void added(Student item) { record(LibraryJournal.this::putStudent, item); }
+            @Override public void modified(Student item) { record(LibraryJournal.this::putStudent, item); }
+            @Override public void removed(Student item) { record(LibraryJournal.this::removeStudent, item); }
+            @Override public void addedAll(Collection<? extends Student> items) { batch(LibraryJournal.this::putStudent, items); }
+            @Override public void modifiedAll(Collection<? extends Student> items) { batch(LibraryJournal.this::putStudent, items); }
+            @Override public void removedAll(Collection<? extends Student> items) { batch(LibraryJournal.this::removeStudent, items); }
+        };
+        bookListener = new RegisterListener<Book>() {
+            @Override public void added(Book item) { record(LibraryJournal.this::putBook, item); }
+            @Override public void modified(Book item) { record(LibraryJournal.this::putBook, item); }
+            @Override public void removed(Book item) { record(LibraryJournal.this::removeBook, item); }
+            @Override public void addedAll(Collection<? extends Book> items) { batch(LibraryJournal.this::putBook, items); }
+            @Override public void modifiedAll(Collection<? extends Book> items) { batch(LibraryJournal.this::putBook, items); }
+            @Override public void removedAll(Collection<? extends Book> items) { batch(LibraryJournal.this::removeBook, items); }
+        };
+        loanListener = new RegisterListener<Loan>() {
+            @Override public void added(Loan item) { record(LibraryJournal.this::addLoan, item); }
+            @Override public void modified(Loan item) { record(LibraryJournal.this::modifyLoan, item); }
+            @Override public void removed(Loan item) { record(LibraryJournal.this::removeLoan, item); }
+            @Override public void addedAll(Collection<? extends Loan> items) { batch(LibraryJournal.this::addLoan, items); }
+            @Override public void modifiedAll(Collection<? extends Loan> items) { batch(LibraryJournal.this::modifyLoan, items); }
+            @Override public void removedAll(Collection<? extends Loan> items) { batch(LibraryJournal.this::removeLoan, items); }
+        };
+        library.getStudentRegister().addListener(studentListener);
+        library.getBookRegister().addListener(bookListener);
+        library.getLoanRegister().addListener(loanListener);
+    }
+
+    /**
+     * @brief Apre la biblioteca salvata nel percorso indicato, rieseguendo le modifiche registrate nei journal.
+     * @details Sono accettati sia i file in formato snapshot sia quelli salvati con la serializzazione Java (.obj),
+     *          anche compressi con uno dei {@link Codecs} registrati o con gzip; per i file .obj le modifiche vengono
+     *          registrate solo dopo che il primo salvataggio ha riscritto il file in formato snapshot.
+     * @param[in] path Il percorso del file della biblioteca.
+     * @return LibraryJournal Il journal collegato alla biblioteca caricata.
+     * @throws IOException Se la lettura fallisce o il contenuto dello snapshot o dei journal non è coerente.
+     * @post Le modifiche successive della biblioteca vengono registrate in una nuova generazione del journal.
+     */
+    public static LibraryJournal open(Path path) throws IOException {
+        return open(path, null);
+    }
+
+    /**
+     * @brief Apre la biblioteca salvata nel percorso indicato, notificando l'avanzamento della lettura.
+     * @details La biblioteca restituita non è ancora visibile ad altri thread: il metodo può essere invocato
+     *          in background e il risultato consegnato successivamente al thread dell'interfaccia grafica.
+     * @param[in] path Il percorso del file della biblioteca.
+     * @param[in] progress L'oggetto da notificare durante la lettura dello snapshot, null per nessuna notifica.
+     * @return LibraryJournal Il journal collegato alla biblioteca caricata.
+     * @throws IOException Se la lettura fallisce o il contenuto dello snapshot o dei journal non è coerente.
+     * @see #open(Path)
+     */
+    public static LibraryJournal open(Path path, ProgressListener progress) throws IOException {
+        Stored stored = readStored(path, progress);
+        // Senza generazione lo snapshot non è stato scritto dal journal: gli eventuali journal non gli appartengono
+        List<Long> generations = journalGenerations(path);
+        long last = generations.isEmpty() ? 0 : generations.get(generations.size() - 1);
+        if (stored.generation == 0) return new LibraryJournal(stored.library, path, last, true);
+
+        for (long journal : generations)
+            if (journal >= stored.generation) replay(stored.library, journalFile(path, journal), journal);
+        return new LibraryJournal(stored.library, path, Math.max(last, stored.generation) + 1, false);
+    }
+
+    /**
+     * @brief Legge la biblioteca salvata nel percorso indicato senza registrarne le modifiche.
+     * @details Come open(), ma non crea una nuova generazione del journal né modifica alcun file: adatto agli
+     *          strumenti che consultano la biblioteca in sola lettura (es. l'esportazione da riga di comando).
+     * @param[in] path Il percorso del file della biblioteca.
+     * @param[in] progress L'oggetto da notificare durante la lettura dello snapshot, null per nessuna notifica.
+     * @return Library La biblioteca, comprese le modifiche registrate nei journal.
+     * @throws IOException Se la lettura fallisce o il contenuto dello snapshot o dei journal non è coerente.
+     * @see #open(Path, ProgressListener)
+     */
+    public static Library read(Path path, ProgressListener progress) throws IOException {
+        Stored stored = readStored(path, progress);
+        if (stored.generation != 0) {
+            for (long journal : journalGenerations(path))
+                if (journal >= stored.generation) replay(stored.library, journalFile(path, journal), journal);
+        }
+        return stored.library;
+    }
+
+    /*
+     * Biblioteca letta dal file, con la prima generazione del journal non inclusa (0 se assente).
+     */
+    private static final class Stored {
+        private final Library library;
+        private final long generation;
+
+        private Stored(Library library, long generation) {
+            this.library = library;
+            this.generation = generation;
+        }
+    }
+
+    private static Stored readStored(Path path, ProgressListener progress) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ);
+             BufferedInputStream in = Codecs.decompressing(new BufferedInputStream(Channels.newInputStream(file)))) {
+            // Riconoscimento del formato tramite la firma iniziale, dopo l'eventuale decompressione
+            byte[] header = new byte[SnapshotFormat.MAGIC.length];
+            in.mark(header.length);
+            int headerLength = in.read(header);
+            in.reset();
+
+            if (SnapshotReader.isSnapshot(header, Math.max(headerLength, 0))) {
+                SnapshotReader reader = new SnapshotReader(in).setProgressListener(filePosition(file, progress));
+                Library library = reader.read();
+                return new Stored(library, reader.getJournalGeneration());
+            }
+            Object obj = new ObjectInputStream(in).readObject();
+            if (!(obj instanceof Library)) throw new IOException("Il file non contiene una biblioteca");
+            return new Stored((Library) obj, 0);
+        } catch (ClassNotFoundException ex) {
+            throw new IOException("Il file non contiene una biblioteca", ex);
+        }
+    }
+
+    /*
+     * Riporta come byte letti la posizione nel file, così che l'avanzamento resti proporzionale alla sua dimensione
+     * anche quando il contenuto decompresso è più grande.
+     */
+    private static ProgressListener filePosition(FileChannel file, ProgressListener progress) {
+        if (progress == null) return null;
+        return (bytes, records) -> {
+            try {
+                progress.progress(file.position(), records);
+            } catch (IOException ex) {
+                progress.progress(bytes, records);
+            }
+        };
+    }
+
+    /**
+     * @brief Salva una biblioteca nel percorso indicato e avvia la registrazione delle sue modifiche.
+     * @param[in] library La biblioteca da salvare.
+     * @param[in] path Il percorso del file della biblioteca.
+     * @return LibraryJournal Il journal collegato alla biblioteca.
+     * @throws IOException Se la scrittura dello snapshot o del journal fallisce.
+     * @post Il file contiene lo snapshot della biblioteca e i journal precedenti dello stesso percorso sono eliminati.
+     */
+    public static LibraryJournal create(Library library, Path path) throws IOException {
+        LibraryJournal journal = attach(library, path);
+        try {
+            journal.sync();
+        } catch (IOException ex) {
+            journal.close();
+            throw ex;
+        }
+        return journal;
+    }
+
+    /**
+     * @brief Collega una biblioteca al percorso indicato senza ancora scriverla.
+     * @details Lo snapshot viene scritto dal primo save() o sync(), da cui parte anche la registrazione delle modifiche.
+     * @param[in] library La biblioteca da salvare.
+     * @param[in] path Il percorso del file della biblioteca.
+     * @return LibraryJournal Il journal collegato alla biblioteca.
+     * @throws IOException Se non è possibile elencare i journal esistenti.
+     */
+    public static LibraryJournal attach(Library library, Path path) throws IOException {
+        List<Long> generations = journalGenerations(path);
+        long last = generations.isEmpty() ? 0 : generations.get(generations.size() - 1);
+        return new LibraryJournal(library, path, last, true);
+    }
+
+    /**
+     * @brief Restituisce la biblioteca osservata dal journal.
+     * @return Library La biblioteca.
+     */
+    public Library getLibrary() {
+        return library;
+    }
+
+    /**
+     * @brief Restituisce il percorso del file della biblioteca.
+     * @return Path Il percorso assoluto del file.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @brief Imposta il codec con cui vengono compressi gli snapshot scritti dai checkpoint successivi.
+     * @details I journal non vengono compressi: i loro record sono brevi e scritti uno alla volta.
+     * @param[in] codec Il codec da usare, {@link Codecs#NONE} per scrivere snapshot non compressi.
+     */
+    public synchronized void setCodec(CompressionCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * @brief Restituisce il codec con cui vengono compressi gli snapshot.
+     * @return CompressionCodec Il codec corrente.
+     */
+    public synchronized CompressionCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * @brief Imposta il numero di snapshot precedenti conservati dai checkpoint successivi.
+     * @param[in] backups Il numero di copie, 0 per non conservarne.
+     * @pre backups >= 0
+     */
+    public synchronized void setBackups(int backups) {
+        if (backups < 0) throw new IllegalArgumentException("Numero di copie non valido: " + backups);
+        this.backups = backups;
+    }
+
+    /**
+     * @brief Restituisce il percorso di una copia di sicurezza di un file della biblioteca.
+     * @param[in] path Il percorso del file della biblioteca.
+     * @param[in] index L'indice della copia, da 1 (la più recente).
+     * @return Path Il percorso "<nome>.<index>.bak".
+     */
+    public static Path backupFile(Path path, int index) {
+        return path.resolveSibling(path.getFileName() + "." + index + ".bak");
+    }
+
+    /**
+     * @brief Restituisce la generazione corrente del journal.
+     * @return long La generazione in cui vengono registrate le modifiche.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @brief Rende persistenti sul disco tutte le modifiche registrate, attendendo la conclusione.
+     * @throws IOException Se la scrittura fallisce.
+     * @post Una successiva open() ricostruisce la biblioteca nello stato corrente.
+     * @see #save(ProgressListener)
+     */
+    public void sync() throws IOException {
+        await(save(null));
+    }
+
+    /**
+     * @brief Rende persistenti sul disco, in background, tutte le modifiche registrate.
+     * @details Se il file non contiene ancora uno snapshot scritto dal journal, o se la registrazione di una modifica
+     *          è fallita, viene eseguito un checkpoint completo; altrimenti è sufficiente forzare il journal sul disco.
+     * @param[in] progress L'oggetto da notificare durante la scrittura di un eventuale snapshot, null per nessuna notifica.
+     * @return CompletableFuture Il completamento del salvataggio.
+     * @pre Il thread chiamante non detiene lock dei registri della biblioteca (es. non è un osservatore di un registro).
+     * @post Al completamento, una successiva open() ricostruisce la biblioteca nello stato all'invocazione.
+     */
+    public CompletableFuture<Void> save(ProgressListener progress) {
+        FileChannel current;
+        synchronized (this) {
+            current = snapshotPending || failure != null ? null : channel;
+        }
+        if (current == null) {
+            try {
+                return checkpoint(progress, true);
+            } catch (IOException ex) {
+                CompletableFuture<Void> failed = new CompletableFuture<>();
+                failed.completeExceptionally(ex);
+                return failed;
+            }
+        }
+
+        return CompletableFuture.runAsync(() -> {
+            try {
+                current.force(false);
+            } catch (ClosedChannelException ex) {
+                // Generazione già conclusa da un checkpoint, che l'ha forzata sul disco
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, IO);
+    }
+
+    /**
+     * @brief Compatta i journal in un nuovo snapshot.
+     * @return CompletableFuture Il completamento della scrittura dello snapshot.
+     * @throws IOException Se non è possibile aprire la nuova generazione del journal.
+     * @see #checkpoint(ProgressListener)
+     */
+    public CompletableFuture<Void> checkpoint() throws IOException {
+        return checkpoint(null);
+    }
+
+    /**
+     * @brief Compatta i journal in un nuovo snapshot, notificando l'avanzamento della scrittura.
+     * @details Sul thread chiamante viene fissata la versione corrente della biblioteca ({@link Library#snapshot()})
+     *          e aperta la nuova generazione del journal; la chiusura della generazione precedente, la copia dei dati,
+     *          la codifica, la scrittura sul disco e l'eliminazione dei journal inclusi avvengono in background, mentre la biblioteca può continuare a essere modificata.
+     * @param[in] progress L'oggetto da notificare durante la scrittura, null per nessuna notifica.
+     * @return CompletableFuture Il completamento della scrittura dello snapshot.
+     * @throws IOException Se non è possibile aprire la nuova generazione del journal o se il journal è chiuso.
+     * @pre Il thread chiamante non detiene lock dei registri della biblioteca (es. non è un osservatore di un registro).
+     */
+    public CompletableFuture<Void> checkpoint(ProgressListener progress) throws IOException {
+        return checkpoint(progress, false);
+    }
+
+    /*
+     * I lock in lettura dei registri vengono acquisiti prima del monitor del journal, nello stesso ordine di
+     * LibraryVersions: nessuna modifica è in corso, quindi la versione fissata contiene esattamente i record delle
+     * generazioni concluse. Un osservatore detiene invece il lock in scrittura del proprio registro e poi il monitor:
+     * per questo append() non esegue il checkpoint ma lo affida alla corsia IO.
+     * Con recover il checkpoint sostituisce un salvataggio non possibile con il solo journal (vedi save()).
+     */
+    private CompletableFuture<Void> checkpoint(ProgressListener progress, boolean recover) throws IOException {
+        return CompletableFuture.runAsync(cut(progress, recover), IO);
+    }
+
+    /*
+     * Fissa la versione della biblioteca e apre la nuova generazione; restituisce la scrittura dello snapshot,
+     * da eseguire sulla corsia IO.
+     */
+    private Runnable cut(ProgressListener progress, boolean recover) throws IOException {
+        Lock studentLock = ((StudentRegister) library.getStudentRegister()).readLock();
+        Lock bookLock = ((BookRegister) library.getBookRegister()).readLock();
+        Lock loanLock = ((LoanRegister) library.getLoanRegister()).readLock();
+        studentLock.lock();
+        bookLock.lock();
+        loanLock.lock();
+        try {
+            synchronized (this) {
+                if (closed) throw new IOException("Il journal è chiuso");
+                boolean initial = snapshotPending;
+                if (recover) {
+                    snapshotPending = false;
+                    failure = null;
+                }
+                checkpointScheduled = false;
+                long next = generation + 1;
+                Runnable write;
+                try {
+                    write = startCheckpoint(next, progress);
+                } catch (IOException ex) {
+                    if (recover) snapshotPending = true;
+                    throw ex;
+                }
+                if (!recover) return write;
+                return () -> {
+                    try {
+                        write.run();
+                    } catch (RuntimeException ex) {
+                        checkpointFailed(next, initial);
+                        throw ex;
+                    }
+                };
+            }
+        } finally {
+            loanLock.unlock();
+            bookLock.unlock();
+            studentLock.unlock();
+        }
+    }
+
+    private Runnable startCheckpoint(long next, ProgressListener progress) throws IOException {
+        LibrarySnapshot snapshot = library.snapshot();
+        CompressionCodec snapshotCodec = codec;
+        int snapshotBackups = backups;
+
+        // La generazione conclusa viene forzata sul disco in background: il checkpoint non attende il disco sul
+        // thread chiamante (di solito il JavaFX Application Thread)
+        FileChannel previous = channel;
+        try {
+            openJournal(next);
+        } catch (IOException ex) {
+            if (previous != null && previous.isOpen()) {
+                previous.force(false);
+                previous.close();
+            }
+            throw ex;
+        }
+
+        return () -> {
+            try {
+                if (previous != null && previous.isOpen()) {
+                    previous.force(false);
+                    previous.close();
+                }
+                writeSnapshot(path, LibraryCopy.of(snapshot), next, snapshotCodec, snapshotBackups, progress);
+                deleteJournals(path, next);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+    }
+
+    /*
+     * Se fallisce lo snapshot iniziale, i record della nuova generazione non hanno uno snapshot di riferimento
+     * e non devono essere rieseguiti sul file precedente: il journal viene scartato fino al prossimo salvataggio.
+     */
+    private synchronized void checkpointFailed(long checkpointGeneration, boolean initial) {
+        if (!initial) {
+            failure = new IOException("Checkpoint della generazione " + checkpointGeneration + " non riuscito");
+            return;
+        }
+        snapshotPending = true;
+        if (generation != checkpointGeneration) return;
+        try {
+            channel.close();
+            Files.deleteIfExists(journalFile(path, checkpointGeneration));
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Impossibile eliminare il journal", ex);
+        }
+    }
+
+    /**
+     * @brief Smette di registrare le modifiche e chiude il journal.
+     * @details I record già scritti restano sul disco e vengono rieseguiti alla successiva apertura.
+     * @throws IOException Se la chiusura del file fallisce.
+     */
+    @Override
+    public void close() throws IOException {
+        // I lock dei registri non vanno richiesti sotto il monitor, che gli osservatori acquisiscono dopo di essi
+        library.getStudentRegister().removeListener(studentListener);
+        library.getBookRegister().removeListener(bookListener);
+        library.getLoanRegister().removeListener(loanListener);
+        synchronized (this) {
+            closed = true;
+            if (channel != null && channel.isOpen()) {
+                channel.force(false);
+                channel.close();
+            }
+        }
+    }
+
+    /*
+     * Checkpoint automatico, eseguito sulla corsia IO dopo che l'osservatore che lo ha richiesto ha rilasciato i lock.
+     * Lo snapshot viene scritto nella stessa operazione, così che un save() richiesto nel frattempo, accodato dopo
+     * di essa, si concluda solo dopo la scrittura.
+     */
+    private void scheduledCheckpoint() {
+        Runnable write;
+        try {
+            write = cut(null, false);
+        } catch (IOException ex) {
+            synchronized (this) {
+                if (closed) return;
+                LOGGER.log(Level.SEVERE, "Checkpoint automatico non riuscito", ex);
+                failure = ex;
+            }
+            return;
+        }
+        try {
+            write.run();
+        } catch (UncheckedIOException ex) {
+            LOGGER.log(Level.WARNING, "Impossibile scrivere lo snapshot del checkpoint automatico", ex);
+        }
+    }
+
+    /*
+     * Un record singolo e un record di gruppo contengono le stesse codifiche: 'body' viene azzerato e chiuso qui.
+     */
+    private synchronized <T> void record(Consumer<T> encoder, T item) {
+        body.reset();
+        encoder.accept(item);
+        append();
+    }
+
+    private synchronized <T> void batch(Consumer<T> encoder, Collection<? extends T> items) {
+        if (items.isEmpty()) return;
+        body.reset();
+        body.writeByte(BATCH);
+        body.writeVarint(items.size());
+        for (T item : items) encoder.accept(item);
+        append();
+    }
+
+    private void putStudent(Student student) {
+        body.writeByte(STUDENT_PUT);
+        body.writeString(student.getName());
+        body.writeString(student.getSurname());
+        body.writeString(student.getStudentId());
+        body.writeString(student.getEmail());
+    }
+
+    private void removeStudent(Student student) {
+        body.writeByte(STUDENT_REMOVE);
+        body.writeString(student.getStudentId());
+    }
+
+    private void putBook(Book book) {
+        body.writeByte(BOOK_PUT);
+        body.writeString(book.getTitle());
+        List<String> authors = book.getAuthors();
+        body.writeVarint(authors.size());
+        for (String author : authors) body.writeString(author);
+        body.writeString(book.getBookId());
+        body.writeVarint(book.getPublishmentYear());
+        body.writeVarint(book.getAvailableCopies());
+    }
+
+    private void removeBook(Book book) {
+        body.writeByte(BOOK_REMOVE);
+        body.writeString(book.getBookId());
+    }
+
+    private void addLoan(Loan loan) {
+        body.writeByte(LOAN_ADD);
+        writeUuid(loan.getLoanId());
+        body.writeString(loan.getStudent().getStudentId());
+        body.writeString(loan.getBook().getBookId());
+        body.writeSignedVarint(loan.getLoanEnd().toEpochDay());
+    }
+
+    private void modifyLoan(Loan loan) {
+        body.writeByte(LOAN_MODIFY);
+        writeUuid(loan.getLoanId());
+        body.writeSignedVarint(loan.getLoanEnd().toEpochDay());
+        body.writeByte(loan.isReturned() ? 1 : 0);
+    }
+
+    private void removeLoan(Loan loan) {
+        body.writeByte(LOAN_REMOVE);
+        writeUuid(loan.getLoanId());
+    }
+
+    private void writeUuid(UUID id) {
+        body.writeLong(id.getMostSignificantBits());
+        body.writeLong(id.getLeastSignificantBits());
+    }
+
+    /**
+     * @brief Imposta la dimensione del journal oltre la quale viene avviato un checkpoint automatico.
+     * @param[in] threshold La dimensione in byte (predefinita {@link #CHECKPOINT_THRESHOLD}).
+     */
+    synchronized void setCheckpointThreshold(long threshold) {
+        checkpointThreshold = threshold;
+    }
+
+    /*
+     * Accoda il record contenuto in 'body'. Gli errori non possono essere propagati al registro che ha notificato
+     * la modifica: vengono conservati e il successivo sync() ripristina la coerenza con un checkpoint completo.
+     */
+    private synchronized void append() {
+        if (snapshotPending) return;
+        if (channel == null || !channel.isOpen()) {
+            failure = new IOException("Il journal non è aperto");
+            return;
+        }
+        crc.reset();
+        crc.update(body.buffer(), 0, body.size());
+        frame.reset();
+        frame.writeVarint(body.size());
+        frame.writeInt((int) crc.getValue());
+        frame.writeBytes(body.buffer(), 0, body.size());
+        try {
+            writeFrame();
+            if (journalSize >= checkpointThreshold && !checkpointScheduled) {
+                checkpointScheduled = true;
+                IO.execute(this::scheduledCheckpoint);
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.SEVERE, "Impossibile registrare la modifica nel journal", ex);
+            failure = ex;
+        }
+    }
+
+    private void writeFrame() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(frame.buffer(), 0, frame.size());
+        while (buffer.hasRemaining()) channel.write(buffer);
+        journalSize += frame.size();
+    }
+
+    private void openJournal(long newGeneration) throws IOException {
+        channel = FileChannel.open(journalFile(path, newGeneration), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        generation = newGeneration;
+        journalSize = 0;
+        frame.reset();
+        frame.writeBytes(MAGIC, 0, MAGIC.length);
+        frame.writeVarint(VERSION);
+        frame.writeVarint(newGeneration);
+        writeFrame();
+    }
+
+    /*
+     * Riesegue sulla biblioteca i record di un journal, fermandosi al primo record incompleto o danneggiato.
+     */
+    static void replay(Library library, Path file, long expectedGeneration) throws IOException {
+        SnapshotDecoder record = new SnapshotDecoder();
+        CRC32 crc = new CRC32();
+        int applied = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             CountingInputStream in = new CountingInputStream(new BufferedInputStream(Channels.newInputStream(channel)))) {
+            long size = channel.size();
+            byte[] magic = new byte[MAGIC.length];
+            if (in.read(magic) != magic.length || !Arrays.equals(magic, MAGIC)) return;
+            if (SnapshotDecoder.readVarint(in) != VERSION || SnapshotDecoder.readVarint(in) != expectedGeneration)
+                throw new IOException("Intestazione del journal non valida: " + file);
+
+            while (true) {
+                int first = in.read();
+                if (first < 0) break;
+                long length = first < 0x80 ? first : (first & 0x7F) | (SnapshotDecoder.readVarint(in) << 7);
+                // Una lunghezza oltre la fine del file indica una coda danneggiata, non un record da leggere
+                if (length > Integer.MAX_VALUE || length > size - in.count - 4) break;
+                record.load(in, 4);
+                int checksum = record.readInt();
+                record.load(in, (int) length);
+                crc.reset();
+                crc.update(record.buffer(), 0, (int) length);
+                if ((int) crc.getValue() != checksum) break;
+                apply(library, record);
+                applied++;
+            }
+        } catch (EOFException ex) {
+            // Ultimo record scritto solo in parte: viene scartato
+        } catch (NoSuchFileException ex) {
+            return;
+        }
+        LOGGER.log(Level.FINE, "Journal {0}: {1} record rieseguiti", new Object[]{file, applied});
+    }
+
+    /*
+     * Conta i byte letti dal journal, per confrontare la lunghezza dichiarata di ogni record con quella del file.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    private static void apply(Library library, SnapshotDecoder record) throws IOException {
+        Register<Student> students = library.getStudentRegister();
+        Register<Book> books = library.getBookRegister();
+        Register<Loan> loans = library.getLoanRegister();
+        int type = record.readByte();
+        try {
+            switch (type) {
+                case BATCH: {
+                    int count = record.readCount();
+                    for (int i = 0; i < count; i++) apply(library, record);
+                    break;
+                }
+                case STUDENT_PUT: {
+                    Student student = new Student(record.readString(), record.readString(), record.readString(), record.readString());
+                    if (!students.modifyById(student.getStudentId(), student)) students.add(student);
+                    break;
+                }
+                case STUDENT_REMOVE: {
+                    Student student = students.findById(record.readString());
+                    if (student != null) students.remove(student);
+                    break;
+                }
+                case BOOK_PUT: {
+                    String title = record.readString();
+                    int authorCount = record.readCount();
+                    List<String> authors = new ArrayList<>(authorCount);
+                    for (int i = 0; i < authorCount; i++) authors.add(record.readString());
+                    Book book = new Book(title, authors, record.readString(), record.readCount(), record.readCount());
+                    if (!books.modifyById(book.getBookId(), book)) books.add(book);
+                    break;
+                }
+                case BOOK_REMOVE: {
+                    Book book = books.findById(record.readString());
+                    if (book != null) books.remove(book);
+                    break;
+                }
+                case LOAN_ADD: {
+                    UUID loanId = new UUID(record.readLong(), record.readLong());
+                    Student student = students.findById(record.readString());
+                    Book book = books.findById(record.readString());
+                    LocalDate loanEnd = LocalDate.ofEpochDay(record.readSignedVarint());
+                    if (loans.findById(loanId.toString()) != null) break;
+                    if (student == null || book == null)
+                        throw new IOException("Il prestito " + loanId + " fa riferimento a uno studente o a un libro assente");
+                    loans.add(new Loan(loanId, student, book, loanEnd, false));
+                    break;
+                }
+                case LOAN_MODIFY: {
+                    UUID loanId = new UUID(record.readLong(), record.readLong());
+                    LocalDate loanEnd = LocalDate.ofEpochDay(record.readSignedVarint());
+                    boolean returned = record.readByte() != 0;
+                    Loan loan = loans.findById(loanId.toString());
+                    if (loan == null) throw new IOException("Il prestito " + loanId + " non è presente");
+                    loans.modifyById(loanId.toString(), new Loan(loanId, loan.getStudent(), loan.getBook(), loanEnd, returned));
+                    break;
+                }
+                case LOAN_REMOVE: {
+                    Loan loan = loans.findById(new UUID(record.readLong(), record.readLong()).toString());
+                    if (loan != null) loans.remove(loan);
+                    break;
+                }
+                default:
+                    throw new IOException("Tipo di record sconosciuto: " + type);
+            }
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            throw new IOException("Record di tipo " + type + " non valido", ex);
+        }
+    }
+
+    private static void writeSnapshot(Path path, LibraryCopy copy, long generation, CompressionCodec codec,
+                                      int backups, ProgressListener progress) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream file = new BufferedOutputStream(Channels.newOutputStream(out), 1 << 16);
+            // La chiusura dello stream completa i dati compressi senza chiudere il canale, forzato subito dopo
+            try (OutputStream content = Codecs.compressing(new FilterOutputStream(file) {
+                @Override public void write(byte[] b, int off, int len) throws IOException { file.write(b, off, len); }
+                @Override public void close() throws IOException { file.flush(); }
+            }, codec)) {
+                new SnapshotWriter(content).setProgressListener(progress).write(copy, generation);
+            }
+            out.force(true);
+        }
+        rotateBackups(path, backups);
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        // Rende persistente anche la rinomina; non tutti i sistemi permettono di aprire una cartella
+        try (FileChannel directory = FileChannel.open(path.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Impossibile forzare la cartella sul disco", ex);
+        }
+    }
+
+    /*
+     * Il file corrente diventa la copia più recente tramite un collegamento, così che il percorso originale
+     * resti valido fino alla rinomina del nuovo snapshot.
+     */
+    private static void rotateBackups(Path path, int backups) throws IOException {
+        if (backups == 0 || !Files.exists(path)) return;
+        Files.deleteIfExists(backupFile(path, backups));
+        for (int i = backups - 1; i >= 1; i--) {
+            Path backup = backupFile(path, i);
+            if (Files.exists(backup)) Files.move(backup, backupFile(path, i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        try {
+            Files.createLink(backupFile(path, 1), path);
+        } catch (IOException | UnsupportedOperationException ex) {
+            Files.copy(path, backupFile(path, 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteJournals(Path path, long before) throws IOException {
+        for (long journal : journalGenerations(path))
+            if (journal < before) Files.deleteIfExists(journalFile(path, journal));
+    }
+
+    static Path journalFile(Path path, long generation) {
+        return path.resolveSibling(path.getFileName() + "." + generation + SUFFIX);
+    }
+
+    /*
+     * Restituisce, in ordine crescente, le generazioni dei journal presenti accanto al file della biblioteca.
+     */
+    static List<Long> journalGenerations(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        String prefix = absolute.getFileName() + ".";
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(absolute.getParent())) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!name.startsWith(prefix) || !name.endsWith(SUFFIX)) continue;
+                try {
+                    generations.add(Long.parseLong(name.substring(prefix.length(), name.length() - SUFFIX.length())));
+                } catch (NumberFormatException ex) {
+                    // File con un nome simile ma non generato dal journal
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Checkpoint interrotto", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof UncheckedIOException) cause = cause.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * @file LibrarySnapshot.java
+ * @brief Versione immutabile dei registri della biblioteca.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * @class LibrarySnapshot
+ * @brief Fotografia coerente e immutabile di studenti, libri e prestiti in una data versione della biblioteca.
+ * @details Si ottiene con {@link Library#snapshot()} e può essere letta da qualsiasi thread, senza lock, mentre la
+ *          biblioteca continua a essere modificata: salvataggi, esportazioni e report vedono così un unico stato, in cui
+ *          ogni prestito fa riferimento a studenti e libri della stessa versione.
+ *
+ *          I tre registri sono memorizzati in insiemi persistenti ({@link PersistentSortedSet}) nell'ordine di
+ *          visualizzazione: versioni successive condividono tutti i record non modificati, e una versione che nessun
+ *          lettore trattiene più viene liberata dal garbage collector. I record contengono soltanto valori immutabili.
+ * @invariant Il contenuto non cambia dopo la creazione.
+ */
+public final class LibrarySnapshot {
+
+    /**
+     * @class StudentRecord
+     * @brief Dati di uno studente in una versione della biblioteca.
+     */
+    public static final class StudentRecord {
+        private final String name;
+        private final String surname;
+        private final String studentId;
+        private final String email;
+        private final String sortKey;
+
+        StudentRecord(Student student) {
+            this.name = student.getName();
+            this.surname = student.getSurname();
+            this.studentId = student.getStudentId();
+            this.email = student.getEmail();
+            this.sortKey = student.getSortKey();
+        }
+
+        /** @return String Il nome dello studente. */
+        public String getName() { return name; }
+
+        /** @return String Il cognome dello studente. */
+        public String getSurname() { return surname; }
+
+        /** @return String La matricola dello studente. */
+        public String getStudentId() { return studentId; }
+
+        /** @return String L'email istituzionale dello studente. */
+        public String getEmail() { return email; }
+    }
+
+    /**
+     * @class BookRecord
+     * @brief Dati di un libro in una versione della biblioteca.
+     * @note Le copie disponibili sono quelle al momento della creazione della versione: possono già escludere una copia
+     *       riservata da un prestito concorrente non ancora registrato (vedi {@link Book#tryReserveCopy()}).
+     */
+    public static final class BookRecord {
+        private final String title;
+        private final List<String> authors;
+        private final String bookId;
+        private final int publishmentYear;
+        private final int availableCopies;
+        private final String sortKey;
+
+        BookRecord(Book book) {
+            this.title = book.getTitle();
+            // Book.copy() sostituisce la lista degli autori senza modificarla: il riferimento resta valido
+            this.authors = Collections.unmodifiableList(book.getAuthors());
+            this.bookId = book.getBookId();
+            this.publishmentYear = book.getPublishmentYear();
+            this.availableCopies = book.getAvailableCopies();
+            this.sortKey = book.getSortKey();
+        }
+
+        /** @return String Il titolo del libro. */
+        public String getTitle() { return title; }
+
+        /** @return List<String> Gli autori del libro, in sola lettura. */
+        public List<String> getAuthors() { return authors; }
+
+        /** @return String L'ISBN del libro. */
+        public String getBookId() { return bookId; }
+
+        /** @return int L'anno di pubblicazione. */
+        public int getPublishmentYear() { return publishmentYear; }
+
+        /** @return int Il numero di copie disponibili. */
+        public int getAvailableCopies() { return availableCopies; }
+    }
+
+    /**
+     * @class LoanRecord
+     * @brief Dati di un prestito in una versione della biblioteca.
+     * @details Studente e libro sono indicati dai loro identificativi, da risolvere nella stessa versione.
+     */
+    public static final class LoanRecord {
+        private final UUID loanId;
+        private final String studentId;
+        private final String bookId;
+        private final LocalDate loanEnd;
+        private final boolean returned;
+
+        LoanRecord(Loan loan) {
+            this.loanId = loan.getLoanId();
+            this.studentId = loan.getStudent().getStudentId();
+            this.bookId = loan.getBook().getBookId();
+            this.loanEnd = loan.getLoanEnd();
+            this.returned = loan.isReturned();
+        }
+
+        /** @return UUID L'identificativo del prestito. */
+        public UUID getLoanId() { return loanId; }
+
+        /** @return String La matricola dello studente. */
+        public String getStudentId() { return studentId; }
+
+        /** @return String L'ISBN del libro. */
+        public String getBookId() { return bookId; }
+
+        /** @return LocalDate La data di restituzione prevista. */
+        public LocalDate getLoanEnd() { return loanEnd; }
+
+        /** @return boolean true se il prestito è stato restituito. */
+        public boolean isReturned() { return returned; }
+    }
+
+    /*
+     * Ordinamenti di visualizzazione dei registri (vedi StudentRegister, BookRegister e LoanRegister).
+     */
+    static final Comparator<StudentRecord> STUDENT_ORDER = Comparator.comparing(student -> student.sortKey);
+    static final Comparator<BookRecord> BOOK_ORDER = Comparator.<BookRecord, String>comparing(book -> book.sortKey).
+            thenComparing(book -> book.bookId);
+    static final Comparator<LoanRecord> LOAN_ORDER = Comparator.<LoanRecord, LocalDate>comparing(loan -> loan.loanEnd).
+            thenComparing(loan -> loan.loanId);
+
+    private final long version;
+    final PersistentSortedSet<StudentRecord> students;
+    final PersistentSortedSet<BookRecord> books;
+    final PersistentSortedSet<LoanRecord> loans;
+
+    LibrarySnapshot(long version, PersistentSortedSet<StudentRecord> students, PersistentSortedSet<BookRecord> books,
+                    PersistentSortedSet<LoanRecord> loans) {
+        this.version = version;
+        this.students = students;
+        this.books = books;
+        this.loans = loans;
+    }
+
+    /**
+     * @brief Restituisce il numero di versione.
+     * @return long Il numero di modifiche dei registri incluse in questa versione: cresce a ogni nuova versione.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @brief Restituisce gli studenti nell'ordine di visualizzazione (Cognome, Nome, Matricola).
+     * @return Iterable<StudentRecord> Gli studenti della versione.
+     */
+    public Iterable<StudentRecord> getStudents() {
+        return students;
+    }
+
+    /**
+     * @brief Restituisce i libri nell'ordine di visualizzazione (Titolo, Autori, ISBN).
+     * @return Iterable<BookRecord> I libri della versione.
+     */
+    public Iterable<BookRecord> getBooks() {
+        return books;
+    }
+
+    /**
+     * @brief Restituisce i prestiti nell'ordine di visualizzazione (data di restituzione, loanId).
+     * @return Iterable<LoanRecord> I prestiti della versione, compresi quelli restituiti.
+     */
+    public Iterable<LoanRecord> getLoans() {
+        return loans;
+    }
+
+    /**
+     * @brief Restituisce il numero di studenti, in tempo costante.
+     * @return int Il numero di studenti della versione.
+     */
+    public int getStudentCount() {
+        return students.size();
+    }
+
+    /**
+     * @brief Restituisce il numero di libri, in tempo costante.
+     * @return int Il numero di libri della versione.
+     */
+    public int getBookCount() {
+        return books.size();
+    }
+
+    /**
+     * @brief Restituisce il numero di prestiti, in tempo costante.
+     * @return int Il numero di prestiti della versione.
+     */
+    public int getLoanCount() {
+        return loans.size();
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * @file LibraryVersions.java
+ * @brief Gestione delle versioni immutabili della biblioteca.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import softeng.librarymanager.models.LibrarySnapshot.BookRecord;
+import softeng.librarymanager.models.LibrarySnapshot.LoanRecord;
+import softeng.librarymanager.models.LibrarySnapshot.StudentRecord;
+
+/**
+ * @class LibraryVersions
+ * @brief Produce le versioni ({@link LibrarySnapshot}) di una biblioteca a partire dalle modifiche dei registri.
+ * @details Gli osservatori dei registri non costruiscono nuove versioni: annotano soltanto gli identificativi degli
+ *          elementi modificati e incrementano il contatore delle modifiche, così che inserimenti e caricamenti non
+ *          paghino il costo delle strutture persistenti. La versione viene prodotta alla prima richiesta successiva
+ *          alle modifiche, applicando alla precedente, con un solo {@link PersistentSortedSet.Editor} per registro, i
+ *          record degli elementi annotati (O(k log n) per k elementi modificati). Se non ci sono modifiche in sospeso,
+ *          la versione corrente viene restituita in tempo costante e senza lock.
+ *
+ *          Durante la produzione di una versione vengono acquisiti i lock in lettura dei tre registri, nell'ordine
+ *          studenti, libri, prestiti: è lo stesso ordine in cui le modifiche di studenti e libri si propagano al registro
+ *          dei prestiti, quindi non può causare stalli. Nessuna modifica può essere in corso e la versione è coerente.
+ *          Il monitor interno viene acquisito solo dopo i lock dei registri, così che anche chi li detiene già in
+ *          lettura (es. il checkpoint del journal) possa richiedere una versione.
+ */
+final class LibraryVersions {
+
+    /*
+     * Osservatore che annota gli elementi modificati; ogni notifica, anche di gruppo, conta come una modifica.
+     */
+    private abstract class Tracker<T> implements RegisterListener<T> {
+        abstract void mark(T item);
+
+        @Override public void added(T item) { mark(item); changes.incrementAndGet(); }
+        @Override public void modified(T item) { mark(item); changes.incrementAndGet(); }
+        @Override public void removed(T item) { mark(item); changes.incrementAndGet(); }
+        @Override public void addedAll(Collection<? extends T> items) { markAll(items); }
+        @Override public void modifiedAll(Collection<? extends T> items) { markAll(items); }
+        @Override public void removedAll(Collection<? extends T> items) { markAll(items); }
+
+        private void markAll(Collection<? extends T> items) {
+            for (T item : items) mark(item);
+            changes.incrementAndGet();
+        }
+    }
+
+    private final StudentRegister students;
+    private final BookRegister books;
+    private final LoanRegister loans;
+    private final AtomicLong changes = new AtomicLong();
+    private volatile LibrarySnapshot current;
+
+    /*
+     * Identificativi modificati dopo l'ultima versione: scritti dagli osservatori, sotto il lock in scrittura del
+     * registro osservato, e letti da materialize(), sotto il lock in lettura. Le copie dei libri cambiano con i
+     * prestiti, quindi i libri dei prestiti modificati sono annotati a parte, sotto il lock del registro dei prestiti.
+     */
+    private final Set<String> dirtyStudents = new HashSet<>();
+    private final Set<String> dirtyBooks = new HashSet<>();
+    private final Set<String> dirtyLoans = new HashSet<>();
+    private final Set<String> dirtyCopies = new HashSet<>();
+
+    /*
+     * Record della versione corrente per identificativo, necessari per rimuovere dagli insiemi ordinati il record
+     * precedente di un elemento modificato (accesso solo da materialize()).
+     */
+    private final Map<String, StudentRecord> studentRecords = new HashMap<>();
+    private final Map<String, BookRecord> bookRecords = new HashMap<>();
+    private final Map<String, LoanRecord> loanRecords = new HashMap<>();
+
+    /**
+     * @brief Costruttore.
+     * @param[in] students Il registro degli studenti.
+     * @param[in] books Il registro dei libri.
+     * @param[in] loans Il registro dei prestiti.
+     * @post Le modifiche successive dei registri sono incluse nelle versioni prodotte.
+     */
+    LibraryVersions(StudentRegister students, BookRegister books, LoanRegister loans) {
+        this.students = students;
+        this.books = books;
+        this.loans = loans;
+        students.addListener(new Tracker<Student>() {
+            @Override void mark(Student item) { dirtyStudents.add(item.getStudentId()); }
+        });
+        books.addListener(new Tracker<Book>() {
+            @Override void mark(Book item) { dirtyBooks.add(item.getBookId()); }
+        });
+        loans.addListener(new Tracker<Loan>() {
+            @Override void mark(Loan item) {
+                dirtyLoans.add(item.getLoanId().toString());
+                dirtyCopies.add(item.getBook().getBookId());
+            }
+        });
+    }
+
+    /**
+     * @brief Restituisce la versione che include tutte le modifiche concluse.
+     * @return LibrarySnapshot La versione corrente.
+     */
+    LibrarySnapshot current() {
+        LibrarySnapshot snapshot = current;
+        if (snapshot != null && snapshot.getVersion() == changes.get()) return snapshot;
+        return materialize();
+    }
+
+    private LibrarySnapshot materialize() {
+        students.readLock().lock();
+        books.readLock().lock();
+        loans.readLock().lock();
+        try {
+            synchronized (this) {
+                long version = changes.get();
+                LibrarySnapshot base = current;
+                if (base != null && base.getVersion() == version) return base;
+                LibrarySnapshot snapshot = base == null ? build(version) : apply(base, version);
+                current = snapshot;
+                return snapshot;
+            }
+        } finally {
+            loans.readLock().unlock();
+            books.readLock().unlock();
+            students.readLock().unlock();
+        }
+    }
+
+    /*
+     * Prima versione: i registri sono già nell'ordine di visualizzazione, quindi gli insiemi sono costruiti in tempo lineare.
+     */
+    private LibrarySnapshot build(long version) {
+        List<StudentRecord> studentList = new ArrayList<>();
+        for (Student student : students.getRegisterList()) {
+            StudentRecord record = new StudentRecord(student);
+            studentRecords.put(record.getStudentId(), record);
+            studentList.add(record);
+        }
+        List<BookRecord> bookList = new ArrayList<>();
+        for (Book book : books.getRegisterList()) {
+            BookRecord record = new BookRecord(book);
+            bookRecords.put(record.getBookId(), record);
+            bookList.add(record);
+        }
+        List<LoanRecord> loanList = new ArrayList<>();
+        for (Loan loan : loans.getRegisterList()) {
+            LoanRecord record = new LoanRecord(loan);
+            loanRecords.put(record.getLoanId().toString(), record);
+            loanList.add(record);
+        }
+        dirtyStudents.clear();
+        dirtyBooks.clear();
+        dirtyLoans.clear();
+        dirtyCopies.clear();
+        return new LibrarySnapshot(version, PersistentSortedSet.fromSorted(LibrarySnapshot.STUDENT_ORDER, studentList),
+                PersistentSortedSet.fromSorted(LibrarySnapshot.BOOK_ORDER, bookList),
+                PersistentSortedSet.fromSorted(LibrarySnapshot.LOAN_ORDER, loanList));
+    }
+
+    private LibrarySnapshot apply(LibrarySnapshot base, long version) {
+        PersistentSortedSet.Editor<StudentRecord> studentEditor = base.students.edit();
+        for (String id : dirtyStudents) {
+            StudentRecord previous = studentRecords.remove(id);
+            if (previous != null) studentEditor.remove(previous);
+            Student student = students.findById(id);
+            if (student == null) continue;
+            StudentRecord record = new StudentRecord(student);
+            studentRecords.put(id, record);
+            studentEditor.add(record);
+        }
+
+        PersistentSortedSet.Editor<BookRecord> bookEditor = base.books.edit();
+        dirtyBooks.addAll(dirtyCopies);
+        for (String id : dirtyBooks) {
+            BookRecord previous = bookRecords.remove(id);
+            if (previous != null) bookEditor.remove(previous);
+            Book book = books.findById(id);
+            if (book == null) continue;
+            BookRecord record = new BookRecord(book);
+            bookRecords.put(id, record);
+            bookEditor.add(record);
+        }
+
+        PersistentSortedSet.Editor<LoanRecord> loanEditor = base.loans.edit();
+        for (String id : dirtyLoans) {
+            LoanRecord previous = loanRecords.remove(id);
+            if (previous != null) loanEditor.remove(previous);
+            Loan loan = loans.findById(id);
+            if (loan == null) continue;
+            LoanRecord record = new LoanRecord(loan);
+            loanRecords.put(id, record);
+            loanEditor.add(record);
+        }
+
+        dirtyStudents.clear();
+        dirtyBooks.clear();
+        dirtyLoans.clear();
+        dirtyCopies.clear();
+        return new LibrarySnapshot(version, studentEditor.done(), bookEditor.done(), loanEditor.done());
+    }
+}
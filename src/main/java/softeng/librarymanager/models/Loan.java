@@ -21,6 +21,11 @@ import java.util.UUID;
  */
 public class Loan implements Comparable<Loan>, Serializable{
 
+    /*
+     * Valore calcolato dalla prima versione della classe, che ha la stessa forma serializzata.
+     */
+    private static final long serialVersionUID = 5724372397574513579L;
+
     /**
      * @brief Identificativo univoco del prestito {readOnly}
      */
@@ -44,7 +49,12 @@ public class Loan implements Comparable<Loan>, Serializable{
     /**
      * @brief Stato di restituzione (True se restituito, False altrimenti).
      */
-    private boolean returned = false;
+    private volatile boolean returned = false;
+
+    /**
+     * @brief Registro che contiene il prestito, notificato alla restituzione (null se il prestito non è registrato).
+     */
+    private transient LoanRegister register;
 
     /**
      * @brief Costruttore parametrizzato.
@@ -64,6 +74,26 @@ public class Loan implements Comparable<Loan>, Serializable{
         if(!this.isValid()) throw new IllegalArgumentException("Impossibile creare un prestito con i seguenti valori");
     }
 
+    /**
+     * @brief Costruttore per il ripristino di un prestito salvato.
+     * @details A differenza del costruttore pubblico conserva l'identificativo e lo stato di restituzione,
+     *          senza attivare il prestito: le copie del libro sono già state salvate al netto dei prestiti attivi.
+     * @param[in] loanId L'identificativo salvato del prestito.
+     * @param[in] student Lo studente che ha effettuato il prestito.
+     * @param[in] book Il libro oggetto del prestito.
+     * @param[in] loanEnd La data di scadenza.
+     * @param[in] returned Lo stato di restituzione.
+     * @post Se le invarianti non sono rispettate viene lanciata una IllegalArgumentException.
+     */
+    Loan(UUID loanId, Student student, Book book, LocalDate loanEnd, boolean returned) {
+        this.loanId = loanId;
+        this.student = student;
+        this.book = book;
+        this.loanEnd = loanEnd;
+        this.returned = returned;
+        if(loanId == null || !this.isValid()) throw new IllegalArgumentException("Impossibile creare un prestito con i seguenti valori");
+    }
+
     /**
      * @brief Restituisce l'identificativo del prestito.
      * @return int L'identificativo del prestito.
@@ -116,33 +146,67 @@ public class Loan implements Comparable<Loan>, Serializable{
     /**
      * @brief Segna il prestito come restituito.
      * @details Imposta lo stato returned a true, rimuove il prestito dai prestiti attivi dello studente e aumenta di uno il numero di copie del relativo libro.
+     *          Se il prestito appartiene a un registro, la restituzione avviene tramite {@link LoanRegister#returnLoan(Loan)},
+     *          così che gli indici del registro siano aggiornati nella stessa operazione atomica.
      * @pre Il prestito è stato attivato.
      * @post Il prestito viene rimosso dallo studente e il numero di copie del libro viene incrementato di uno.
+     * @post Un prestito già restituito non viene modificato.
      */
     public void returnLoan() {
-        this.returned = true;
+        LoanRegister register = this.register;
+        if (register != null) register.returnLoan(this);
+        else markReturned();
+    }
 
+    /**
+     * @brief Restituisce il prestito aggiornando studente e libro, senza notificare il registro.
+     * @details Il monitor del prestito impedisce che due restituzioni concorrenti rendano disponibile la copia due volte;
+     *          la copia torna disponibile con {@link Book#releaseCopy()}, senza lock sul libro.
+     * @return boolean true se il prestito è stato restituito, false se lo era già.
+     */
+    boolean markReturned() {
+        synchronized (this) {
+            if (returned) return false;
+            this.returned = true;
+        }
         student.removeActiveLoan(this);
-        book.setAvailableCopies(book.getAvailableCopies()+1);
+        book.releaseCopy();
+        return true;
+    }
+
+    /**
+     * @brief Imposta il registro che contiene il prestito.
+     * @param[in] register Il registro da notificare alla restituzione, null per scollegare il prestito.
+     */
+    void setRegister(LoanRegister register) {
+        this.register = register;
     }
     
     /**
      * @brief Attiva il prestito.
-     * @details Attiva il presito aggiungendo il prestito alla lista dei prestiti attivi dello studente.
-     *          e decrementando le copie disponibili del libro.
+     * @details Attiva il presito riservando una copia del libro e aggiungendo il prestito alla lista dei prestiti attivi dello studente.
      * @pre Il prestito deve essere attivabile.
      * @post Il prestito viene aggiunto allo studente e il numero di copie del libro viene decrementato di uno.
-     * @post Se la precondizione non è rispettata viene lanciata IllegalStateException.
+     * @post Se la precondizione non è rispettata viene lanciata IllegalStateException e le copie del libro non cambiano.
+     * @note La copia è riservata con {@link Book#tryReserveCopy()}, quindi attivazioni concorrenti dello stesso libro
+     *       non possono superare le copie disponibili, senza lock sul libro.
      */
     public void activateLoan() {
-        if (!isActivable()) throw new IllegalStateException("Non è possibile attivare questo prestito");
-        student.addActiveLoan(this);
-        book.setAvailableCopies(book.getAvailableCopies()-1);
+        if (!book.tryReserveCopy()) throw new IllegalStateException("Non è possibile attivare questo prestito");
+        activateReserved();
     }
-    
-    private boolean isActivable() {
-        return book.isAvailableForLoan() &&
-                student.isAvailableForLoan();
+
+    /**
+     * @brief Attiva il prestito per una copia del libro già riservata con {@link Book#tryReserveCopy()}.
+     * @post Se lo studente ha raggiunto il limite di prestiti la copia viene rilasciata e viene lanciata IllegalStateException.
+     */
+    void activateReserved() {
+        try {
+            student.addActiveLoan(this);
+        } catch (IllegalStateException ex) {
+            book.releaseCopy();
+            throw ex;
+        }
     }
 
     /**
@@ -162,11 +226,21 @@ public class Loan implements Comparable<Loan>, Serializable{
      * @brief Indica se il prestito è in ritardo.
      * @details Ritorna true solo se la data odierna è successiva alla data di scadenza (loanEnd).
      *          Se oggi è il giorno della scadenza, ritorna comunque false.
+     *          La data odierna è quella memorizzata da {@link Today}, così che il controllo possa essere ripetuto per ogni riga
+     *          di una tabella senza interrogare il calendario.
      * @return boolean true se il prestito è in ritardo, false altrimenti.
      */
     public boolean isDelay() {
-        LocalDate today = LocalDate.now();
-        return today.isAfter(loanEnd);
+        return isDelay(Today.get());
+    }
+
+    /**
+     * @brief Indica se il prestito risulta in ritardo alla data specificata.
+     * @param[in] date La data di riferimento.
+     * @return boolean true se la data è successiva alla data di scadenza, false altrimenti.
+     */
+    public boolean isDelay(LocalDate date) {
+        return date.isAfter(loanEnd);
     }
 
     private boolean isValid(){
@@ -8,27 +8,86 @@
 
 package softeng.librarymanager.models;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 
 
 /**
  * @brief Implementa un catalogo prestiti e le funzionalità per la sua gestione.
  * @details Questa classe fornisce metodi per l'aggiunta, la rimozione, la modifica, l'estinzione e la verifica dell'univocità di un prestito.
  * Inoltre, fornisce un metodo per la restituzione del catalogo come lista ordinata.
+ * L'accesso è regolato da un lock di lettura/scrittura: ricerche e consultazioni possono essere eseguite in parallelo
+ * da più thread (es. ricerche in background, salvataggi), mentre le modifiche sono eseguite in modo esclusivo e
+ * notificano gli osservatori prima di rilasciare il lock.
+ * I prestiti attivi sono indicizzati anche per data di restituzione, così che i prestiti in ritardo o in scadenza
+ * in un intervallo di date si individuino in O(log n) senza scorrere lo storico, e per matricola e ISBN, così che i prestiti
+ * di uno studente o di un libro si ottengano con una ricerca hash indipendente dalla dimensione del catalogo.
  * @see Register
  * @see Loan
  * @invariant loanRegister != null
  */
 public class LoanRegister implements Register<Loan>, Serializable {
 
-    private Set<Loan> loanRegister; ///< @brief Struttura dati interna per la memorizzazione del catalogo.
+    private static final long serialVersionUID = -117353230816048926L;
+
+    /*
+     * Forma serializzata della prima versione, in cui il catalogo era un insieme ordinato: i file .obj salvati da
+     * quella versione restano leggibili, e viceversa. La mappa e le strutture di visualizzazione sono ricostruite
+     * alla lettura.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("loanRegister", Set.class)
+    };
+
+    /**
+     * @brief Ordinamento di visualizzazione: data di restituzione e, a parità, loanId.
+     */
+    private static final Comparator<Loan> DISPLAY_ORDER = Comparator.comparing(Loan::getLoanEnd).
+            thenComparing(Loan::getLoanId);
+
+    /*
+     * Prestiti di uno studente o di un libro: tutti quelli presenti nel catalogo e, tra questi, quelli attivi.
+     */
+    private static final class Holdings {
+        private final Set<Loan> loans = new LinkedHashSet<>();
+        private final Set<Loan> active = new LinkedHashSet<>();
+    }
+
+    private transient Map<String, Loan> loanRegister; ///< @brief Struttura dati interna per la memorizzazione del catalogo, indicizzata per loanId.
+
+    private transient Map<String, Holdings> byStudent; ///< @brief Indice dei prestiti per matricola dello studente.
+
+    private transient Map<String, Holdings> byBook; ///< @brief Indice dei prestiti per ISBN del libro.
+
+    private transient SortedView<Loan> sortedLoans; ///< @brief Catalogo mantenuto nell'ordine di visualizzazione.
+
+    private transient SortedView<Loan> activeLoans; ///< @brief Prestiti attivi nell'ordine di visualizzazione, cioè per data di restituzione.
+
+    private transient SearchIndex<Loan> searchIndex; ///< @brief Indice invertito sui dati dello studente e del libro coinvolti.
+
+    private transient ReentrantReadWriteLock lock; ///< @brief Lock condiviso dalle letture ed esclusivo per le modifiche.
+
+    private transient List<RegisterListener<Loan>> listeners; ///< @brief Osservatori notificati ad ogni modifica del catalogo.
+
+    private transient long modificationCount; ///< @brief Numero di modifiche subite dal catalogo dall'apertura.
+
+    private transient boolean batching; ///< @brief Durante un'operazione di gruppo le restituzioni sono notificate insieme al gruppo.
 
     /**
      * @post Il catalogo prestiti è correttamente inizializzato ed è vuoto.
      */
     public LoanRegister() {
-        this.loanRegister = new TreeSet<>();
+        this.loanRegister = new TreeMap<>();
+        initIndexes();
     }
 
     /**
@@ -36,7 +95,7 @@ public class LoanRegister implements Register<Loan>, Serializable {
      * @param[in] toAdd Prestito da aggiungere al catalogo.
      * @pre 'toAdd' != null
      * @pre 'toAdd' deve essere un prestito valido secondo RegisterValidator
-     * @pre 'toAdd' deve essere un prestito attivabile secondo il metodo isActivable() di Loan
+     * @pre 'toAdd' deve essere un prestito attivabile secondo il metodo activateLoan() di Loan
      * @see Loan
      * @see RegisterValidator
      * @post Il prestito specificato è presente nel catalogo.
@@ -44,8 +103,58 @@ public class LoanRegister implements Register<Loan>, Serializable {
      */
     @Override
     public void add(Loan toAdd) {
-        toAdd.activateLoan();
-        loanRegister.add(toAdd);
+        lock.writeLock().lock();
+        try {
+            toAdd.activateLoan();
+            insert(toAdd);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+     * Inserisce nel catalogo un prestito già attivato e lo notifica agli osservatori (da invocare sotto il lock in scrittura).
+     */
+    private void insert(Loan loan) {
+        loanRegister.put(loan.getLoanId().toString(), loan);
+        sortedLoans.add(loan);
+        activeLoans.add(loan);
+        index(loan);
+        searchIndex.add(loan);
+        loan.setRegister(this);
+        modificationCount++;
+        for (RegisterListener<Loan> listener : listeners) listener.added(loan);
+    }
+
+    /**
+     * @brief Crea e aggiunge al catalogo un prestito, con un'unica operazione atomica.
+     * @details La copia del libro viene riservata con {@link Book#tryReserveCopy()} prima di acquisire il lock del registro:
+     *          le richieste per un libro senza copie disponibili, frequenti per i titoli più richiesti, falliscono senza
+     *          attendere il lock. La verifica di unicità, il collegamento allo studente e l'inserimento avvengono poi sotto
+     *          il lock in scrittura, quindi due richieste concorrenti per la stessa coppia studente-libro non possono
+     *          produrre due prestiti attivi.
+     * @param[in] student Lo studente che richiede il prestito.
+     * @param[in] book Il libro oggetto del prestito.
+     * @param[in] loanEnd La data di scadenza prevista.
+     * @return Loan Il prestito creato e attivato.
+     * @post Se lo studente ha già un prestito attivo dello stesso libro, ha raggiunto il limite di prestiti
+     *       o il libro non ha copie disponibili viene lanciata IllegalStateException e né il catalogo né le copie cambiano.
+     */
+    public Loan checkout(Student student, Book book, LocalDate loanEnd) {
+        Loan loan = new Loan(student, book, loanEnd);
+        if (!book.tryReserveCopy()) throw new IllegalStateException("Non ci sono copie disponibili di questo libro");
+        lock.writeLock().lock();
+        try {
+            if (!isUnique(loan)) {
+                book.releaseCopy();
+                throw new IllegalStateException("Lo studente ha già in prestito questo libro");
+            }
+            loan.activateReserved();
+            insert(loan);
+            return loan;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -61,12 +170,55 @@ public class LoanRegister implements Register<Loan>, Serializable {
      */
     @Override
     public void modify(Loan old, Loan newObj) {
-        for(Loan loan : loanRegister)
-            if(loan.equals(old)){
-                loan.setLoanEnd(newObj.getLoanEnd());
-                if(newObj.isReturned())
-                    loan.returnLoan();
+        modifyById(old.getLoanId().toString(), newObj);
+    }
+
+    /**
+     * @brief Modifica i dati del prestito avente il loanId specificato.
+     * @details Il prestito viene individuato tramite l'indice della chiave primaria in tempo O(log n).
+     * @param[in] id La rappresentazione testuale del loanId del prestito da modificare.
+     * @param[in] newObj Prestito contenente i nuovi dati aggiornati (nuova data e/o stato di restituzione).
+     * @return true se il prestito è presente nel catalogo ed è stato modificato, false altrimenti.
+     * @pre newObj != null
+     * @post Se presente, la data di restituzione del prestito è aggiornata a quella di 'newObj'.
+     * @post Se 'newObj' è contrassegnato come estinto, anche il prestito viene contrassegnato come estinto.
+     */
+    @Override
+    public boolean modifyById(String id, Loan newObj) {
+        lock.writeLock().lock();
+        try {
+            Loan loan = loanRegister.get(id);
+            if (loan == null) return false;
+            sortedLoans.remove(loan);
+            if (!loan.isReturned()) activeLoans.remove(loan);
+            loan.setLoanEnd(newObj.getLoanEnd());
+            sortedLoans.add(loan);
+            if (!loan.isReturned()) activeLoans.add(loan);
+            if(newObj.isReturned() && !loan.isReturned()) {
+                loan.returnLoan();
+            } else {
+                modificationCount++;
+                for (RegisterListener<Loan> listener : listeners) listener.modified(loan);
             }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Cerca un prestito tramite il suo loanId.
+     * @param[in] id La rappresentazione testuale del loanId del prestito cercato.
+     * @return Il prestito avente il loanId specificato, null se non è presente nel catalogo.
+     */
+    @Override
+    public Loan findById(String id) {
+        lock.readLock().lock();
+        try {
+            return loanRegister.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -78,37 +230,685 @@ public class LoanRegister implements Register<Loan>, Serializable {
      */
     @Override
     public void remove(Loan toRemove) {
-        toRemove.returnLoan();
-        loanRegister.remove(toRemove);
+        lock.writeLock().lock();
+        try {
+            if (!toRemove.isReturned())
+                toRemove.returnLoan();
+            toRemove.setRegister(null);
+            Loan removed = loanRegister.remove(toRemove.getLoanId().toString());
+            if (removed == null) return;
+            unindex(removed);
+            sortedLoans.remove(removed);
+            searchIndex.remove(removed);
+            modificationCount++;
+            for (RegisterListener<Loan> listener : listeners) listener.removed(removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Aggiunge un gruppo di prestiti al catalogo e li attiva.
+     * @details Le strutture di visualizzazione vengono aggiornate in un solo passaggio e gli osservatori notificati una sola volta.
+     * @param[in] toAdd Prestiti da aggiungere al catalogo.
+     * @pre Ogni elemento di toAdd rispetta le precondizioni di add(), anche rispetto ai prestiti che lo precedono nel gruppo.
+     * @post I prestiti specificati sono presenti nel catalogo e attivi.
+     * @post Se un prestito non è attivabile viene lanciata IllegalStateException; i prestiti precedenti restano nel catalogo.
+     */
+    @Override
+    public void addAll(Collection<? extends Loan> toAdd) {
+        lock.writeLock().lock();
+        try {
+            List<Loan> added = new ArrayList<>(toAdd.size());
+            try {
+                for (Loan loan : toAdd) {
+                    loan.activateLoan();
+                    loanRegister.put(loan.getLoanId().toString(), loan);
+                    index(loan);
+                    searchIndex.add(loan);
+                    loan.setRegister(this);
+                    added.add(loan);
+                }
+            } finally {
+                if (!added.isEmpty()) {
+                    sortedLoans.addAll(added);
+                    activeLoans.addAll(added);
+                    modificationCount++;
+                    for (RegisterListener<Loan> listener : listeners) listener.addedAll(added);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Aggiunge i prestiti non duplicati di un gruppo.
+     * @details Un prestito è duplicato se esiste già un prestito attivo, o uno precedente del gruppo, con la stessa coppia studente-libro.
+     *          Le verifiche e l'inserimento avvengono sotto il lock in scrittura.
+     * @param[in] toAdd I prestiti da aggiungere.
+     * @return List<Loan> I prestiti scartati perché duplicati.
+     */
+    @Override
+    public List<Loan> addAllUnique(Collection<? extends Loan> toAdd) {
+        lock.writeLock().lock();
+        try {
+            List<Loan> rejected = new ArrayList<>();
+            List<Loan> unique = new ArrayList<>(toAdd.size());
+            Set<String> pairs = new HashSet<>(toAdd.size() * 2);
+            for (Loan item : toAdd)
+                if (!isUnique(item) || !pairs.add(item.getStudent().getStudentId() + '|' + item.getBook().getBookId())) rejected.add(item);
+                else unique.add(item);
+            addAll(unique);
+            return rejected;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Modifica i prestiti aventi i loanId specificati.
+     * @details Come modifyById(), ma con un solo aggiornamento della vista ordinata e una sola notifica agli osservatori,
+     *          che comprende anche i prestiti restituiti.
+     * @param[in] changes Associa la rappresentazione testuale del loanId di ogni prestito da modificare al prestito contenente i nuovi dati.
+     * @return Il numero di prestiti presenti nel catalogo e modificati.
+     */
+    @Override
+    public int modifyAll(Map<String, ? extends Loan> changes) {
+        lock.writeLock().lock();
+        try {
+            List<Loan> modified = new ArrayList<>(changes.size());
+            for (String id : changes.keySet()) {
+                Loan loan = loanRegister.get(id);
+                if (loan != null) modified.add(loan);
+            }
+            if (modified.isEmpty()) return 0;
+            List<Loan> active = new ArrayList<>(modified.size());
+            for (Loan loan : modified)
+                if (!loan.isReturned()) active.add(loan);
+            sortedLoans.removeAll(modified);
+            activeLoans.removeAll(active);
+            batching = true;
+            try {
+                for (Loan loan : modified) {
+                    Loan newObj = changes.get(loan.getLoanId().toString());
+                    loan.setLoanEnd(newObj.getLoanEnd());
+                    if (newObj.isReturned() && !loan.isReturned()) loan.returnLoan();
+                }
+            } finally {
+                batching = false;
+            }
+            active.removeIf(Loan::isReturned);
+            sortedLoans.addAll(modified);
+            activeLoans.addAll(active);
+            modificationCount++;
+            for (RegisterListener<Loan> listener : listeners) listener.modifiedAll(modified);
+            return modified.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Rimuove un gruppo di prestiti dal catalogo e li contrassegna come estinti.
+     * @details La restituzione dei prestiti ancora attivi non viene notificata a parte: è implicita nella rimozione.
+     * @param[in] toRemove Prestiti da rimuovere; quelli non presenti nel catalogo vengono ignorati.
+     * @post Nessuno dei prestiti specificati è presente nel catalogo.
+     */
+    @Override
+    public void removeAll(Collection<? extends Loan> toRemove) {
+        lock.writeLock().lock();
+        try {
+            List<Loan> removed = new ArrayList<>(toRemove.size());
+            for (Loan loan : toRemove) {
+                Loan current = loanRegister.remove(loan.getLoanId().toString());
+                if (current != null) removed.add(current);
+            }
+            removeIndexed(removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Rimuove dal catalogo i prestiti che soddisfano la condizione specificata e li contrassegna come estinti.
+     * @param[in] filter La condizione da verificare (es. Loan::isReturned per eliminare lo storico).
+     * @return Il numero di prestiti rimossi.
+     */
+    @Override
+    public int removeIf(Predicate<? super Loan> filter) {
+        lock.writeLock().lock();
+        try {
+            List<Loan> removed = new ArrayList<>();
+            Iterator<Loan> iterator = loanRegister.values().iterator();
+            while (iterator.hasNext()) {
+                Loan loan = iterator.next();
+                if (filter.test(loan)) {
+                    iterator.remove();
+                    removed.add(loan);
+                }
+            }
+            removeIndexed(removed);
+            return removed.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
      * @brief Verifica che non sia già presente nel catalogo un prestito identico.
      * @details Per identico, si intende un prestito che coinvolga la stessa coppia studente-libro e che non sia stato ancora contrassegnato come estinto.
+     *          La verifica avviene in tempo costante tramite l'indice per matricola, scorrendo soltanto i prestiti attivi dello studente.
      * @param[in] 'toVerify' prestito la cui assenza va verificata.
      * @return true se non è già presente nel catalogo un prestito attivo e con stessa coppia studente-libro, false altrimenti.
      * @pre 'toVerify' != null.
      */
     @Override
     public boolean isUnique(Loan toVerify) {
-        for (Loan loan : loanRegister)
-            if(loan.getStudent().equals(toVerify.getStudent()) &&
-                    loan.getBook().equals(toVerify.getBook()) &&
-                    !loan.isReturned())
-                return false;
-        return true;
+        lock.readLock().lock();
+        try {
+            Holdings holdings = byStudent.get(toVerify.getStudent().getStudentId());
+            if (holdings == null) return true;
+            String bookId = toVerify.getBook().getBookId();
+            for (Loan loan : holdings.active)
+                if (loan.getBook().getBookId().equals(bookId)) return false;
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Inserisce nel catalogo un prestito ripristinato da un salvataggio, senza attivarlo.
+     * @details Le copie disponibili del libro sono già al netto dei prestiti attivi; se il prestito non è estinto
+     *          viene soltanto ricollegato ai prestiti attivi dello studente.
+     * @param[in] loan Il prestito ripristinato.
+     * @post Il prestito è presente nel catalogo con lo stato salvato.
+     * @post Se il prestito è attivo e lo studente ha già raggiunto il limite di prestiti viene lanciata IllegalStateException.
+     */
+    void restore(Loan loan) {
+        lock.writeLock().lock();
+        try {
+            if (!loan.isReturned()) {
+                loan.getStudent().addActiveLoan(loan);
+                activeLoans.add(loan);
+            }
+            loanRegister.put(loan.getLoanId().toString(), loan);
+            index(loan);
+            sortedLoans.add(loan);
+            searchIndex.add(loan);
+            loan.setRegister(this);
+            modificationCount++;
+            for (RegisterListener<Loan> listener : listeners) listener.added(loan);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Restituisce un prestito, con un'unica operazione atomica.
+     * @details Lo stato del prestito, le copie del libro, i prestiti attivi dello studente e gli indici del catalogo
+     *          vengono aggiornati sotto il lock in scrittura; una seconda restituzione concorrente dello stesso prestito non ha effetto.
+     * @param[in] loan Il prestito da restituire.
+     * @return boolean true se il prestito è stato restituito, false se lo era già.
+     */
+    public boolean returnLoan(Loan loan) {
+        lock.writeLock().lock();
+        try {
+            if (!loan.markReturned()) return false;
+            if (loanRegister.get(loan.getLoanId().toString()) == loan) loanReturned(loan);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Aggiorna gli indici dei prestiti attivi quando un prestito del catalogo viene restituito.
+     * @details Invocato da {@link #returnLoan(Loan)}, così che anche le restituzioni effettuate direttamente
+     *          sul prestito mantengano l'indice coerente.
+     * @param[in] returned Il prestito appena restituito.
+     */
+    void loanReturned(Loan returned) {
+        lock.writeLock().lock();
+        try {
+            Holdings student = byStudent.get(returned.getStudent().getStudentId());
+            Holdings book = byBook.get(returned.getBook().getBookId());
+            if (student != null) student.active.remove(returned);
+            if (book != null) book.active.remove(returned);
+            if (!batching) activeLoans.remove(returned);
+            modificationCount++;
+            if (batching) return;
+            for (RegisterListener<Loan> listener : listeners) listener.modified(returned);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Reindicizza i prestiti che coinvolgono uno studente i cui dati sono stati modificati.
+     * @details I prestiti vengono individuati tramite l'indice per matricola, senza scorrere il catalogo.
+     * @param[in] student Lo studente modificato.
+     */
+    void studentModified(Student student) {
+        lock.writeLock().lock();
+        try {
+            Holdings holdings = byStudent.get(student.getStudentId());
+            if (holdings != null)
+                for (Loan loan : holdings.loans) searchIndex.update(loan);
+            modificationCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Reindicizza i prestiti che coinvolgono un libro i cui dati sono stati modificati.
+     * @details I prestiti vengono individuati tramite l'indice per ISBN, senza scorrere il catalogo.
+     * @param[in] book Il libro modificato.
+     */
+    void bookModified(Book book) {
+        lock.writeLock().lock();
+        try {
+            Holdings holdings = byBook.get(book.getBookId());
+            if (holdings != null)
+                for (Loan loan : holdings.loans) searchIndex.update(loan);
+            modificationCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Reindicizza i prestiti che coinvolgono gli studenti modificati, con un solo incremento del contatore delle modifiche.
+     * @param[in] students Gli studenti modificati.
+     */
+    void studentsModified(Collection<? extends Student> students) {
+        lock.writeLock().lock();
+        try {
+            for (Student student : students) {
+                Holdings holdings = byStudent.get(student.getStudentId());
+                if (holdings != null)
+                    for (Loan loan : holdings.loans) searchIndex.update(loan);
+            }
+            modificationCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Reindicizza i prestiti che coinvolgono i libri modificati, con un solo incremento del contatore delle modifiche.
+     * @param[in] books I libri modificati.
+     */
+    void booksModified(Collection<? extends Book> books) {
+        lock.writeLock().lock();
+        try {
+            for (Book book : books) {
+                Holdings holdings = byBook.get(book.getBookId());
+                if (holdings != null)
+                    for (Loan loan : holdings.loans) searchIndex.update(loan);
+            }
+            modificationCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Cerca i prestiti corrispondenti al testo specificato.
+     * @details La ricerca avviene sull'indice invertito dei dati dello studente (Nome, Cognome, Matricola, Email) e del libro
+     *          (Titolo, Autori, ISBN): ogni parola della query deve essere l'inizio di una di queste parole,
+     *          senza distinzione tra maiuscole, minuscole e accenti.
+     * @param[in] query Il testo cercato.
+     * @return Una nuova lista (ordinata per data di restituzione) dei prestiti corrispondenti, tutti i prestiti se la query è vuota.
+     */
+    @Override
+    public List<Loan> search(String query) {
+        lock.readLock().lock();
+        try {
+            Collection<Loan> matches = searchIndex.search(query);
+            if (matches.size() == loanRegister.size()) return new ArrayList<>(sortedLoans.asList());
+            List<Loan> result = new ArrayList<>(matches);
+            result.sort(DISPLAY_ORDER);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Cerca, tra i candidati specificati, quelli corrispondenti al testo.
+     * @param[in] query Il testo cercato.
+     * @param[in] candidates Gli elementi tra cui cercare, tipicamente il risultato di search() per una query più corta.
+     * @return Una nuova lista, nello stesso ordine di 'candidates', dei prestiti ancora presenti nel catalogo e corrispondenti.
+     */
+    @Override
+    public List<Loan> search(String query, Collection<? extends Loan> candidates) {
+        lock.readLock().lock();
+        try {
+            return searchIndex.filter(candidates, query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Restituisce i prestiti attivi di uno studente.
+     * @param[in] studentId La matricola dello studente.
+     * @return Una nuova lista, in ordine di inserimento, dei libri attualmente in prestito allo studente; vuota se non ce ne sono.
+     */
+    public List<Loan> getActiveLoansOfStudent(String studentId) {
+        lock.readLock().lock();
+        try {
+            Holdings holdings = byStudent.get(studentId);
+            return holdings == null ? new ArrayList<>() : new ArrayList<>(holdings.active);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Restituisce tutti i prestiti di uno studente presenti nel catalogo, attivi e restituiti.
+     * @param[in] studentId La matricola dello studente.
+     * @return Una nuova lista, in ordine di inserimento, dei prestiti dello studente; vuota se non ce ne sono.
+     */
+    public List<Loan> getLoansOfStudent(String studentId) {
+        lock.readLock().lock();
+        try {
+            Holdings holdings = byStudent.get(studentId);
+            return holdings == null ? new ArrayList<>() : new ArrayList<>(holdings.loans);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Restituisce i prestiti attivi di un libro, cioè chi ne possiede attualmente una copia.
+     * @param[in] bookId L'ISBN del libro.
+     * @return Una nuova lista, in ordine di inserimento, dei prestiti attivi del libro; vuota se non ce ne sono.
+     */
+    public List<Loan> getActiveLoansOfBook(String bookId) {
+        lock.readLock().lock();
+        try {
+            Holdings holdings = byBook.get(bookId);
+            return holdings == null ? new ArrayList<>() : new ArrayList<>(holdings.active);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Restituisce tutti i prestiti di un libro presenti nel catalogo, attivi e restituiti.
+     * @param[in] bookId L'ISBN del libro.
+     * @return Una nuova lista, in ordine di inserimento, dei prestiti del libro; vuota se non ce ne sono.
+     */
+    public List<Loan> getLoansOfBook(String bookId) {
+        lock.readLock().lock();
+        try {
+            Holdings holdings = byBook.get(bookId);
+            return holdings == null ? new ArrayList<>() : new ArrayList<>(holdings.loans);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Conta i prestiti attivi di uno studente, in tempo costante.
+     * @param[in] studentId La matricola dello studente.
+     * @return int Il numero di libri attualmente in prestito allo studente.
+     */
+    public int countActiveLoansOfStudent(String studentId) {
+        lock.readLock().lock();
+        try {
+            Holdings holdings = byStudent.get(studentId);
+            return holdings == null ? 0 : holdings.active.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Conta i prestiti attivi di un libro, in tempo costante.
+     * @param[in] bookId L'ISBN del libro.
+     * @return int Il numero di copie del libro attualmente in prestito.
+     */
+    public int countActiveLoansOfBook(String bookId) {
+        lock.readLock().lock();
+        try {
+            Holdings holdings = byBook.get(bookId);
+            return holdings == null ? 0 : holdings.active.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Restituisce i prestiti attivi in ritardo alla data specificata.
+     * @details Un prestito è in ritardo se la data è successiva alla sua data di restituzione (come {@link Loan#isDelay(LocalDate)}).
+     *          L'intervallo viene individuato sull'indice dei prestiti attivi in O(log n).
+     * @param[in] date La data di riferimento (es. {@link Today#get()}).
+     * @return Una nuova lista, ordinata per data di restituzione, dei prestiti attivi scaduti prima della data.
+     */
+    public List<Loan> getOverdueLoans(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(activeLoans.asList().subList(0, countOverdueLoans(date)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Conta i prestiti attivi in ritardo alla data specificata, in O(log n).
+     * @param[in] date La data di riferimento.
+     * @return int Il numero di prestiti attivi scaduti prima della data.
+     */
+    public int countOverdueLoans(LocalDate date) {
+        lock.readLock().lock();
+        try {
+            return activeLoans.headSize(loan -> loan.getLoanEnd().isBefore(date));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Restituisce i prestiti attivi da restituire in un intervallo di date.
+     * @details Ad esempio, i prestiti in scadenza nei prossimi 7 giorni sono getLoansDueBetween(oggi, oggi.plusDays(7)).
+     * @param[in] from La prima data dell'intervallo.
+     * @param[in] to L'ultima data dell'intervallo, inclusa.
+     * @return Una nuova lista, ordinata per data di restituzione, dei prestiti attivi con scadenza compresa tra from e to;
+     *         vuota se to precede from.
+     */
+    public List<Loan> getLoansDueBetween(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            int start = activeLoans.headSize(loan -> loan.getLoanEnd().isBefore(from));
+            int end = activeLoans.headSize(loan -> !loan.getLoanEnd().isAfter(to));
+            return end <= start ? new ArrayList<>() : new ArrayList<>(activeLoans.asList().subList(start, end));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Restituisce la prima data di restituzione dei prestiti attivi non precedente alla data specificata, in O(log n).
+     * @param[in] from La data da cui cercare.
+     * @return LocalDate La data di restituzione più vicina a partire da from, null se nessun prestito attivo scade da from in poi.
+     */
+    public LocalDate getNextDueDate(LocalDate from) {
+        lock.readLock().lock();
+        try {
+            int index = activeLoans.headSize(loan -> loan.getLoanEnd().isBefore(from));
+            return index < activeLoans.asList().size() ? activeLoans.asList().get(index).getLoanEnd() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Restituisce il numero di modifiche subite dal catalogo.
+     * @return long Il contatore delle modifiche, incrementato ad ogni aggiunta, modifica o rimozione.
+     */
+    @Override
+    public long getModificationCount() {
+        lock.readLock().lock();
+        try {
+            return modificationCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Registra un osservatore delle modifiche al catalogo.
+     * @param[in] listener L'osservatore da registrare.
+     */
+    @Override
+    public void addListener(RegisterListener<Loan> listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.add(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Rimuove un osservatore delle modifiche al catalogo.
+     * @param[in] listener L'osservatore da rimuovere.
+     */
+    @Override
+    public void removeListener(RegisterListener<Loan> listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.remove(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Holdings holdings(Map<String, Holdings> index, String key) {
+        return index.computeIfAbsent(key, k -> new Holdings());
+    }
+
+    /*
+     * Inserisce il prestito negli indici per matricola e per ISBN, tra quelli attivi se non è stato restituito.
+     */
+    private void index(Loan loan) {
+        Holdings student = holdings(byStudent, loan.getStudent().getStudentId());
+        Holdings book = holdings(byBook, loan.getBook().getBookId());
+        student.loans.add(loan);
+        book.loans.add(loan);
+        if (!loan.isReturned()) {
+            student.active.add(loan);
+            book.active.add(loan);
+        }
+    }
+
+    private void unindex(Loan loan) {
+        unindex(byStudent, loan.getStudent().getStudentId(), loan);
+        unindex(byBook, loan.getBook().getBookId(), loan);
+    }
+
+    private static void unindex(Map<String, Holdings> index, String key, Loan loan) {
+        Holdings holdings = index.get(key);
+        if (holdings == null) return;
+        holdings.loans.remove(loan);
+        holdings.active.remove(loan);
+        if (holdings.loans.isEmpty()) index.remove(key);
+    }
+
+    private static String searchText(Loan loan) {
+        Student student = loan.getStudent();
+        Book book = loan.getBook();
+        return student.getName() + ' ' + student.getSurname() + ' ' + student.getStudentId() + ' ' + student.getEmail() + ' ' +
+                book.getTitle() + ' ' + book.getAuthorsText() + ' ' + book.getBookId();
+    }
+
+    /*
+     * Completa la rimozione dei prestiti già tolti dalla mappa: restituzione di quelli attivi, indici e notifica.
+     */
+    private void removeIndexed(List<Loan> removed) {
+        if (removed.isEmpty()) return;
+        List<Loan> active = new ArrayList<>();
+        for (Loan loan : removed)
+            if (!loan.isReturned()) active.add(loan);
+        activeLoans.removeAll(active);
+        batching = true;
+        try {
+            for (Loan loan : removed) {
+                if (!loan.isReturned()) loan.returnLoan();
+                loan.setRegister(null);
+                unindex(loan);
+                searchIndex.remove(loan);
+            }
+        } finally {
+            batching = false;
+        }
+        sortedLoans.removeAll(removed);
+        modificationCount++;
+        for (RegisterListener<Loan> listener : listeners) listener.removedAll(removed);
+    }
+
+    private void initIndexes() {
+        this.lock = new ReentrantReadWriteLock();
+        this.byStudent = new HashMap<>();
+        this.byBook = new HashMap<>();
+        this.sortedLoans = new SortedView<>(DISPLAY_ORDER);
+        this.activeLoans = new SortedView<>(DISPLAY_ORDER);
+        this.searchIndex = new SearchIndex<>(LoanRegister::searchText);
+        this.listeners = new ArrayList<>();
+        for (Loan loan : loanRegister.values()) {
+            loan.setRegister(this);
+            sortedLoans.add(loan);
+            searchIndex.add(loan);
+            index(loan);
+            if (!loan.isReturned()) activeLoans.add(loan);
+        }
+    }
+
+    /**
+     * @brief Restituisce il lock in lettura del registro.
+     * @details Usato da {@link LibraryVersions} per leggere insieme più registri senza modifiche concorrenti.
+     * @return Lock Il lock condiviso dalle letture.
+     */
+    Lock readLock() {
+        return lock.readLock();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            ObjectOutputStream.PutField fields = out.putFields();
+            fields.put("loanRegister", new TreeSet<>(loanRegister.values()));
+            out.writeFields();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Collection<Loan> stored = (Collection<Loan>) fields.get("loanRegister", null);
+        if (stored == null) throw new InvalidObjectException("Registro dei prestiti mancante");
+        loanRegister = new TreeMap<>();
+        for (Loan item : stored) loanRegister.put(item.getLoanId().toString(), item);
+        initIndexes();
     }
 
     /**
      * @brief Restituisce una lista ordinata di tutti i prestiti presenti nel catalogo.
      * @details L'ordinamento avviene per data di restituzione.
-     * @return Una lista (ordinata per data di restituzione) contenente tutti i prestiti del catalogo.
+     *          L'ordine è mantenuto ad ogni modifica del catalogo, quindi la lista non viene né copiata né riordinata.
+     *          La vista riflette le modifiche successive e va letta dal thread che modifica il catalogo.
+     * @return Una vista in sola lettura (ordinata per data di restituzione) contenente tutti i prestiti del catalogo.
      */
     @Override
     public List<Loan> getRegisterList() {
-        List<Loan> list = new ArrayList<>(loanRegister);
-        list.sort(Comparator.comparing(Loan::getLoanEnd));
-        return list;
+        return sortedLoans.asList();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,521 @@
+/**
+ * @file MappedLibraryFile.java
+ * @brief Accesso in sola lettura, mappato in memoria, a un file della biblioteca.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * @class MappedLibraryFile
+ * @brief Espone studenti, libri e prestiti di un file in formato snapshot decodificandoli solo quando vengono letti.
+ * @details All'apertura vengono lette soltanto le intestazioni delle sezioni e l'indice delle pagine
+ *          (sezione {@link SnapshotFormat#INDEX}), quindi il tempo di apertura non dipende dal numero di record.
+ *          Le sezioni vengono mappate in memoria con FileChannel.map e decodificate una pagina alla volta al primo
+ *          accesso (es. le righe visibili di una tabella); le pagine decodificate più di recente restano in cache.
+ *          La ricerca per identificativo usa la tabella hash dell'indice e decodifica solo le pagine necessarie.
+ *          Per i file privi di indice (scritti da versioni precedenti) l'indice viene ricostruito in memoria al
+ *          primo accesso, con una lettura completa della sezione. Il checksum del file viene verificato solo
+ *          su richiesta, tramite verify().
+ *
+ *          Gli oggetti restituiti sono copie scollegate dai registri: modificarli non altera il file e i prestiti
+ *          attivi non vengono aggiunti agli studenti. Per modificare la biblioteca, o per cercarvi per testo,
+ *          occorre caricarla con {@link LibraryIOManager}.
+ */
+public final class MappedLibraryFile implements Closeable {
+
+    /**
+     * @brief Numero di pagine decodificate conservate in cache per ogni sezione.
+     */
+    static final int CACHED_PAGES = 64;
+
+    private final FileChannel channel;
+    private final Column<Student> students = new StudentColumn();
+    private final Column<Book> books = new BookColumn();
+    private final Column<Loan> loans = new LoanColumn();
+    private long checksumEnd = -1;
+    private int checksum;
+
+    private MappedLibraryFile(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @brief Apre un file della biblioteca in formato snapshot.
+     * @param[in] path Il percorso del file.
+     * @return MappedLibraryFile Il file aperto.
+     * @throws IOException Se la lettura fallisce o il file non è in formato snapshot non compresso.
+     */
+    public static MappedLibraryFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            MappedLibraryFile file = new MappedLibraryFile(channel);
+            file.scan();
+            return file;
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @brief Restituisce gli studenti nell'ordine di visualizzazione.
+     * @return List La lista in sola lettura degli studenti, decodificati al primo accesso.
+     * @note Gli errori di lettura durante l'accesso alla lista vengono segnalati con UncheckedIOException.
+     */
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    /**
+     * @brief Restituisce i libri nell'ordine di visualizzazione.
+     * @return List La lista in sola lettura dei libri, decodificati al primo accesso.
+     */
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    /**
+     * @brief Restituisce i prestiti nell'ordine di visualizzazione.
+     * @return List La lista in sola lettura dei prestiti, decodificati al primo accesso.
+     */
+    public List<Loan> getLoans() {
+        return loans;
+    }
+
+    /**
+     * @brief Cerca uno studente tramite la sua matricola.
+     * @param[in] studentId La matricola cercata.
+     * @return Student Lo studente, null se non è presente nel file.
+     * @throws IOException Se la lettura fallisce o il contenuto non è valido.
+     */
+    public Student findStudent(String studentId) throws IOException {
+        return students.find(studentId);
+    }
+
+    /**
+     * @brief Cerca un libro tramite il suo ISBN.
+     * @param[in] bookId L'ISBN cercato.
+     * @return Book Il libro, null se non è presente nel file.
+     * @throws IOException Se la lettura fallisce o il contenuto non è valido.
+     */
+    public Book findBook(String bookId) throws IOException {
+        return books.find(bookId);
+    }
+
+    /**
+     * @brief Cerca un prestito tramite il suo loanId.
+     * @param[in] loanId La rappresentazione testuale del loanId cercato.
+     * @return Loan Il prestito, null se non è presente nel file.
+     * @throws IOException Se la lettura fallisce o il contenuto non è valido.
+     */
+    public Loan findLoan(String loanId) throws IOException {
+        return loans.find(loanId);
+    }
+
+    /**
+     * @brief Verifica il checksum del file, che l'apertura non controlla per non leggerne l'intero contenuto.
+     * @details Per gli snapshot scritti prima dell'introduzione del checksum non viene eseguita alcuna verifica.
+     * @throws IOException Se la lettura fallisce o il checksum non corrisponde al contenuto.
+     */
+    public void verify() throws IOException {
+        if (checksumEnd < 0) return;
+        CRC32 crc = new CRC32();
+        for (long position = 0; position < checksumEnd; position += Integer.MAX_VALUE)
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Integer.MAX_VALUE, checksumEnd - position)));
+        if ((int) crc.getValue() != checksum) throw new IOException("Checksum dello snapshot non valido: il file è danneggiato");
+    }
+
+    /**
+     * @brief Chiude il file.
+     * @throws IOException Se la chiusura fallisce.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /*
+     * Legge le intestazioni delle sezioni, senza il loro contenuto, e l'eventuale indice delle pagine.
+     */
+    private void scan() throws IOException {
+        ByteBuffer header = readAt(0, SnapshotFormat.MAGIC.length + 10);
+        byte[] magic = new byte[SnapshotFormat.MAGIC.length];
+        if (header.remaining() < magic.length) throw new IOException("Il file non è in formato snapshot");
+        header.get(magic);
+        if (Arrays.equals(magic, Codecs.MAGIC)) throw new IOException("Il file è compresso e non può essere mappato");
+        if (!Arrays.equals(magic, SnapshotFormat.MAGIC)) throw new IOException("Il file non è in formato snapshot");
+        long version = readVarint(header);
+        if (version < 1 || version > SnapshotFormat.VERSION)
+            throw new IOException("Versione del formato non supportata: " + version);
+
+        long position = magic.length + SnapshotEncoder.varintSize(version);
+        ByteBuffer index = null;
+        while (true) {
+            ByteBuffer sectionHeader = readAt(position, 11);
+            if (!sectionHeader.hasRemaining()) throw new EOFException("Sezione conclusiva mancante");
+            int type = sectionHeader.get() & 0xFF;
+            long length = readVarint(sectionHeader);
+            if (length > Integer.MAX_VALUE) throw new IOException("Sezione troppo grande: " + length);
+            long payload = position + 1 + SnapshotEncoder.varintSize(length);
+            if (payload + length > channel.size()) throw new EOFException("Sezione troncata");
+            if (type == SnapshotFormat.END) {
+                if (length == 4) {
+                    checksumEnd = position;
+                    checksum = readAt(payload, 4).getInt();
+                }
+                break;
+            }
+
+            switch (type) {
+                case SnapshotFormat.STUDENTS: students.locate(payload, (int) length); break;
+                case SnapshotFormat.BOOKS: books.locate(payload, (int) length); break;
+                case SnapshotFormat.LOANS: loans.locate(payload, (int) length); break;
+                case SnapshotFormat.INDEX: index = channel.map(FileChannel.MapMode.READ_ONLY, payload, length); break;
+                default: break;
+            }
+            position = payload + length;
+        }
+        if (index != null) readIndex(index);
+    }
+
+    private void readIndex(ByteBuffer index) throws IOException {
+        try {
+            while (index.hasRemaining()) {
+                int type = index.get() & 0xFF;
+                int count = (int) readVarint(index);
+                int pageSize = (int) readVarint(index);
+                int[] pages = new int[(int) readVarint(index)];
+                int offset = 0;
+                for (int i = 0; i < pages.length; i++) pages[i] = offset += (int) readVarint(index);
+                int capacity = (int) readVarint(index);
+                if (Integer.bitCount(capacity) != 1 || pageSize <= 0) throw new IOException("Indice non valido");
+
+                ByteBuffer slots = index.duplicate();
+                ((Buffer) slots).limit(index.position() + capacity * 4);
+                IntBuffer table = slots.slice().asIntBuffer();
+                ((Buffer) index).position(index.position() + capacity * 4);
+
+                Column<?> column = type == SnapshotFormat.STUDENTS ? students
+                        : type == SnapshotFormat.BOOKS ? books
+                        : type == SnapshotFormat.LOANS ? loans : null;
+                if (column != null) column.index(count, pageSize, pages, table);
+            }
+        } catch (RuntimeException ex) {
+            throw new IOException("Indice non valido", ex);
+        }
+    }
+
+    private ByteBuffer readAt(long position, int max) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(max);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) break;
+        }
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    private static long readVarint(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buffer.hasRemaining()) throw new EOFException();
+            int b = buffer.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Varint non valido");
+    }
+
+    /**
+     * @brief Sezione del file vista come lista di record decodificati a pagine.
+     * @tparam T Il tipo di record.
+     */
+    private abstract class Column<T> extends AbstractList<T> {
+        private long position;
+        private int length = -1;
+        private int count;
+        private int pageSize = SnapshotFormat.PAGE_SIZE;
+        private int[] pages;
+        private IntBuffer table;
+        private ByteBuffer data;
+        private boolean prepared;
+        private final SnapshotDecoder decoder = new SnapshotDecoder();
+        private final Map<Integer, Object[]> cache = new LinkedHashMap<Integer, Object[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Object[]> eldest) {
+                return size() > CACHED_PAGES;
+            }
+        };
+
+        /** @brief Legge l'intestazione della sezione (es. il dizionario) e restituisce il numero di record. */
+        int readHeader(SnapshotDecoder d) throws IOException {
+            return d.readCount();
+        }
+
+        /** @brief Decodifica il record successivo, eventualmente in una forma intermedia da completare con resolve(). */
+        abstract Object decode(SnapshotDecoder d) throws IOException;
+
+        /** @brief Completa un record decodificato (es. risolvendo i riferimenti), solo quando viene richiesto. */
+        @SuppressWarnings("unchecked")
+        T resolve(Object decoded) throws IOException {
+            return (T) decoded;
+        }
+
+        /** @brief Legge il record successivo restituendone soltanto l'identificativo. */
+        abstract String readId(SnapshotDecoder d) throws IOException;
+
+        /** @brief Restituisce l'identificativo di un record, completato o meno. */
+        abstract String idOf(Object decoded);
+
+        private void locate(long position, int length) {
+            this.position = position;
+            this.length = length;
+        }
+
+        private void index(int count, int pageSize, int[] pages, IntBuffer table) {
+            this.count = count;
+            this.pageSize = pageSize;
+            this.pages = pages;
+            this.table = table;
+        }
+
+        @Override
+        public synchronized T get(int index) {
+            try {
+                ensureIndexed();
+                if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Indice: " + index);
+                int page = index / pageSize;
+                Object[] items = cache.get(page);
+                if (items == null) {
+                    items = decodePage(page);
+                    cache.put(page, items);
+                }
+                T item = resolve(items[index % pageSize]);
+                items[index % pageSize] = item;
+                return item;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public synchronized int size() {
+            try {
+                ensureIndexed();
+                return count;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        synchronized T find(String id) throws IOException {
+            ensureIndexed();
+            int mask = table.capacity() - 1;
+            for (int slot = SnapshotFormat.slot(id, mask); ; slot = (slot + 1) & mask) {
+                int entry = table.get(slot);
+                if (entry == 0) return null;
+                int index = entry - 1;
+                if (index >= count) throw new IOException("Indice non valido");
+                Object[] items = cache.get(index / pageSize);
+                if (items == null) {
+                    items = decodePage(index / pageSize);
+                    cache.put(index / pageSize, items);
+                }
+                // L'identificativo è confrontato senza completare il record, che viene completato solo se coincide
+                if (idOf(items[index % pageSize]).equals(id)) {
+                    T item = resolve(items[index % pageSize]);
+                    items[index % pageSize] = item;
+                    return item;
+                }
+            }
+        }
+
+        private ByteBuffer data() throws IOException {
+            if (data == null) data = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            return data;
+        }
+
+        /*
+         * Senza la sezione INDEX, posizioni delle pagine e tabella hash vengono ricostruite leggendo la sezione.
+         */
+        private void ensureIndexed() throws IOException {
+            if (pages != null) return;
+            if (length < 0) {
+                index(0, SnapshotFormat.PAGE_SIZE, new int[0], IntBuffer.wrap(new int[2]));
+                return;
+            }
+            decoder.load(data(), 0, length);
+            int records = readHeader(decoder);
+            prepared = true;
+            int[] offsets = new int[(records + pageSize - 1) / pageSize];
+            int[] slots = new int[SnapshotFormat.tableCapacity(records)];
+            int mask = slots.length - 1;
+            for (int i = 0; i < records; i++) {
+                if (i % pageSize == 0) offsets[i / pageSize] = decoder.position();
+                int slot = SnapshotFormat.slot(readId(decoder), mask);
+                while (slots[slot] != 0) slot = (slot + 1) & mask;
+                slots[slot] = i + 1;
+            }
+            index(records, pageSize, offsets, IntBuffer.wrap(slots));
+        }
+
+        private Object[] decodePage(int page) throws IOException {
+            if (!prepared) {
+                // Intestazione della sezione (es. dizionario degli autori), letta solo al primo accesso
+                decoder.load(data(), 0, pages.length > 0 ? pages[0] : length);
+                readHeader(decoder);
+                prepared = true;
+            }
+            int start = pages[page];
+            int end = page + 1 < pages.length ? pages[page + 1] : length;
+            if (start < 0 || end < start || end > length) throw new IOException("Indice non valido");
+            decoder.load(data(), start, end - start);
+            int size = Math.min(pageSize, count - page * pageSize);
+            Object[] items = new Object[size];
+            try {
+                for (int i = 0; i < size; i++) items[i] = decode(decoder);
+            } catch (IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException ex) {
+                throw new IOException("Contenuto della pagina " + page + " non valido", ex);
+            }
+            return items;
+        }
+    }
+
+    private final class StudentColumn extends Column<Student> {
+        @Override
+        Object decode(SnapshotDecoder d) throws IOException {
+            return new Student(d.readString(), d.readString(), d.readString(), d.readString());
+        }
+
+        @Override
+        String readId(SnapshotDecoder d) throws IOException {
+            d.readString();
+            d.readString();
+            String studentId = d.readString();
+            d.readString();
+            return studentId;
+        }
+
+        @Override
+        String idOf(Object decoded) {
+            return ((Student) decoded).getStudentId();
+        }
+    }
+
+    private final class BookColumn extends Column<Book> {
+        private String[] dictionary;
+
+        @Override
+        int readHeader(SnapshotDecoder d) throws IOException {
+            dictionary = new String[d.readCount()];
+            for (int i = 0; i < dictionary.length; i++) dictionary[i] = d.readString();
+            return d.readCount();
+        }
+
+        @Override
+        Object decode(SnapshotDecoder d) throws IOException {
+            String title = d.readString();
+            int authorCount = d.readCount();
+            List<String> authors = new ArrayList<>(authorCount);
+            for (int i = 0; i < authorCount; i++) authors.add(dictionary[d.readCount()]);
+            return new Book(title, authors, d.readString(), d.readCount(), d.readCount());
+        }
+
+        @Override
+        String readId(SnapshotDecoder d) throws IOException {
+            d.readString();
+            int authorCount = d.readCount();
+            for (int i = 0; i < authorCount; i++) d.readCount();
+            String bookId = d.readString();
+            d.readCount();
+            d.readCount();
+            return bookId;
+        }
+
+        @Override
+        String idOf(Object decoded) {
+            return ((Book) decoded).getBookId();
+        }
+    }
+
+    /*
+     * Prestito decodificato ma non ancora completato: studente e libro vengono risolti solo alla richiesta,
+     * così che la decodifica di una pagina non richieda quella delle pagine di studenti e libri.
+     */
+    private static final class LoanRecord {
+        private final UUID loanId;
+        private final String studentId;
+        private final String bookId;
+        private final long loanEnd;
+        private final boolean returned;
+
+        private LoanRecord(UUID loanId, String studentId, String bookId, long loanEnd, boolean returned) {
+            this.loanId = loanId;
+            this.studentId = studentId;
+            this.bookId = bookId;
+            this.loanEnd = loanEnd;
+            this.returned = returned;
+        }
+    }
+
+    private final class LoanColumn extends Column<Loan> {
+        @Override
+        Object decode(SnapshotDecoder d) throws IOException {
+            return new LoanRecord(new UUID(d.readLong(), d.readLong()), d.readString(), d.readString(),
+                    d.readSignedVarint(), d.readByte() != 0);
+        }
+
+        @Override
+        Loan resolve(Object decoded) throws IOException {
+            if (decoded instanceof Loan) return (Loan) decoded;
+            LoanRecord record = (LoanRecord) decoded;
+            Student student = students.find(record.studentId);
+            Book book = books.find(record.bookId);
+            if (student == null || book == null)
+                throw new IOException("Il prestito " + record.loanId + " fa riferimento a uno studente o a un libro assente");
+            try {
+                return new Loan(record.loanId, student, book, LocalDate.ofEpochDay(record.loanEnd), record.returned);
+            } catch (IllegalArgumentException | DateTimeException ex) {
+                throw new IOException("Il prestito " + record.loanId + " non è valido", ex);
+            }
+        }
+
+        @Override
+        String readId(SnapshotDecoder d) throws IOException {
+            String loanId = new UUID(d.readLong(), d.readLong()).toString();
+            d.readString();
+            d.readString();
+            d.readSignedVarint();
+            d.readByte();
+            return loanId;
+        }
+
+        @Override
+        String idOf(Object decoded) {
+            return decoded instanceof Loan ? ((Loan) decoded).getLoanId().toString() : ((LoanRecord) decoded).loanId.toString();
+        }
+    }
+}
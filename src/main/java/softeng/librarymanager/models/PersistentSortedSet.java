@@ -0,0 +1,325 @@
+/**
+ * @file PersistentSortedSet.java
+ * @brief Insieme ordinato immutabile con condivisione strutturale tra le versioni.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @class PersistentSortedSet
+ * @brief Insieme ordinato persistente: ogni modifica produce una nuova versione e lascia invariate le precedenti.
+ * @details È realizzato come treap (albero binario di ricerca ordinato per chiave e, rispetto a priorità casuali, come
+ *          uno heap), con altezza attesa O(log n). Una modifica copia soltanto i nodi sul cammino dalla radice
+ *          all'elemento, O(log n), e condivide tutti gli altri con la versione di partenza; le versioni non più
+ *          raggiungibili vengono liberate dal garbage collector.
+ *
+ *          Per applicare molte modifiche di seguito si usa un {@link Editor}: i nodi copiati da uno stesso Editor
+ *          gli appartengono e possono essere modificati sul posto dalle operazioni successive, così che un gruppo di
+ *          k modifiche allochi al più un nodo per ogni nodo distinto toccato invece di O(k log n). I nodi di un
+ *          Editor concluso non vengono più modificati: la versione restituita è immutabile come le altre.
+ * @tparam T Il tipo degli elementi, confrontati con il Comparator dell'insieme.
+ * @invariant Una versione, una volta restituita, non cambia più.
+ */
+final class PersistentSortedSet<T> implements Iterable<T> {
+
+    private static final class Node<T> {
+        final Object edit; ///< @brief Editor che ha creato il nodo e che può modificarlo sul posto.
+        final int priority;
+        T value;
+        Node<T> left;
+        Node<T> right;
+        int size;
+
+        Node(Object edit, T value, int priority) {
+            this.edit = edit;
+            this.value = value;
+            this.priority = priority;
+            this.size = 1;
+        }
+    }
+
+    private final Comparator<? super T> comparator;
+    private final Node<T> root;
+
+    private PersistentSortedSet(Comparator<? super T> comparator, Node<T> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    /**
+     * @brief Restituisce l'insieme vuoto.
+     * @param[in] comparator L'ordinamento degli elementi.
+     * @return PersistentSortedSet<T> Un insieme senza elementi.
+     */
+    static <T> PersistentSortedSet<T> empty(Comparator<? super T> comparator) {
+        return new PersistentSortedSet<>(comparator, null);
+    }
+
+    /**
+     * @brief Costruisce un insieme a partire da elementi già ordinati, in tempo lineare.
+     * @param[in] comparator L'ordinamento degli elementi.
+     * @param[in] sorted Gli elementi, in ordine strettamente crescente secondo comparator.
+     * @return PersistentSortedSet<T> L'insieme contenente gli elementi.
+     * @throws IllegalArgumentException Se gli elementi non sono in ordine strettamente crescente.
+     */
+    static <T> PersistentSortedSet<T> fromSorted(Comparator<? super T> comparator, Iterable<? extends T> sorted) {
+        // Albero cartesiano: la spina destra è mantenuta in una pila, ogni nodo viene inserito e rimosso una sola volta
+        Object edit = new Object();
+        List<Node<T>> spine = new ArrayList<>();
+        T previous = null;
+        for (T value : sorted) {
+            if (previous != null && comparator.compare(previous, value) >= 0)
+                throw new IllegalArgumentException("Elementi non ordinati");
+            previous = value;
+            Node<T> node = new Node<>(edit, value, ThreadLocalRandom.current().nextInt());
+            Node<T> last = null;
+            while (!spine.isEmpty() && spine.get(spine.size() - 1).priority < node.priority)
+                last = spine.remove(spine.size() - 1);
+            node.left = last;
+            if (!spine.isEmpty()) spine.get(spine.size() - 1).right = node;
+            spine.add(node);
+        }
+        Node<T> root = spine.isEmpty() ? null : spine.get(0);
+        computeSizes(root);
+        return new PersistentSortedSet<>(comparator, root);
+    }
+
+    /**
+     * @brief Restituisce il numero di elementi, in tempo costante.
+     * @return int Il numero di elementi dell'insieme.
+     */
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * @brief Verifica se l'insieme contiene un elemento equivalente a quello indicato.
+     * @param[in] value L'elemento cercato.
+     * @return boolean true se l'insieme contiene un elemento che il Comparator considera uguale.
+     */
+    boolean contains(T value) {
+        Node<T> node = root;
+        while (node != null) {
+            int c = comparator.compare(value, node.value);
+            if (c == 0) return true;
+            node = c < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * @brief Restituisce una nuova versione che contiene anche l'elemento indicato.
+     * @param[in] value L'elemento da aggiungere; sostituisce un eventuale elemento equivalente.
+     * @return PersistentSortedSet<T> La nuova versione.
+     */
+    PersistentSortedSet<T> add(T value) {
+        return edit().add(value).done();
+    }
+
+    /**
+     * @brief Restituisce una nuova versione senza l'elemento indicato.
+     * @param[in] value L'elemento da rimuovere.
+     * @return PersistentSortedSet<T> La nuova versione, oppure questa se l'elemento non è presente.
+     */
+    PersistentSortedSet<T> remove(T value) {
+        return edit().remove(value).done();
+    }
+
+    /**
+     * @brief Apre un gruppo di modifiche a partire da questa versione.
+     * @return Editor<T> L'Editor, da concludere con done().
+     */
+    Editor<T> edit() {
+        return new Editor<>(this);
+    }
+
+    /**
+     * @brief Restituisce un iteratore in ordine crescente.
+     * @return Iterator<T> L'iteratore, che non supporta remove().
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private final Deque<Node<T>> path = new ArrayDeque<>();
+
+            {
+                descend(root);
+            }
+
+            private void descend(Node<T> node) {
+                for (; node != null; node = node.left) path.push(node);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (path.isEmpty()) throw new NoSuchElementException();
+                Node<T> node = path.pop();
+                descend(node.right);
+                return node.value;
+            }
+        };
+    }
+
+    /**
+     * @class Editor
+     * @brief Applica un gruppo di modifiche a una versione e ne produce una nuova.
+     * @details I nodi copiati durante il gruppo vengono modificati sul posto dalle operazioni successive. Dopo done()
+     *          l'Editor non può più essere usato.
+     */
+    static final class Editor<T> {
+        private final Comparator<? super T> comparator;
+        private Object edit = new Object();
+        private Node<T> root;
+
+        private Editor(PersistentSortedSet<T> base) {
+            this.comparator = base.comparator;
+            this.root = base.root;
+        }
+
+        /**
+         * @brief Aggiunge un elemento, sostituendo un eventuale elemento equivalente.
+         * @param[in] value L'elemento da aggiungere.
+         * @return Editor<T> Questo Editor.
+         */
+        Editor<T> add(T value) {
+            root = insert(root, value, token());
+            return this;
+        }
+
+        /**
+         * @brief Rimuove un elemento, se presente.
+         * @param[in] value L'elemento da rimuovere.
+         * @return Editor<T> Questo Editor.
+         */
+        Editor<T> remove(T value) {
+            root = delete(root, value, token());
+            return this;
+        }
+
+        /**
+         * @brief Conclude il gruppo di modifiche.
+         * @return PersistentSortedSet<T> La nuova versione.
+         * @post L'Editor non può più essere usato.
+         */
+        PersistentSortedSet<T> done() {
+            token();
+            edit = null;
+            return new PersistentSortedSet<>(comparator, root);
+        }
+
+        private Object token() {
+            if (edit == null) throw new IllegalStateException("Modifiche già concluse");
+            return edit;
+        }
+
+        private Node<T> insert(Node<T> node, T value, Object edit) {
+            if (node == null) return new Node<>(edit, value, ThreadLocalRandom.current().nextInt());
+            int c = comparator.compare(value, node.value);
+            Node<T> result = editable(node, edit);
+            if (c == 0) {
+                result.value = value;
+            } else if (c < 0) {
+                result.left = insert(node.left, value, edit);
+                if (result.left.priority > result.priority) result = rotateRight(result);
+                else update(result);
+            } else {
+                result.right = insert(node.right, value, edit);
+                if (result.right.priority > result.priority) result = rotateLeft(result);
+                else update(result);
+            }
+            return result;
+        }
+
+        private Node<T> delete(Node<T> node, T value, Object edit) {
+            if (node == null) return null;
+            int c = comparator.compare(value, node.value);
+            if (c == 0) return merge(node.left, node.right, edit);
+            Node<T> child = delete(c < 0 ? node.left : node.right, value, edit);
+            if (child == (c < 0 ? node.left : node.right)) return node;
+            Node<T> result = editable(node, edit);
+            if (c < 0) result.left = child;
+            else result.right = child;
+            update(result);
+            return result;
+        }
+
+        /*
+         * Unisce due sottoalberi in cui ogni elemento di left precede ogni elemento di right.
+         */
+        private Node<T> merge(Node<T> left, Node<T> right, Object edit) {
+            if (left == null) return right;
+            if (right == null) return left;
+            Node<T> result;
+            if (left.priority > right.priority) {
+                result = editable(left, edit);
+                result.right = merge(left.right, right, edit);
+            } else {
+                result = editable(right, edit);
+                result.left = merge(left, right.left, edit);
+            }
+            update(result);
+            return result;
+        }
+
+        /*
+         * Le rotazioni sono applicate solo a nodi già resi modificabili dall'Editor corrente.
+         */
+        private Node<T> rotateRight(Node<T> node) {
+            Node<T> left = node.left;
+            node.left = left.right;
+            update(node);
+            left.right = node;
+            update(left);
+            return left;
+        }
+
+        private Node<T> rotateLeft(Node<T> node) {
+            Node<T> right = node.right;
+            node.right = right.left;
+            update(node);
+            right.left = node;
+            update(right);
+            return right;
+        }
+    }
+
+    private static <T> Node<T> editable(Node<T> node, Object edit) {
+        if (node.edit == edit) return node;
+        Node<T> copy = new Node<>(edit, node.value, node.priority);
+        copy.left = node.left;
+        copy.right = node.right;
+        copy.size = node.size;
+        return copy;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node<?> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int computeSizes(Node<?> node) {
+        if (node == null) return 0;
+        node.size = 1 + computeSizes(node.left) + computeSizes(node.right);
+        return node.size;
+    }
+}
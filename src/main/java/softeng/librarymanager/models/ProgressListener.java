@@ -0,0 +1,26 @@
+/**
+ * @file ProgressListener.java
+ * @brief Interfaccia per la notifica dell'avanzamento delle operazioni di I/O.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+/**
+ * @interface ProgressListener
+ * @brief Interfaccia che definisce il contratto per osservare l'avanzamento di un salvataggio o di un caricamento.
+ * @details Le notifiche vengono inviate dal thread che esegue l'operazione, in genere un thread in background:
+ *          chi aggiorna l'interfaccia grafica deve riportarle sul thread JavaFX.
+ */
+public interface ProgressListener {
+
+    /**
+     * @brief Notifica l'avanzamento dell'operazione.
+     * @param[in] bytes Il numero di byte scritti o letti finora.
+     * @param[in] records Il numero di studenti, libri e prestiti elaborati finora.
+     */
+    void progress(long bytes, long records);
+
+}
@@ -8,7 +8,10 @@
 
 package softeng.librarymanager.models;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * @brief Interfaccia generica per la gestione di un registro di elementi.
@@ -16,6 +19,8 @@ import java.util.List;
  * Questa interfaccia definisce il contratto per le operazioni di manipolazione
  * (aggiunta, modifica, rimozione) e validazione di oggetti di tipo T all'interno
  * del sistema. Espone una lista osservabile per l'integrazione con l'interfaccia grafica JavaFX.
+ * Le operazioni di gruppo (addAll, modifyAll, removeAll, removeIf) aggiornano le strutture interne in un solo
+ * passaggio e notificano gli osservatori una sola volta, così che il journal ne registri un unico record.
  *
  * @tparam T Il tipo di oggetto gestito da questo registro (es. Libro, Utente, Prestito).
  */
@@ -36,6 +41,22 @@ public interface Register<T> {
      */
     public void modify(T old, T newObj);
 
+    /**
+     * @brief Modifica l'elemento del registro avente l'identificativo specificato.
+     * @details La ricerca avviene tramite l'indice della chiave primaria, senza scorrere l'intero registro.
+     * @param[in] id L'identificativo dell'elemento da modificare.
+     * @param[in] newObj Il nuovo elemento contenente i dati aggiornati.
+     * @return true se l'elemento è stato trovato e modificato, false altrimenti.
+     */
+    public boolean modifyById(String id, T newObj);
+
+    /**
+     * @brief Cerca un elemento tramite il suo identificativo univoco.
+     * @param[in] id L'identificativo dell'elemento cercato.
+     * @return L'elemento avente l'identificativo specificato, null se non è presente.
+     */
+    public T findById(String id);
+
     /**
      * @brief Rimuove un elemento dal registro.
      * @param[in] toRemove L'elemento di tipo T da rimuovere.
@@ -43,6 +64,44 @@ public interface Register<T> {
      */
     public void remove(T toRemove);
 
+    /**
+     * @brief Aggiunge un gruppo di elementi al registro.
+     * @param[in] toAdd Gli elementi da aggiungere, ognuno con le stesse precondizioni di add().
+     * @post Gli elementi aggiunti sono notificati agli osservatori con un'unica invocazione di addedAll();
+     *       se un elemento non può essere aggiunto, l'eccezione viene propagata dopo aver notificato quelli precedenti.
+     */
+    public void addAll(Collection<? extends T> toAdd);
+
+    /**
+     * @brief Aggiunge gli elementi non duplicati di un gruppo, con una sola operazione atomica.
+     * @details La verifica con isUnique() e l'inserimento avvengono senza che altri thread possano modificare il registro
+     *          nel frattempo; un elemento è duplicato se non è unico nel registro o se equivale a uno precedente del gruppo.
+     * @param[in] toAdd Gli elementi da aggiungere, ognuno con le stesse precondizioni di add() tranne l'unicità.
+     * @return List<T> Gli elementi scartati perché duplicati, nell'ordine di toAdd.
+     * @post Gli elementi aggiunti sono notificati agli osservatori con un'unica invocazione di addedAll().
+     */
+    public List<T> addAllUnique(Collection<? extends T> toAdd);
+
+    /**
+     * @brief Modifica gli elementi del registro aventi gli identificativi specificati.
+     * @param[in] changes Associa l'identificativo di ogni elemento da modificare al nuovo elemento con i dati aggiornati.
+     * @return Il numero di elementi trovati e modificati; gli identificativi assenti vengono ignorati.
+     */
+    public int modifyAll(Map<String, ? extends T> changes);
+
+    /**
+     * @brief Rimuove un gruppo di elementi dal registro.
+     * @param[in] toRemove Gli elementi da rimuovere; quelli non presenti vengono ignorati.
+     */
+    public void removeAll(Collection<? extends T> toRemove);
+
+    /**
+     * @brief Rimuove dal registro gli elementi che soddisfano la condizione specificata.
+     * @param[in] filter La condizione, valutata una volta per ogni elemento.
+     * @return Il numero di elementi rimossi.
+     */
+    public int removeIf(Predicate<? super T> filter);
+
     /**
      * @brief Verifica la validità di un elemento.
      * @param[in] toVerify L'elemento da verificare.
@@ -52,8 +111,53 @@ public interface Register<T> {
 
     /**
      * @brief Restituisce la lista osservabile degli elementi.
+     * @details La lista è una vista in sola lettura, mantenuta ordinata dal registro ad ogni modifica e restituita in
+     *          tempo costante. A differenza delle altre operazioni, la vista non è protetta dal lock del registro: va
+     *          letta dallo stesso thread che modifica il registro (il JavaFX Application Thread). Gli altri thread
+     *          devono usare search(), che restituisce una nuova lista, o la versione immutabile di {@link Library#snapshot()}.
      * @return Una ObservableList contenente tutti gli elementi di tipo T presenti nel registro.
      */
     public List<T> getRegisterList();
 
+    /**
+     * @brief Cerca gli elementi corrispondenti al testo specificato.
+     * @details La ricerca avviene su un indice invertito: ogni parola della query deve essere l'inizio di una
+     *          parola dell'elemento, senza distinzione tra maiuscole, minuscole e accenti.
+     * @param[in] query Il testo cercato.
+     * @return Una nuova lista, nello stesso ordine di getRegisterList(), degli elementi corrispondenti;
+     *         tutti gli elementi se la query è vuota.
+     * @note Può essere invocato da un thread in background: le implementazioni devono sincronizzarlo con le modifiche.
+     */
+    public List<T> search(String query);
+
+    /**
+     * @brief Cerca, tra i candidati specificati, gli elementi corrispondenti al testo.
+     * @details Permette di raffinare il risultato di una ricerca precedente quando la query viene estesa,
+     *          senza consultare nuovamente l'indice.
+     * @param[in] query Il testo cercato.
+     * @param[in] candidates Gli elementi tra cui cercare, tipicamente il risultato di search() per una query più corta.
+     * @return Una nuova lista, nello stesso ordine di 'candidates', degli elementi ancora presenti nel registro e corrispondenti.
+     */
+    public List<T> search(String query, Collection<? extends T> candidates);
+
+    /**
+     * @brief Restituisce il numero di modifiche subite dal registro.
+     * @details Il valore cambia ad ogni modifica che può alterare il risultato di una ricerca, così che
+     *          chi conserva risultati precedenti possa riconoscere quando non sono più validi.
+     * @return long Il contatore delle modifiche.
+     */
+    public long getModificationCount();
+
+    /**
+     * @brief Registra un osservatore delle modifiche al registro.
+     * @param[in] listener L'osservatore da registrare.
+     */
+    public void addListener(RegisterListener<T> listener);
+
+    /**
+     * @brief Rimuove un osservatore delle modifiche al registro.
+     * @param[in] listener L'osservatore da rimuovere.
+     */
+    public void removeListener(RegisterListener<T> listener);
+
 }
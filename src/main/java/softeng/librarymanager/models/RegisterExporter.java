@@ -0,0 +1,259 @@
+/**
+ * @file RegisterExporter.java
+ * @brief Esportazione a flusso dei registri in file CSV e JSON Lines.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import softeng.librarymanager.models.LibrarySnapshot.BookRecord;
+import softeng.librarymanager.models.LibrarySnapshot.LoanRecord;
+import softeng.librarymanager.models.LibrarySnapshot.StudentRecord;
+
+/**
+ * @class RegisterExporter
+ * @brief Esporta studenti, libri e prestiti di una biblioteca in file piatti, per report ed elaborazioni esterne.
+ * @details L'esportatore lavora sulla {@link LibrarySnapshot} fissata alla costruzione: l'esportazione può quindi avvenire
+ *          in background mentre la biblioteca viene modificata. Le righe vengono scritte una alla volta su un canale
+ *          NIO tramite un buffer di {@link #BUFFER_SIZE} caratteri, senza costruire l'intero contenuto in memoria.
+ *
+ *          Formati: CSV con intestazione (separatore ",", autori separati da "; ") oppure JSON Lines, un oggetto per
+ *          riga con gli stessi nomi di campo. Le colonne di studenti e libri coincidono con quelle lette da
+ *          {@link RegisterImporter}, così che un file CSV esportato possa essere reimportato; i prestiti riportano anche
+ *          i dati dello studente e del libro coinvolti.
+ */
+public final class RegisterExporter {
+
+    /**
+     * @brief Numero di caratteri accumulati prima di ogni scrittura sul canale.
+     */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int PROGRESS_INTERVAL = 4096;
+
+    private static final String[] STUDENT_COLUMNS = {"nome", "cognome", "matricola", "email"};
+    private static final String[] BOOK_COLUMNS = {"titolo", "autori", "isbn", "anno", "copie"};
+    private static final String[] LOAN_COLUMNS = {"prestito", "scadenza", "restituito", "matricola", "nome", "cognome",
+            "email", "isbn", "titolo", "autori"};
+
+    /**
+     * @brief Registro da esportare.
+     */
+    public enum Kind {
+        STUDENTS("studenti"), BOOKS("libri"), LOANS("prestiti");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @brief Restituisce il nome italiano del registro, usato anche dalla riga di comando.
+         * @return String Il nome ("studenti", "libri" o "prestiti").
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * @brief Cerca il registro con il nome indicato.
+         * @param[in] label Il nome del registro, senza distinzione tra maiuscole e minuscole.
+         * @return Kind Il registro corrispondente.
+         * @throws IllegalArgumentException Se il nome non corrisponde ad alcun registro.
+         */
+        public static Kind forLabel(String label) {
+            for (Kind kind : values())
+                if (kind.label.equalsIgnoreCase(label)) return kind;
+            throw new IllegalArgumentException("Registro sconosciuto: " + label);
+        }
+    }
+
+    /**
+     * @brief Formato del file esportato.
+     */
+    public enum Format {
+        CSV, JSON_LINES;
+
+        /**
+         * @brief Sceglie il formato in base all'estensione del file.
+         * @param[in] file Il file da scrivere.
+         * @return Format JSON_LINES per i file ".jsonl" e ".json", CSV altrimenti.
+         */
+        public static Format forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".jsonl") || name.endsWith(".json") ? JSON_LINES : CSV;
+        }
+    }
+
+    /*
+     * Destinazione delle righe, indipendente dal formato.
+     */
+    private interface RowSink {
+        void row(Object[] values) throws IOException;
+    }
+
+    private final LibrarySnapshot snapshot;
+    private ProgressListener progress;
+    private Map<String, StudentRecord> studentIndex;
+    private Map<String, BookRecord> bookIndex;
+
+    private RegisterExporter(LibrarySnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * @brief Crea un esportatore dei dati correnti di una biblioteca.
+     * @param[in] library La biblioteca da esportare.
+     * @return RegisterExporter L'esportatore, che non risente delle modifiche successive della biblioteca.
+     */
+    public static RegisterExporter of(Library library) {
+        return of(library.snapshot());
+    }
+
+    /**
+     * @brief Crea un esportatore di una versione della biblioteca.
+     * @param[in] snapshot La versione da esportare.
+     * @return RegisterExporter L'esportatore.
+     */
+    public static RegisterExporter of(LibrarySnapshot snapshot) {
+        return new RegisterExporter(snapshot);
+    }
+
+    /**
+     * @brief Imposta l'oggetto da notificare con i byte e le righe scritti.
+     * @param[in] progress L'oggetto da notificare, null per nessuna notifica.
+     * @return RegisterExporter Questo esportatore.
+     */
+    public RegisterExporter setProgressListener(ProgressListener progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * @brief Restituisce il numero di righe che verranno esportate per un registro.
+     * @param[in] kind Il registro.
+     * @return long Il numero di elementi del registro nella versione esportata.
+     */
+    public long size(Kind kind) {
+        switch (kind) {
+            case STUDENTS: return snapshot.getStudentCount();
+            case BOOKS: return snapshot.getBookCount();
+            default: return snapshot.getLoanCount();
+        }
+    }
+
+    /**
+     * @brief Esporta un registro nel formato indicato dall'estensione del file.
+     * @param[in] kind Il registro da esportare.
+     * @param[in] target Il file da scrivere, sovrascritto se presente.
+     * @return long Il numero di righe scritte, esclusa l'intestazione.
+     * @throws IOException Se la scrittura fallisce.
+     * @see Format#forFile(Path)
+     */
+    public long export(Kind kind, Path target) throws IOException {
+        return export(kind, target, Format.forFile(target));
+    }
+
+    /**
+     * @brief Esporta un registro nel formato indicato.
+     * @details Gli elementi vengono scritti nell'ordine di visualizzazione del registro.
+     * @param[in] kind Il registro da esportare.
+     * @param[in] target Il file da scrivere, sovrascritto se presente.
+     * @param[in] format Il formato del file.
+     * @return long Il numero di righe scritte, esclusa l'intestazione.
+     * @throws IOException Se la scrittura fallisce.
+     */
+    public long export(Kind kind, Path target, Format format) throws IOException {
+        String[] columns = kind == Kind.STUDENTS ? STUDENT_COLUMNS : kind == Kind.BOOKS ? BOOK_COLUMNS : LOAN_COLUMNS;
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1), BUFFER_SIZE)) {
+            RowSink sink;
+            if (format == Format.CSV) {
+                CsvWriter csv = new CsvWriter(out, ',');
+                csv.writeRow(columns);
+                String[] fields = new String[columns.length];
+                sink = values -> {
+                    for (int i = 0; i < values.length; i++) fields[i] = csvField(values[i]);
+                    csv.writeRow(fields);
+                };
+            } else {
+                JsonWriter json = new JsonWriter(out);
+                sink = values -> json.writeObject(columns, values);
+            }
+
+            long rows = 0;
+            if (kind == Kind.STUDENTS) {
+                for (StudentRecord student : snapshot.getStudents()) rows = row(sink, student(student), rows, channel);
+            } else if (kind == Kind.BOOKS) {
+                for (BookRecord book : snapshot.getBooks()) rows = row(sink, book(book), rows, channel);
+            } else {
+                for (LoanRecord loan : snapshot.getLoans()) rows = row(sink, loan(loan), rows, channel);
+            }
+            out.flush();
+            if (progress != null) progress.progress(channel.position(), rows);
+            return rows;
+        }
+    }
+
+    private long row(RowSink sink, Object[] values, long rows, FileChannel channel) throws IOException {
+        sink.row(values);
+        rows++;
+        if (progress != null && rows % PROGRESS_INTERVAL == 0) progress.progress(channel.position(), rows);
+        return rows;
+    }
+
+    private static Object[] student(StudentRecord student) {
+        return new Object[]{student.getName(), student.getSurname(), student.getStudentId(), student.getEmail()};
+    }
+
+    private static Object[] book(BookRecord book) {
+        return new Object[]{book.getTitle(), book.getAuthors(), book.getBookId(), book.getPublishmentYear(), book.getAvailableCopies()};
+    }
+
+    /*
+     * I dati di studente e libro vengono cercati nella stessa versione, tramite indici costruiti alla prima esportazione.
+     */
+    private Object[] loan(LoanRecord loan) {
+        if (studentIndex == null) {
+            studentIndex = new HashMap<>(snapshot.getStudentCount() * 2);
+            for (StudentRecord student : snapshot.getStudents()) studentIndex.put(student.getStudentId(), student);
+            bookIndex = new HashMap<>(snapshot.getBookCount() * 2);
+            for (BookRecord book : snapshot.getBooks()) bookIndex.put(book.getBookId(), book);
+        }
+        StudentRecord s = studentIndex.get(loan.getStudentId());
+        BookRecord b = bookIndex.get(loan.getBookId());
+        return new Object[]{loan.getLoanId().toString(), loan.getLoanEnd().toString(), loan.isReturned(),
+                loan.getStudentId(), s == null ? null : s.getName(), s == null ? null : s.getSurname(),
+                s == null ? null : s.getEmail(), loan.getBookId(), b == null ? null : b.getTitle(),
+                b == null ? null : b.getAuthors()};
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) return "";
+        if (value instanceof Iterable) {
+            StringBuilder joined = new StringBuilder();
+            for (Object item : (Iterable<?>) value) {
+                if (joined.length() > 0) joined.append("; ");
+                joined.append(item);
+            }
+            return joined.toString();
+        }
+        return value.toString();
+    }
+}
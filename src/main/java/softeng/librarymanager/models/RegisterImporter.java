@@ -0,0 +1,351 @@
+/**
+ * @file RegisterImporter.java
+ * @brief Importazione massiva di studenti e libri da file CSV e TSV.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * @class RegisterImporter
+ * @brief Importa in un registro gli elementi descritti da un file CSV o TSV, scartando le righe non valide.
+ * @details Il file viene letto a flusso da un {@link CsvReader}, con memoria costante rispetto al numero di righe.
+ *          Ogni riga viene convertita con il costruttore dell'elemento, che ne verifica la validità (le stesse regole
+ *          dei popup di inserimento); le righe valide vengono raccolte in gruppi di {@link #BATCH_SIZE} e inserite
+ *          con una sola {@link Register#addAllUnique(java.util.Collection)}, che ne verifica l'unicità rispetto al
+ *          registro e alle righe precedenti del gruppo senza che altri thread possano modificare il registro nel frattempo.
+ *          Le righe scartate vengono scritte in un file a parte, con il numero di riga e il motivo seguiti dai campi
+ *          originali; il file viene creato solo in presenza di scarti.
+ *
+ *          Il separatore è la tabulazione per i file ".tsv", altrimenti il più frequente nella prima riga tra
+ *          tabulazione, punto e virgola e virgola. Una prima riga uguale ai nomi delle colonne viene ignorata.
+ *          Colonne degli studenti: nome, cognome, matricola, email; dei libri: titolo, autori (separati da ";"),
+ *          ISBN, anno, copie.
+ *
+ *          La lettura avviene sul thread chiamante, mentre gli inserimenti vengono eseguiti dall'Executor impostato
+ *          con setInsertExecutor() (es. Platform::runLater per il thread dell'interfaccia grafica, che è l'unico a
+ *          modificare la biblioteca): al più due gruppi sono in attesa di inserimento, così che la memoria resti
+ *          limitata anche se gli inserimenti sono più lenti della lettura.
+ * @tparam T Il tipo degli elementi importati.
+ */
+public final class RegisterImporter<T> {
+
+    /**
+     * @brief Numero di righe valide inserite nel registro in un'unica operazione.
+     */
+    public static final int BATCH_SIZE = 4096;
+
+    /**
+     * @brief Conversione di una riga nell'elemento corrispondente.
+     * @tparam T Il tipo dell'elemento.
+     */
+    private interface RowMapper<T> {
+        /*
+         * Lancia IllegalArgumentException, con il motivo, se la riga non descrive un elemento valido.
+         */
+        T map(String[] fields);
+    }
+
+    private final Register<T> register;
+    private final String[] columns;
+    private final RowMapper<T> mapper;
+    private Executor insertExecutor = Runnable::run;
+    private ProgressListener progress;
+
+    private RegisterImporter(Register<T> register, String[] columns, RowMapper<T> mapper) {
+        this.register = register;
+        this.columns = columns;
+        this.mapper = mapper;
+    }
+
+    /**
+     * @brief Crea un importatore di studenti.
+     * @param[in] register Il registro in cui inserire gli studenti.
+     * @return RegisterImporter L'importatore.
+     */
+    public static RegisterImporter<Student> forStudents(Register<Student> register) {
+        return new RegisterImporter<>(register, new String[]{"nome", "cognome", "matricola", "email"},
+                fields -> new Student(fields[0], fields[1], fields[2], fields[3]));
+    }
+
+    /**
+     * @brief Crea un importatore di libri.
+     * @param[in] register Il registro in cui inserire i libri.
+     * @return RegisterImporter L'importatore.
+     */
+    public static RegisterImporter<Book> forBooks(Register<Book> register) {
+        return new RegisterImporter<>(register, new String[]{"titolo", "autori", "isbn", "anno", "copie"},
+                fields -> new Book(fields[0], splitAuthors(fields[1]), fields[2], parseNumber(fields[3]), parseNumber(fields[4])));
+    }
+
+    /**
+     * @brief Imposta l'Executor che esegue gli inserimenti nel registro.
+     * @param[in] insertExecutor L'Executor (predefinito: il thread chiamante).
+     * @return RegisterImporter Questo importatore.
+     */
+    public RegisterImporter<T> setInsertExecutor(Executor insertExecutor) {
+        this.insertExecutor = insertExecutor;
+        return this;
+    }
+
+    /**
+     * @brief Imposta l'oggetto da notificare con i byte e le righe lette.
+     * @param[in] progress L'oggetto da notificare, null per nessuna notifica.
+     * @return RegisterImporter Questo importatore.
+     */
+    public RegisterImporter<T> setProgressListener(ProgressListener progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * @brief Restituisce il percorso predefinito del file degli scarti: "<nome>.scarti.csv" accanto al file importato.
+     * @param[in] source Il file importato.
+     * @return Path Il percorso del file degli scarti.
+     */
+    public static Path rejectsFile(Path source) {
+        return source.resolveSibling(source.getFileName() + ".scarti.csv");
+    }
+
+    /**
+     * @brief Importa il file indicato.
+     * @param[in] source Il file CSV o TSV, codificato in UTF-8.
+     * @param[in] rejects Il file in cui scrivere le righe scartate, sovrascritto se presente.
+     * @return Result Il riepilogo dell'importazione.
+     * @throws IOException Se la lettura del file o la scrittura degli scarti fallisce; le righe già inserite restano nel registro.
+     * @post Il registro contiene tutte le righe valide e non duplicate del file.
+     */
+    public Result importFile(Path source, Path rejects) throws IOException {
+        Files.deleteIfExists(rejects);
+        try (FileChannel file = FileChannel.open(source, StandardOpenOption.READ);
+             BufferedReader in = new BufferedReader(Channels.newReader(file, StandardCharsets.UTF_8.newDecoder(), -1), CsvReader.CHUNK_SIZE);
+             Rejects rejected = new Rejects(rejects)) {
+            char delimiter = detectDelimiter(source, in);
+            rejected.delimiter = delimiter;
+            CsvReader reader = new CsvReader(in, delimiter);
+
+            long rows = 0;
+            List<T> batch = new ArrayList<>(BATCH_SIZE);
+            List<String[]> batchFields = new ArrayList<>(BATCH_SIZE);
+            List<Long> batchLines = new ArrayList<>(BATCH_SIZE);
+            CompletableFuture<List<String[]>> previous = null, current = null;
+            String[] fields;
+            while ((fields = reader.next()) != null) {
+                if (reader.getLine() == 1 && isHeader(fields)) continue;
+                rows++;
+                try {
+                    batch.add(map(fields));
+                    batchFields.add(fields);
+                    batchLines.add(reader.getLine());
+                } catch (IllegalArgumentException ex) {
+                    rejected.write(reader.getLine(), ex.getMessage(), fields);
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    // Al più due gruppi in attesa: prima di accodarne un terzo si attende il più vecchio
+                    if (previous != null) rejected.writeAll(await(previous));
+                    previous = current;
+                    current = insert(batch, batchFields, batchLines);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                    batchFields = new ArrayList<>(BATCH_SIZE);
+                    batchLines = new ArrayList<>(BATCH_SIZE);
+                    if (progress != null) progress.progress(file.position(), rows);
+                }
+            }
+            if (previous != null) rejected.writeAll(await(previous));
+            if (current != null) rejected.writeAll(await(current));
+            if (!batch.isEmpty()) rejected.writeAll(await(insert(batch, batchFields, batchLines)));
+            if (progress != null) progress.progress(file.position(), rows);
+            return new Result(rows, rows - rejected.count, rejected.count, rejected.count > 0 ? rejects : null);
+        }
+    }
+
+    private T map(String[] fields) {
+        if (fields.length != columns.length)
+            throw new IllegalArgumentException("Numero di campi errato: attesi " + columns.length + ", trovati " + fields.length);
+        String[] trimmed = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) trimmed[i] = fields[i].trim();
+        return mapper.map(trimmed);
+    }
+
+    /*
+     * Inserisce un gruppo con una sola addAllUnique(), che produce un solo record nel journal; restituisce le righe
+     * duplicate, rispetto al registro o a una riga precedente dello stesso gruppo, precedute da numero di riga e motivo.
+     */
+    private CompletableFuture<List<String[]>> insert(List<T> batch, List<String[]> fields, List<Long> lines) {
+        return CompletableFuture.supplyAsync(() -> {
+            Set<T> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+            rejected.addAll(register.addAllUnique(batch));
+            List<String[]> duplicates = new ArrayList<>(rejected.size());
+            for (int i = 0; i < batch.size() && duplicates.size() < rejected.size(); i++)
+                if (rejected.contains(batch.get(i)))
+                    duplicates.add(Rejects.row(lines.get(i), "Elemento già presente nel registro", fields.get(i)));
+            return duplicates;
+        }, insertExecutor);
+    }
+
+    private boolean isHeader(String[] fields) {
+        if (fields.length != columns.length) return false;
+        for (int i = 0; i < fields.length; i++)
+            if (!fields[i].trim().equalsIgnoreCase(columns[i])) return false;
+        return true;
+    }
+
+    /*
+     * Legge la prima riga senza consumarla, saltando l'eventuale BOM inserito da alcuni fogli di calcolo.
+     */
+    private static char detectDelimiter(Path source, BufferedReader in) throws IOException {
+        in.mark(CsvReader.CHUNK_SIZE);
+        int first = in.read();
+        if (first != '\uFEFF') {
+            in.reset();
+            in.mark(CsvReader.CHUNK_SIZE);
+        }
+        if (source.getFileName().toString().toLowerCase().endsWith(".tsv")) return '\t';
+        char[] line = new char[CsvReader.CHUNK_SIZE - 1];
+        int length = 0, n;
+        while (length < line.length && (n = in.read(line, length, line.length - length)) > 0) length += n;
+        in.reset();
+        int end = 0;
+        while (end < length && line[end] != '\n' && line[end] != '\r') end++;
+        return CsvReader.detectDelimiter(new String(line, 0, end));
+    }
+
+    private static List<String> splitAuthors(String text) {
+        List<String> authors = new ArrayList<>();
+        for (String author : text.split(";")) {
+            if (!author.trim().isEmpty()) authors.add(author.trim());
+        }
+        return authors;
+    }
+
+    private static int parseNumber(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Valore numerico non valido: " + text);
+        }
+    }
+
+    private static <R> R await(CompletableFuture<R> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) ex.getCause()).getCause();
+            throw ex;
+        }
+    }
+
+    /*
+     * File degli scarti, creato alla prima riga scartata.
+     */
+    private static final class Rejects implements AutoCloseable {
+        private final Path path;
+        private char delimiter = ',';
+        private Writer out;
+        private CsvWriter writer;
+        private long count;
+
+        private Rejects(Path path) {
+            this.path = path;
+        }
+
+        static String[] row(long line, String reason, String[] fields) {
+            String[] row = new String[fields.length + 2];
+            row[0] = Long.toString(line);
+            row[1] = reason;
+            System.arraycopy(fields, 0, row, 2, fields.length);
+            return row;
+        }
+
+        void write(long line, String reason, String[] fields) throws IOException {
+            writeAll(Collections.singletonList(row(line, reason, fields)));
+        }
+
+        void writeAll(List<String[]> rows) throws IOException {
+            if (rows.isEmpty()) return;
+            if (writer == null) {
+                out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                writer = new CsvWriter(out, delimiter);
+                writer.writeRow("riga", "motivo");
+            }
+            for (String[] row : rows) writer.writeRow(row);
+            count += rows.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) out.close();
+        }
+    }
+
+    /**
+     * @class Result
+     * @brief Riepilogo di un'importazione.
+     */
+    public static final class Result {
+        private final long rows;
+        private final long imported;
+        private final long rejected;
+        private final Path rejectsFile;
+
+        private Result(long rows, long imported, long rejected, Path rejectsFile) {
+            this.rows = rows;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.rejectsFile = rejectsFile;
+        }
+
+        /**
+         * @brief Restituisce il numero di righe lette, esclusa l'intestazione.
+         * @return long Il numero di righe.
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * @brief Restituisce il numero di elementi inseriti nel registro.
+         * @return long Il numero di elementi inseriti.
+         */
+        public long getImported() {
+            return imported;
+        }
+
+        /**
+         * @brief Restituisce il numero di righe scartate perché non valide o già presenti.
+         * @return long Il numero di righe scartate.
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @brief Restituisce il file delle righe scartate.
+         * @return Path Il file, null se nessuna riga è stata scartata.
+         */
+        public Path getRejectsFile() {
+            return rejectsFile;
+        }
+    }
+}
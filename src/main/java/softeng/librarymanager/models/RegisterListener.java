@@ -0,0 +1,66 @@
+/**
+ * @file RegisterListener.java
+ * @brief Interfaccia per la notifica delle modifiche a un registro.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.util.Collection;
+
+/**
+ * @interface RegisterListener
+ * @brief Interfaccia che definisce il contratto per osservare le modifiche di un registro.
+ * @details Utilizzata per mantenere coerenti le strutture che dipendono dal contenuto di un registro
+ *          (es. l'indice di ricerca dei prestiti, che contiene i dati di studenti e libri).
+ *          Le operazioni di gruppo del registro (addAll, modifyAll, removeAll, removeIf) vengono notificate con
+ *          un'unica invocazione dei metodi "...All", che per impostazione predefinita notificano un elemento alla volta.
+ * @tparam T Il tipo di dato contenuto nel registro osservato.
+ */
+public interface RegisterListener<T> {
+
+    /**
+     * @brief Notifica l'aggiunta di un elemento al registro.
+     * @param[in] item L'elemento aggiunto.
+     */
+    void added(T item);
+
+    /**
+     * @brief Notifica la modifica dei dati di un elemento del registro.
+     * @param[in] item L'elemento modificato.
+     */
+    void modified(T item);
+
+    /**
+     * @brief Notifica la rimozione di un elemento dal registro.
+     * @param[in] item L'elemento rimosso.
+     */
+    void removed(T item);
+
+    /**
+     * @brief Notifica l'aggiunta di un gruppo di elementi al registro.
+     * @param[in] items Gli elementi aggiunti, nell'ordine di inserimento.
+     */
+    default void addedAll(Collection<? extends T> items) {
+        for (T item : items) added(item);
+    }
+
+    /**
+     * @brief Notifica la modifica dei dati di un gruppo di elementi del registro.
+     * @param[in] items Gli elementi modificati.
+     */
+    default void modifiedAll(Collection<? extends T> items) {
+        for (T item : items) modified(item);
+    }
+
+    /**
+     * @brief Notifica la rimozione di un gruppo di elementi dal registro.
+     * @param[in] items Gli elementi rimossi.
+     */
+    default void removedAll(Collection<? extends T> items) {
+        for (T item : items) removed(item);
+    }
+
+}
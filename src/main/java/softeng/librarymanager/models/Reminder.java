@@ -0,0 +1,82 @@
+/**
+ * @file Reminder.java
+ * @brief Definizione del promemoria inviato a uno studente per i prestiti in scadenza o scaduti.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @class Reminder
+ * @brief Promemoria, destinato a un solo studente, che raggruppa i prestiti giunti a un limite di scadenza.
+ * @details Viene prodotto da {@link ReminderScheduler} e consegnato a un {@link ReminderSink}. Contiene i prestiti che
+ *          scadranno entro l'anticipo configurato e quelli scaduti, ciascuno ordinato per data di restituzione.
+ * @invariant attributi diversi da null; almeno una delle due liste non è vuota.
+ */
+public final class Reminder {
+
+    private final Student student;
+    private final LocalDate date;
+    private final List<Loan> dueSoon;
+    private final List<Loan> overdue;
+
+    /**
+     * @brief Costruttore.
+     * @param[in] student Lo studente destinatario.
+     * @param[in] date La data a cui si riferisce il promemoria.
+     * @param[in] dueSoon I prestiti in scadenza.
+     * @param[in] overdue I prestiti scaduti.
+     */
+    Reminder(Student student, LocalDate date, List<Loan> dueSoon, List<Loan> overdue) {
+        this.student = student;
+        this.date = date;
+        this.dueSoon = Collections.unmodifiableList(dueSoon);
+        this.overdue = Collections.unmodifiableList(overdue);
+    }
+
+    /**
+     * @brief Restituisce lo studente destinatario.
+     * @return Student Lo studente.
+     */
+    public Student getStudent() {
+        return student;
+    }
+
+    /**
+     * @brief Restituisce l'indirizzo a cui inviare il promemoria.
+     * @return String L'email istituzionale dello studente.
+     */
+    public String getEmail() {
+        return student.getEmail();
+    }
+
+    /**
+     * @brief Restituisce la data a cui si riferisce il promemoria.
+     * @return LocalDate Il giorno in cui i prestiti hanno raggiunto il limite di scadenza.
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * @brief Restituisce i prestiti che scadranno entro l'anticipo configurato.
+     * @return List<Loan> Una lista in sola lettura, eventualmente vuota.
+     */
+    public List<Loan> getDueSoon() {
+        return dueSoon;
+    }
+
+    /**
+     * @brief Restituisce i prestiti scaduti e non ancora restituiti.
+     * @return List<Loan> Una lista in sola lettura, eventualmente vuota.
+     */
+    public List<Loan> getOverdue() {
+        return overdue;
+    }
+}
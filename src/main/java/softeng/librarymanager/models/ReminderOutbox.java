@@ -0,0 +1,84 @@
+/**
+ * @file ReminderOutbox.java
+ * @brief Consegna dei promemoria su un file locale in formato JSON Lines.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @class ReminderOutbox
+ * @brief Accoda i promemoria in un file, una riga JSON per promemoria, in attesa che un altro servizio li invii.
+ * @details Sostituisce l'invio vero e proprio nei test e nelle installazioni senza server di posta. Ogni riga riporta
+ *          data, destinatario e prestiti, ad esempio:
+ *          {"data":"2026-01-10","email":"m.rossi@studenti.unisa.it","matricola":"...","nome":"...","cognome":"...",
+ *          "in_scadenza":[{"prestito":"...","isbn":"...","titolo":"...","scadenza":"2026-01-13"}],"scaduti":[]}
+ *          Ogni consegna viene aggiunta in fondo al file, che viene chiuso prima di restituire il controllo.
+ */
+public final class ReminderOutbox implements ReminderSink {
+
+    private static final String[] FIELDS = {"data", "email", "matricola", "nome", "cognome", "in_scadenza", "scaduti"};
+
+    private final Path file;
+
+    /**
+     * @brief Costruttore.
+     * @param[in] file Il file in cui accodare i promemoria, creato alla prima consegna se non esiste.
+     */
+    public ReminderOutbox(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @brief Restituisce il file dei promemoria.
+     * @return Path Il file in cui vengono accodati i promemoria.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @brief Aggiunge i promemoria in fondo al file.
+     * @param[in] reminders I promemoria da accodare.
+     * @throws IOException Se la scrittura fallisce.
+     */
+    @Override
+    public void send(List<Reminder> reminders) throws IOException {
+        if (reminders.isEmpty()) return;
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            JsonWriter json = new JsonWriter(out);
+            for (Reminder reminder : reminders) {
+                Student student = reminder.getStudent();
+                json.writeObject(FIELDS, new Object[]{reminder.getDate().toString(), reminder.getEmail(), student.getStudentId(),
+                        student.getName(), student.getSurname(), loans(reminder.getDueSoon()), loans(reminder.getOverdue())});
+            }
+        }
+    }
+
+    private static List<Map<String, String>> loans(List<Loan> loans) {
+        List<Map<String, String>> result = new ArrayList<>(loans.size());
+        for (Loan loan : loans) {
+            Map<String, String> fields = new LinkedHashMap<>();
+            fields.put("prestito", loan.getLoanId().toString());
+            fields.put("isbn", loan.getBook().getBookId());
+            fields.put("titolo", loan.getBook().getTitle());
+            fields.put("scadenza", loan.getLoanEnd().toString());
+            result.add(fields);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * @file ReminderScheduler.java
+ * @brief Pianificazione dei promemoria di scadenza dei prestiti.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * @class ReminderScheduler
+ * @brief Produce in background i promemoria per i prestiti in scadenza e per quelli appena scaduti.
+ * @details Ogni giorno ha due limiti per un prestito attivo con data di restituzione d: il giorno d - anticipo, in cui il
+ *          prestito è in scadenza, e il giorno d + 1, il primo di ritardo. Lo scheduler non interroga periodicamente il
+ *          registro: calcola tramite l'indice per data dei prestiti attivi ({@link LoanRegister#getNextDueDate(LocalDate)})
+ *          il prossimo giorno con almeno un limite e si risveglia alla sua mezzanotte. Al risveglio legge soltanto i
+ *          prestiti che hanno raggiunto un limite nei giorni trascorsi dall'esecuzione precedente, in O(log n + k),
+ *          li raggruppa per studente e li consegna al {@link ReminderSink} in un'unica chiamata.
+ *
+ *          Le modifiche al registro provocano un nuovo calcolo del prossimo risveglio (più notifiche ravvicinate ne
+ *          provocano uno solo), così che un prestito aggiunto con una scadenza vicina non venga ignorato. I limiti
+ *          del giorno corrente sono elaborati al primo risveglio del giorno: un prestito aggiunto più tardi, con un
+ *          limite nello stesso giorno, non produce promemoria.
+ *
+ *          Il thread dello scheduler si occupa solo dei tempi e della lettura del registro: la consegna al
+ *          {@link ReminderSink}, che può scrivere su file, viene eseguita su {@link BlockingTasks#disk()}, in una
+ *          corsia sequenziale così che i promemoria di giorni diversi arrivino nell'ordine in cui sono prodotti.
+ */
+public final class ReminderScheduler implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ReminderScheduler.class.getName());
+
+    /*
+     * Prestiti di uno stesso studente raccolti durante un'esecuzione.
+     */
+    private static final class Pending {
+        private final List<Loan> dueSoon = new ArrayList<>();
+        private final List<Loan> overdue = new ArrayList<>();
+    }
+
+    private final LoanRegister register;
+    private final ReminderSink sink;
+    private final int leadDays;
+    private final Clock clock;
+    private final ScheduledExecutorService executor;
+    private final Executor delivery = BlockingTasks.sequential(BlockingTasks.disk());
+    private volatile boolean closed;
+    private volatile CompletableFuture<Void> lastDelivery = CompletableFuture.completedFuture(null); ///< @brief Ultima consegna richiesta.
+    private final AtomicBoolean reschedulePending = new AtomicBoolean();
+    private final RegisterListener<Loan> listener = new RegisterListener<Loan>() {
+        @Override public void added(Loan item) { requestReschedule(); }
+        @Override public void modified(Loan item) { requestReschedule(); }
+        @Override public void removed(Loan item) { requestReschedule(); }
+        @Override public void addedAll(Collection<? extends Loan> items) { requestReschedule(); }
+        @Override public void modifiedAll(Collection<? extends Loan> items) { requestReschedule(); }
+        @Override public void removedAll(Collection<? extends Loan> items) { requestReschedule(); }
+    };
+
+    private LocalDate lastRun; ///< @brief Ultimo giorno i cui limiti sono stati elaborati (accesso dal solo thread dello scheduler).
+    private ScheduledFuture<?> wakeUp; ///< @brief Prossimo risveglio pianificato, null se nessun prestito attivo ha limiti futuri.
+
+    /**
+     * @brief Costruttore.
+     * @param[in] register Il registro dei prestiti da sorvegliare.
+     * @param[in] sink La destinazione dei promemoria.
+     * @param[in] leadDays Il numero di giorni di anticipo con cui segnalare i prestiti in scadenza (0 per il giorno stesso).
+     * @pre leadDays >= 0
+     */
+    public ReminderScheduler(LoanRegister register, ReminderSink sink, int leadDays) {
+        this(register, sink, leadDays, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @brief Costruttore con orologio di riferimento, usato nei test.
+     * @param[in] register Il registro dei prestiti da sorvegliare.
+     * @param[in] sink La destinazione dei promemoria.
+     * @param[in] leadDays Il numero di giorni di anticipo con cui segnalare i prestiti in scadenza.
+     * @param[in] clock L'orologio che determina la data corrente e gli istanti di risveglio.
+     */
+    ReminderScheduler(LoanRegister register, ReminderSink sink, int leadDays, Clock clock) {
+        if (leadDays < 0) throw new IllegalArgumentException("Anticipo non valido: " + leadDays);
+        this.register = register;
+        this.sink = sink;
+        this.leadDays = leadDays;
+        this.clock = clock;
+        this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "loan-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @brief Avvia lo scheduler.
+     * @details Elabora subito i limiti del giorno corrente e pianifica il risveglio successivo.
+     * @post Lo scheduler osserva il registro fino alla chiamata di close().
+     */
+    public void start() {
+        register.addListener(listener);
+        executor.execute(() -> {
+            if (lastRun == null) lastRun = LocalDate.now(clock).minusDays(1);
+            wake();
+        });
+    }
+
+    /**
+     * @brief Arresta lo scheduler, attendendo la conclusione di una consegna in corso.
+     * @details Le consegne richieste ma non ancora avviate vengono scartate.
+     * @post Nessun altro promemoria viene prodotto.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        register.removeListener(listener);
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+            lastDelivery.get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ex) {
+            // Un errore di consegna è già stato riportato nel log; una consegna bloccata non trattiene la chiusura.
+        }
+    }
+
+    /**
+     * @brief Produce i promemoria dei limiti raggiunti dopo l'ultima esecuzione fino alla data indicata, inclusa.
+     * @param[in] date L'ultimo giorno da elaborare.
+     * @return List<Reminder> I promemoria, uno per studente, con i prestiti già ordinati per data di restituzione.
+     * @pre Il metodo è invocato dal thread dello scheduler, oppure prima di start() (nei test).
+     */
+    List<Reminder> collect(LocalDate date) {
+        LocalDate from = lastRun == null ? date : lastRun.plusDays(1);
+        lastRun = date;
+        if (from.isAfter(date)) return new ArrayList<>();
+        List<Loan> overdue = register.getLoansDueBetween(from.minusDays(1), date.minusDays(1));
+        // Dopo più giorni senza esecuzioni, i prestiti già scaduti alla data compaiono soltanto tra quelli in ritardo.
+        LocalDate dueFrom = from.plusDays(leadDays).isBefore(date) ? date : from.plusDays(leadDays);
+        List<Loan> dueSoon = register.getLoansDueBetween(dueFrom, date.plusDays(leadDays));
+
+        Map<Student, Pending> byStudent = new LinkedHashMap<>();
+        for (Loan loan : overdue) byStudent.computeIfAbsent(loan.getStudent(), student -> new Pending()).overdue.add(loan);
+        for (Loan loan : dueSoon) byStudent.computeIfAbsent(loan.getStudent(), student -> new Pending()).dueSoon.add(loan);
+        List<Reminder> reminders = new ArrayList<>(byStudent.size());
+        for (Map.Entry<Student, Pending> entry : byStudent.entrySet())
+            reminders.add(new Reminder(entry.getKey(), date, entry.getValue().dueSoon, entry.getValue().overdue));
+        return reminders;
+    }
+
+    /**
+     * @brief Calcola il prossimo giorno in cui almeno un prestito attivo raggiunge un limite.
+     * @return LocalDate Il giorno successivo all'ultima esecuzione con almeno un limite, null se non ce ne sono.
+     */
+    LocalDate nextWakeDate() {
+        LocalDate from = lastRun.plusDays(1);
+        LocalDate nextDue = register.getNextDueDate(from.plusDays(leadDays));
+        LocalDate nextOverdue = register.getNextDueDate(from.minusDays(1));
+        LocalDate dueDay = nextDue == null ? null : nextDue.minusDays(leadDays);
+        LocalDate overdueDay = nextOverdue == null ? null : nextOverdue.plusDays(1);
+        if (dueDay == null) return overdueDay;
+        if (overdueDay == null) return dueDay;
+        return dueDay.isBefore(overdueDay) ? dueDay : overdueDay;
+    }
+
+    /*
+     * Elabora i giorni trascorsi, richiede la consegna dei promemoria e pianifica il risveglio successivo.
+     */
+    private void wake() {
+        LocalDate today = LocalDate.now(clock);
+        if (today.isAfter(lastRun)) {
+            List<Reminder> reminders = collect(today);
+            if (!reminders.isEmpty()) deliver(reminders);
+        }
+        schedule();
+    }
+
+    private void deliver(List<Reminder> reminders) {
+        lastDelivery = CompletableFuture.runAsync(() -> {
+            if (closed) return;
+            try {
+                sink.send(reminders);
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Consegna dei promemoria non riuscita", ex);
+            }
+        }, delivery);
+    }
+
+    private void schedule() {
+        if (wakeUp != null) wakeUp.cancel(false);
+        wakeUp = null;
+        LocalDate next = nextWakeDate();
+        if (next == null || executor.isShutdown()) return;
+        long delay = next.atStartOfDay(clock.getZone()).toInstant().toEpochMilli() - clock.millis();
+        wakeUp = executor.schedule(this::wake, Math.max(0, delay), TimeUnit.MILLISECONDS);
+    }
+
+    private void requestReschedule() {
+        if (!reschedulePending.compareAndSet(false, true)) return;
+        try {
+            executor.execute(() -> {
+                reschedulePending.set(false);
+                if (lastRun != null) wake();
+            });
+        } catch (RejectedExecutionException ex) {
+            // Lo scheduler è già stato arrestato: non c'è nulla da ripianificare.
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * @file ReminderSink.java
+ * @brief Interfaccia per la consegna dei promemoria di scadenza.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * @interface ReminderSink
+ * @brief Interfaccia che definisce il contratto per consegnare i promemoria prodotti da {@link ReminderScheduler}.
+ * @details Le implementazioni possono inviare email, scrivere su file (vedi {@link ReminderOutbox}) o accodare i promemoria
+ *          a un altro servizio. Le consegne avvengono su {@link BlockingTasks#disk()}, una alla volta e mai in parallelo tra loro.
+ */
+@FunctionalInterface
+public interface ReminderSink {
+
+    /**
+     * @brief Consegna i promemoria di un'esecuzione dello scheduler.
+     * @param[in] reminders I promemoria, uno per studente.
+     * @throws IOException Se la consegna fallisce; i promemoria non vengono riproposti.
+     */
+    void send(List<Reminder> reminders) throws IOException;
+
+}
@@ -0,0 +1,326 @@
+/**
+ * @file SearchIndex.java
+ * @brief Indice invertito per la ricerca testuale negli elementi dei registri.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.text.Normalizer;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * @class SearchIndex
+ * @brief Indice invertito con ricerca per prefisso sui token degli elementi.
+ * @details Il testo di ogni elemento viene normalizzato (minuscolo, senza accenti) e suddiviso in token
+ *          alfanumerici. I token sono mantenuti in un dizionario ordinato, così che la ricerca di un
+ *          prefisso corrisponda a un intervallo contiguo di chiavi. Una query composta da più token
+ *          restituisce gli elementi che contengono, per ciascun token della query, almeno un token
+ *          che inizia con esso.
+ * @tparam T Il tipo di elemento indicizzato.
+ */
+@SuppressWarnings("unchecked")
+final class SearchIndex<T> {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+    private static final String[] NO_TOKENS = new String[0];
+
+    /**
+     * @brief Lista di elementi associata a un token condiviso da più elementi.
+     * @details I token associati a un solo elemento (es. un ISBN) memorizzano direttamente l'elemento,
+     *          evitando di allocare un insieme per ciascuno di essi. Gli insiemi sono tabelle hash ad
+     *          indirizzamento aperto, senza un nodo per elemento: i token comuni (es. "di") possono
+     *          puntare a una larga parte del registro.
+     */
+    private static final class Postings<T> extends AbstractCollection<T> {
+        private Object[] table = new Object[4];
+        private int size;
+
+        private int slot(Object item) {
+            int h = item.hashCode() * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & (table.length - 1);
+        }
+
+        @Override
+        public boolean add(T item) {
+            if ((size + 1) * 3 > table.length * 2) resize(table.length * 2);
+            int i = slot(item);
+            for (; table[i] != null; i = (i + 1) & (table.length - 1))
+                if (table[i].equals(item)) return false;
+            table[i] = item;
+            size++;
+            return true;
+        }
+
+        @Override
+        public boolean remove(Object item) {
+            int mask = table.length - 1;
+            int i = slot(item);
+            for (; table[i] != null; i = (i + 1) & mask) {
+                if (!table[i].equals(item)) continue;
+                // Cancellazione con spostamento all'indietro, per non interrompere le sequenze di scansione
+                int hole = i;
+                for (int j = (i + 1) & mask; table[j] != null; j = (j + 1) & mask) {
+                    int home = slot(table[j]);
+                    if (((j - home) & mask) >= ((j - hole) & mask)) {
+                        table[hole] = table[j];
+                        hole = j;
+                    }
+                }
+                table[hole] = null;
+                size--;
+                return true;
+            }
+            return false;
+        }
+
+        private void resize(int capacity) {
+            Object[] old = table;
+            table = new Object[capacity];
+            for (Object item : old) {
+                if (item == null) continue;
+                int i = slot(item);
+                while (table[i] != null) i = (i + 1) & (capacity - 1);
+                table[i] = item;
+            }
+        }
+
+        private T any() {
+            for (Object item : table)
+                if (item != null) return (T) item;
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int index = advance(0);
+
+                private int advance(int from) {
+                    while (from < table.length && table[from] == null) from++;
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return index < table.length;
+                }
+
+                @Override
+                public T next() {
+                    if (index >= table.length) throw new NoSuchElementException();
+                    T item = (T) table[index];
+                    index = advance(index + 1);
+                    return item;
+                }
+            };
+        }
+    }
+
+    private final Function<? super T, String> textExtractor;
+    private final NavigableMap<String, Object> postings = new TreeMap<>();
+    private final Map<T, String[]> documents = new HashMap<>();
+
+    /**
+     * @brief Costruttore.
+     * @param[in] textExtractor Funzione che restituisce il testo da indicizzare per un elemento.
+     */
+    SearchIndex(Function<? super T, String> textExtractor) {
+        this.textExtractor = textExtractor;
+    }
+
+    /**
+     * @brief Indicizza un elemento.
+     * @param[in] item L'elemento da indicizzare.
+     * @post I token del testo dell'elemento puntano all'elemento.
+     */
+    void add(T item) {
+        String[] tokens = tokenize(textExtractor.apply(item));
+        documents.put(item, tokens);
+        for (int t = 0; t < tokens.length; t++) {
+            String token = tokens[t];
+            Map.Entry<String, Object> entry = postings.ceilingEntry(token);
+            Object current = null;
+            if (entry != null && entry.getKey().equals(token)) {
+                // Il documento condivide la stringa già presente nel dizionario invece di conservarne una copia
+                tokens[t] = token = entry.getKey();
+                current = entry.getValue();
+            }
+            if (current == null) {
+                postings.put(token, item);
+            } else if (current instanceof Postings) {
+                ((Postings<T>) current).add(item);
+            } else if (!current.equals(item)) {
+                Postings<T> items = new Postings<>();
+                items.add((T) current);
+                items.add(item);
+                postings.put(token, items);
+            }
+        }
+    }
+
+    /**
+     * @brief Rimuove un elemento dall'indice.
+     * @param[in] item L'elemento da rimuovere.
+     */
+    void remove(T item) {
+        String[] tokens = documents.remove(item);
+        if (tokens == null) return;
+        for (String token : tokens) {
+            Object current = postings.get(token);
+            if (current instanceof Postings) {
+                Postings<T> items = (Postings<T>) current;
+                items.remove(item);
+                if (items.size() == 1) postings.put(token, items.any());
+            } else if (item.equals(current)) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    /**
+     * @brief Aggiorna i token di un elemento il cui testo è cambiato.
+     * @param[in] item L'elemento da reindicizzare.
+     */
+    void update(T item) {
+        remove(item);
+        add(item);
+    }
+
+    /**
+     * @brief Cerca gli elementi che corrispondono alla query.
+     * @details La query viene normalizzata e suddivisa in token come il testo indicizzato. I candidati sono
+     *          ricavati dal token più lungo (tipicamente il più selettivo) e poi filtrati sugli altri token.
+     * @param[in] query Il testo cercato.
+     * @return Gli elementi corrispondenti (in ordine non specificato), tutti gli elementi se la query non contiene token.
+     */
+    Collection<T> search(String query) {
+        String[] queryTokens = tokenize(query);
+        if (queryTokens.length == 0) return Collections.unmodifiableSet(documents.keySet());
+
+        String mostSelective = queryTokens[0];
+        for (String token : queryTokens)
+            if (token.length() > mostSelective.length()) mostSelective = token;
+
+        List<T> result = new ArrayList<>();
+        for (T candidate : prefixMatches(mostSelective))
+            if (matchesAll(documents.get(candidate), queryTokens))
+                result.add(candidate);
+        return result;
+    }
+
+    /**
+     * @brief Restringe un insieme di candidati agli elementi che corrispondono alla query.
+     * @details Utile quando la query estende una precedente: basta filtrarne il risultato invece di consultare l'indice.
+     * @param[in] candidates I candidati, tipicamente il risultato di una ricerca precedente.
+     * @param[in] query Il testo cercato.
+     * @return I candidati ancora indicizzati che corrispondono alla query, nello stesso ordine di 'candidates'.
+     */
+    List<T> filter(Collection<? extends T> candidates, String query) {
+        String[] queryTokens = tokenize(query);
+        List<T> result = new ArrayList<>();
+        for (T candidate : candidates) {
+            String[] documentTokens = documents.get(candidate);
+            if (documentTokens != null && matchesAll(documentTokens, queryTokens))
+                result.add(candidate);
+        }
+        return result;
+    }
+
+    private Collection<T> prefixMatches(String prefix) {
+        Collection<Object> ranges = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        if (ranges.size() == 1) {
+            Object only = ranges.iterator().next();
+            return only instanceof Postings ? (Postings<T>) only : Collections.singletonList((T) only);
+        }
+        Set<T> union = new HashSet<>();
+        for (Object items : ranges) {
+            if (items instanceof Postings) union.addAll((Postings<T>) items);
+            else union.add((T) items);
+        }
+        return union;
+    }
+
+    private static boolean matchesAll(String[] documentTokens, String[] queryTokens) {
+        for (String queryToken : queryTokens) {
+            boolean found = false;
+            for (String documentToken : documentTokens)
+                if (documentToken.startsWith(queryToken)) {
+                    found = true;
+                    break;
+                }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @brief Normalizza un testo per la ricerca.
+     * @details Rimuove i segni diacritici (es. "è" diventa "e") e converte in minuscolo.
+     * @param[in] text Il testo da normalizzare.
+     * @return String Il testo normalizzato.
+     */
+    static String fold(String text) {
+        if (isAscii(text)) return text.toLowerCase(Locale.ROOT);
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++)
+            if (text.charAt(i) >= 0x80) return false;
+        return true;
+    }
+
+    /**
+     * @brief Suddivide un testo normalizzato nei suoi token alfanumerici distinti.
+     * @param[in] text Il testo da suddividere (può essere null).
+     * @return String[] I token distinti del testo.
+     */
+    static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) return NO_TOKENS;
+        String folded = fold(text);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean inToken = i < folded.length() && isTokenChar(folded.charAt(i));
+            if (inToken && start < 0) {
+                start = i;
+            } else if (!inToken && start >= 0) {
+                String token = folded.substring(start, i);
+                if (!tokens.contains(token)) tokens.add(token);
+                start = -1;
+            }
+        }
+        return tokens.toArray(NO_TOKENS);
+    }
+
+    private static boolean isTokenChar(char c) {
+        if (c < 0x80) return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z');
+        if (Character.isLetter(c)) return true;
+        int type = Character.getType(c);
+        return type == Character.DECIMAL_DIGIT_NUMBER || type == Character.LETTER_NUMBER || type == Character.OTHER_NUMBER;
+    }
+}
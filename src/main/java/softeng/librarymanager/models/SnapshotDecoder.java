@@ -0,0 +1,196 @@
+/**
+ * @file SnapshotDecoder.java
+ * @brief Primitive di decodifica del formato binario di salvataggio.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @class SnapshotDecoder
+ * @brief Legge le codifiche descritte da {@link SnapshotFormat} da un blocco di byte in memoria.
+ * @details Il blocco (una sezione dello snapshot o un record del journal) viene prima caricato per intero,
+ *          così che un contenuto troncato venga riconosciuto senza consumare lo stream oltre il blocco.
+ */
+final class SnapshotDecoder {
+
+    private byte[] buffer;
+    private int limit;
+    private int position;
+    private boolean shared;
+
+    SnapshotDecoder() {
+        this.buffer = new byte[1 << 16];
+    }
+
+    private SnapshotDecoder(byte[] buffer) {
+        this.buffer = buffer;
+        this.shared = true;
+    }
+
+    /**
+     * @brief Carica un blocco di byte dallo stream.
+     * @param[in] in Lo stream di origine.
+     * @param[in] length La lunghezza del blocco.
+     * @throws EOFException Se lo stream termina prima della fine del blocco.
+     */
+    void load(InputStream in, int length) throws IOException {
+        allocate(length);
+        int read = 0;
+        while (read < length) {
+            int n = in.read(buffer, read, length - read);
+            if (n < 0) throw new EOFException("Blocco troncato");
+            read += n;
+        }
+        limit = length;
+        position = 0;
+    }
+
+    /**
+     * @brief Carica un blocco di byte da un buffer (es. una regione di un file mappato in memoria).
+     * @param[in] source Il buffer di origine, la cui posizione non viene modificata.
+     * @param[in] offset La posizione assoluta del blocco in 'source'.
+     * @param[in] length La lunghezza del blocco.
+     */
+    void load(ByteBuffer source, int offset, int length) {
+        allocate(length);
+        ByteBuffer region = source.duplicate();
+        ((Buffer) region).position(offset);
+        region.get(buffer, 0, length);
+        limit = length;
+        position = 0;
+    }
+
+    /**
+     * @brief Crea un decoder per una parte del blocco corrente, senza copiarla.
+     * @details Permette di decodificare parti diverse dello stesso blocco su thread diversi.
+     * @param[in] offset La posizione iniziale della parte nel blocco.
+     * @param[in] length La lunghezza della parte.
+     * @return SnapshotDecoder Il decoder, la cui posizione parte da 'offset'.
+     * @pre Il blocco corrente non viene ricaricato finché il decoder restituito è in uso.
+     */
+    SnapshotDecoder slice(int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > limit) throw new IndexOutOfBoundsException();
+        SnapshotDecoder slice = new SnapshotDecoder(buffer);
+        slice.position = offset;
+        slice.limit = offset + length;
+        return slice;
+    }
+
+    /*
+     * Un buffer condiviso con un altro decoder non può essere sovrascritto.
+     */
+    private void allocate(int length) {
+        if (shared || buffer.length < length) buffer = new byte[Math.max(length, 1 << 16)];
+        shared = false;
+    }
+
+    /**
+     * @brief Restituisce il buffer interno, valido nei primi byte indicati dall'ultimo load().
+     * @return byte[] Il buffer (non copiato).
+     */
+    byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * @brief Restituisce il numero di byte del blocco già letti.
+     * @return int La posizione di lettura.
+     */
+    int position() {
+        return position;
+    }
+
+    /**
+     * @brief Indica se il blocco contiene ancora byte da leggere.
+     * @return true se restano byte da leggere, false altrimenti.
+     */
+    boolean hasRemaining() {
+        return position < limit;
+    }
+
+    int readByte() throws IOException {
+        if (position >= limit) throw new EOFException("Blocco troncato");
+        return buffer[position++] & 0xFF;
+    }
+
+    long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Varint non valido");
+    }
+
+    int readCount() throws IOException {
+        long value = readVarint();
+        if (value > Integer.MAX_VALUE) throw new IOException("Valore fuori intervallo: " + value);
+        return (int) value;
+    }
+
+    long readSignedVarint() throws IOException {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readInt() throws IOException {
+        if (limit - position < 4) throw new EOFException("Blocco troncato");
+        int value = 0;
+        for (int i = 0; i < 4; i++)
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        return value;
+    }
+
+    long readLong() throws IOException {
+        if (limit - position < 8) throw new EOFException("Blocco troncato");
+        long value = 0;
+        for (int i = 0; i < 8; i++)
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        return value;
+    }
+
+    void skipString() throws IOException {
+        skip(readCount());
+    }
+
+    void skip(int length) throws IOException {
+        if (limit - position < length) throw new EOFException("Blocco troncato");
+        position += length;
+    }
+
+    String readString() throws IOException {
+        int length = readCount();
+        if (limit - position < length) throw new EOFException("Blocco troncato");
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * @brief Legge un varint direttamente da uno stream (es. per le intestazioni delle sezioni).
+     * @param[in] in Lo stream di origine.
+     * @return long Il valore letto.
+     * @throws EOFException Se lo stream termina prima della fine del varint.
+     */
+    static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Varint non valido");
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * @file SnapshotEncoder.java
+ * @brief Primitive di codifica del formato binario di salvataggio.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @class SnapshotEncoder
+ * @brief Buffer di byte espandibile con le codifiche descritte da {@link SnapshotFormat}.
+ * @details Utilizzato sia per le sezioni dello snapshot sia per i record del journal: il contenuto viene
+ *          accumulato in memoria, così da poterne scrivere la lunghezza (e la checksum) prima dei dati.
+ */
+final class SnapshotEncoder {
+
+    private byte[] buffer = new byte[1 << 16];
+    private int position;
+
+    /**
+     * @brief Svuota il buffer, conservandone la capacità.
+     */
+    void reset() {
+        position = 0;
+    }
+
+    /**
+     * @brief Restituisce il numero di byte codificati.
+     * @return int La dimensione del contenuto.
+     */
+    int size() {
+        return position;
+    }
+
+    /**
+     * @brief Restituisce il buffer interno, valido nei primi size() byte.
+     * @return byte[] Il buffer (non copiato).
+     */
+    byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * @brief Scrive il contenuto del buffer su uno stream.
+     * @param[in] out Lo stream di destinazione.
+     * @throws IOException Se la scrittura fallisce.
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, position);
+    }
+
+    private void ensure(int extra) {
+        if (position + extra > buffer.length)
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+    }
+
+    void writeByte(int value) {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarint(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    void writeSignedVarint(long value) {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    void writeInt(int value) {
+        ensure(4);
+        for (int shift = 24; shift >= 0; shift -= 8)
+            buffer[position++] = (byte) (value >>> shift);
+    }
+
+    void writeLong(long value) {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8)
+            buffer[position++] = (byte) (value >>> shift);
+    }
+
+    void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    void writeBytes(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * @brief Restituisce il numero di byte occupati dalla codifica varint di un valore.
+     * @param[in] value Il valore da codificare.
+     * @return int Il numero di byte, tra 1 e 10.
+     */
+    static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * @brief Scrive un varint direttamente su uno stream (es. per le intestazioni delle sezioni).
+     * @param[in] out Lo stream di destinazione.
+     * @param[in] value Il valore da scrivere.
+     * @throws IOException Se la scrittura fallisce.
+     */
+    static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
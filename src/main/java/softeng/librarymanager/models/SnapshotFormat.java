@@ -0,0 +1,92 @@
+/**
+ * @file SnapshotFormat.java
+ * @brief Costanti del formato binario di salvataggio della biblioteca.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+/**
+ * @class SnapshotFormat
+ * @brief Descrive il formato binario compatto ("snapshot") con cui viene salvata la biblioteca.
+ * @details Il file inizia con i byte {@link #MAGIC} seguiti dalla versione del formato (varint) ed è composto da
+ *          una sequenza di sezioni, ognuna formata da un byte di tipo, dalla lunghezza del contenuto in byte (varint)
+ *          e dal contenuto stesso. Una sezione di tipo {@link #END} chiude il file. I lettori ignorano le sezioni
+ *          di tipo sconosciuto, così che versioni successive possano aggiungerne di nuove.
+ *          Il contenuto della sezione {@link #END} è il CRC32 (4 byte) di tutti i byte che la precedono, verificato
+ *          in lettura; negli snapshot scritti dalle versioni precedenti è vuoto e la verifica viene omessa.
+ *
+ *          Codifiche utilizzate all'interno delle sezioni:
+ *          - interi: varint (7 bit per byte, il bit più significativo indica la presenza di altri byte);
+ *          - interi con segno: varint dopo la codifica zigzag;
+ *          - stringhe: lunghezza in byte (varint) seguita dai byte UTF-8;
+ *          - UUID: due long a 8 byte (big-endian).
+ *
+ *          Contenuto delle sezioni:
+ *          - {@link #META}: prima generazione del journal (varint) da rieseguire dopo lo snapshot, vedi {@link LibraryJournal};
+ *          - {@link #STUDENTS}: numero di studenti, poi per ciascuno nome, cognome, matricola ed email;
+ *          - {@link #BOOKS}: dizionario degli autori (numero di voci e stringhe), numero di libri, poi per ciascuno
+ *            titolo, numero di autori con i rispettivi indici nel dizionario, ISBN, anno e copie disponibili;
+ *          - {@link #LOANS}: numero di prestiti, poi per ciascuno loanId, matricola dello studente, ISBN del libro,
+ *            data di scadenza (giorno epoch, con segno) e un byte di stato (1 se restituito).
+ *
+ *          I prestiti fanno riferimento a studenti e libri tramite i loro identificativi, quindi le sezioni
+ *          degli studenti e dei libri devono precedere quella dei prestiti.
+ *
+ *          La sezione {@link #INDEX}, facoltativa e ignorata dal SnapshotReader, permette a {@link MappedLibraryFile}
+ *          di decodificare un record senza leggere i precedenti. Per ciascuna delle tre sezioni contiene:
+ *          il tipo della sezione (byte), il numero di record, la dimensione delle pagine ({@link #PAGE_SIZE}),
+ *          il numero di pagine e, codificate come differenze dalla precedente, le posizioni del primo record di
+ *          ogni pagina nel contenuto della sezione; seguono la capacità (potenza di due) e gli slot di una tabella
+ *          hash degli identificativi, ognuno di 4 byte (indice del record + 1, 0 se vuoto), con la posizione
+ *          iniziale data da {@link #slot(String, int)} e scansione lineare.
+ */
+final class SnapshotFormat {
+
+    /**
+     * @brief Firma iniziale dei file in formato snapshot ("LMSN").
+     */
+    static final byte[] MAGIC = {'L', 'M', 'S', 'N'};
+
+    /**
+     * @brief Versione del formato scritta dal SnapshotWriter.
+     */
+    static final int VERSION = 1;
+
+    static final int END = 0;      ///< @brief Sezione conclusiva con il checksum del file.
+    static final int STUDENTS = 1; ///< @brief Sezione del registro studenti.
+    static final int BOOKS = 2;    ///< @brief Sezione del registro libri.
+    static final int LOANS = 3;    ///< @brief Sezione del registro prestiti.
+    static final int META = 4;     ///< @brief Sezione dei metadati (generazione del journal).
+    static final int INDEX = 5;    ///< @brief Sezione dell'indice delle pagine e degli identificativi.
+
+    /**
+     * @brief Numero di record per pagina nella sezione {@link #INDEX}.
+     */
+    static final int PAGE_SIZE = 256;
+
+    /**
+     * @brief Calcola la capacità della tabella hash degli identificativi.
+     * @param[in] count Il numero di record.
+     * @return int La più piccola potenza di due che mantiene il fattore di carico sotto 2/3.
+     */
+    static int tableCapacity(int count) {
+        return Integer.highestOneBit(count + (count >> 1) + 1) << 1;
+    }
+
+    /**
+     * @brief Calcola lo slot iniziale di un identificativo nella tabella hash.
+     * @param[in] id L'identificativo (matricola, ISBN o loanId in forma testuale).
+     * @param[in] mask La capacità della tabella meno uno.
+     * @return int Lo slot da cui iniziare la scansione.
+     */
+    static int slot(String id, int mask) {
+        int h = id.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private SnapshotFormat() {
+    }
+}
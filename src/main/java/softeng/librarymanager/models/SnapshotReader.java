@@ -0,0 +1,344 @@
+/**
+ * @file SnapshotReader.java
+ * @brief Lettura della biblioteca dal formato binario compatto.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * @class SnapshotReader
+ * @brief Ricostruisce una {@link Library} da uno stream nel formato descritto da {@link SnapshotFormat}.
+ * @details Il contenuto di ogni sezione viene letto per intero in un buffer e poi decodificato; le sezioni di tipo
+ *          sconosciuto vengono saltate. I record di una sezione vengono divisi in gruppi di
+ *          {@link SnapshotWriter#SHARD_SIZE}, individuati scorrendo le lunghezze dei campi senza decodificarli, e
+ *          decodificati in parallelo su un ForkJoinPool; l'inserimento nei registri avviene poi in ordine sul thread
+ *          chiamante, man mano che i gruppi sono pronti. I riferimenti dei prestiti a studenti e libri vengono
+ *          risolti in questo passaggio finale tramite l'indice della chiave primaria dei registri già letti.
+ *          Il reader non chiude lo stream ricevuto.
+ */
+public final class SnapshotReader {
+
+    private final InputStream in;
+    private final CRC32 checksum = new CRC32();
+    private final SnapshotDecoder payload = new SnapshotDecoder();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private long journalGeneration;
+    private ProgressListener progress;
+    private long consumed;
+    private long records;
+
+    /**
+     * @brief Costruttore.
+     * @param[in] in Lo stream da cui leggere (si consiglia uno stream bufferizzato).
+     */
+    public SnapshotReader(InputStream in) {
+        this.in = new CheckedInputStream(in, checksum);
+    }
+
+    /**
+     * @brief Verifica se i primi byte di un file corrispondono alla firma del formato.
+     * @param[in] header I primi byte del file.
+     * @param[in] length Il numero di byte validi in 'header'.
+     * @return true se il file è in formato snapshot, false altrimenti.
+     */
+    public static boolean isSnapshot(byte[] header, int length) {
+        return length >= SnapshotFormat.MAGIC.length &&
+                Arrays.equals(Arrays.copyOf(header, SnapshotFormat.MAGIC.length), SnapshotFormat.MAGIC);
+    }
+
+    /**
+     * @brief Imposta l'oggetto da notificare durante la lettura.
+     * @param[in] progress L'oggetto da notificare, null per nessuna notifica.
+     * @return SnapshotReader Questo reader.
+     */
+    public SnapshotReader setProgressListener(ProgressListener progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * @brief Imposta il pool su cui decodificare le sezioni.
+     * @param[in] pool Il pool da usare (predefinito: ForkJoinPool.commonPool()).
+     * @return SnapshotReader Questo reader.
+     */
+    public SnapshotReader setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * @brief Restituisce la generazione di journal registrata nello snapshot letto.
+     * @return long La prima generazione di journal da rieseguire dopo lo snapshot, 0 se lo snapshot non ne indica una.
+     * @pre Il metodo read() è stato invocato.
+     * @see LibraryJournal
+     */
+    public long getJournalGeneration() {
+        return journalGeneration;
+    }
+
+    /**
+     * @brief Legge l'intera biblioteca.
+     * @return Library La biblioteca ricostruita.
+     * @throws IOException Se la lettura fallisce, la firma o la versione non sono riconosciute, il checksum non
+     *         corrisponde o il contenuto non è coerente.
+     */
+    public Library read() throws IOException {
+        checksum.reset();
+        byte[] magic = new byte[SnapshotFormat.MAGIC.length];
+        readFully(magic, magic.length);
+        if (!Arrays.equals(magic, SnapshotFormat.MAGIC))
+            throw new IOException("Il file non è in formato snapshot");
+        long version = SnapshotDecoder.readVarint(in);
+        if (version < 1 || version > SnapshotFormat.VERSION)
+            throw new IOException("Versione del formato non supportata: " + version);
+
+        Library library = new Library();
+        consumed = SnapshotFormat.MAGIC.length + SnapshotEncoder.varintSize(version);
+        records = 0;
+        while (true) {
+            long expected = checksum.getValue();
+            int type = in.read();
+            if (type < 0) throw new EOFException("Sezione conclusiva mancante");
+            long length = SnapshotDecoder.readVarint(in);
+            if (length > Integer.MAX_VALUE) throw new IOException("Sezione troppo grande: " + length);
+            payload.load(in, (int) length);
+            if (type == SnapshotFormat.END) {
+                // Gli snapshot scritti prima dell'introduzione del checksum hanno una sezione conclusiva vuota
+                if (length == 4 && payload.readInt() != (int) expected)
+                    throw new IOException("Checksum dello snapshot non valido: il file è danneggiato");
+                consumed += 1 + SnapshotEncoder.varintSize(length) + length;
+                if (progress != null) progress.progress(consumed, records);
+                return library;
+            }
+
+            try {
+                switch (type) {
+                    case SnapshotFormat.META:
+                        journalGeneration = payload.readVarint();
+                        break;
+                    case SnapshotFormat.STUDENTS:
+                        readStudents(library.getStudentRegister());
+                        break;
+                    case SnapshotFormat.BOOKS:
+                        readBooks(library.getBookRegister());
+                        break;
+                    case SnapshotFormat.LOANS:
+                        readLoans(library);
+                        break;
+                    case SnapshotFormat.INDEX:
+                        // Serve solo all'accesso diretto ai record, vedi MappedLibraryFile
+                        break;
+                    default:
+                        // Sezione aggiunta da una versione successiva: viene ignorata
+                        break;
+                }
+            } catch (IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException ex) {
+                throw new IOException("Contenuto della sezione " + type + " non valido", ex);
+            }
+            consumed += 1 + SnapshotEncoder.varintSize(length) + length;
+        }
+    }
+
+    private void readStudents(Register<Student> register) throws IOException {
+        int count = payload.readCount();
+        for (ForkJoinTask<Student[]> shard : decodeShards(count, SnapshotReader::skipStudent, SnapshotReader::decodeStudents)) {
+            for (Student student : await(shard)) {
+                register.add(student);
+                recordRead();
+            }
+        }
+    }
+
+    private static void skipStudent(SnapshotDecoder in) throws IOException {
+        for (int i = 0; i < 4; i++) in.skipString();
+    }
+
+    private static Student[] decodeStudents(SnapshotDecoder in, int count) throws IOException {
+        Student[] students = new Student[count];
+        for (int i = 0; i < count; i++) {
+            String name = in.readString();
+            String surname = in.readString();
+            String studentId = in.readString();
+            String email = in.readString();
+            students[i] = new Student(name, surname, studentId, email);
+        }
+        return students;
+    }
+
+    private void readBooks(Register<Book> register) throws IOException {
+        int entries = payload.readCount();
+        String[] dictionary = new String[entries];
+        for (int i = 0; i < entries; i++) dictionary[i] = payload.readString();
+
+        int count = payload.readCount();
+        ShardDecoder<Book> decoder = (in, shardCount) -> decodeBooks(in, shardCount, dictionary);
+        for (ForkJoinTask<Book[]> shard : decodeShards(count, SnapshotReader::skipBook, decoder)) {
+            for (Book book : await(shard)) {
+                register.add(book);
+                recordRead();
+            }
+        }
+    }
+
+    private static void skipBook(SnapshotDecoder in) throws IOException {
+        in.skipString();
+        int authorCount = in.readCount();
+        for (int j = 0; j < authorCount; j++) in.readVarint();
+        in.skipString();
+        in.readVarint();
+        in.readVarint();
+    }
+
+    private static Book[] decodeBooks(SnapshotDecoder in, int count, String[] dictionary) throws IOException {
+        Book[] books = new Book[count];
+        for (int i = 0; i < count; i++) {
+            String title = in.readString();
+            int authorCount = in.readCount();
+            List<String> authors = new ArrayList<>(authorCount);
+            for (int j = 0; j < authorCount; j++) authors.add(dictionary[in.readCount()]);
+            String bookId = in.readString();
+            int publishmentYear = in.readCount();
+            int availableCopies = in.readCount();
+            books[i] = new Book(title, authors, bookId, publishmentYear, availableCopies);
+        }
+        return books;
+    }
+
+    /*
+     * I prestiti vengono decodificati in parallelo senza i riferimenti, risolti poi in ordine (collegamento)
+     * tramite l'indice della chiave primaria dei registri degli studenti e dei libri.
+     */
+    private void readLoans(Library library) throws IOException {
+        Register<Student> students = library.getStudentRegister();
+        Register<Book> books = library.getBookRegister();
+        LoanRegister loans = (LoanRegister) library.getLoanRegister();
+
+        int count = payload.readCount();
+        for (ForkJoinTask<LoanEntry[]> shard : decodeShards(count, SnapshotReader::skipLoan, SnapshotReader::decodeLoans)) {
+            for (LoanEntry entry : await(shard)) {
+                Student student = students.findById(entry.studentId);
+                Book book = books.findById(entry.bookId);
+                if (student == null || book == null)
+                    throw new IOException("Il prestito " + entry.loanId + " fa riferimento a uno studente o a un libro assente");
+                loans.restore(new Loan(entry.loanId, student, book, LocalDate.ofEpochDay(entry.loanEnd), entry.returned));
+                recordRead();
+            }
+        }
+    }
+
+    private static void skipLoan(SnapshotDecoder in) throws IOException {
+        in.skip(16);
+        in.skipString();
+        in.skipString();
+        in.readVarint();
+        in.skip(1);
+    }
+
+    private static LoanEntry[] decodeLoans(SnapshotDecoder in, int count) throws IOException {
+        LoanEntry[] loans = new LoanEntry[count];
+        for (int i = 0; i < count; i++) {
+            LoanEntry entry = new LoanEntry();
+            entry.loanId = new UUID(in.readLong(), in.readLong());
+            entry.studentId = in.readString();
+            entry.bookId = in.readString();
+            entry.loanEnd = in.readSignedVarint();
+            entry.returned = in.readByte() != 0;
+            loans[i] = entry;
+        }
+        return loans;
+    }
+
+    /*
+     * Scorre i record della sezione senza decodificarli per individuare i gruppi di SHARD_SIZE record,
+     * poi ne avvia la decodifica sul pool; un solo gruppo viene decodificato sul thread chiamante.
+     */
+    private <T> List<ForkJoinTask<T[]>> decodeShards(int count, RecordSkipper skipper, ShardDecoder<T> decoder) throws IOException {
+        int shardCount = (count + SnapshotWriter.SHARD_SIZE - 1) / SnapshotWriter.SHARD_SIZE;
+        if (shardCount <= 1) {
+            ForkJoinTask<T[]> task = ForkJoinTask.adapt(() -> decoder.decode(payload, count));
+            task.quietlyInvoke();
+            return Collections.singletonList(task);
+        }
+
+        int[] offsets = new int[shardCount + 1];
+        for (int i = 0; i < count; i++) {
+            if (i % SnapshotWriter.SHARD_SIZE == 0) offsets[i / SnapshotWriter.SHARD_SIZE] = payload.position();
+            skipper.skip(payload);
+        }
+        offsets[shardCount] = payload.position();
+
+        List<ForkJoinTask<T[]>> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            SnapshotDecoder shard = payload.slice(offsets[i], offsets[i + 1] - offsets[i]);
+            int size = Math.min(SnapshotWriter.SHARD_SIZE, count - i * SnapshotWriter.SHARD_SIZE);
+            shards.add(pool.submit(() -> decoder.decode(shard, size)));
+        }
+        return shards;
+    }
+
+    private static <T> T await(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Lettura interrotta");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) throw (IOException) ex.getCause();
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            if (ex.getCause() instanceof Error) throw (Error) ex.getCause();
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    private void recordRead() {
+        if (++records % SnapshotWriter.PROGRESS_INTERVAL == 0 && progress != null)
+            progress.progress(consumed + payload.position(), records);
+    }
+
+    private void readFully(byte[] target, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = in.read(target, read, length - read);
+            if (n < 0) throw new EOFException();
+            read += n;
+        }
+    }
+
+    private interface RecordSkipper {
+        void skip(SnapshotDecoder in) throws IOException;
+    }
+
+    private interface ShardDecoder<T> {
+        T[] decode(SnapshotDecoder in, int count) throws IOException;
+    }
+
+    /*
+     * Prestito decodificato, con studente e libro ancora indicati dai loro identificativi.
+     */
+    private static final class LoanEntry {
+        UUID loanId;
+        String studentId;
+        String bookId;
+        long loanEnd;
+        boolean returned;
+    }
+}
@@ -0,0 +1,337 @@
+/**
+ * @file SnapshotWriter.java
+ * @brief Scrittura della biblioteca nel formato binario compatto.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * @class SnapshotWriter
+ * @brief Scrive una {@link Library} su uno stream nel formato descritto da {@link SnapshotFormat}.
+ * @details Le sezioni di studenti, libri e prestiti vengono divise in gruppi di {@link #SHARD_SIZE} record,
+ *          codificati in parallelo su un ForkJoinPool, ognuno nel proprio {@link SnapshotEncoder}; i gruppi vengono
+ *          poi scritti in ordine, preceduti dalla lunghezza della sezione, così che il file non dipenda dal numero
+ *          di thread. I dati vengono letti da una {@link LibraryCopy}, così che la codifica possa avvenire in
+ *          background. Il writer non chiude lo stream ricevuto.
+ */
+public final class SnapshotWriter {
+
+    /**
+     * @brief Numero di record tra due notifiche di avanzamento.
+     */
+    static final int PROGRESS_INTERVAL = 8192;
+
+    /**
+     * @brief Numero di record codificati da un singolo task, multiplo di {@link SnapshotFormat#PAGE_SIZE}.
+     */
+    static final int SHARD_SIZE = 64 * SnapshotFormat.PAGE_SIZE;
+
+    private final OutputStream out;
+    private final CRC32 checksum = new CRC32();
+    private final SnapshotEncoder section = new SnapshotEncoder();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private ProgressListener progress;
+    private long written;
+    private long records;
+    private long reported;
+
+    /**
+     * @brief Costruttore.
+     * @param[in] out Lo stream su cui scrivere (si consiglia uno stream bufferizzato).
+     */
+    public SnapshotWriter(OutputStream out) {
+        this.out = new CheckedOutputStream(out, checksum);
+    }
+
+    /**
+     * @brief Imposta l'oggetto da notificare durante la scrittura.
+     * @details Le notifiche avvengono sul thread che invoca write().
+     * @param[in] progress L'oggetto da notificare, null per nessuna notifica.
+     * @return SnapshotWriter Questo writer.
+     */
+    public SnapshotWriter setProgressListener(ProgressListener progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * @brief Imposta il pool su cui codificare le sezioni.
+     * @param[in] pool Il pool da usare (predefinito: ForkJoinPool.commonPool()).
+     * @return SnapshotWriter Questo writer.
+     */
+    public SnapshotWriter setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * @brief Scrive l'intera biblioteca.
+     * @param[in] library La biblioteca da salvare.
+     * @throws IOException Se la scrittura sullo stream fallisce.
+     * @post Lo stream contiene la firma, la versione e le sezioni di studenti, libri e prestiti.
+     */
+    public void write(Library library) throws IOException {
+        write(library, 0);
+    }
+
+    /**
+     * @brief Scrive l'intera biblioteca indicando la prima generazione di journal non inclusa nello snapshot.
+     * @param[in] library La biblioteca da salvare.
+     * @param[in] journalGeneration La generazione del journal da cui riprendere la riesecuzione (0 se assente).
+     * @throws IOException Se la scrittura sullo stream fallisce.
+     * @post Lo stream contiene la firma, la versione e le sezioni di metadati, studenti, libri, prestiti e indice.
+     * @see LibraryJournal
+     */
+    public void write(Library library, long journalGeneration) throws IOException {
+        write(LibraryCopy.of(library), journalGeneration);
+    }
+
+    /**
+     * @brief Scrive una copia puntuale della biblioteca.
+     * @details Può essere invocato da un thread diverso da quello che modifica la biblioteca.
+     * @param[in] copy La copia da salvare.
+     * @param[in] journalGeneration La generazione del journal da cui riprendere la riesecuzione (0 se assente).
+     * @throws IOException Se la scrittura sullo stream fallisce.
+     */
+    void write(LibraryCopy copy, long journalGeneration) throws IOException {
+        written = 0;
+        records = 0;
+        reported = 0;
+        checksum.reset();
+
+        // Tutti i task vengono avviati subito; il dizionario degli autori viene costruito mentre sono in esecuzione
+        List<ForkJoinTask<Shard>> students = encodeShards(copy.studentIds.length, (encoder, i) -> {
+            encoder.writeString(copy.names[i]);
+            encoder.writeString(copy.surnames[i]);
+            encoder.writeString(copy.studentIds[i]);
+            encoder.writeString(copy.emails[i]);
+        });
+        List<ForkJoinTask<Shard>> loans = encodeShards(copy.loanIds.length, (encoder, i) -> {
+            UUID loanId = copy.loanIds[i];
+            encoder.writeLong(loanId.getMostSignificantBits());
+            encoder.writeLong(loanId.getLeastSignificantBits());
+            encoder.writeString(copy.loanStudentIds[i]);
+            encoder.writeString(copy.loanBookIds[i]);
+            encoder.writeSignedVarint(copy.loanEnds[i]);
+            encoder.writeByte(copy.returned[i] ? 1 : 0);
+        });
+        ForkJoinTask<int[]> studentTable = pool.submit(() -> hashTable(copy.studentIds));
+        ForkJoinTask<int[]> bookTable = pool.submit(() -> hashTable(copy.bookIds));
+        ForkJoinTask<int[]> loanTable = pool.submit(() -> {
+            String[] loanIds = new String[copy.loanIds.length];
+            for (int i = 0; i < loanIds.length; i++) loanIds[i] = copy.loanIds[i].toString();
+            return hashTable(loanIds);
+        });
+
+        // Dizionario degli autori: ogni nome viene scritto una sola volta e i libri vi fanno riferimento per indice
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        for (int i = 0; i < copy.bookIds.length; i++)
+            for (String author : copy.authorsOf(i))
+                if (dictionary.putIfAbsent(author, entries.size()) == null) entries.add(author);
+        List<ForkJoinTask<Shard>> books = encodeShards(copy.bookIds.length, (encoder, i) -> {
+            encoder.writeString(copy.titles[i]);
+            List<String> authors = copy.authorsOf(i);
+            encoder.writeVarint(authors.size());
+            for (String author : authors) encoder.writeVarint(dictionary.get(author));
+            encoder.writeString(copy.bookIds[i]);
+            encoder.writeVarint(copy.publishmentYears[i]);
+            encoder.writeVarint(copy.availableCopies[i]);
+        });
+
+        try {
+            out.write(SnapshotFormat.MAGIC);
+            SnapshotEncoder.writeVarint(out, SnapshotFormat.VERSION);
+            written += SnapshotFormat.MAGIC.length + 1;
+            writeMeta(journalGeneration);
+
+            section.reset();
+            section.writeVarint(copy.studentIds.length);
+            int[] studentPages = writeShards(SnapshotFormat.STUDENTS, students);
+
+            section.reset();
+            section.writeVarint(entries.size());
+            for (String entry : entries) section.writeString(entry);
+            section.writeVarint(copy.bookIds.length);
+            int[] bookPages = writeShards(SnapshotFormat.BOOKS, books);
+
+            section.reset();
+            section.writeVarint(copy.loanIds.length);
+            int[] loanPages = writeShards(SnapshotFormat.LOANS, loans);
+
+            section.reset();
+            writeIndexEntry(SnapshotFormat.STUDENTS, copy.studentIds.length, studentPages, await(studentTable));
+            writeIndexEntry(SnapshotFormat.BOOKS, copy.bookIds.length, bookPages, await(bookTable));
+            writeIndexEntry(SnapshotFormat.LOANS, copy.loanIds.length, loanPages, await(loanTable));
+            flushSection(SnapshotFormat.INDEX);
+        } finally {
+            // In caso di errore i task ancora in attesa non servono più
+            for (List<ForkJoinTask<Shard>> tasks : Arrays.asList(students, books, loans))
+                for (ForkJoinTask<Shard> task : tasks) task.cancel(false);
+            studentTable.cancel(false);
+            bookTable.cancel(false);
+            loanTable.cancel(false);
+        }
+
+        // Il trailer contiene il CRC32 di tutti i byte precedenti la sezione conclusiva
+        section.reset();
+        section.writeInt((int) checksum.getValue());
+        flushSection(SnapshotFormat.END);
+        out.flush();
+        if (progress != null) progress.progress(written, records);
+    }
+
+    /*
+     * Avvia la codifica dei record [0, count) in gruppi di SHARD_SIZE.
+     */
+    private List<ForkJoinTask<Shard>> encodeShards(int count, RecordEncoder encoder) {
+        List<ForkJoinTask<Shard>> shards = new ArrayList<>();
+        for (int from = 0; from < count; from += SHARD_SIZE) {
+            int start = from;
+            int end = Math.min(count, from + SHARD_SIZE);
+            shards.add(pool.submit(() -> {
+                Shard shard = new Shard(end - start);
+                for (int i = start; i < end; i++) {
+                    if ((i - start) % SnapshotFormat.PAGE_SIZE == 0)
+                        shard.pages[(i - start) / SnapshotFormat.PAGE_SIZE] = shard.data.size();
+                    encoder.encode(shard.data, i);
+                }
+                return shard;
+            }));
+        }
+        return shards;
+    }
+
+    /*
+     * Scrive la sezione composta dall'intestazione in 'section' seguita dai gruppi di record, nell'ordine.
+     * Restituisce la posizione del primo record di ogni pagina nel contenuto della sezione.
+     */
+    private int[] writeShards(int type, List<ForkJoinTask<Shard>> tasks) throws IOException {
+        List<Shard> shards = new ArrayList<>(tasks.size());
+        long length = section.size();
+        int pageCount = 0;
+        for (ForkJoinTask<Shard> task : tasks) {
+            Shard shard = await(task);
+            shards.add(shard);
+            length += shard.data.size();
+            pageCount += shard.pages.length;
+        }
+        if (length > Integer.MAX_VALUE) throw new IOException("Sezione troppo grande: " + length);
+
+        out.write(type);
+        SnapshotEncoder.writeVarint(out, length);
+        section.writeTo(out);
+        written += 1 + SnapshotEncoder.varintSize(length) + section.size();
+
+        int[] pages = new int[pageCount];
+        int page = 0;
+        int base = section.size();
+        for (Shard shard : shards) {
+            for (int offset : shard.pages) pages[page++] = base + offset;
+            base += shard.data.size();
+            shard.data.writeTo(out);
+            written += shard.data.size();
+            records += shard.count;
+            if (progress != null && records - reported >= PROGRESS_INTERVAL) {
+                reported = records;
+                progress.progress(written, records);
+            }
+        }
+        return pages;
+    }
+
+    private void writeMeta(long journalGeneration) throws IOException {
+        section.reset();
+        section.writeVarint(journalGeneration);
+        flushSection(SnapshotFormat.META);
+    }
+
+    /*
+     * Scrive le posizioni delle pagine e la tabella hash degli identificativi di una sezione, così che
+     * MappedLibraryFile possa accedere a un record senza decodificare i precedenti.
+     */
+    private void writeIndexEntry(int type, int count, int[] pages, int[] table) {
+        section.writeByte(type);
+        section.writeVarint(count);
+        section.writeVarint(SnapshotFormat.PAGE_SIZE);
+        section.writeVarint(pages.length);
+        int previous = 0;
+        for (int page : pages) {
+            section.writeVarint(page - previous);
+            previous = page;
+        }
+        section.writeVarint(table.length);
+        for (int entry : table) section.writeInt(entry);
+    }
+
+    private static int[] hashTable(String[] ids) {
+        int capacity = SnapshotFormat.tableCapacity(ids.length);
+        int mask = capacity - 1;
+        int[] table = new int[capacity];
+        for (int i = 0; i < ids.length; i++) {
+            int slot = SnapshotFormat.slot(ids[i], mask);
+            while (table[slot] != 0) slot = (slot + 1) & mask;
+            table[slot] = i + 1;
+        }
+        return table;
+    }
+
+    private void flushSection(int type) throws IOException {
+        out.write(type);
+        SnapshotEncoder.writeVarint(out, section.size());
+        section.writeTo(out);
+        written += 1 + SnapshotEncoder.varintSize(section.size()) + section.size();
+    }
+
+    private static <T> T await(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Scrittura interrotta");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            if (ex.getCause() instanceof Error) throw (Error) ex.getCause();
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /*
+     * Codifica del record di indice 'index' della copia.
+     */
+    private interface RecordEncoder {
+        void encode(SnapshotEncoder encoder, int index);
+    }
+
+    /*
+     * Gruppo di record codificati da un task, con le posizioni delle sue pagine.
+     */
+    private static final class Shard {
+        final SnapshotEncoder data = new SnapshotEncoder();
+        final int count;
+        final int[] pages;
+
+        Shard(int count) {
+            this.count = count;
+            this.pages = new int[(count + SnapshotFormat.PAGE_SIZE - 1) / SnapshotFormat.PAGE_SIZE];
+        }
+    }
+}
@@ -0,0 +1,350 @@
+/**
+ * @file SortedView.java
+ * @brief Lista ordinata mantenuta incrementalmente per la visualizzazione dei registri.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * @class SortedView
+ * @brief Mantiene gli elementi di un registro nell'ordine di visualizzazione.
+ * @details Gli elementi sono conservati in un treap bilanciato in cui ogni nodo conosce la dimensione
+ *          del proprio sottoalbero: inserimenti e rimozioni costano O(log n) e l'accesso per posizione
+ *          costa O(log n). La struttura è esposta come {@link List} in sola lettura, così che il registro
+ *          possa restituirla senza copie né riordinamenti. Le operazioni di gruppo che coinvolgono una parte
+ *          consistente della vista la ricostruiscono in tempo lineare invece di eseguire un'operazione per elemento.
+ * @tparam T Il tipo di elemento contenuto nella vista.
+ * @invariant L'ordinamento deve essere totale (a parità di chiavi di visualizzazione si confrontano gli identificativi).
+ */
+final class SortedView<T> {
+
+    private static final class Node<T> {
+        private final T item;
+        private final int priority;
+        private int size = 1;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(T item, int priority) {
+            this.item = item;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * @brief Le operazioni di gruppo ricostruiscono la vista quando coinvolgono almeno 1/REBUILD_RATIO degli elementi.
+     */
+    private static final int REBUILD_RATIO = 8;
+
+    private final Comparator<? super T> order;
+    private final View view = new View();
+    private Node<T> root;
+    private int seed = 0x2545F491;
+
+    /**
+     * @brief Costruttore.
+     * @param[in] order L'ordinamento totale di visualizzazione.
+     */
+    SortedView(Comparator<? super T> order) {
+        this.order = order;
+    }
+
+    /**
+     * @brief Inserisce un elemento nella sua posizione ordinata.
+     * @param[in] item L'elemento da inserire.
+     */
+    void add(T item) {
+        root = insert(root, new Node<>(item, nextPriority()));
+        view.changed();
+    }
+
+    /**
+     * @brief Rimuove un elemento dalla vista.
+     * @details L'elemento deve avere le stesse chiavi di ordinamento possedute al momento dell'inserimento;
+     *          in caso contrario si ricade su una ricerca lineare.
+     * @param[in] item L'elemento da rimuovere.
+     */
+    void remove(T item) {
+        int before = sizeOf(root);
+        root = delete(root, item);
+        if (sizeOf(root) == before) {
+            int index = indexOfInstance(item);
+            if (index < 0) return;
+            root = deleteAt(root, index);
+        }
+        view.changed();
+    }
+
+    /**
+     * @brief Inserisce un gruppo di elementi nelle rispettive posizioni ordinate.
+     * @details Se il gruppo è piccolo rispetto alla vista gli elementi vengono inseriti uno alla volta; altrimenti
+     *          vengono ordinati e fusi con il contenuto attuale, ricostruendo il treap in O(n + k log k).
+     * @param[in] items Gli elementi da inserire.
+     */
+    void addAll(Collection<? extends T> items) {
+        if (items.isEmpty()) return;
+        if (items.size() < sizeOf(root) / REBUILD_RATIO) {
+            for (T item : items) root = insert(root, new Node<>(item, nextPriority()));
+        } else {
+            List<T> added = new ArrayList<>(items);
+            added.sort(order);
+            List<T> merged = new ArrayList<>(sizeOf(root) + added.size());
+            Iterator<T> current = view.iterator();
+            T next = current.hasNext() ? current.next() : null;
+            for (T item : added) {
+                while (next != null && order.compare(next, item) <= 0) {
+                    merged.add(next);
+                    next = current.hasNext() ? current.next() : null;
+                }
+                merged.add(item);
+            }
+            for (; next != null; next = current.hasNext() ? current.next() : null) merged.add(next);
+            root = build(merged);
+        }
+        view.changed();
+    }
+
+    /**
+     * @brief Rimuove un gruppo di elementi dalla vista, riconosciuti per identità.
+     * @details Se il gruppo è piccolo rispetto alla vista gli elementi vengono rimossi uno alla volta (come in remove());
+     *          altrimenti la vista viene ricostruita in tempo lineare con gli elementi rimanenti, senza confrontarne le chiavi.
+     * @param[in] items Gli elementi da rimuovere.
+     */
+    void removeAll(Collection<? extends T> items) {
+        if (items.isEmpty()) return;
+        if (items.size() < sizeOf(root) / REBUILD_RATIO) {
+            for (T item : items) remove(item);
+            return;
+        }
+        Set<T> removed = Collections.newSetFromMap(new IdentityHashMap<>(items.size()));
+        removed.addAll(items);
+        List<T> remaining = new ArrayList<>(Math.max(0, sizeOf(root) - items.size()));
+        for (T item : view)
+            if (!removed.contains(item)) remaining.add(item);
+        root = build(remaining);
+        view.changed();
+    }
+
+    /**
+     * @brief Conta gli elementi iniziali della vista che soddisfano una condizione, in O(log n).
+     * @details Consente le interrogazioni per intervallo sulle chiavi di ordinamento: il numero di elementi con chiave
+     *          minore di k è headSize(e -> chiave(e) < k), e gli elementi corrispondenti sono asList().subList(0, headSize).
+     * @param[in] below La condizione, vera per un prefisso della vista e falsa per tutti gli elementi successivi.
+     * @return int La lunghezza del prefisso di elementi che soddisfano la condizione.
+     */
+    int headSize(Predicate<? super T> below) {
+        int count = 0;
+        Node<T> node = root;
+        while (node != null) {
+            if (below.test(node.item)) {
+                count += sizeOf(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @brief Restituisce la vista ordinata in sola lettura.
+     * @return List<T> La lista ordinata, aggiornata ad ogni modifica del registro.
+     */
+    List<T> asList() {
+        return view;
+    }
+
+    /*
+     * Costruisce in tempo lineare il treap degli elementi già ordinati: ogni nuovo nodo diventa figlio destro
+     * dell'ultimo nodo con priorità maggiore sul cammino più a destra, e adotta come figlio sinistro quelli scavalcati.
+     */
+    private Node<T> build(List<T> sorted) {
+        List<Node<T>> rightPath = new ArrayList<>();
+        for (T item : sorted) {
+            Node<T> node = new Node<>(item, nextPriority());
+            Node<T> last = null;
+            while (!rightPath.isEmpty() && rightPath.get(rightPath.size() - 1).priority < node.priority)
+                last = rightPath.remove(rightPath.size() - 1);
+            node.left = last;
+            if (!rightPath.isEmpty()) rightPath.get(rightPath.size() - 1).right = node;
+            rightPath.add(node);
+        }
+        if (rightPath.isEmpty()) return null;
+        Node<T> built = rightPath.get(0);
+        updateSizes(built);
+        return built;
+    }
+
+    private static <T> int updateSizes(Node<T> node) {
+        if (node == null) return 0;
+        node.size = 1 + updateSizes(node.left) + updateSizes(node.right);
+        return node.size;
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> toInsert) {
+        if (node == null) return toInsert;
+        if (order.compare(toInsert.item, node.item) < 0) {
+            node.left = insert(node.left, toInsert);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, toInsert);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> delete(Node<T> node, T item) {
+        if (node == null) return null;
+        int cmp = order.compare(item, node.item);
+        if (cmp == 0 && node.item == item) return merge(node.left, node.right);
+        if (cmp < 0) node.left = delete(node.left, item);
+        else if (cmp > 0) node.right = delete(node.right, item);
+        else return node;
+        update(node);
+        return node;
+    }
+
+    private Node<T> deleteAt(Node<T> node, int index) {
+        int leftSize = sizeOf(node.left);
+        if (index == leftSize) return merge(node.left, node.right);
+        if (index < leftSize) node.left = deleteAt(node.left, index);
+        else node.right = deleteAt(node.right, index - leftSize - 1);
+        update(node);
+        return node;
+    }
+
+    private Node<T> merge(Node<T> a, Node<T> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private int indexOfInstance(T item) {
+        int index = 0;
+        for (T current : view) {
+            if (current == item) return index;
+            index++;
+        }
+        return -1;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.size = 1 + sizeOf(node.left) + sizeOf(node.right);
+    }
+
+    private static int sizeOf(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    /**
+     * @brief Vista in sola lettura sul treap, con accesso per posizione in O(log n).
+     */
+    private final class View extends AbstractList<T> {
+
+        private void changed() {
+            modCount++;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Indice: " + index);
+            Node<T> node = root;
+            while (true) {
+                int leftSize = sizeOf(node.left);
+                if (index == leftSize) return node.item;
+                if (index < leftSize) {
+                    node = node.left;
+                } else {
+                    index -= leftSize + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return SortedView.sizeOf(root);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private final Deque<Node<T>> path = new ArrayDeque<>();
+                private final int expectedModCount = modCount;
+
+                {
+                    pushLeft(root);
+                }
+
+                private void pushLeft(Node<T> node) {
+                    for (; node != null; node = node.left) path.push(node);
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return !path.isEmpty();
+                }
+
+                @Override
+                public T next() {
+                    if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                    if (path.isEmpty()) throw new NoSuchElementException();
+                    Node<T> node = path.pop();
+                    pushLeft(node.right);
+                    return node.item;
+                }
+            };
+        }
+    }
+}
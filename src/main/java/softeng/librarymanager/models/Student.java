@@ -7,9 +7,13 @@
  */
 package softeng.librarymanager.models;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 
 /**
@@ -24,6 +28,11 @@ import java.util.Objects;
  */
 public class Student implements Comparable<Student>, Serializable {
 
+    /*
+     * Fissato al valore della prima versione, per leggere i file .obj salvati con essa.
+     */
+    private static final long serialVersionUID = 8889531861384455948L;
+
     /**
      * @brief Nome dello studente.
      */
@@ -45,10 +54,25 @@ public class Student implements Comparable<Student>, Serializable {
     private String email;
 
     /**
-     * @brief Prestiti attualmente attivi.
+     * @brief Numero massimo di prestiti attivi per studente.
+     */
+    public static final int MAX_ACTIVE_LOANS = 3;
+
+    /**
+     * @brief Prestiti attualmente attivi (al più MAX_ACTIVE_LOANS).
      */
     private final List<Loan> activeLoans;
 
+    /**
+     * @brief Chiave di ordinamento per Cognome, Nome e Matricola (calcolata in costruzione e in copy()).
+     */
+    private transient String sortKey;
+
+    /**
+     * @brief Chiave di ricerca normalizzata in minuscolo su nome completo e matricola (calcolata in costruzione e in copy()).
+     */
+    private transient String searchKey;
+
     /**
      * @brief Costruttore parametrizzato.
      * @details Inizializza le proprietà con i valori forniti e istanzia la lista dei prestiti se i valori forniti sono validi.
@@ -66,6 +90,7 @@ public class Student implements Comparable<Student>, Serializable {
         this.email = email;
         this.activeLoans = new ArrayList<>();
         if(!this.isValid()) throw new IllegalArgumentException("Impossibile creare uno studente con i dati inseriti");
+        updateKeys();
     }
 
     /**
@@ -100,12 +125,33 @@ public class Student implements Comparable<Student>, Serializable {
         return this.email;
     }
 
+    /**
+     * @brief Restituisce la chiave di ordinamento per Cognome, Nome e Matricola.
+     * @details I campi sono separati dal carattere nullo, così che il confronto tra chiavi
+     *          equivalga al confronto per Cognome, poi per Nome, infine per Matricola.
+     * @return String La chiave di ordinamento.
+     */
+    public String getSortKey() {
+        return this.sortKey;
+    }
+
+    /**
+     * @brief Restituisce la chiave di ricerca normalizzata in minuscolo.
+     * @details Contiene "nome cognome", "cognome nome" e la matricola separati da '\n', così che una
+     *          ricerca non possa corrispondere a testo a cavallo di due campi.
+     * @return String La chiave di ricerca.
+     */
+    public String getSearchKey() {
+        return this.searchKey;
+    }
+
     /**
      * @brief Restituisce la lista dei prestiti attualmente attivi.
-     * @return List<Loan> La lista dei prestiti attualmente attivi.
+     * @details La lista restituita è una copia, così da poter essere letta mentre altri thread attivano o restituiscono prestiti.
+     * @return List<Loan> Una copia in sola lettura della lista dei prestiti attualmente attivi.
      */
-    public List<Loan> getActiveLoans() {
-        return this.activeLoans;
+    public synchronized List<Loan> getActiveLoans() {
+        return Collections.unmodifiableList(new ArrayList<>(this.activeLoans));
     }
     
     /**
@@ -115,10 +161,21 @@ public class Student implements Comparable<Student>, Serializable {
      *          in un'unica chiamata i principali campi modificabili dello studente (nome, cognome, email).
      * @post I campi modificabili dello studente sono aggiornati con quelli dello studente specificato
      */
-    public void copy(Student newData){
+    public synchronized void copy(Student newData){
         this.name = newData.getName();
         this.surname = newData.getSurname();
         this.email = newData.getEmail();
+        updateKeys();
+    }
+
+    private void updateKeys() {
+        this.sortKey = surname + '\u0000' + name + '\u0000' + studentId;
+        this.searchKey = (name + ' ' + surname + '\n' + surname + ' ' + name + '\n' + studentId).toLowerCase(Locale.ROOT);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        updateKeys();
     }
 
 
@@ -130,7 +187,7 @@ public class Student implements Comparable<Student>, Serializable {
      * @post Il prestito viene aggiunto alla lista dei prestiti attualmente attivi
      * @post Se lo studente ha già 3 prestiti attivi viene lanciata IllegalStateException.
      */
-    public void addActiveLoan(Loan loanToAdd) {
+    public synchronized void addActiveLoan(Loan loanToAdd) {
         if (!isAvailableForLoan()) {
             throw new IllegalStateException("Lo studente ha raggiunto il limite massimo di prestiti.");
         }
@@ -139,10 +196,12 @@ public class Student implements Comparable<Student>, Serializable {
 
     /**
      * @brief Rimuove un prestito dalla lista dei prestiti attivi.
+     * @details Il prestito viene riconosciuto con equals(), cioè per identificativo: anche un'istanza diversa dello
+     *          stesso prestito (es. ricostruita da un journal o da un ripristino) libera il posto occupato.
      * @param[in] loanToRemove L'oggetto Loan da rimuovere.
      * @post Il prestito viene rimosso dalla lista dei prestiti attualmente attivi
      */
-    public void removeActiveLoan(Loan loanToRemove) {
+    public synchronized void removeActiveLoan(Loan loanToRemove) {
         this.activeLoans.remove(loanToRemove);
     }
 
@@ -186,8 +245,8 @@ public class Student implements Comparable<Student>, Serializable {
      * @details Uno studente è abilitato se ha meno di 3 prestiti attivi.
      * @return boolean True se può richiedere prestiti, altrimenti False.
      */
-    public boolean isAvailableForLoan(){
-        return this.activeLoans.size() < 3;
+    public synchronized boolean isAvailableForLoan(){
+        return this.activeLoans.size() < MAX_ACTIVE_LOANS;
     }
 
     /**
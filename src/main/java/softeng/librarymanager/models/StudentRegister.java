@@ -8,26 +8,64 @@
 
 package softeng.librarymanager.models;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 
 /**
  * @brief Implementa un catalogo studenti e le funzionalità per la sua gestione.
  * @details  Questa classe fornisce metodi per l'aggiunta, la rimozione, la modifica e la verifica dell'univocità di uno studente.
  * Inoltre, fornisce un metodo per la restituzione del catalogo come lista ordinata.
+ * L'accesso è regolato da un lock di lettura/scrittura: ricerche e consultazioni possono essere eseguite in parallelo
+ * da più thread (es. ricerche in background, salvataggi), mentre le modifiche sono eseguite in modo esclusivo e
+ * notificano gli osservatori prima di rilasciare il lock.
  * @see Register
  * @see Student
  * @invariant studentRegister != null
  */
 public class StudentRegister implements Register<Student>, Serializable {
 
-    private Set<Student> studentRegister;///< @brief Struttura dati interna per la memorizzazione del catalogo.
+    private static final long serialVersionUID = -1445634078474207822L;
+
+    /*
+     * Forma serializzata della prima versione, in cui il catalogo era un insieme ordinato: i file .obj salvati da
+     * quella versione restano leggibili, e viceversa. La mappa e le strutture di visualizzazione sono ricostruite
+     * alla lettura.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("studentRegister", Set.class)
+    };
+
+    /**
+     * @brief Ordinamento di visualizzazione: Cognome, Nome e Matricola.
+     */
+    private static final Comparator<Student> DISPLAY_ORDER = Comparator.comparing(Student::getSortKey);
+
+    private transient Map<String, Student> studentRegister;///< @brief Struttura dati interna per la memorizzazione del catalogo, indicizzata per matricola.
+
+    private transient SortedView<Student> sortedStudents; ///< @brief Catalogo mantenuto nell'ordine di visualizzazione.
+
+    private transient SearchIndex<Student> searchIndex; ///< @brief Indice invertito su Nome, Cognome, Matricola e Email.
+
+    private transient ReentrantReadWriteLock lock; ///< @brief Lock condiviso dalle letture ed esclusivo per le modifiche.
+
+    private transient List<RegisterListener<Student>> listeners; ///< @brief Osservatori notificati ad ogni modifica del catalogo.
+
+    private transient long modificationCount; ///< @brief Numero di modifiche subite dal catalogo dall'apertura.
 
     /**
      * @post Il catalogo studenti è correttamente inizializzato ed è vuoto.
      */
     public StudentRegister() {
-        this.studentRegister = new TreeSet<>();
+        this.studentRegister = new TreeMap<>();
+        initIndexes();
     }
 
     /**
@@ -40,7 +78,16 @@ public class StudentRegister implements Register<Student>, Serializable {
      */
     @Override
     public void add(Student toAdd) {
-        studentRegister.add(toAdd);
+        lock.writeLock().lock();
+        try {
+            studentRegister.put(toAdd.getStudentId(), toAdd);
+            sortedStudents.add(toAdd);
+            searchIndex.add(toAdd);
+            modificationCount++;
+            for (RegisterListener<Student> listener : listeners) listener.added(toAdd);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -55,10 +102,49 @@ public class StudentRegister implements Register<Student>, Serializable {
      */
     @Override
     public void modify(Student old, Student newObj) {
-        for(Student student : studentRegister)
-            if(student.equals(old)){
-                student.copy(newObj);
-            }
+        modifyById(old.getStudentId(), newObj);
+    }
+
+    /**
+     * @brief Modifica i dati dello studente avente la matricola specificata.
+     * @details Lo studente viene individuato tramite l'indice della chiave primaria in tempo O(log n).
+     * @param[in] id La matricola dello studente da modificare.
+     * @param[in] newObj Studente contenente i nuovi dati aggiornati.
+     * @return true se lo studente è presente nel catalogo ed è stato modificato, false altrimenti.
+     * @pre newObj != null
+     * @post Se presente, i dati dello studente specificato sono aggiornati con quelli di 'newObj'.
+     */
+    @Override
+    public boolean modifyById(String id, Student newObj) {
+        lock.writeLock().lock();
+        try {
+            Student student = studentRegister.get(id);
+            if (student == null) return false;
+            sortedStudents.remove(student);
+            student.copy(newObj);
+            sortedStudents.add(student);
+            searchIndex.update(student);
+            modificationCount++;
+            for (RegisterListener<Student> listener : listeners) listener.modified(student);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Cerca uno studente tramite la sua matricola.
+     * @param[in] id La matricola dello studente cercato.
+     * @return Lo studente avente la matricola specificata, null se non è presente nel catalogo.
+     */
+    @Override
+    public Student findById(String id) {
+        lock.readLock().lock();
+        try {
+            return studentRegister.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -69,7 +155,137 @@ public class StudentRegister implements Register<Student>, Serializable {
      */
     @Override
     public void remove(Student toRemove) {
-        studentRegister.remove(toRemove);
+        lock.writeLock().lock();
+        try {
+            Student removed = studentRegister.remove(toRemove.getStudentId());
+            if (removed == null) return;
+            sortedStudents.remove(removed);
+            searchIndex.remove(removed);
+            modificationCount++;
+            for (RegisterListener<Student> listener : listeners) listener.removed(removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Aggiunge un gruppo di studenti al catalogo.
+     * @details Le strutture di visualizzazione vengono aggiornate in un solo passaggio e gli osservatori notificati una sola volta.
+     * @param[in] toAdd Gli studenti da aggiungere al catalogo.
+     * @pre Ogni elemento di toAdd rispetta le precondizioni di add() e le matricole sono distinte.
+     * @post Gli studenti specificati sono presenti nel catalogo.
+     */
+    @Override
+    public void addAll(Collection<? extends Student> toAdd) {
+        lock.writeLock().lock();
+        try {
+            if (toAdd.isEmpty()) return;
+            for (Student student : toAdd) {
+                studentRegister.put(student.getStudentId(), student);
+                searchIndex.add(student);
+            }
+            sortedStudents.addAll(toAdd);
+            modificationCount++;
+            for (RegisterListener<Student> listener : listeners) listener.addedAll(toAdd);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Aggiunge gli studenti non duplicati di un gruppo.
+     * @details Le verifiche e l'inserimento avvengono sotto il lock in scrittura, quindi nessun altro thread può aggiungere nel frattempo un elemento con lo stesso identificativo.
+     * @param[in] toAdd Gli studenti da aggiungere.
+     * @return List<Student> Gli studenti scartati perché duplicati.
+     */
+    @Override
+    public List<Student> addAllUnique(Collection<? extends Student> toAdd) {
+        lock.writeLock().lock();
+        try {
+            List<Student> rejected = new ArrayList<>();
+            Set<Student> unique = new LinkedHashSet<>(toAdd.size() * 2);
+            for (Student item : toAdd)
+                if (!isUnique(item) || !unique.add(item)) rejected.add(item);
+            addAll(unique);
+            return rejected;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Modifica i dati degli studenti aventi le matricole specificate.
+     * @details Come modifyById(), ma con un solo aggiornamento della vista ordinata e una sola notifica agli osservatori.
+     * @param[in] changes Associa la matricola di ogni studente da modificare allo studente contenente i nuovi dati.
+     * @return Il numero di studenti presenti nel catalogo e modificati.
+     */
+    @Override
+    public int modifyAll(Map<String, ? extends Student> changes) {
+        lock.writeLock().lock();
+        try {
+            List<Student> modified = new ArrayList<>(changes.size());
+            for (String id : changes.keySet()) {
+                Student student = studentRegister.get(id);
+                if (student != null) modified.add(student);
+            }
+            if (modified.isEmpty()) return 0;
+            sortedStudents.removeAll(modified);
+            for (Student student : modified) {
+                student.copy(changes.get(student.getStudentId()));
+                searchIndex.update(student);
+            }
+            sortedStudents.addAll(modified);
+            modificationCount++;
+            for (RegisterListener<Student> listener : listeners) listener.modifiedAll(modified);
+            return modified.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Rimuove un gruppo di studenti dal catalogo.
+     * @param[in] toRemove Gli studenti da rimuovere; quelli non presenti nel catalogo vengono ignorati.
+     * @post Nessuno dei studenti specificati è presente nel catalogo.
+     */
+    @Override
+    public void removeAll(Collection<? extends Student> toRemove) {
+        lock.writeLock().lock();
+        try {
+            List<Student> removed = new ArrayList<>(toRemove.size());
+            for (Student student : toRemove) {
+                Student current = studentRegister.remove(student.getStudentId());
+                if (current != null) removed.add(current);
+            }
+            removeIndexed(removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Rimuove dal catalogo i studenti che soddisfano la condizione specificata.
+     * @param[in] filter La condizione da verificare.
+     * @return Il numero di studenti rimossi.
+     */
+    @Override
+    public int removeIf(Predicate<? super Student> filter) {
+        lock.writeLock().lock();
+        try {
+            List<Student> removed = new ArrayList<>();
+            Iterator<Student> iterator = studentRegister.values().iterator();
+            while (iterator.hasNext()) {
+                Student student = iterator.next();
+                if (filter.test(student)) {
+                    iterator.remove();
+                    removed.add(student);
+                }
+            }
+            removeIndexed(removed);
+            return removed.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -80,21 +296,153 @@ public class StudentRegister implements Register<Student>, Serializable {
      */
     @Override
     public boolean isUnique(Student toVerify) {
-        return !this.studentRegister.contains(toVerify);
+        lock.readLock().lock();
+        try {
+            return !this.studentRegister.containsKey(toVerify.getStudentId());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
      * @brief Restituisce una lista ordinata di tutti gli studenti presenti nel catalogo.
      * @details L'ordinamento avviene prima per Cognome, poi per Nome, infine per Matricola.
-     * @return Una lista (ordinata per Cognome, Nome e Matricola) contenente tutti gli studenti del catalogo
+     *          L'ordine è mantenuto ad ogni modifica del catalogo, quindi la lista non viene né copiata né riordinata.
+     *          La vista riflette le modifiche successive e va letta dal thread che modifica il catalogo.
+     * @return Una vista in sola lettura (ordinata per Cognome, Nome e Matricola) contenente tutti gli studenti del catalogo
      */
     @Override
     public List<Student> getRegisterList() {
-        List<Student> list = new ArrayList<>(studentRegister);
-        list.sort(Comparator.comparing(Student::getSurname).
-                thenComparing(Student::getName).
-                thenComparing(Student::getStudentId));
-        return list;
+        return sortedStudents.asList();
+    }
+
+    /**
+     * @brief Cerca gli studenti corrispondenti al testo specificato.
+     * @details La ricerca avviene sull'indice invertito di Nome, Cognome, Matricola ed Email: ogni parola della query
+     *          deve essere l'inizio di una parola dello studente, senza distinzione tra maiuscole, minuscole e accenti.
+     * @param[in] query Il testo cercato.
+     * @return Una nuova lista (ordinata per Cognome, Nome e Matricola) degli studenti corrispondenti, tutti gli studenti se la query è vuota.
+     */
+    @Override
+    public List<Student> search(String query) {
+        lock.readLock().lock();
+        try {
+            Collection<Student> matches = searchIndex.search(query);
+            if (matches.size() == studentRegister.size()) return new ArrayList<>(sortedStudents.asList());
+            List<Student> result = new ArrayList<>(matches);
+            result.sort(DISPLAY_ORDER);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Cerca, tra i candidati specificati, quelli corrispondenti al testo.
+     * @param[in] query Il testo cercato.
+     * @param[in] candidates Gli elementi tra cui cercare, tipicamente il risultato di search() per una query più corta.
+     * @return Una nuova lista, nello stesso ordine di 'candidates', dei studenti ancora presenti nel catalogo e corrispondenti.
+     */
+    @Override
+    public List<Student> search(String query, Collection<? extends Student> candidates) {
+        lock.readLock().lock();
+        try {
+            return searchIndex.filter(candidates, query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Restituisce il numero di modifiche subite dal catalogo.
+     * @return long Il contatore delle modifiche, incrementato ad ogni aggiunta, modifica o rimozione.
+     */
+    @Override
+    public long getModificationCount() {
+        lock.readLock().lock();
+        try {
+            return modificationCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Registra un osservatore delle modifiche al catalogo.
+     * @param[in] listener L'osservatore da registrare.
+     */
+    @Override
+    public void addListener(RegisterListener<Student> listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.add(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @brief Rimuove un osservatore delle modifiche al catalogo.
+     * @param[in] listener L'osservatore da rimuovere.
+     */
+    @Override
+    public void removeListener(RegisterListener<Student> listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.remove(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeIndexed(List<Student> removed) {
+        if (removed.isEmpty()) return;
+        sortedStudents.removeAll(removed);
+        for (Student student : removed) searchIndex.remove(student);
+        modificationCount++;
+        for (RegisterListener<Student> listener : listeners) listener.removedAll(removed);
+    }
+
+    private void initIndexes() {
+        this.lock = new ReentrantReadWriteLock();
+        this.sortedStudents = new SortedView<>(DISPLAY_ORDER);
+        this.searchIndex = new SearchIndex<>(student -> student.getName() + ' ' + student.getSurname() + ' ' +
+                student.getStudentId() + ' ' + student.getEmail());
+        this.listeners = new ArrayList<>();
+        for (Student student : studentRegister.values()) {
+            sortedStudents.add(student);
+            searchIndex.add(student);
+        }
+    }
+
+    /**
+     * @brief Restituisce il lock in lettura del registro.
+     * @details Usato da {@link LibraryVersions} per leggere insieme più registri senza modifiche concorrenti.
+     * @return Lock Il lock condiviso dalle letture.
+     */
+    Lock readLock() {
+        return lock.readLock();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            ObjectOutputStream.PutField fields = out.putFields();
+            fields.put("studentRegister", new TreeSet<>(studentRegister.values()));
+            out.writeFields();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Collection<Student> stored = (Collection<Student>) fields.get("studentRegister", null);
+        if (stored == null) throw new InvalidObjectException("Registro dei studenti mancante");
+        studentRegister = new TreeMap<>();
+        for (Student item : stored) studentRegister.put(item.getStudentId(), item);
+        initIndexes();
     }
 
 }
\ No newline at end of file
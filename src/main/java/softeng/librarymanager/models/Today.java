@@ -0,0 +1,73 @@
+/**
+ * @file Today.java
+ * @brief Data odierna memorizzata fino alla mezzanotte successiva.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.models
+ */
+
+package softeng.librarymanager.models;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * @class Today
+ * @brief Fornisce la data odierna senza interrogare il calendario ad ogni richiesta.
+ * @details La data viene calcolata alla prima richiesta insieme all'istante della mezzanotte successiva; fino ad allora
+ *          ogni richiesta costa soltanto la lettura dell'orologio di sistema in millisecondi. Serve ai controlli ripetuti
+ *          per molti elementi, come l'evidenziazione dei prestiti in ritardo in ogni riga della tabella.
+ *          Se l'orologio torna indietro oltre l'inizio del giorno memorizzato la data viene ricalcolata.
+ */
+public final class Today {
+
+    /*
+     * Data memorizzata e intervallo [from, until) in millisecondi in cui è valida: sostituita per intero,
+     * così che i lettori la vedano sempre coerente.
+     */
+    private static final class Day {
+        private final LocalDate date;
+        private final long from;
+        private final long until;
+
+        private Day(LocalDate date, long from, long until) {
+            this.date = date;
+            this.from = from;
+            this.until = until;
+        }
+    }
+
+    private static volatile Clock clock = Clock.systemDefaultZone();
+    private static volatile Day cached;
+
+    private Today() {
+    }
+
+    /**
+     * @brief Restituisce la data odierna.
+     * @return LocalDate La data odierna nel fuso orario dell'orologio, uguale a LocalDate.now() salvo il cambio di fuso.
+     */
+    public static LocalDate get() {
+        Clock current = clock;
+        long now = current.millis();
+        Day day = cached;
+        if (day == null || now >= day.until || now < day.from) {
+            ZoneId zone = current.getZone();
+            LocalDate date = LocalDate.now(current);
+            day = new Day(date, date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+            cached = day;
+        }
+        return day.date;
+    }
+
+    /**
+     * @brief Sostituisce l'orologio di riferimento, scartando la data memorizzata.
+     * @param[in] clock Il nuovo orologio (es. un orologio fisso nei test).
+     */
+    static void setClock(Clock clock) {
+        Today.clock = clock;
+        cached = null;
+    }
+}
@@ -0,0 +1,396 @@
+/**
+ * @file LibraryServer.java
+ * @brief Servizio HTTP/JSON per la consultazione dei registri e la gestione dei prestiti.
+ * @author [Acerra Fabrizio, Affinita Natale, Cwiertka Jakub, Galluccio Hermann]
+ * @date Dicembre 2025
+ * @package softeng.librarymanager.server
+ */
+
+package softeng.librarymanager.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import softeng.librarymanager.models.BlockingTasks;
+import softeng.librarymanager.models.Book;
+import softeng.librarymanager.models.BookRegister;
+import softeng.librarymanager.models.JsonWriter;
+import softeng.librarymanager.models.Library;
+import softeng.librarymanager.models.Loan;
+import softeng.librarymanager.models.LoanRegister;
+import softeng.librarymanager.models.Student;
+import softeng.librarymanager.models.StudentRegister;
+import softeng.librarymanager.models.Today;
+
+/**
+ * @class LibraryServer
+ * @brief Espone le operazioni dei registri di una biblioteca tramite HTTP, con risposte in JSON.
+ * @details Risorse disponibili (i parametri delle richieste POST possono essere indicati anche nel corpo, codificati
+ *          come application/x-www-form-urlencoded):
+ *          - {@code GET /studenti?q=&limite=}, {@code GET /libri?q=&limite=}, {@code GET /prestiti?q=&limite=}: ricerca
+ *            nel registro, con la stessa sintassi della barra di ricerca; la risposta contiene il numero totale di
+ *            risultati e al più "limite" elementi, nell'ordine di visualizzazione;
+ *          - {@code GET /prestiti/scaduti?data=}: prestiti attivi scaduti alla data indicata (predefinita: oggi);
+ *          - {@code POST /prestiti} con matricola, isbn e scadenza: crea e attiva un prestito;
+ *          - {@code POST /prestiti/<id>/restituzione}: restituisce un prestito.
+ *
+ *          Gli errori sono riportati come {@code {"errore": messaggio}} con stato 400 (parametri non validi), 404
+ *          (studente, libro o prestito inesistente), 405 (metodo non ammesso) o 409 (prestito non attivabile o già
+ *          restituito).
+ *
+ *          Ogni richiesta è gestita da un proprio virtual thread se la JVM li supporta (Java 21 o successiva),
+ *          altrimenti da un pool di thread di piattaforma (vedi {@link BlockingTasks#newPerTaskExecutor(String, int)}).
+ *          Le operazioni sono quelle, thread-safe, dei registri: i prestiti sono creati con
+ *          {@link LoanRegister#checkout(Student, Book, LocalDate)}, che riserva la copia con la stessa procedura di
+ *          {@link Loan#activateLoan()} ma inserisce il prestito nel registro nella stessa operazione atomica, così che
+ *          richieste concorrenti non possano superare le copie disponibili.
+ * @note Le risposte sono scritte in due segmenti TCP (intestazioni e corpo): per evitare il ritardo dell'algoritmo di
+ *       Nagle, il processo che avvia il servizio dovrebbe impostare la proprietà di sistema
+ *       {@code sun.net.httpserver.nodelay} prima della creazione del primo server (vedi ServerTool).
+ */
+public final class LibraryServer implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(LibraryServer.class.getName());
+
+    static final int DEFAULT_LIMIT = 50;     ///< @brief Numero di risultati restituiti da una ricerca senza limite.
+    static final int MAX_LIMIT = 1000;       ///< @brief Numero massimo di risultati restituiti da una ricerca.
+    private static final int MAX_BODY = 8192; ///< @brief Dimensione massima, in byte, del corpo di una richiesta.
+    private static final int PLATFORM_THREADS = 16; ///< @brief Thread del pool usato in assenza di virtual thread.
+    private static final int STOP_DELAY = 1; ///< @brief Secondi concessi alle richieste in corso alla chiusura.
+
+    private static final String CHECKOUT_PATH = "/prestiti";
+    private static final String OVERDUE_PATH = "/prestiti/scaduti";
+    private static final String RETURN_SUFFIX = "/restituzione";
+
+    /*
+     * Errore da riportare al client con lo stato indicato.
+     */
+    private static final class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /*
+     * Gestore di una risorsa: restituisce il corpo della risposta in caso di successo.
+     */
+    private interface Resource {
+        Object handle(HttpExchange exchange, Map<String, String> params) throws IOException;
+    }
+
+    private final StudentRegister students;
+    private final BookRegister books;
+    private final LoanRegister loans;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private LibraryServer(Library library, HttpServer server, ExecutorService executor) {
+        this.students = (StudentRegister) library.getStudentRegister();
+        this.books = (BookRegister) library.getBookRegister();
+        this.loans = (LoanRegister) library.getLoanRegister();
+        this.server = server;
+        this.executor = executor;
+        server.createContext("/studenti", exchange -> serve(exchange, "GET", 200, this::searchStudents));
+        server.createContext("/libri", exchange -> serve(exchange, "GET", 200, this::searchBooks));
+        server.createContext("/prestiti", this::dispatchLoans);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * @brief Avvia il servizio per la biblioteca indicata.
+     * @param[in] library La biblioteca da esporre; le modifiche sono visibili anche agli altri utenti della biblioteca.
+     * @param[in] address L'indirizzo di ascolto (porta 0 per una porta libera qualsiasi).
+     * @return LibraryServer Il servizio avviato.
+     * @throws IOException Se l'indirizzo non è disponibile.
+     * @post Il servizio accetta richieste fino alla chiamata di close().
+     */
+    public static LibraryServer start(Library library, InetSocketAddress address) throws IOException {
+        ExecutorService executor = BlockingTasks.newPerTaskExecutor("library-http-", PLATFORM_THREADS);
+        try {
+            LibraryServer service = new LibraryServer(library, HttpServer.create(address, 0), executor);
+            service.server.start();
+            return service;
+        } catch (IOException | RuntimeException ex) {
+            executor.shutdownNow();
+            throw ex;
+        }
+    }
+
+    /**
+     * @brief Restituisce la porta su cui il servizio è in ascolto.
+     * @return int La porta effettiva, anche se all'avvio era stata indicata la porta 0.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @brief Arresta il servizio.
+     * @details Le richieste in corso hanno a disposizione {@value #STOP_DELAY} secondi per concludersi.
+     * @post Il servizio non accetta più richieste e i thread delle richieste sono terminati.
+     */
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(STOP_DELAY, TimeUnit.SECONDS)) executor.shutdownNow();
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Le richieste su /prestiti sono smistate in base al percorso: ricerca o creazione, scaduti, restituzione.
+     */
+    private void dispatchLoans(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals(CHECKOUT_PATH) || path.equals(CHECKOUT_PATH + "/")) {
+            if (exchange.getRequestMethod().equals("POST")) serve(exchange, "POST", 201, this::checkout);
+            else serve(exchange, "GET", 200, this::searchLoans);
+        } else if (path.equals(OVERDUE_PATH)) {
+            serve(exchange, "GET", 200, this::overdue);
+        } else if (path.endsWith(RETURN_SUFFIX)) {
+            serve(exchange, "POST", 200, this::returnLoan);
+        } else {
+            serve(exchange, null, 200, (ex, params) -> {
+                throw new RequestException(404, "Risorsa inesistente: " + path);
+            });
+        }
+    }
+
+    /*
+     * Verifica il metodo, esegue la risorsa e scrive la risposta con lo stato "success" o con quello dell'errore.
+     */
+    private void serve(HttpExchange exchange, String method, int success, Resource resource) throws IOException {
+        int status;
+        Object body;
+        try {
+            if (method != null && !method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                throw new RequestException(405, "Metodo non ammesso: " + exchange.getRequestMethod());
+            }
+            Map<String, String> params = parameters(exchange);
+            body = resource.handle(exchange, params);
+            status = success;
+        } catch (RequestException ex) {
+            status = ex.status;
+            body = error(ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            status = 400;
+            body = error(ex.getMessage());
+        } catch (IllegalStateException ex) {
+            status = 409;
+            body = error(ex.getMessage());
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Richiesta non riuscita: " + exchange.getRequestURI(), ex);
+            status = 500;
+            body = error("Errore interno");
+        }
+        respond(exchange, status, body);
+    }
+
+    private Object searchStudents(HttpExchange exchange, Map<String, String> params) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        List<Student> found = students.search(query(params));
+        for (Student student : head(found, limit(params))) items.add(student(student));
+        return results(found.size(), items);
+    }
+
+    private Object searchBooks(HttpExchange exchange, Map<String, String> params) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        List<Book> found = books.search(query(params));
+        for (Book book : head(found, limit(params))) items.add(book(book));
+        return results(found.size(), items);
+    }
+
+    private Object searchLoans(HttpExchange exchange, Map<String, String> params) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        List<Loan> found = loans.search(query(params));
+        for (Loan loan : head(found, limit(params))) items.add(loan(loan));
+        return results(found.size(), items);
+    }
+
+    private Object overdue(HttpExchange exchange, Map<String, String> params) {
+        String date = params.get("data");
+        List<Map<String, Object>> items = new ArrayList<>();
+        List<Loan> found = loans.getOverdueLoans(date == null ? Today.get() : date(date, "data"));
+        for (Loan loan : head(found, limit(params))) items.add(loan(loan));
+        return results(found.size(), items);
+    }
+
+    private Object checkout(HttpExchange exchange, Map<String, String> params) {
+        String studentId = required(params, "matricola");
+        String bookId = required(params, "isbn");
+        LocalDate loanEnd = date(required(params, "scadenza"), "scadenza");
+        Student student = students.findById(studentId);
+        if (student == null) throw new RequestException(404, "Studente inesistente: " + studentId);
+        Book book = books.findById(bookId);
+        if (book == null) throw new RequestException(404, "Libro inesistente: " + bookId);
+        return loan(loans.checkout(student, book, loanEnd));
+    }
+
+    private Object returnLoan(HttpExchange exchange, Map<String, String> params) {
+        String path = exchange.getRequestURI().getPath();
+        // "/prestiti/restituzione" non contiene un identificativo tra il prefisso e il suffisso
+        if (path.length() <= CHECKOUT_PATH.length() + RETURN_SUFFIX.length())
+            throw new RequestException(404, "Prestito non indicato");
+        String id = path.substring(CHECKOUT_PATH.length() + 1, path.length() - RETURN_SUFFIX.length());
+        Loan loan = loans.findById(id);
+        if (loan == null) throw new RequestException(404, "Prestito inesistente: " + id);
+        if (!loans.returnLoan(loan)) throw new IllegalStateException("Il prestito è già stato restituito");
+        return loan(loan);
+    }
+
+    /*
+     * Parametri della query e, per le richieste POST, del corpo; un parametro ripetuto vale per l'ultima occorrenza.
+     */
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parse(exchange.getRequestURI().getRawQuery(), params);
+        if (exchange.getRequestMethod().equals("POST")) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            try (InputStream in = exchange.getRequestBody()) {
+                for (int n; (n = in.read(buffer)) > 0; ) {
+                    body.write(buffer, 0, n);
+                    if (body.size() > MAX_BODY) throw new RequestException(413, "Richiesta troppo grande");
+                }
+            }
+            parse(new String(body.toByteArray(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parse(String encoded, Map<String, String> params) throws UnsupportedEncodingException {
+        if (encoded == null || encoded.isEmpty()) return;
+        for (String pair : encoded.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+    }
+
+    private static String query(Map<String, String> params) {
+        String query = params.get("q");
+        return query == null ? "" : query;
+    }
+
+    private static int limit(Map<String, String> params) {
+        String value = params.get("limite");
+        if (value == null) return DEFAULT_LIMIT;
+        try {
+            int limit = Integer.parseInt(value);
+            if (limit >= 0) return Math.min(limit, MAX_LIMIT);
+        } catch (NumberFormatException ex) {
+            // segnalato sotto
+        }
+        throw new IllegalArgumentException("Limite non valido: " + value);
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) throw new IllegalArgumentException("Parametro mancante: " + name);
+        return value;
+    }
+
+    private static LocalDate date(String value, String name) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Data non valida (" + name + "): " + value);
+        }
+    }
+
+    private static <T> List<T> head(List<T> list, int limit) {
+        return list.size() <= limit ? list : list.subList(0, limit);
+    }
+
+    private static Map<String, Object> results(int total, List<Map<String, Object>> items) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("totale", total);
+        body.put("risultati", items);
+        return body;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("errore", message);
+        return body;
+    }
+
+    private static Map<String, Object> student(Student student) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("nome", student.getName());
+        item.put("cognome", student.getSurname());
+        item.put("matricola", student.getStudentId());
+        item.put("email", student.getEmail());
+        return item;
+    }
+
+    private static Map<String, Object> book(Book book) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("titolo", book.getTitle());
+        item.put("autori", book.getAuthors());
+        item.put("isbn", book.getBookId());
+        item.put("anno", book.getPublishmentYear());
+        item.put("copie", book.getAvailableCopies());
+        return item;
+    }
+
+    private static Map<String, Object> loan(Loan loan) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("prestito", loan.getLoanId().toString());
+        item.put("scadenza", loan.getLoanEnd().toString());
+        item.put("restituito", loan.isReturned());
+        item.put("matricola", loan.getStudent().getStudentId());
+        item.put("isbn", loan.getBook().getBookId());
+        item.put("titolo", loan.getBook().getTitle());
+        return item;
+    }
+
+    /*
+     * La risposta viene preparata in memoria per indicarne la lunghezza: la connessione resta riutilizzabile.
+     */
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (Writer out = new OutputStreamWriter(buffer, StandardCharsets.UTF_8)) {
+            new JsonWriter(out).writeValue(body);
+            out.write('\n');
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, buffer.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            buffer.writeTo(out);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockingTasksTest {
+
+    /*
+     * Un esecutore limitato non deve mai eseguire più operazioni del limite, deve eseguirle tutte e non deve
+     * bloccare il thread che le richiede.
+     * */
+    @Test
+    void testBoundedConcurrency() throws Exception {
+        Executor bounded = BlockingTasks.bounded(BlockingTasks.blocking(), 3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                    Thread.sleep(2);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }, bounded));
+        }
+        while (running.get() < 3) Thread.sleep(1);
+        Thread.sleep(20);
+        assertEquals(3, running.get());
+        release.countDown();
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        assertEquals(3, peak.get());
+        assertThrows(IllegalArgumentException.class, () -> BlockingTasks.bounded(BlockingTasks.blocking(), 0));
+    }
+
+    /*
+     * Una corsia sequenziale sopra l'esecutore del disco deve eseguire le operazioni nell'ordine di richiesta,
+     * anche se un'operazione fallisce.
+     * */
+    @Test
+    void testSequentialOrder() throws Exception {
+        Executor lane = BlockingTasks.sequential(BlockingTasks.disk());
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int value = i;
+            tasks.add(CompletableFuture.runAsync(() -> {
+                order.add(value);
+                if (value % 50 == 0) throw new IllegalStateException("Operazione " + value);
+            }, lane));
+        }
+        for (CompletableFuture<Void> task : tasks) task.handle((ignored, ex) -> null).get(30, TimeUnit.SECONDS);
+        assertEquals(200, order.size());
+        for (int i = 0; i < order.size(); i++) assertEquals(i, order.get(i).intValue());
+        assertTrue(tasks.get(50).isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,51 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/*
+ * Memoria allocata dall'ordinamento di un catalogo di 500.000 libri, con e senza la chiave di ordinamento precalcolata.
+ * Escluso dalla build ordinaria, si esegue con: mvn test -Pbenchmark -Dtest=BookBenchmark
+ * */
+@Tag("benchmark")
+class BookBenchmark {
+
+    //Ordinare per chiave precalcolata non deve allocare stringhe ad ogni confronto (catalogo di 500k libri)
+    @Test
+    void sortKeyAllocation() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().getId();
+
+        List<Book> catalogue = new ArrayList<>();
+        for (int i = 0; i < 500_000; i++) {
+            List<String> authors = Arrays.asList("Autore " + (i % 1000), "Coautore " + (i % 7));
+            catalogue.add(new Book("Titolo " + (i % 5000), authors, Long.toString(1_000_000_000_000L + i), 2000, 1));
+        }
+
+        List<Book> joined = new ArrayList<>(catalogue);
+        long start = threads.getThreadAllocatedBytes(threadId);
+        joined.sort(Comparator.comparing(Book::getTitle).thenComparing(book -> String.join(", ", book.getAuthors())));
+        long joinedBytes = threads.getThreadAllocatedBytes(threadId) - start;
+
+        List<Book> cached = new ArrayList<>(catalogue);
+        start = threads.getThreadAllocatedBytes(threadId);
+        cached.sort(Comparator.comparing(Book::getSortKey));
+        long cachedBytes = threads.getThreadAllocatedBytes(threadId) - start;
+
+        System.out.printf("%nOrdinamento di 500.000 libri: %,d byte con la chiave precalcolata, %,d con la concatenazione%n",
+                cachedBytes, joinedBytes);
+        assertEquals(joined, cached);
+        assertTrue(cachedBytes * 10 < joinedBytes, "Allocati " + cachedBytes + " byte contro " + joinedBytes);
+    }
+}
@@ -4,7 +4,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -98,6 +104,32 @@ class BookRegisterTest {
     }
 
 
+    /*
+    * Il metodo "findById()" deve restituire il libro avente il bookId specificato, null se non è presente nel catalogo.
+    * */
+    @Test
+    void testFindById() {
+        bookRegister.add(book1);
+        bookRegister.add(book2);
+
+        assertSame(book2, bookRegister.findById(book2.getBookId()));
+        assertNull(bookRegister.findById(book3.getBookId()));
+    }
+
+    /*
+    * Il metodo "modifyById()" deve aggiornare gli attributi modificabili del libro avente il bookId specificato,
+    * restituendo false se il libro non è presente nel catalogo.
+    * */
+    @Test
+    void testModifyById() {
+        bookRegister.add(book2);
+
+        assertTrue(bookRegister.modifyById(book2.getBookId(), book3));
+        assertEquals(book3.getTitle(), book2.getTitle());
+        assertEquals(book3.getAuthors(), book2.getAuthors());
+        assertFalse(bookRegister.modifyById(book4.getBookId(), book3));
+    }
+
     /*
     * Il metodo remove() deve garantire che, dato un parametro 'toRemove' presente nel catalogo, quest'ultimo
     * non risulti più presente nel catalogo al termine dell'operazione.
@@ -160,4 +192,155 @@ class BookRegisterTest {
         assertEquals(list.get(4), book8);
         assertEquals(list.get(5), book2);
     }
-}
\ No newline at end of file
+
+    /*
+    * La lista restituita da getRegisterList() deve essere una vista in sola lettura che resta ordinata
+    * dopo aggiunte, modifiche e rimozioni.
+    * */
+    @Test
+    void testGetValuesListStaysSorted() {
+        bookRegister.add(book1);
+        bookRegister.add(book2);
+        bookRegister.add(book4);
+        List<Book> list = bookRegister.getRegisterList();
+        assertThrows(UnsupportedOperationException.class, () -> list.add(book3));
+
+        bookRegister.modify(book2, book6);
+        assertEquals(book2, list.get(0));
+        assertEquals(book4, list.get(1));
+
+        bookRegister.remove(book4);
+        bookRegister.add(book5);
+        assertEquals(3, list.size());
+        assertEquals(book2, list.get(0));
+        assertEquals(book5, list.get(1));
+        assertEquals(book1, list.get(2));
+    }
+
+    /*
+    * Le operazioni di gruppo devono lasciare la vista ordinata, sia quando coinvolgono pochi libri (aggiornamento
+    * elemento per elemento) sia quando ne coinvolgono molti (ricostruzione), notificando gli osservatori una sola volta.
+    * */
+    @Test
+    void testBatchOperations() {
+        List<String> authors = new ArrayList<>(); authors.add("Mario Rossi");
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 2000; i++)
+            books.add(new Book("Libro " + (i * 7919 % 2000), authors, Long.toString(1_000_000_000_000L + i), 2000, 1));
+        Collections.shuffle(books, new Random(1));
+        List<Integer> notifications = new ArrayList<>();
+        bookRegister.addListener(new RegisterListener<Book>() {
+            @Override public void added(Book item) { fail("Notifica singola inattesa"); }
+            @Override public void modified(Book item) { fail("Notifica singola inattesa"); }
+            @Override public void removed(Book item) { fail("Notifica singola inattesa"); }
+            @Override public void addedAll(Collection<? extends Book> items) { notifications.add(items.size()); }
+            @Override public void modifiedAll(Collection<? extends Book> items) { notifications.add(items.size()); }
+            @Override public void removedAll(Collection<? extends Book> items) { notifications.add(-items.size()); }
+        });
+
+        bookRegister.addAll(books.subList(0, 1500));
+        bookRegister.addAll(books.subList(1500, 1510));
+        bookRegister.addAll(books.subList(1510, 2000));
+        assertEquals(2000, bookRegister.getRegisterList().size());
+        assertSorted(bookRegister.getRegisterList());
+
+        Map<String, Book> changes = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            String id = Long.toString(1_000_000_000_000L + i);
+            changes.put(id, new Book("Aggiornato " + i, authors, id, 2001, 3));
+        }
+        changes.put("9999999999999", new Book("Assente", authors, "9999999999999", 2001, 3));
+        assertEquals(20, bookRegister.modifyAll(changes));
+        assertEquals("Aggiornato 0", bookRegister.getRegisterList().get(0).getTitle());
+        assertSorted(bookRegister.getRegisterList());
+        assertEquals(20, bookRegister.search("aggiornato").size());
+
+        assertEquals(1000, bookRegister.removeIf(book -> Long.parseLong(book.getBookId()) % 2 == 0));
+        bookRegister.removeAll(books.subList(0, 50));
+        int remaining = bookRegister.getRegisterList().size();
+        assertTrue(remaining < 1000);
+        for (Book book : books.subList(0, 50)) assertNull(bookRegister.findById(book.getBookId()));
+        assertSorted(bookRegister.getRegisterList());
+        assertEquals(remaining, bookRegister.search("").size());
+        assertEquals(Arrays.asList(1500, 10, 490, 20, -1000, remaining - 1000), notifications);
+    }
+
+    private static void assertSorted(List<Book> list) {
+        for (int i = 1; i < list.size(); i++) {
+            Book previous = list.get(i - 1), current = list.get(i);
+            int cmp = previous.getSortKey().compareTo(current.getSortKey());
+            assertTrue(cmp < 0 || cmp == 0 && previous.getBookId().compareTo(current.getBookId()) < 0);
+        }
+    }
+
+    /*
+    * Il metodo search() deve restituire, nell'ordine di visualizzazione, i libri le cui parole di Titolo, Autori
+    * o ISBN iniziano con quelle della query, anche dopo modifiche e rimozioni.
+    * */
+    @Test
+    void testSearch() {
+        bookRegister.add(book1);
+        bookRegister.add(book4);
+        bookRegister.add(book5);
+        bookRegister.add(book7);
+
+        assertEquals(4, bookRegister.search("").size());
+        List<Book> result = bookRegister.search("libro");
+        assertEquals(3, result.size());
+        assertEquals(book4, result.get(0));
+        assertEquals(book7, result.get(1));
+        assertEquals(book1, result.get(2));
+
+        assertEquals(1, bookRegister.search("altro galluc").size());
+        assertEquals(book5, bookRegister.search("11011").get(0));
+
+        bookRegister.modify(book5, book6);
+        assertTrue(bookRegister.search("rossi").isEmpty());
+        assertEquals(book5, bookRegister.search("casuale").get(0));
+
+        bookRegister.remove(book7);
+        assertEquals(2, bookRegister.search("libro").size());
+        assertThrows(UnsupportedOperationException.class, () -> bookRegister.getRegisterList().add(book8));
+        bookRegister.search("").add(book8);
+        assertEquals(3, bookRegister.getRegisterList().size());
+    }
+
+    /*
+    * Il metodo search() con candidati deve restringere il risultato di una query più corta, mantenendone l'ordine
+    * ed escludendo i libri rimossi; getModificationCount() deve cambiare ad ogni modifica del catalogo.
+    * */
+    @Test
+    void testSearchWithinCandidates() {
+        bookRegister.add(book1);
+        bookRegister.add(book2);
+        bookRegister.add(book4);
+        bookRegister.add(book7);
+
+        List<Book> previous = bookRegister.search("libro");
+        assertEquals(3, previous.size());
+        List<Book> refined = bookRegister.search("libro n", previous);
+        assertEquals(2, refined.size());
+        assertEquals(book7, refined.get(0));
+        assertEquals(book1, refined.get(1));
+
+        long count = bookRegister.getModificationCount();
+        bookRegister.remove(book7);
+        assertNotEquals(count, bookRegister.getModificationCount());
+        assertEquals(1, bookRegister.search("libro n", previous).size());
+    }
+
+    /*
+    * Su un catalogo con molti titoli simili, la ricerca per ISBN deve trovare il solo libro corrispondente e una
+    * parola numerica deve corrispondere ai titoli che iniziano con essa.
+    * */
+    @Test
+    void testSearchOnLargeCatalogue() {
+        List<String> authors = new ArrayList<>(); authors.add("Autore Casuale");
+        for (int i = 0; i < 20_000; i++)
+            bookRegister.add(new Book("Volume " + i, authors, String.format("%013d", i), 2000, 1));
+
+        for (int i = 0; i < 100; i++)
+            assertEquals(1, bookRegister.search(String.format("%013d", i * 199)).size());
+        assertEquals(11, bookRegister.search("volume 1999").size());
+    }
+}
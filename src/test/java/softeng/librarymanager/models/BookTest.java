@@ -2,7 +2,11 @@ package softeng.librarymanager.models;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -73,6 +77,40 @@ class BookTest {
         assertEquals(validBookId, book.getBookId()); // non cambia
     }
 
+    //Le chiavi di ordinamento e ricerca sono calcolate una volta sola e ricalcolate da copy()
+    @Test
+    void testKeys() {
+        List<String> authors = new ArrayList<>(Arrays.asList("Giovanni Verga", "Luigi Capuana"));
+        Book book = new Book(validTitle, authors, validBookId, validPublishmentYear, validAvailableCopies);
+
+        assertEquals("Giovanni Verga, Luigi Capuana", book.getAuthorsText());
+        assertSame(book.getSortKey(), book.getSortKey());
+        assertTrue(book.getSearchKey().contains("la roba"));
+        assertTrue(book.getSearchKey().contains("luigi capuana"));
+        assertTrue(book.getSearchKey().contains(validBookId));
+
+        book.copy(new Book("Mastro-don Gesualdo", otherAuthors, "9876543210987", 1889, 1));
+        assertEquals("Dante Alighieri", book.getAuthorsText());
+        assertTrue(book.getSearchKey().contains("mastro-don"));
+        assertFalse(book.getSearchKey().contains("la roba"));
+    }
+
+    //Ordinare per chiave precalcolata deve produrre lo stesso ordine di Titolo e Autori concatenati
+    @Test
+    void testSortKeyOrder() {
+        List<Book> catalogue = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            List<String> authors = Arrays.asList("Autore " + (i % 100), "Coautore " + (i % 7));
+            catalogue.add(new Book("Titolo " + (i % 50), authors, Long.toString(1_000_000_000_000L + i), 2000, 1));
+        }
+
+        List<Book> joined = new ArrayList<>(catalogue);
+        joined.sort(Comparator.comparing(Book::getTitle).thenComparing(book -> String.join(", ", book.getAuthors())));
+        List<Book> cached = new ArrayList<>(catalogue);
+        cached.sort(Comparator.comparing(Book::getSortKey));
+        assertEquals(joined, cached);
+    }
+
     @Test
     void testCompareTo() {
         Book book = new Book(validTitle, validAuthors, validBookId, validPublishmentYear, validAvailableCopies);
@@ -126,4 +164,48 @@ class BookTest {
         Book book1 = new Book(validTitle, validAuthors, validBookId, validPublishmentYear, 0);
         assertFalse(book1.isAvailableForLoan());
     }
+
+    /*
+     * Più thread che riservano copie dello stesso libro non devono riservarne più di quelle disponibili, né portare
+     * il numero di copie sotto zero; le copie rilasciate tornano disponibili.
+     * */
+    @Test
+    void testTryReserveCopy() throws Exception {
+        Book book = new Book(validTitle, validAuthors, validBookId, validPublishmentYear, validAvailableCopies);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicBoolean negative = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (book.tryReserveCopy()) {
+                        reserved.incrementAndGet();
+                        if (i % 2 == 0) {
+                            book.releaseCopy();
+                            reserved.decrementAndGet();
+                        }
+                    }
+                    if (book.getAvailableCopies() < 0) negative.set(true);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+
+        assertFalse(negative.get());
+        assertEquals(validAvailableCopies, book.getAvailableCopies() + reserved.get());
+        while (book.tryReserveCopy()) reserved.incrementAndGet();
+        assertEquals(validAvailableCopies, reserved.get());
+        assertFalse(book.isAvailableForLoan());
+        book.releaseCopy();
+        assertEquals(1, book.getAvailableCopies());
+    }
 }
@@ -0,0 +1,67 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Tempo di importazione di un file CSV di studenti e di libri, con una riga non valida ogni cento.
+ * Escluso dalla build ordinaria, si esegue con: mvn test -Pbenchmark -Dtest=ImportBenchmark
+ * Il numero di righe di ciascun file si imposta con -Dbenchmark.records (predefinito 1.000.000).
+ * */
+@Tag("benchmark")
+class ImportBenchmark {
+
+    @Test
+    void importCsv() throws Exception {
+        int records = Integer.getInteger("benchmark.records", 1_000_000);
+        Path students = Files.createTempFile("studenti", ".csv");
+        Path books = Files.createTempFile("libri", ".csv");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(students, StandardCharsets.UTF_8)) {
+                out.write("nome,cognome,matricola,email\n");
+                for (int i = 0; i < records; i++) {
+                    String email = i % 100 == 99 ? "studente" + i + "@gmail.com" : "studente" + i + "@studenti.unisa.it";
+                    out.write(String.format("Nome %d,\"Cognome, %d\",%010d,%s%n", i, i, i, email));
+                }
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(books, StandardCharsets.UTF_8)) {
+                out.write("titolo,autori,isbn,anno,copie\n");
+                for (int i = 0; i < records; i++) {
+                    String year = i % 100 == 99 ? "sconosciuto" : Integer.toString(1900 + i % 120);
+                    out.write(String.format("Titolo %d,Autore %d;Coautore %d,%013d,%s,%d%n", i, i % 1000, i % 77, i, year, i % 5));
+                }
+            }
+
+            System.out.printf("%n%,d righe per file%n", records);
+            System.out.printf("%-10s %12s %12s %12s %14s%n", "registro", "tempo", "importati", "scartati", "righe/s");
+
+            long start = System.nanoTime();
+            RegisterImporter.Result result = RegisterImporter.forStudents(new StudentRegister())
+                    .importFile(students, RegisterImporter.rejectsFile(students));
+            report("studenti", System.nanoTime() - start, result);
+            assertEquals(records / 100, result.getRejected());
+
+            start = System.nanoTime();
+            result = RegisterImporter.forBooks(new BookRegister()).importFile(books, RegisterImporter.rejectsFile(books));
+            report("libri", System.nanoTime() - start, result);
+            assertEquals(records / 100, result.getRejected());
+        } finally {
+            Files.deleteIfExists(RegisterImporter.rejectsFile(students));
+            Files.deleteIfExists(RegisterImporter.rejectsFile(books));
+            Files.deleteIfExists(students);
+            Files.deleteIfExists(books);
+        }
+    }
+
+    private static void report(String name, long nanos, RegisterImporter.Result result) {
+        System.out.printf("%-10s %9d ms %,12d %,12d %,14d%n", name, nanos / 1_000_000, result.getImported(), result.getRejected(),
+                result.getRows() * 1_000_000_000L / Math.max(1, nanos));
+    }
+}
@@ -0,0 +1,195 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import softeng.librarymanager.controllers.ResultActions;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryIOManagerTest {
+
+    @TempDir
+    Path directory;
+
+    private LibraryIOManager manager;
+    private int failures;
+
+    @BeforeEach
+    void setUp() {
+        failures = 0;
+        manager = new LibraryIOManager(new ResultActions() {
+            @Override public void success() { }
+            @Override public void failure() { failures++; }
+        });
+    }
+
+    /*
+     * Il salvataggio asincrono deve scrivere lo stato della biblioteca al momento della richiesta, mentre le
+     * modifiche successive vengono registrate nel journal; il caricamento asincrono le deve recuperare entrambe.
+     * Le notifiche di avanzamento devono riportare tutti i record e i byte del file.
+     * */
+    @Test
+    void testAsyncSaveAndLoad() throws Exception {
+        Library library = SnapshotBenchmark.createLibrary(20_000);
+        Path file = directory.resolve("biblioteca.lms");
+        AtomicLong savedRecords = new AtomicLong(), savedBytes = new AtomicLong();
+
+        CompletableFuture<Void> save = manager.saveLibraryAsync(library, file.toString(), (bytes, records) -> {
+            savedBytes.set(bytes);
+            savedRecords.set(records);
+        });
+        // La biblioteca resta modificabile mentre il salvataggio è in corso
+        library.getStudentRegister().add(new Student("Natale", "Affinita", "9999999999", "n.affinita@studenti.unisa.it"));
+        save.get();
+
+        assertEquals(20_000, savedRecords.get());
+        assertEquals(Files.size(file), savedBytes.get());
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            assertNull(new SnapshotReader(in).read().getStudentRegister().findById("9999999999"));
+        }
+
+        manager.closeLibrary();
+        AtomicLong loadedRecords = new AtomicLong();
+        Library loaded = manager.loadLibraryAsync(file.toString(), (bytes, records) -> loadedRecords.set(records)).get();
+        assertEquals(20_000, loadedRecords.get());
+        assertNotNull(loaded.getStudentRegister().findById("9999999999"));
+        assertEquals(library.getLoanRegister().getRegisterList().size(), loaded.getLoanRegister().getRegisterList().size());
+        manager.closeLibrary();
+    }
+
+    /*
+     * Con ogni codec registrato il file deve iniziare con la firma corrispondente e ricaricarsi identico;
+     * le modifiche registrate nel journal devono essere rieseguite anche su uno snapshot compresso.
+     * */
+    @Test
+    void testCompressedSaveAndLoad() throws Exception {
+        Library library = SnapshotBenchmark.createLibrary(5_000);
+        int loans = library.getLoanRegister().getRegisterList().size();
+        for (CompressionCodec codec : Codecs.all()) {
+            Path file = directory.resolve(codec.getName() + ".lms");
+            manager.setCodec(codec);
+            manager.saveLibraryAsync(library, file.toString(), null).get();
+            manager.closeLibrary();
+
+            byte[] magic = Arrays.copyOf(Files.readAllBytes(file), 4);
+            assertArrayEquals(codec == Codecs.NONE ? SnapshotFormat.MAGIC : Codecs.MAGIC, magic);
+
+            Library loaded = manager.loadLibrary(file.toString());
+            assertEquals(loans, loaded.getLoanRegister().getRegisterList().size());
+            loaded.getStudentRegister().add(new Student("Natale", "Affinita", "9999999999", "n.affinita@studenti.unisa.it"));
+            manager.saveLibrary(loaded, file.toString());
+            manager.closeLibrary();
+            assertNotNull(manager.loadLibrary(file.toString()).getStudentRegister().findById("9999999999"));
+            manager.closeLibrary();
+        }
+        assertEquals(0, failures);
+    }
+
+    /*
+     * Un codec esterno registrato deve essere riconosciuto in caricamento tramite il suo identificativo,
+     * e un file compresso esternamente con gzip deve essere caricato come un file non compresso.
+     * */
+    @Test
+    void testCustomCodecAndExternalGzip() throws Exception {
+        CompressionCodec xor = new CompressionCodec() {
+            @Override public int getId() { return 200; }
+            @Override public String getName() { return "xor"; }
+            @Override public OutputStream compress(OutputStream out) {
+                return new FilterOutputStream(out) {
+                    @Override public void write(int b) throws IOException { out.write(b ^ 0x5A); }
+                };
+            }
+            @Override public InputStream decompress(InputStream in) {
+                return new FilterInputStream(in) {
+                    @Override public int read() throws IOException {
+                        int b = in.read();
+                        return b < 0 ? b : b ^ 0x5A;
+                    }
+                    @Override public int read(byte[] b, int off, int len) throws IOException {
+                        int n = in.read(b, off, len);
+                        for (int i = 0; i < n; i++) b[off + i] ^= 0x5A;
+                        return n;
+                    }
+                };
+            }
+        };
+        Codecs.register(xor);
+        assertSame(xor, Codecs.forName("xor"));
+
+        Library library = SnapshotBenchmark.createLibrary(1_000);
+        Path file = directory.resolve("xor.lms");
+        manager.setCodec(xor);
+        manager.saveLibrary(library, file.toString());
+        manager.closeLibrary();
+        assertEquals(library.getBookRegister().getRegisterList().size(),
+                manager.loadLibrary(file.toString()).getBookRegister().getRegisterList().size());
+        manager.closeLibrary();
+        assertThrows(IOException.class, () -> MappedLibraryFile.open(file));
+
+        Path plain = directory.resolve("plain.lms");
+        Path gzip = directory.resolve("backup.lms.gz");
+        try (OutputStream out = Files.newOutputStream(plain)) {
+            new SnapshotWriter(out).write(library);
+        }
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            Files.copy(plain, out);
+        }
+        assertEquals(library.getStudentRegister().getRegisterList().size(),
+                manager.loadLibrary(gzip.toString()).getStudentRegister().getRegisterList().size());
+        manager.closeLibrary();
+        assertEquals(0, failures);
+    }
+
+    /*
+     * Un file inesistente deve completare il future con un'eccezione, mentre la versione sincrona
+     * deve invocare il metodo failure.
+     * */
+    @Test
+    void testLoadFailure() {
+        String missing = directory.resolve("mancante.lms").toString();
+        assertThrows(ExecutionException.class, () -> manager.loadLibraryAsync(missing, null).get());
+        assertNull(manager.loadLibrary(missing));
+        assertEquals(1, failures);
+    }
+
+    /*
+     * Se l'apertura di un altro file fallisce, le modifiche della biblioteca aperta devono continuare a essere
+     * registrate nel suo journal; dopo un'apertura riuscita, il journal precedente non deve registrarle più.
+     * */
+    @Test
+    void testFailedLoadKeepsJournal() throws Exception {
+        Library library = SnapshotBenchmark.createLibrary(100);
+        Path file = directory.resolve("biblioteca.lms");
+        manager.saveLibraryAsync(library, file.toString(), null).get();
+
+        String missing = directory.resolve("mancante.lms").toString();
+        assertThrows(ExecutionException.class, () -> manager.loadLibraryAsync(missing, null).get());
+        library.getStudentRegister().add(new Student("Natale", "Affinita", "9999999999", "n.affinita@studenti.unisa.it"));
+        manager.closeLibrary().get();
+        assertNotNull(LibraryJournal.read(file, null).getStudentRegister().findById("9999999999"));
+
+        Path other = directory.resolve("altra.lms");
+        Library empty = new Library();
+        manager.saveLibraryAsync(empty, other.toString(), null).get();
+        manager.loadLibraryAsync(file.toString(), null).get();
+        empty.getStudentRegister().add(new Student("Hermann", "Galluccio", "8888888888", "h.galluccio@studenti.unisa.it"));
+        manager.closeLibrary().get();
+        assertTrue(LibraryJournal.read(other, null).getStudentRegister().getRegisterList().isEmpty());
+        assertEquals(0, failures);
+    }
+}
@@ -0,0 +1,324 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private Library library;
+    private Student student;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("biblioteca.lms");
+        library = new Library();
+        student = new Student("Niccolò", "Acerra", "0000000001", "n.acerra@studenti.unisa.it");
+        List<String> authors = new ArrayList<>(); authors.add("Italo Calvino");
+        book = new Book("Perché leggere i classici", authors, "0000000000001", 1991, 3);
+        library.getStudentRegister().add(student);
+        library.getBookRegister().add(book);
+    }
+
+    /*
+     * Le modifiche eseguite dopo il salvataggio iniziale devono essere registrate nel journal, senza riscrivere
+     * lo snapshot, e rieseguite alla riapertura del file.
+     * */
+    @Test
+    void testReplay() throws IOException {
+        LibraryJournal journal = LibraryJournal.create(library, file);
+        long snapshotSize = Files.size(file);
+        byte[] snapshot = Files.readAllBytes(file);
+
+        Student other = new Student("Natale", "Affinita", "0000000002", "n.affinita@studenti.unisa.it");
+        library.getStudentRegister().add(other);
+        library.getStudentRegister().modify(student, new Student("Nicola", "Acerra", "0000000001", "n.acerra@studenti.unisa.it"));
+        Loan active = new Loan(student, book, LocalDate.of(2026, 1, 15));
+        Loan returned = new Loan(other, book, LocalDate.of(2026, 2, 1));
+        library.getLoanRegister().add(active);
+        library.getLoanRegister().add(returned);
+        library.getLoanRegister().modify(active, new Loan(student, book, LocalDate.of(2026, 3, 1)));
+        returned.returnLoan();
+        Loan removed = new Loan(other, book, LocalDate.of(2026, 4, 1));
+        library.getLoanRegister().add(removed);
+        library.getLoanRegister().remove(removed);
+        journal.sync();
+        journal.close();
+
+        // Il salvataggio non ha riscritto lo snapshot
+        assertEquals(snapshotSize, Files.size(file));
+        assertArrayEquals(snapshot, Files.readAllBytes(file));
+
+        LibraryJournal reopened = LibraryJournal.open(file);
+        Library loaded = reopened.getLibrary();
+        Student loadedStudent = loaded.getStudentRegister().findById("0000000001");
+        assertEquals("Nicola", loadedStudent.getName());
+        assertEquals(2, loaded.getStudentRegister().getRegisterList().size());
+        assertEquals(2, loaded.getBookRegister().findById(book.getBookId()).getAvailableCopies());
+        assertEquals(2, loaded.getLoanRegister().getRegisterList().size());
+
+        Loan loadedActive = loaded.getLoanRegister().findById(active.getLoanId().toString());
+        assertEquals(LocalDate.of(2026, 3, 1), loadedActive.getLoanEnd());
+        assertFalse(loadedActive.isReturned());
+        assertEquals(1, loadedStudent.getActiveLoans().size());
+        assertTrue(loaded.getLoanRegister().findById(returned.getLoanId().toString()).isReturned());
+        assertNull(loaded.getLoanRegister().findById(removed.getLoanId().toString()));
+
+        // Le modifiche successive alla riapertura finiscono in una nuova generazione
+        loaded.getBookRegister().remove(loaded.getBookRegister().findById(book.getBookId()));
+        reopened.close();
+        assertNull(LibraryJournal.open(file).getLibrary().getBookRegister().findById(book.getBookId()));
+    }
+
+    /*
+     * Un record scritto solo in parte (es. interruzione durante la scrittura) deve essere scartato,
+     * conservando tutti i record precedenti.
+     * */
+    @Test
+    void testTornRecord() throws IOException {
+        LibraryJournal journal = LibraryJournal.create(library, file);
+        library.getStudentRegister().add(new Student("Natale", "Affinita", "0000000002", "n.affinita@studenti.unisa.it"));
+        library.getStudentRegister().add(new Student("Jakub", "Cwiertka", "0000000003", "j.cwiertka@studenti.unisa.it"));
+        journal.close();
+
+        Path journalFile = LibraryJournal.journalFile(file, journal.getGeneration());
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        Library loaded = LibraryJournal.open(file).getLibrary();
+        assertNotNull(loaded.getStudentRegister().findById("0000000002"));
+        assertNull(loaded.getStudentRegister().findById("0000000003"));
+    }
+
+    /*
+     * Una coda di byte casuali la cui lunghezza dichiarata supera la fine del file (qui quasi 2 GB) deve
+     * interrompere la riesecuzione come un record danneggiato, senza tentare di allocare il record.
+     * */
+    @Test
+    void testGarbageTail() throws IOException {
+        LibraryJournal journal = LibraryJournal.create(library, file);
+        library.getStudentRegister().add(new Student("Natale", "Affinita", "0000000002", "n.affinita@studenti.unisa.it"));
+        journal.close();
+
+        Path journalFile = LibraryJournal.journalFile(file, journal.getGeneration());
+        byte[] garbage = {(byte) 0xF0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0x12, 0x34, 0x56, 0x78, 0x01};
+        Files.write(journalFile, garbage, StandardOpenOption.APPEND);
+
+        Library loaded = LibraryJournal.open(file).getLibrary();
+        assertNotNull(loaded.getStudentRegister().findById("0000000002"));
+        assertEquals(2, loaded.getStudentRegister().getRegisterList().size());
+    }
+
+    /*
+     * Ogni operazione di gruppo deve essere registrata come un unico record, rieseguito per intero alla riapertura:
+     * se il record è incompleto nessuna delle sue modifiche deve essere applicata.
+     * */
+    @Test
+    void testBatchRecords() throws IOException {
+        LibraryJournal journal = LibraryJournal.create(library, file);
+        Student other = new Student("Natale", "Affinita", "0000000002", "n.affinita@studenti.unisa.it");
+        library.getStudentRegister().addAll(Arrays.asList(other,
+                new Student("Jakub", "Cwiertka", "0000000003", "j.cwiertka@studenti.unisa.it")));
+        Loan first = new Loan(student, book, LocalDate.of(2026, 1, 15));
+        Loan second = new Loan(other, book, LocalDate.of(2026, 2, 1));
+        library.getLoanRegister().addAll(Arrays.asList(first, second));
+        Map<String, Loan> changes = new HashMap<>();
+        changes.put(first.getLoanId().toString(), new Loan(first.getLoanId(), student, book, LocalDate.of(2026, 3, 1), true));
+        library.getLoanRegister().modifyAll(changes);
+        library.getLoanRegister().removeIf(Loan::isReturned);
+        journal.sync();
+        long size = Files.size(LibraryJournal.journalFile(file, journal.getGeneration()));
+
+        Map<String, Student> renamed = new HashMap<>();
+        renamed.put("0000000002", new Student("Nicola", "Affinita", "0000000002", "n.affinita@studenti.unisa.it"));
+        renamed.put("0000000003", new Student("Luca", "Cwiertka", "0000000003", "j.cwiertka@studenti.unisa.it"));
+        library.getStudentRegister().modifyAll(renamed);
+        journal.close();
+
+        Library loaded = LibraryJournal.open(file).getLibrary();
+        assertEquals(3, loaded.getStudentRegister().getRegisterList().size());
+        assertEquals("Luca", loaded.getStudentRegister().findById("0000000003").getName());
+        assertEquals(1, loaded.getLoanRegister().getRegisterList().size());
+        assertNotNull(loaded.getLoanRegister().findById(second.getLoanId().toString()));
+        assertEquals(2, loaded.getBookRegister().findById(book.getBookId()).getAvailableCopies());
+
+        // Ultimo gruppo scritto solo in parte: nessuna delle due modifiche viene applicata
+        Path journalFile = LibraryJournal.journalFile(file, journal.getGeneration());
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+        assertTrue(Files.size(journalFile) > size);
+        loaded = LibraryJournal.open(file).getLibrary();
+        assertEquals("Natale", loaded.getStudentRegister().findById("0000000002").getName());
+        assertEquals("Jakub", loaded.getStudentRegister().findById("0000000003").getName());
+    }
+
+    /*
+     * Un checkpoint deve incorporare i journal in un nuovo snapshot ed eliminarli, mentre le modifiche
+     * successive continuano a essere registrate nella nuova generazione.
+     * */
+    @Test
+    void testCheckpoint() throws Exception {
+        LibraryJournal journal = LibraryJournal.create(library, file);
+        long before = journal.getGeneration();
+        library.getLoanRegister().add(new Loan(student, book, LocalDate.of(2026, 1, 15)));
+        journal.checkpoint().get();
+        assertEquals(Arrays.asList(before + 1), LibraryJournal.journalGenerations(file));
+
+        library.getStudentRegister().add(new Student("Natale", "Affinita", "0000000002", "n.affinita@studenti.unisa.it"));
+        journal.close();
+
+        Library loaded = LibraryJournal.open(file).getLibrary();
+        assertEquals(1, loaded.getLoanRegister().getRegisterList().size());
+        assertEquals(2, loaded.getBookRegister().findById(book.getBookId()).getAvailableCopies());
+        assertEquals(2, loaded.getStudentRegister().getRegisterList().size());
+    }
+
+    /*
+     * Un nuovo salvataggio sullo stesso percorso deve ignorare i journal di una biblioteca precedente.
+     * */
+    @Test
+    void testCreateDiscardsOldJournals() throws IOException {
+        LibraryJournal journal = LibraryJournal.create(library, file);
+        library.getStudentRegister().add(new Student("Natale", "Affinita", "0000000002", "n.affinita@studenti.unisa.it"));
+        journal.close();
+
+        LibraryJournal.create(new Library(), file).close();
+        assertTrue(LibraryJournal.open(file).getLibrary().getStudentRegister().getRegisterList().isEmpty());
+    }
+
+    /*
+     * Ogni checkpoint deve conservare lo snapshot sostituito come copia di sicurezza, fino al numero impostato,
+     * senza lasciare file temporanei; le copie devono essere snapshot validi delle versioni precedenti.
+     * */
+    @Test
+    void testBackups() throws Exception {
+        LibraryJournal journal = LibraryJournal.create(library, file);
+        journal.setBackups(2);
+        for (int i = 2; i <= 4; i++) {
+            library.getStudentRegister().add(new Student("Nome", "Cognome", String.format("%010d", i), "s" + i + "@studenti.unisa.it"));
+            journal.checkpoint().get();
+        }
+        journal.close();
+
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+        assertFalse(Files.exists(LibraryJournal.backupFile(file, 3)));
+        assertEquals(4, LibraryJournal.open(file).getLibrary().getStudentRegister().getRegisterList().size());
+        assertEquals(3, LibraryJournal.open(LibraryJournal.backupFile(file, 1)).getLibrary().getStudentRegister().getRegisterList().size());
+        assertEquals(2, LibraryJournal.open(LibraryJournal.backupFile(file, 2)).getLibrary().getStudentRegister().getRegisterList().size());
+    }
+
+    /*
+     * Modifiche concorrenti di studenti e prestiti devono poter avviare checkpoint automatici senza stalli, e la
+     * biblioteca riaperta deve contenerle tutte.
+     * */
+    @Test
+    void testConcurrentModificationsWithAutomaticCheckpoints() throws Exception {
+        LibraryJournal journal = LibraryJournal.create(library, file);
+        journal.setCheckpointThreshold(512);
+        AtomicBoolean failed = new AtomicBoolean();
+        Thread students = new Thread(() -> {
+            try {
+                for (int i = 2; i <= 301; i++)
+                    library.getStudentRegister().add(new Student("Nome", "Cognome", String.format("%010d", i), "s" + i + "@studenti.unisa.it"));
+            } catch (RuntimeException ex) {
+                failed.set(true);
+            }
+        });
+        Thread loans = new Thread(() -> {
+            try {
+                for (int i = 0; i < 300; i++) {
+                    Loan loan = new Loan(student, book, LocalDate.of(2026, 1, 15).plusDays(i));
+                    library.getLoanRegister().add(loan);
+                    loan.returnLoan();
+                }
+            } catch (RuntimeException ex) {
+                failed.set(true);
+            }
+        });
+        students.start();
+        loans.start();
+        students.join(30_000);
+        loans.join(30_000);
+        assertFalse(students.isAlive() || loans.isAlive(), "Stallo tra le modifiche e il checkpoint automatico");
+        assertFalse(failed.get());
+        journal.sync();
+        journal.close();
+        assertTrue(journal.getGeneration() > 1);
+
+        Library loaded = LibraryJournal.open(file).getLibrary();
+        assertEquals(301, loaded.getStudentRegister().getRegisterList().size());
+        assertEquals(300, loaded.getLoanRegister().getRegisterList().size());
+        assertEquals(3, loaded.getBookRegister().findById(book.getBookId()).getAvailableCopies());
+    }
+
+    /*
+     * Uno snapshot danneggiato deve essere rifiutato dal controllo del checksum, anche se ancora decodificabile.
+     * */
+    @Test
+    void testCorruptedSnapshot() throws IOException {
+        LibraryJournal.create(library, file).close();
+        byte[] bytes = Files.readAllBytes(file);
+        int position = new String(bytes, java.nio.charset.StandardCharsets.ISO_8859_1).indexOf("Calvino");
+        bytes[position] = 'K';
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> LibraryJournal.open(file));
+    }
+
+    /*
+     * Una biblioteca salvata dalla prima versione con la serializzazione Java (.obj) deve essere caricata con
+     * i suoi prestiti e, dopo il primo salvataggio, riscritta in formato snapshot.
+     * */
+    @Test
+    void testBaselineObjectFile() throws Exception {
+        Path legacy = directory.resolve("biblioteca.obj");
+        try (InputStream in = getClass().getResourceAsStream("baseline-library.obj")) {
+            Files.copy(in, legacy);
+        }
+
+        LibraryJournal journal = LibraryJournal.open(legacy);
+        Library loaded = journal.getLibrary();
+        assertEquals(2, loaded.getStudentRegister().getRegisterList().size());
+        assertEquals(2, loaded.getBookRegister().getRegisterList().size());
+        assertEquals(2, loaded.getLoanRegister().getRegisterList().size());
+
+        Student mario = loaded.getStudentRegister().findById("0000000001");
+        Book roba = loaded.getBookRegister().findById("0000000000001");
+        assertEquals(1, roba.getAvailableCopies());
+        assertEquals(1, loaded.getBookRegister().findById("0000000000002").getAvailableCopies());
+        assertEquals(1, mario.getActiveLoans().size());
+        assertSame(roba, mario.getActiveLoans().get(0).getBook());
+        LoanRegister loans = (LoanRegister) loaded.getLoanRegister();
+        assertEquals(1, loans.countActiveLoansOfStudent("0000000001"));
+        assertEquals(0, loans.countActiveLoansOfStudent("0000000002"));
+        assertEquals(1, loaded.getBookRegister().search("verga").size());
+
+        loaded.getStudentRegister().add(new Student("Natale", "Affinita", "0000000003", "n.affinita@studenti.unisa.it"));
+        journal.save(null).get();
+        journal.close();
+        assertTrue(SnapshotReader.isSnapshot(Files.readAllBytes(legacy), SnapshotFormat.MAGIC.length));
+        assertEquals(3, LibraryJournal.read(legacy, null).getStudentRegister().getRegisterList().size());
+    }
+}
@@ -0,0 +1,140 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibrarySnapshotTest {
+
+    private Library library;
+    private LoanRegister loans;
+    private Student mario;
+    private Student anna;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        library = new Library();
+        loans = (LoanRegister) library.getLoanRegister();
+        mario = new Student("Mario", "Rossi", "0000000001", "m.rossi@studenti.unisa.it");
+        anna = new Student("Anna", "Bianchi", "0000000002", "a.bianchi@studenti.unisa.it");
+        book = new Book("La roba", new ArrayList<>(Arrays.asList("Giovanni Verga")), "0000000000001", 1880, 2);
+        library.getStudentRegister().addAll(Arrays.asList(mario, anna));
+        library.getBookRegister().add(book);
+    }
+
+    /*
+     * Una versione non deve risentire delle modifiche successive della biblioteca, che compaiono soltanto nelle
+     * versioni richieste dopo; senza modifiche deve essere restituita la stessa versione.
+     * */
+    @Test
+    void testVersionsAreIsolated() {
+        Loan loan = loans.checkout(mario, book, LocalDate.of(2026, 3, 10));
+        LibrarySnapshot first = library.snapshot();
+        assertSame(first, library.snapshot());
+        assertEquals(Arrays.asList("0000000002", "0000000001"), studentIds(first));
+        assertEquals(1, first.getBooks().iterator().next().getAvailableCopies());
+
+        library.getStudentRegister().modify(anna, new Student("Anna", "Verdi", anna.getStudentId(), anna.getEmail()));
+        library.getStudentRegister().add(new Student("Luca", "Bruni", "0000000003", "l.bruni@studenti.unisa.it"));
+        loan.returnLoan();
+        loans.checkout(anna, book, LocalDate.of(2026, 3, 1));
+        LibrarySnapshot second = library.snapshot();
+
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(Arrays.asList("0000000002", "0000000001"), studentIds(first));
+        assertEquals("Bianchi", first.getStudents().iterator().next().getSurname());
+        assertEquals(1, first.getLoanCount());
+        assertFalse(first.getLoans().iterator().next().isReturned());
+        assertEquals(1, first.getBooks().iterator().next().getAvailableCopies());
+
+        assertEquals(Arrays.asList("0000000003", "0000000001", "0000000002"), studentIds(second));
+        assertEquals(2, second.getLoanCount());
+        LibrarySnapshot.LoanRecord earliest = second.getLoans().iterator().next();
+        assertEquals(anna.getStudentId(), earliest.getStudentId());
+        assertEquals(LocalDate.of(2026, 3, 1), earliest.getLoanEnd());
+        assertEquals(1, second.getBooks().iterator().next().getAvailableCopies());
+
+        library.getBookRegister().remove(book);
+        assertEquals(0, library.snapshot().getBookCount());
+        assertEquals(1, second.getBookCount());
+    }
+
+    /*
+     * Le versioni lette da un altro thread mentre la biblioteca viene modificata devono essere coerenti: ordinate,
+     * con i conteggi corretti e con ogni prestito riferito a studenti e libri della stessa versione.
+     * */
+    @Test
+    void testConcurrentReaders() throws Exception {
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> checked = reader.submit(() -> {
+                int versions = 0;
+                long last = -1;
+                while (writing.get() || versions == 0) {
+                    LibrarySnapshot snapshot = library.snapshot();
+                    assertTrue(snapshot.getVersion() >= last);
+                    last = snapshot.getVersion();
+                    Set<String> studentIds = new HashSet<>(studentIds(snapshot));
+                    assertEquals(snapshot.getStudentCount(), studentIds.size());
+                    Set<String> bookIds = new HashSet<>();
+                    for (LibrarySnapshot.BookRecord record : snapshot.getBooks()) bookIds.add(record.getBookId());
+                    LocalDate previous = LocalDate.MIN;
+                    int count = 0;
+                    for (LibrarySnapshot.LoanRecord record : snapshot.getLoans()) {
+                        assertTrue(studentIds.contains(record.getStudentId()));
+                        assertTrue(bookIds.contains(record.getBookId()));
+                        assertFalse(record.getLoanEnd().isBefore(previous));
+                        previous = record.getLoanEnd();
+                        count++;
+                    }
+                    assertEquals(snapshot.getLoanCount(), count);
+                    versions++;
+                }
+                return versions;
+            });
+
+            for (int i = 0; i < 2000; i++) {
+                Student student = new Student("Nome", "Cognome" + i, String.format("%010d", 100 + i), "s" + i + "@studenti.unisa.it");
+                Book added = new Book("Titolo " + i, new ArrayList<>(Arrays.asList("Autore")), String.format("%013d", 100 + i), 2000, 1);
+                library.getStudentRegister().add(student);
+                library.getBookRegister().add(added);
+                Loan loan = loans.checkout(student, added, LocalDate.of(2026, 1, 1).plusDays(i % 90));
+                if (i % 3 == 0) loan.returnLoan();
+                if (i % 5 == 0) library.getStudentRegister().modify(student,
+                        new Student("Altro", "Cognome" + i, student.getStudentId(), student.getEmail()));
+            }
+            writing.set(false);
+            assertTrue(checked.get(60, TimeUnit.SECONDS) > 0);
+        } finally {
+            writing.set(false);
+            reader.shutdownNow();
+        }
+
+        LibrarySnapshot last = library.snapshot();
+        assertEquals(2002, last.getStudentCount());
+        assertEquals(2001, last.getBookCount());
+        assertEquals(2000, last.getLoanCount());
+        assertEquals(loans.getRegisterList().get(0).getLoanId(), last.getLoans().iterator().next().getLoanId());
+    }
+
+    private static List<String> studentIds(LibrarySnapshot snapshot) {
+        List<String> ids = new ArrayList<>();
+        for (LibrarySnapshot.StudentRecord record : snapshot.getStudents()) ids.add(record.getStudentId());
+        return ids;
+    }
+}
@@ -2,10 +2,27 @@ package softeng.librarymanager.models;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.time.LocalDate;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -125,6 +142,23 @@ class LoanRegisterTest {
         assertTrue(modifiedLoan.isReturned());
     }
 
+    /*
+     * I metodi "findById()" e "modifyById()" devono individuare il prestito tramite il loanId.
+     * */
+    @Test
+    void testFindAndModifyById() {
+        loanRegister.add(loan1);
+        String id = loan1.getLoanId().toString();
+
+        assertSame(loan1, loanRegister.findById(id));
+        assertNull(loanRegister.findById(loan2.getLoanId().toString()));
+
+        assertTrue(loanRegister.modifyById(id, new Loan(student2, book2, LocalDate.of(2030, 1, 1))));
+        assertEquals(LocalDate.of(2030, 1, 1), loan1.getLoanEnd());
+        assertFalse(loan1.isReturned());
+        assertFalse(loanRegister.modifyById(loan2.getLoanId().toString(), loan1));
+    }
+
     /*
      * Il metodo remove() deve garantire che, dato un parametro 'toRemove' presente nel catalogo, quest'ultimo
      * non risulti più presente nel catalogo al termine dell'operazione.
@@ -156,6 +190,29 @@ class LoanRegisterTest {
         assertFalse(loanRegister.isUnique(new Loan(loan3.getStudent(), loan3.getBook(), LocalDate.of(2016, 8, 4))));
     }
 
+    /*
+     * L'indice delle coppie attive deve essere aggiornato da ogni operazione che estingue un prestito:
+     * restituzione diretta, modifica con prestito contrassegnato come estinto e rimozione.
+     * */
+    @Test
+    void testIsUniqueAfterReturn() {
+        loanRegister.add(loan1);
+        loanRegister.add(loan2);
+        loanRegister.add(loan3);
+
+        loan1.returnLoan();
+        assertTrue(loanRegister.isUnique(new Loan(student2, book2, LocalDate.of(2030, 1, 1))));
+
+        Loan returned = new Loan(student1, book1, loan2.getLoanEnd());
+        returned.returnLoan();
+        loanRegister.modify(loan2, returned);
+        assertTrue(loanRegister.isUnique(new Loan(student1, book1, LocalDate.of(2030, 1, 1))));
+
+        assertFalse(loanRegister.isUnique(new Loan(student3, book3, LocalDate.of(2030, 1, 1))));
+        loanRegister.remove(loan3);
+        assertTrue(loanRegister.isUnique(new Loan(student3, book3, LocalDate.of(2030, 1, 1))));
+    }
+
     /*
      * Il metodo getRegisterList() deve garantire che la List<Loan> restituita contenga tutti i prestiti aggiunti al catalogo
      * e che questi siano ordinati secondo la data ultima di restituzione.
@@ -178,4 +235,289 @@ class LoanRegisterTest {
         assertEquals(list.get(2), loan1);
         assertEquals(list.get(3), loan2);
     }
-}
\ No newline at end of file
+
+    /*
+     * Il metodo search() deve trovare i prestiti tramite i dati dello studente e del libro coinvolti, mantenendo
+     * l'indice aggiornato quando tali dati vengono modificati tramite i registri della biblioteca.
+     * */
+    @Test
+    void testSearch() {
+        loanRegister.add(loan1);
+        loanRegister.add(loan2);
+        loanRegister.add(loan3);
+
+        assertEquals(loan2, loanRegister.search("acerra libro").get(0));
+        List<Loan> result = loanRegister.search("bianchi");
+        assertEquals(2, result.size());
+        assertEquals(loan3, result.get(0));
+        assertEquals(loan1, result.get(1));
+        assertTrue(loanRegister.search("acerra manuale").isEmpty());
+
+        loanRegister.remove(loan3);
+        assertEquals(1, loanRegister.search("bianchi").size());
+
+        Library library = new Library();
+        library.getStudentRegister().add(student4);
+        library.getBookRegister().add(book4);
+        Loan loan = new Loan(student4, book4, LocalDate.of(2030, 1, 1));
+        library.getLoanRegister().add(loan);
+        assertTrue(library.getLoanRegister().search("kowalski").isEmpty());
+
+        long count = library.getLoanRegister().getModificationCount();
+        library.getStudentRegister().modify(student4, new Student("Jakub", "Kowalski", student4.getStudentId(), student4.getEmail()));
+        assertEquals(loan, library.getLoanRegister().search("kowalski fiaba").get(0));
+        assertNotEquals(count, library.getLoanRegister().getModificationCount());
+    }
+
+    /*
+    * Le operazioni di gruppo devono attivare e restituire i prestiti come le operazioni singole; le restituzioni
+    * avvenute durante il gruppo devono essere notificate insieme al gruppo e non singolarmente.
+    * */
+    @Test
+    void testBatchOperations() {
+        List<String> events = new ArrayList<>();
+        loanRegister.addListener(new RegisterListener<Loan>() {
+            @Override public void added(Loan item) { events.add("added"); }
+            @Override public void modified(Loan item) { events.add("modified"); }
+            @Override public void removed(Loan item) { events.add("removed"); }
+            @Override public void addedAll(Collection<? extends Loan> items) { events.add("addedAll " + items.size()); }
+            @Override public void modifiedAll(Collection<? extends Loan> items) { events.add("modifiedAll " + items.size()); }
+            @Override public void removedAll(Collection<? extends Loan> items) { events.add("removedAll " + items.size()); }
+        });
+        int copies = book1.getAvailableCopies();
+
+        loanRegister.addAll(Arrays.asList(loan1, loan2, loan3, loan4));
+        assertEquals(Arrays.asList(loan4, loan3, loan1, loan2), loanRegister.getRegisterList());
+        assertEquals(copies - 1, book1.getAvailableCopies());
+        assertEquals(1, student1.getActiveLoans().size());
+        assertFalse(loanRegister.isUnique(new Loan(student1, book1, LocalDate.of(2030, 1, 1))));
+
+        Map<String, Loan> changes = new HashMap<>();
+        changes.put(loan2.getLoanId().toString(), new Loan(loan2.getLoanId(), student1, book1, LocalDate.of(2017, 1, 1), true));
+        changes.put(loan3.getLoanId().toString(), new Loan(loan3.getLoanId(), student3, book3, LocalDate.of(2031, 1, 1), false));
+        assertEquals(2, loanRegister.modifyAll(changes));
+        assertTrue(loan2.isReturned());
+        assertEquals(copies, book1.getAvailableCopies());
+        assertTrue(loanRegister.isUnique(new Loan(student1, book1, LocalDate.of(2030, 1, 1))));
+        assertEquals(Arrays.asList(loan2, loan4, loan1, loan3), loanRegister.getRegisterList());
+
+        assertEquals(1, loanRegister.removeIf(Loan::isReturned));
+        loanRegister.removeAll(Arrays.asList(loan1, loan2));
+        assertTrue(loan1.isReturned());
+        assertTrue(student2.getActiveLoans().isEmpty());
+        assertEquals(Arrays.asList(loan4, loan3), loanRegister.getRegisterList());
+        assertEquals(1, loanRegister.search("bianchi").size());
+        assertEquals(Arrays.asList("addedAll 4", "modifiedAll 2", "removedAll 1", "removedAll 1"), events);
+
+        // Un prestito non attivabile interrompe il gruppo: quelli precedenti restano nel catalogo e vengono notificati
+        events.clear();
+        Book unavailable = new Book("Esaurito", new ArrayList<>(book1.getAuthors()), "4444444444444", 2000, 0);
+        Loan valid = new Loan(student1, book2, LocalDate.of(2030, 1, 1));
+        assertThrows(IllegalStateException.class, () ->
+                loanRegister.addAll(Arrays.asList(valid, new Loan(student2, unavailable, LocalDate.of(2030, 1, 1)))));
+        assertEquals(valid, loanRegister.findById(valid.getLoanId().toString()));
+        assertEquals(Arrays.asList("addedAll 1"), events);
+    }
+
+    /*
+    * I prestiti in ritardo e quelli in scadenza in un intervallo devono tenere conto soltanto dei prestiti attivi,
+    * anche dopo modifiche della data, restituzioni e rimozioni, singole o di gruppo.
+    * */
+    @Test
+    void testOverdueLoans() {
+        loanRegister.addAll(Arrays.asList(loan1, loan2, loan3));
+        loanRegister.add(loan4);
+        LocalDate date = LocalDate.of(2026, 1, 1);
+        assertEquals(Arrays.asList(loan4, loan3, loan1), loanRegister.getOverdueLoans(date));
+        assertEquals(3, loanRegister.countOverdueLoans(date));
+        assertEquals(0, loanRegister.countOverdueLoans(LocalDate.of(2018, 8, 4)));
+        assertEquals(1, loanRegister.countOverdueLoans(LocalDate.of(2018, 8, 5)));
+        assertEquals(Arrays.asList(loan3, loan1), loanRegister.getLoansDueBetween(LocalDate.of(2020, 8, 4), LocalDate.of(2025, 12, 12)));
+        assertTrue(loanRegister.getLoansDueBetween(date, date.minusDays(1)).isEmpty());
+
+        loan3.returnLoan();
+        loanRegister.modify(loan1, new Loan(student2, book2, LocalDate.of(2027, 1, 1)));
+        assertEquals(Arrays.asList(loan4), loanRegister.getOverdueLoans(date));
+        assertEquals(Arrays.asList(loan2, loan1), loanRegister.getLoansDueBetween(date, LocalDate.of(2027, 1, 1)));
+
+        Map<String, Loan> changes = new HashMap<>();
+        changes.put(loan2.getLoanId().toString(), new Loan(loan2.getLoanId(), student1, book1, LocalDate.of(2019, 1, 1), false));
+        changes.put(loan4.getLoanId().toString(), new Loan(loan4.getLoanId(), student4, book4, LocalDate.of(2018, 8, 4), true));
+        loanRegister.modifyAll(changes);
+        assertEquals(Arrays.asList(loan2), loanRegister.getOverdueLoans(date));
+
+        loanRegister.removeAll(Arrays.asList(loan1, loan2));
+        assertEquals(0, loanRegister.countOverdueLoans(LocalDate.MAX));
+        loanRegister.add(new Loan(student1, book1, LocalDate.of(2019, 1, 1)));
+        loanRegister.remove(loanRegister.getOverdueLoans(date).get(0));
+        assertEquals(0, loanRegister.countOverdueLoans(LocalDate.MAX));
+    }
+
+    /*
+    * Gli indici per matricola e per ISBN devono distinguere i prestiti attivi dallo storico e restare coerenti
+    * con restituzioni, rimozioni e operazioni di gruppo; la modifica di uno studente deve reindicizzare i suoi prestiti.
+    * */
+    @Test
+    void testStudentAndBookIndexes() {
+        Loan second = new Loan(student1, book2, LocalDate.of(2026, 1, 1));
+        Loan sameBook = new Loan(student2, book1, LocalDate.of(2026, 2, 1));
+        loanRegister.add(loan2);
+        loanRegister.addAll(Arrays.asList(second, sameBook, loan1));
+
+        assertEquals(Arrays.asList(loan2, second), loanRegister.getActiveLoansOfStudent(student1.getStudentId()));
+        assertEquals(2, loanRegister.countActiveLoansOfStudent(student1.getStudentId()));
+        assertEquals(Arrays.asList(loan2, sameBook), loanRegister.getActiveLoansOfBook(book1.getBookId()));
+        assertEquals(2, loanRegister.countActiveLoansOfBook(book2.getBookId()));
+        assertTrue(loanRegister.getActiveLoansOfStudent(student3.getStudentId()).isEmpty());
+        assertEquals(0, loanRegister.countActiveLoansOfBook("9999999999999"));
+
+        loan2.returnLoan();
+        assertEquals(Arrays.asList(sameBook), loanRegister.getActiveLoansOfBook(book1.getBookId()));
+        assertEquals(Arrays.asList(loan2, sameBook), loanRegister.getLoansOfBook(book1.getBookId()));
+        assertEquals(Arrays.asList(loan2, second), loanRegister.getLoansOfStudent(student1.getStudentId()));
+        assertTrue(loanRegister.isUnique(new Loan(student1, book1, LocalDate.of(2030, 1, 1))));
+        assertFalse(loanRegister.isUnique(new Loan(student1, book2, LocalDate.of(2030, 1, 1))));
+
+        loanRegister.remove(second);
+        loanRegister.removeIf(Loan::isReturned);
+        assertTrue(loanRegister.getLoansOfStudent(student1.getStudentId()).isEmpty());
+        assertEquals(Arrays.asList(loan1), loanRegister.getActiveLoansOfBook(book2.getBookId()));
+        assertTrue(student1.getActiveLoans().isEmpty());
+        assertEquals(2, student2.getActiveLoans().size());
+
+        Library library = new Library();
+        library.getStudentRegister().add(student3);
+        library.getBookRegister().add(book3);
+        library.getLoanRegister().add(loan3);
+        library.getStudentRegister().modify(student3, new Student("Ermanno", "Galluccio", student3.getStudentId(), student3.getEmail()));
+        assertEquals(Arrays.asList(loan3), library.getLoanRegister().search("ermanno"));
+    }
+
+    /*
+    * La serializzazione deve scrivere il catalogo come insieme, come la prima versione del registro, e la lettura
+    * deve ricostruire la mappa per loanId e gli indici.
+    * */
+    @Test
+    void testSerializedForm() throws Exception {
+        loanRegister.addAll(Arrays.asList(loan1, loan2, loan3));
+        loan3.returnLoan();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(loanRegister);
+        }
+        assertEquals(Set.class, ObjectStreamClass.lookup(LoanRegister.class).getField("loanRegister").getType());
+
+        LoanRegister loaded;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded = (LoanRegister) in.readObject();
+        }
+        assertEquals(3, loaded.getRegisterList().size());
+        assertEquals(loan2, loaded.findById(loan2.getLoanId().toString()));
+        assertEquals(1, loaded.countActiveLoansOfStudent(student1.getStudentId()));
+        assertEquals(0, loaded.countActiveLoansOfBook(book3.getBookId()));
+        assertEquals(1, loaded.search("affinita").size());
+    }
+
+    /*
+    * Prestiti, restituzioni, ricerche e modifiche degli studenti eseguiti da più thread non devono violare le invarianti:
+    * per ogni libro le copie disponibili più i prestiti attivi restano pari alle copie iniziali, nessuno studente supera
+    * il limite di prestiti e gli indici concordano con le liste dei prestiti attivi degli studenti.
+    * */
+    @Test
+    void testConcurrentCheckoutAndReturn() throws Exception {
+        Library library = new Library();
+        LoanRegister register = (LoanRegister) library.getLoanRegister();
+        List<Student> students = new ArrayList<>();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 12; i++)
+            students.add(new Student("Nome" + i, "Cognome" + i, String.format("%010d", i), "s" + i + "@studenti.unisa.it"));
+        for (int i = 0; i < 5; i++)
+            books.add(new Book("Titolo " + i, new ArrayList<>(Arrays.asList("Autore " + i)), String.format("%013d", i), 2000, 3));
+        library.getStudentRegister().addAll(students);
+        library.getBookRegister().addAll(books);
+
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger checkouts = new AtomicInteger();
+        AtomicInteger returns = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    start.await();
+                    for (int op = 0; op < 3000; op++) {
+                        Student student = students.get(random.nextInt(students.size()));
+                        Book book = books.get(random.nextInt(books.size()));
+                        switch (random.nextInt(4)) {
+                            case 0:
+                                try {
+                                    register.checkout(student, book, LocalDate.of(2026, 1, 1).plusDays(random.nextInt(60)));
+                                    checkouts.incrementAndGet();
+                                } catch (IllegalStateException ex) {
+                                    // Copie esaurite, limite raggiunto o prestito già attivo
+                                }
+                                break;
+                            case 1:
+                                List<Loan> active = register.getActiveLoansOfStudent(student.getStudentId());
+                                if (!active.isEmpty() && register.returnLoan(active.get(0))) returns.incrementAndGet();
+                                break;
+                            case 2:
+                                register.search(student.getSurname().toLowerCase());
+                                register.countOverdueLoans(LocalDate.of(2026, 2, 1));
+                                assertTrue(book.getAvailableCopies() >= 0);
+                                break;
+                            default:
+                                library.getStudentRegister().modify(student,
+                                        new Student("Nome" + op, student.getSurname(), student.getStudentId(), student.getEmail()));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int active = 0;
+        for (Book book : books) {
+            int loaned = register.countActiveLoansOfBook(book.getBookId());
+            assertEquals(3, book.getAvailableCopies() + loaned);
+            active += loaned;
+        }
+        for (Student student : students) {
+            assertEquals(student.getActiveLoans().size(), register.countActiveLoansOfStudent(student.getStudentId()));
+            assertTrue(student.getActiveLoans().size() <= Student.MAX_ACTIVE_LOANS);
+        }
+        assertEquals(checkouts.get() - returns.get(), active);
+        assertEquals(checkouts.get(), register.getRegisterList().size());
+    }
+
+    /*
+    * Due importazioni concorrenti dello stesso gruppo di studenti devono inserirli una sola volta: ogni studente
+    * viene aggiunto da un thread e scartato come duplicato dall'altro.
+    * */
+    @Test
+    void testConcurrentAddAllUnique() throws Exception {
+        StudentRegister register = new StudentRegister();
+        List<Student> batch = new ArrayList<>();
+        for (int i = 0; i < 2000; i++)
+            batch.add(new Student("Nome", "Cognome", String.format("%010d", i), "s" + i + "@studenti.unisa.it"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<Student>> first = executor.submit(() -> register.addAllUnique(batch));
+            Future<List<Student>> second = executor.submit(() -> register.addAllUnique(new ArrayList<>(batch)));
+            assertEquals(batch.size(), first.get(30, TimeUnit.SECONDS).size() + second.get(30, TimeUnit.SECONDS).size());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(batch.size(), register.getRegisterList().size());
+        assertEquals(2, register.addAllUnique(Arrays.asList(batch.get(0), batch.get(0))).size());
+    }
+
+}
@@ -1,8 +1,12 @@
 package softeng.librarymanager.models;
 
 import org.junit.jupiter.api.Test;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.Month;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -140,4 +144,29 @@ class LoanTest {
         Loan todayLoan = new Loan(validStudent, validBook, LocalDate.now());
         assertFalse(todayLoan.isDelay());
     }
-}
\ No newline at end of file
+
+    /*
+     * La data odierna memorizzata deve restare invariata fino alla mezzanotte e cambiare subito dopo, anche se
+     * l'orologio torna indietro.
+     * */
+    @Test
+    void testToday() {
+        ZoneId zone = ZoneId.of("Europe/Rome");
+        ZonedDateTime evening = ZonedDateTime.of(2025, 12, 31, 23, 59, 59, 0, zone);
+        Loan loan = new Loan(new Student("Mario", "Rossi", "1234567890", "m.rossi@studenti.unisa.it"),
+                new Book("La roba", validAuthors, "1234567890123", 1880, 10), LocalDate.of(2025, 12, 31));
+        try {
+            Today.setClock(Clock.fixed(evening.toInstant(), zone));
+            assertEquals(LocalDate.of(2025, 12, 31), Today.get());
+            assertFalse(loan.isDelay());
+            Today.setClock(Clock.offset(Clock.fixed(evening.toInstant(), zone), Duration.ofSeconds(1)));
+            assertEquals(LocalDate.of(2026, 1, 1), Today.get());
+            assertTrue(loan.isDelay());
+            Today.setClock(Clock.offset(Clock.fixed(evening.toInstant(), zone), Duration.ofHours(-24)));
+            assertEquals(LocalDate.of(2025, 12, 30), Today.get());
+        } finally {
+            Today.setClock(Clock.systemDefaultZone());
+        }
+        assertEquals(LocalDate.now(), Today.get());
+    }
+}
@@ -0,0 +1,166 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLibraryFileTest {
+
+    private static Library library;
+    private static byte[] snapshot;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void setUpLibrary() throws IOException {
+        library = SnapshotBenchmark.createLibrary(5_000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SnapshotWriter(out).write(library);
+        snapshot = out.toByteArray();
+    }
+
+    private Path write(byte[] bytes) throws IOException {
+        Path file = directory.resolve("biblioteca.lms");
+        Files.write(file, bytes);
+        return file;
+    }
+
+    /*
+     * Le liste del file mappato devono contenere gli stessi record dei registri, nello stesso ordine,
+     * e la ricerca per identificativo deve restituire i record corrispondenti.
+     * */
+    @Test
+    void testLazyAccess() throws IOException {
+        try (MappedLibraryFile file = MappedLibraryFile.open(write(snapshot))) {
+            checkContent(file);
+        }
+    }
+
+    /*
+     * Un file privo della sezione indice (scritto da una versione precedente) deve restare leggibile,
+     * ricostruendo l'indice al primo accesso.
+     * */
+    @Test
+    void testWithoutIndex() throws IOException {
+        try (MappedLibraryFile file = MappedLibraryFile.open(write(withoutIndex(snapshot)))) {
+            checkContent(file);
+        }
+    }
+
+    /*
+     * Firma errata e contenuto troncato devono essere segnalati con una IOException.
+     * */
+    @Test
+    void testInvalidFile() throws IOException {
+        byte[] wrongMagic = snapshot.clone();
+        wrongMagic[0] = 'X';
+        assertThrows(IOException.class, () -> MappedLibraryFile.open(write(wrongMagic)));
+        byte[] truncated = java.util.Arrays.copyOf(snapshot, snapshot.length / 2);
+        assertThrows(IOException.class, () -> MappedLibraryFile.open(write(truncated)));
+    }
+
+    /*
+     * Con sezioni codificate in più gruppi in parallelo, le posizioni delle pagine dell'indice devono
+     * restare corrette anche oltre il primo gruppo.
+     * */
+    @Test
+    void testShardedIndex() throws IOException {
+        Library large = SnapshotBenchmark.createLibrary(5 * SnapshotWriter.SHARD_SIZE / 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SnapshotWriter(out).write(large);
+        try (MappedLibraryFile file = MappedLibraryFile.open(write(out.toByteArray()))) {
+            List<Student> students = large.getStudentRegister().getRegisterList();
+            for (int i = 0; i < students.size(); i += SnapshotFormat.PAGE_SIZE - 1) {
+                assertEquals(students.get(i).getStudentId(), file.getStudents().get(i).getStudentId());
+                assertEquals(students.get(i).getEmail(), file.findStudent(students.get(i).getStudentId()).getEmail());
+            }
+            Book last = large.getBookRegister().getRegisterList().get(large.getBookRegister().getRegisterList().size() - 1);
+            assertEquals(last.getTitle(), file.findBook(last.getBookId()).getTitle());
+        }
+    }
+
+    /*
+     * La verifica su richiesta deve accettare il file originale e rilevare un byte alterato.
+     * */
+    @Test
+    void testVerify() throws IOException {
+        try (MappedLibraryFile file = MappedLibraryFile.open(write(snapshot))) {
+            file.verify();
+        }
+        byte[] corrupted = snapshot.clone();
+        corrupted[snapshot.length / 3] ^= 1;
+        Path path = Files.write(directory.resolve("alterato.lms"), corrupted);
+        try (MappedLibraryFile file = MappedLibraryFile.open(path)) {
+            assertThrows(IOException.class, file::verify);
+        }
+    }
+
+    private static void checkContent(MappedLibraryFile file) throws IOException {
+        List<Student> students = library.getStudentRegister().getRegisterList();
+        List<Book> books = library.getBookRegister().getRegisterList();
+        List<Loan> loans = library.getLoanRegister().getRegisterList();
+        assertEquals(students.size(), file.getStudents().size());
+        assertEquals(books.size(), file.getBooks().size());
+        assertEquals(loans.size(), file.getLoans().size());
+
+        // Accesso sparso, come per le righe visibili di una tabella
+        for (int i = 0; i < loans.size(); i += 97) {
+            Loan expected = loans.get(i);
+            Loan actual = file.getLoans().get(i);
+            assertEquals(expected.getLoanId(), actual.getLoanId());
+            assertEquals(expected.getStudent().getStudentId(), actual.getStudent().getStudentId());
+            assertEquals(expected.getBook().getBookId(), actual.getBook().getBookId());
+            assertEquals(expected.getLoanEnd(), actual.getLoanEnd());
+            assertEquals(expected.isReturned(), actual.isReturned());
+        }
+        Book lastBook = books.get(books.size() - 1);
+        assertEquals(lastBook.getTitle(), file.getBooks().get(books.size() - 1).getTitle());
+        assertEquals(lastBook.getAuthors(), file.getBooks().get(books.size() - 1).getAuthors());
+        assertEquals(lastBook.getAvailableCopies(), file.getBooks().get(books.size() - 1).getAvailableCopies());
+        assertEquals(students.get(0).getEmail(), file.getStudents().get(0).getEmail());
+
+        Student student = students.get(1234);
+        assertEquals(student.getSurname(), file.findStudent(student.getStudentId()).getSurname());
+        assertEquals(lastBook.getTitle(), file.findBook(lastBook.getBookId()).getTitle());
+        Loan loan = loans.get(321);
+        assertEquals(loan.getLoanEnd(), file.findLoan(loan.getLoanId().toString()).getLoanEnd());
+        assertNull(file.findStudent("9999999999"));
+        assertNull(file.findLoan(new Loan(student, lastBook, loan.getLoanEnd()).getLoanId().toString()));
+        assertThrows(IndexOutOfBoundsException.class, () -> file.getStudents().get(students.size()));
+    }
+
+    /*
+     * Ricopia lo snapshot escludendo la sezione indice.
+     * */
+    private static byte[] withoutIndex(byte[] bytes) throws IOException {
+        InputStream in = new ByteArrayInputStream(bytes);
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] header = new byte[SnapshotFormat.MAGIC.length + 1];
+        assertEquals(header.length, in.read(header));
+        result.write(header);
+        while (true) {
+            int type = in.read();
+            long length = SnapshotDecoder.readVarint(in);
+            byte[] payload = new byte[(int) length];
+            assertEquals(payload.length, Math.max(in.read(payload), 0));
+            if (type == SnapshotFormat.INDEX) continue;
+            OutputStream out = result;
+            out.write(type);
+            SnapshotEncoder.writeVarint(out, length);
+            out.write(payload);
+            if (type == SnapshotFormat.END) return result.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentSortedSetTest {
+
+    private static final Comparator<Integer> ORDER = Comparator.naturalOrder();
+
+    /*
+     * Una sequenza casuale di inserimenti e rimozioni deve produrre, versione dopo versione, lo stesso contenuto di un
+     * TreeSet; le versioni precedenti devono restare invariate.
+     * */
+    @Test
+    void testMatchesTreeSetAndKeepsVersions() {
+        Random random = new Random(7);
+        TreeSet<Integer> expected = new TreeSet<>();
+        PersistentSortedSet<Integer> set = PersistentSortedSet.empty(ORDER);
+        List<PersistentSortedSet<Integer>> versions = new ArrayList<>();
+        List<List<Integer>> contents = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(value);
+                set = set.remove(value);
+            } else {
+                expected.add(value);
+                set = set.add(value);
+            }
+            if (i % 500 == 0) {
+                versions.add(set);
+                contents.add(new ArrayList<>(expected));
+            }
+        }
+        assertEquals(new ArrayList<>(expected), toList(set));
+        assertEquals(expected.size(), set.size());
+        assertEquals(expected.contains(500), set.contains(500));
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(contents.get(i), toList(versions.get(i)));
+            assertEquals(contents.get(i).size(), versions.get(i).size());
+        }
+    }
+
+    /*
+     * Le modifiche di un Editor non devono essere visibili nella versione di partenza, e l'Editor concluso non può
+     * più essere usato; la costruzione da elementi ordinati rifiuta elementi fuori ordine.
+     * */
+    @Test
+    void testEditorAndFromSorted() {
+        PersistentSortedSet<Integer> base = PersistentSortedSet.fromSorted(ORDER, Arrays.asList(1, 3, 5, 7, 9));
+        assertEquals(Arrays.asList(1, 3, 5, 7, 9), toList(base));
+
+        PersistentSortedSet.Editor<Integer> editor = base.edit();
+        for (int i = 0; i < 10; i += 2) editor.add(i);
+        editor.remove(9).remove(42);
+        PersistentSortedSet<Integer> edited = editor.done();
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8), toList(edited));
+        assertEquals(Arrays.asList(1, 3, 5, 7, 9), toList(base));
+        assertEquals(5, base.size());
+        assertThrows(IllegalStateException.class, () -> editor.add(11));
+        assertThrows(IllegalArgumentException.class, () -> PersistentSortedSet.fromSorted(ORDER, Arrays.asList(1, 1)));
+        assertEquals(0, PersistentSortedSet.fromSorted(ORDER, new ArrayList<Integer>()).size());
+    }
+
+    private static List<Integer> toList(PersistentSortedSet<Integer> set) {
+        List<Integer> list = new ArrayList<>();
+        for (Integer value : set) list.add(value);
+        return list;
+    }
+}
@@ -0,0 +1,61 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Tempi delle operazioni per chiave e delle ricerche dei registri su cataloghi di grandi dimensioni.
+ * Escluso dalla build ordinaria, si esegue con: mvn test -Pbenchmark -Dtest=RegisterBenchmark
+ * */
+@Tag("benchmark")
+class RegisterBenchmark {
+
+    /*
+    * Con un catalogo di 10^6 libri, 10^5 ricerche e modifiche per chiave devono completarsi in tempi brevi:
+    * una scansione lineare per ogni modifica richiederebbe 10^11 confronti.
+    * */
+    @Test
+    void modifyByIdOnLargeCatalogue() {
+        BookRegister bookRegister = new BookRegister();
+        List<String> authors = new ArrayList<>(); authors.add("Mario Rossi");
+        int size = 1_000_000;
+        for (int i = 0; i < size; i++)
+            bookRegister.add(new Book("Libro " + i, authors, Long.toString(1_000_000_000_000L + i), 2000, 1));
+
+        long start = System.nanoTime();
+        assertTimeout(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < size; i += 10) {
+                String id = Long.toString(1_000_000_000_000L + i);
+                assertNotNull(bookRegister.findById(id));
+                assertTrue(bookRegister.modifyById(id, new Book("Modificato", authors, id, 2001, 2)));
+            }
+        });
+        System.out.printf("%n%,d modifiche per chiave su %,d libri: %.0f ms%n", size / 10, size, (System.nanoTime() - start) / 1e6);
+        assertEquals("Modificato", bookRegister.findById("1000000000000").getTitle());
+    }
+
+    /*
+    * La ricerca deve restare sotto il millisecondo anche su un catalogo di grandi dimensioni.
+    * */
+    @Test
+    void searchOnLargeCatalogue() {
+        BookRegister bookRegister = new BookRegister();
+        List<String> authors = new ArrayList<>(); authors.add("Autore Casuale");
+        for (int i = 0; i < 200_000; i++)
+            bookRegister.add(new Book("Volume " + i, authors, String.format("%013d", i), 2000, 1));
+
+        long start = System.nanoTime();
+        assertTimeout(Duration.ofSeconds(1), () -> {
+            for (int i = 0; i < 1_000; i++)
+                assertEquals(1, bookRegister.search(String.format("%013d", i * 199)).size());
+        });
+        System.out.printf("%n1.000 ricerche per ISBN su 200.000 libri: %.0f ms%n", (System.nanoTime() - start) / 1e6);
+        assertEquals(111, bookRegister.search("volume 1999").size());
+    }
+}
@@ -0,0 +1,171 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegisterExporterTest {
+
+    @TempDir
+    Path directory;
+
+    private Library library;
+    private Student student;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        library = new Library();
+        student = new Student("Natale", "D'Amico, \"Affinita\"", "0000000002", "n.affinita@studenti.unisa.it");
+        book = new Book("Manuale\nseconda edizione", new ArrayList<>(Arrays.asList("Rossi", "Bianchi")), "0000000000002", 2020, 3);
+        library.getStudentRegister().add(new Student("Fabrizio", "Acerra", "0000000001", "f.acerra@studenti.unisa.it"));
+        library.getStudentRegister().add(student);
+        library.getBookRegister().add(new Book("Il barone rampante", new ArrayList<>(Arrays.asList("Italo Calvino")),
+                "0000000000001", 1957, 2));
+        library.getBookRegister().add(book);
+    }
+
+    /*
+     * Un file CSV esportato deve poter essere reimportato senza scarti, ottenendo gli stessi elementi nello stesso
+     * ordine di visualizzazione.
+     * */
+    @Test
+    void testCsvRoundTrip() throws IOException {
+        RegisterExporter exporter = RegisterExporter.of(library);
+        Path students = directory.resolve("studenti.csv");
+        Path books = directory.resolve("libri.csv");
+
+        assertEquals(2, exporter.export(RegisterExporter.Kind.STUDENTS, students));
+        assertEquals(2, exporter.export(RegisterExporter.Kind.BOOKS, books));
+
+        StudentRegister studentCopy = new StudentRegister();
+        BookRegister bookCopy = new BookRegister();
+        assertEquals(0, RegisterImporter.forStudents(studentCopy).importFile(students, RegisterImporter.rejectsFile(students)).getRejected());
+        assertEquals(0, RegisterImporter.forBooks(bookCopy).importFile(books, RegisterImporter.rejectsFile(books)).getRejected());
+
+        assertEquals(library.getStudentRegister().getRegisterList(), studentCopy.getRegisterList());
+        assertEquals(library.getBookRegister().getRegisterList(), bookCopy.getRegisterList());
+        Student imported = studentCopy.findById("0000000002");
+        assertEquals(student.getSurname(), imported.getSurname());
+        Book importedBook = bookCopy.findById("0000000000002");
+        assertEquals(book.getTitle(), importedBook.getTitle());
+        assertEquals(book.getAuthors(), importedBook.getAuthors());
+        assertEquals(book.getAvailableCopies(), importedBook.getAvailableCopies());
+    }
+
+    /*
+     * In JSON Lines ogni elemento deve occupare una sola riga, con le stringhe correttamente protette e gli autori
+     * scritti come array; le modifiche successive alla creazione dell'esportatore non devono comparire nel file.
+     * */
+    @Test
+    void testJsonLines() throws IOException {
+        RegisterExporter exporter = RegisterExporter.of(library);
+        library.getBookRegister().remove(book);
+        Path target = directory.resolve("libri.jsonl");
+
+        assertEquals(RegisterExporter.Format.JSON_LINES, RegisterExporter.Format.forFile(target));
+        assertEquals(2, exporter.export(RegisterExporter.Kind.BOOKS, target));
+
+        List<String> lines = Files.readAllLines(target, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertEquals("{\"titolo\":\"Il barone rampante\",\"autori\":[\"Italo Calvino\"],\"isbn\":\"0000000000001\","
+                + "\"anno\":1957,\"copie\":2}", lines.get(0));
+        assertEquals("{\"titolo\":\"Manuale\\nseconda edizione\",\"autori\":[\"Rossi\",\"Bianchi\"],\"isbn\":\"0000000000002\","
+                + "\"anno\":2020,\"copie\":3}", lines.get(1));
+
+        Path students = directory.resolve("studenti.json");
+        exporter.export(RegisterExporter.Kind.STUDENTS, students);
+        assertTrue(Files.readAllLines(students, StandardCharsets.UTF_8).get(1)
+                .contains("\"cognome\":\"D'Amico, \\\"Affinita\\\"\""));
+    }
+
+    /*
+     * I prestiti devono riportare scadenza, stato di restituzione e i dati dello studente e del libro coinvolti.
+     * */
+    @Test
+    void testLoans() throws IOException {
+        Loan active = new Loan(student, book, LocalDate.of(2026, 1, 15));
+        Loan returned = new Loan(student, book, LocalDate.of(2026, 2, 1));
+        library.getLoanRegister().add(active);
+        library.getLoanRegister().add(returned);
+        returned.returnLoan();
+        RegisterExporter exporter = RegisterExporter.of(library);
+        Path target = directory.resolve("prestiti.csv");
+
+        List<Long> progress = new ArrayList<>();
+        exporter.setProgressListener((bytes, records) -> progress.add(records));
+        assertEquals(2, exporter.size(RegisterExporter.Kind.LOANS));
+        assertEquals(2, exporter.export(RegisterExporter.Kind.LOANS, target));
+        assertEquals(Long.valueOf(2), progress.get(progress.size() - 1));
+
+        List<String[]> rows = read(target);
+        assertEquals(3, rows.size());
+        assertArrayEquals(new String[]{"prestito", "scadenza", "restituito", "matricola", "nome", "cognome", "email", "isbn",
+                "titolo", "autori"}, rows.get(0));
+        for (int i = 1; i < rows.size(); i++) {
+            String[] row = rows.get(i);
+            Loan loan = row[0].equals(active.getLoanId().toString()) ? active : returned;
+            assertEquals(loan.getLoanEnd().toString(), row[1]);
+            assertEquals(Boolean.toString(loan == returned), row[2]);
+            assertArrayEquals(new String[]{"0000000002", "Natale", "D'Amico, \"Affinita\"", "n.affinita@studenti.unisa.it",
+                    "0000000000002", "Manuale\nseconda edizione", "Rossi; Bianchi"}, Arrays.copyOfRange(row, 3, 10));
+        }
+    }
+
+    /*
+     * La lettura in sola lettura deve recuperare le modifiche del journal senza creare o modificare alcun file.
+     * */
+    @Test
+    void testReadOnlyLoad() throws IOException {
+        Path file = directory.resolve("biblioteca.lms");
+        LibraryJournal journal = LibraryJournal.create(library, file);
+        library.getStudentRegister().add(new Student("Jakub", "Cwiertka", "0000000003", "j.cwiertka@studenti.unisa.it"));
+        journal.close();
+        List<Path> before = list();
+
+        Library read = LibraryJournal.read(file, null);
+
+        assertEquals(3, read.getStudentRegister().getRegisterList().size());
+        assertEquals(before, list());
+    }
+
+    /*
+     * I nomi dei registri della riga di comando non distinguono maiuscole e minuscole; quelli sconosciuti sono rifiutati.
+     * */
+    @Test
+    void testKindAndFormat() {
+        assertEquals(RegisterExporter.Kind.LOANS, RegisterExporter.Kind.forLabel("Prestiti"));
+        assertThrows(IllegalArgumentException.class, () -> RegisterExporter.Kind.forLabel("autori"));
+        assertEquals(RegisterExporter.Format.CSV, RegisterExporter.Format.forFile(Paths.get("studenti.CSV")));
+        assertEquals(RegisterExporter.Format.JSON_LINES, RegisterExporter.Format.forFile(Paths.get("dati/studenti.JSONL")));
+    }
+
+    private List<Path> list() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<String[]> read(Path file) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        CsvReader reader = new CsvReader(new StringReader(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)), ',');
+        String[] row;
+        while ((row = reader.next()) != null) rows.add(row);
+        return rows;
+    }
+}
@@ -0,0 +1,187 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegisterImporterTest {
+
+    @TempDir
+    Path directory;
+
+    private StudentRegister students;
+    private BookRegister books;
+
+    @BeforeEach
+    void setUp() {
+        students = new StudentRegister();
+        books = new BookRegister();
+    }
+
+    /*
+     * I campi tra virgolette possono contenere separatori, virgolette raddoppiate e a capo; il numero di riga
+     * restituito è quello in cui inizia la riga letta.
+     * */
+    @Test
+    void testCsvReader() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,\"b,c\",\"d \"\"e\"\"\"\r\n\r\n\"f\ng\",,h\ni"), ',');
+        assertArrayEquals(new String[]{"a", "b,c", "d \"e\""}, reader.next());
+        assertEquals(1, reader.getLine());
+        assertArrayEquals(new String[]{"f\ng", "", "h"}, reader.next());
+        assertEquals(3, reader.getLine());
+        assertArrayEquals(new String[]{"i"}, reader.next());
+        assertEquals(5, reader.getLine());
+        assertNull(reader.next());
+
+        assertThrows(IOException.class, () -> new CsvReader(new StringReader("a,\"b"), ',').next());
+
+        assertEquals(',', CsvReader.detectDelimiter("nome,cognome,matricola,email"));
+        assertEquals(';', CsvReader.detectDelimiter("titolo;\"Rossi, Bianchi\";isbn;anno;copie"));
+        assertEquals('\t', CsvReader.detectDelimiter("nome\tcognome\tmatricola\temail"));
+    }
+
+    /*
+     * Le righe valide devono essere inserite; quelle non valide, duplicate nel file o già presenti nel registro
+     * devono finire nel file degli scarti con il numero di riga, il motivo e i campi originali.
+     * */
+    @Test
+    void testImportStudents() throws IOException {
+        students.add(new Student("Jakub", "Cwiertka", "0000000009", "j.cwiertka@studenti.unisa.it"));
+        Path source = write("studenti.csv",
+                "Nome,Cognome,Matricola,Email",
+                "Fabrizio,Acerra,0000000001,f.acerra@studenti.unisa.it",
+                "\"D'Amico, Natale\", Affinita ,0000000002,n.affinita@studenti.unisa.it",
+                "Hermann,Galluccio,123,h.galluccio@studenti.unisa.it",
+                "Mario,Rossi,0000000003,m.rossi@gmail.com",
+                "Solo,Tre,Campi",
+                "Fabrizio,Acerra,0000000001,f.acerra@studenti.unisa.it",
+                "Jakub,Cwiertka,0000000009,j.cwiertka@studenti.unisa.it");
+        Path rejects = RegisterImporter.rejectsFile(source);
+
+        RegisterImporter.Result result = RegisterImporter.forStudents(students).importFile(source, rejects);
+
+        assertEquals(7, result.getRows());
+        assertEquals(2, result.getImported());
+        assertEquals(5, result.getRejected());
+        assertEquals(rejects, result.getRejectsFile());
+        assertEquals(3, students.getRegisterList().size());
+        assertEquals("D'Amico, Natale", students.findById("0000000002").getName());
+        assertEquals("Affinita", students.findById("0000000002").getSurname());
+
+        List<String[]> rows = read(rejects, ',');
+        assertEquals(6, rows.size());
+        assertArrayEquals(new String[]{"riga", "motivo"}, rows.get(0));
+        long[] lines = {4, 5, 6, 7, 8};
+        for (int i = 0; i < lines.length; i++) assertEquals(Long.toString(lines[i]), rows.get(i + 1)[0]);
+        assertArrayEquals(new String[]{"Hermann", "Galluccio", "123", "h.galluccio@studenti.unisa.it"},
+                Arrays.copyOfRange(rows.get(1), 2, 6));
+        assertEquals("Elemento già presente nel registro", rows.get(4)[1]);
+        assertEquals(3, rows.get(3).length - 2);
+    }
+
+    /*
+     * Un file senza errori non deve produrre il file degli scarti; il separatore dei file ".tsv" è la tabulazione,
+     * l'eventuale BOM iniziale viene ignorato e gli autori sono separati da ";".
+     * */
+    @Test
+    void testImportBooks() throws IOException {
+        Path source = write("libri.tsv",
+                "\uFEFFtitolo\tautori\tisbn\tanno\tcopie",
+                "Il barone rampante\tItalo Calvino\t0000000000001\t1957\t3",
+                "Manuale; seconda edizione\tRossi; Bianchi\t0000000000002\t2020\t1");
+        Path rejects = RegisterImporter.rejectsFile(source);
+
+        RegisterImporter.Result result = RegisterImporter.forBooks(books).importFile(source, rejects);
+
+        assertEquals(2, result.getImported());
+        assertEquals(0, result.getRejected());
+        assertNull(result.getRejectsFile());
+        assertFalse(Files.exists(rejects));
+        Book manual = books.findById("0000000000002");
+        assertEquals("Manuale; seconda edizione", manual.getTitle());
+        assertEquals(2, manual.getAuthors().size());
+        assertEquals(1, manual.getAvailableCopies());
+    }
+
+    /*
+     * Con il punto e virgola come separatore, i numeri non validi devono essere scartati riportandone il motivo
+     * e il file degli scarti deve usare lo stesso separatore del file importato.
+     * */
+    @Test
+    void testImportBooksWithSemicolon() throws IOException {
+        Path source = write("libri.csv",
+                "Il barone rampante;Italo Calvino;0000000000001;1957;3",
+                "Senza anno;Autore;0000000000002;mille;1",
+                "Copie negative;Autore;0000000000003;2000;-1");
+        Path rejects = RegisterImporter.rejectsFile(source);
+
+        RegisterImporter.Result result = RegisterImporter.forBooks(books).importFile(source, rejects);
+
+        assertEquals(3, result.getRows());
+        assertEquals(1, result.getImported());
+        List<String[]> rows = read(rejects, ';');
+        assertEquals(3, rows.size());
+        assertEquals("2", rows.get(1)[0]);
+        assertTrue(rows.get(1)[1].contains("mille"));
+        assertEquals("3", rows.get(2)[0]);
+    }
+
+    /*
+     * Un file più grande di un gruppo deve essere importato per intero anche quando gli inserimenti vengono eseguiti
+     * da un altro thread, notificando l'avanzamento.
+     * */
+    @Test
+    void testBatchesOnInsertExecutor() throws IOException {
+        int count = RegisterImporter.BATCH_SIZE * 3 + 7;
+        Path source = directory.resolve("studenti.csv");
+        try (BufferedWriter out = Files.newBufferedWriter(source, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++)
+                out.write(String.format("Nome%d,Cognome%d,%010d,s%d@studenti.unisa.it%n", i, i, i, i));
+            out.write("Nome0,Cognome0,0000000000,s0@studenti.unisa.it\n");
+        }
+        List<Long> progress = new ArrayList<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RegisterImporter.Result result = RegisterImporter.forStudents(students)
+                    .setInsertExecutor(executor)
+                    .setProgressListener((bytes, records) -> progress.add(records))
+                    .importFile(source, RegisterImporter.rejectsFile(source));
+            assertEquals(count, result.getImported());
+            assertEquals(1, result.getRejected());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(count, students.getRegisterList().size());
+        assertNotNull(students.findById(String.format("%010d", count - 1)));
+        assertEquals(count + 1, progress.get(progress.size() - 1));
+        assertTrue(progress.size() >= 4);
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, String.join("\n", lines).concat("\n").getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<String[]> read(Path file, char delimiter) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        CsvReader reader = new CsvReader(new StringReader(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)), delimiter);
+        String[] row;
+        while ((row = reader.next()) != null) rows.add(row);
+        return rows;
+    }
+}
@@ -0,0 +1,170 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReminderSchedulerTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Rome");
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    @TempDir
+    Path directory;
+
+    private LoanRegister register;
+    private Student mario;
+    private Student anna;
+    private Book book1;
+    private Book book2;
+    private Book book3;
+
+    @BeforeEach
+    void setUp() {
+        register = new LoanRegister();
+        mario = new Student("Mario", "Rossi", "0000000001", "m.rossi@studenti.unisa.it");
+        anna = new Student("Anna", "Bianchi", "0000000002", "a.bianchi@studenti.unisa.it");
+        book1 = new Book("Il barone rampante", new ArrayList<>(Arrays.asList("Italo Calvino")), "0000000000001", 1957, 5);
+        book2 = new Book("La roba", new ArrayList<>(Arrays.asList("Giovanni Verga")), "0000000000002", 1880, 5);
+        book3 = new Book("Senilità", new ArrayList<>(Arrays.asList("Italo Svevo")), "0000000000003", 1898, 5);
+    }
+
+    /*
+     * I promemoria devono raggruppare per studente i prestiti attivi in scadenza entro l'anticipo e quelli scaduti
+     * il giorno precedente; dopo più giorni senza esecuzioni, i limiti trascorsi devono essere recuperati una sola volta.
+     * */
+    @Test
+    void testCollect() {
+        Loan dueSoon = new Loan(mario, book1, TODAY.plusDays(3));
+        Loan overdue = new Loan(mario, book2, TODAY.minusDays(1));
+        Loan other = new Loan(anna, book1, TODAY.plusDays(3));
+        Loan later = new Loan(anna, book2, TODAY.plusDays(10));
+        Loan returned = new Loan(anna, book3, TODAY.plusDays(3));
+        register.addAll(Arrays.asList(dueSoon, overdue, other, later, returned));
+        returned.returnLoan();
+        ReminderScheduler scheduler = new ReminderScheduler(register, reminders -> { }, 3, fixed(TODAY.atStartOfDay(ZONE).toInstant()));
+
+        List<Reminder> reminders = scheduler.collect(TODAY);
+        assertEquals(2, reminders.size());
+        assertEquals(mario, reminders.get(0).getStudent());
+        assertEquals("m.rossi@studenti.unisa.it", reminders.get(0).getEmail());
+        assertEquals(Collections.singletonList(dueSoon), reminders.get(0).getDueSoon());
+        assertEquals(Collections.singletonList(overdue), reminders.get(0).getOverdue());
+        assertEquals(Collections.singletonList(other), reminders.get(1).getDueSoon());
+        assertTrue(reminders.get(1).getOverdue().isEmpty());
+        assertEquals(TODAY, reminders.get(1).getDate());
+
+        // Prossimo limite: il primo giorno di ritardo dei prestiti in scadenza il 13 marzo
+        assertEquals(TODAY.plusDays(4), scheduler.nextWakeDate());
+        assertTrue(scheduler.collect(TODAY).isEmpty());
+
+        List<Reminder> caughtUp = scheduler.collect(TODAY.plusDays(7));
+        assertEquals(2, caughtUp.size());
+        assertEquals(Collections.singletonList(dueSoon), reminderFor(caughtUp, mario).getOverdue());
+        assertTrue(reminderFor(caughtUp, mario).getDueSoon().isEmpty());
+        assertEquals(Collections.singletonList(later), reminderFor(caughtUp, anna).getDueSoon());
+        assertEquals(Collections.singletonList(other), reminderFor(caughtUp, anna).getOverdue());
+        assertEquals(TODAY.plusDays(11), scheduler.nextWakeDate());
+
+        register.removeAll(Arrays.asList(dueSoon, overdue, other, later));
+        assertNull(scheduler.nextWakeDate());
+        assertThrows(IllegalArgumentException.class, () -> new ReminderScheduler(register, reminders1 -> { }, -1));
+    }
+
+    /*
+     * Lo scheduler deve consegnare subito i promemoria del giorno, restare inattivo fino alla mezzanotte successiva
+     * e accorgersi dei prestiti aggiunti dopo l'avvio.
+     * */
+    @Test
+    void testScheduledDelivery() throws Exception {
+        register.add(new Loan(mario, book1, TODAY));
+        MutableClock clock = new MutableClock(TODAY.plusDays(1).atStartOfDay(ZONE).toInstant().minusMillis(300));
+        BlockingQueue<List<Reminder>> delivered = new LinkedBlockingQueue<>();
+        try (ReminderScheduler scheduler = new ReminderScheduler(register, delivered::add, 0, clock)) {
+            scheduler.start();
+            List<Reminder> first = delivered.poll(5, TimeUnit.SECONDS);
+            assertNotNull(first);
+            assertEquals(1, first.get(0).getDueSoon().size());
+
+            Loan added = new Loan(anna, book2, TODAY.plusDays(1));
+            register.add(added);
+            assertNull(delivered.poll(400, TimeUnit.MILLISECONDS));
+
+            clock.set(TODAY.plusDays(1).atStartOfDay(ZONE).toInstant().plusMillis(10));
+            List<Reminder> second = delivered.poll(5, TimeUnit.SECONDS);
+            assertNotNull(second);
+            assertEquals(2, second.size());
+            assertEquals(TODAY, second.get(0).getOverdue().get(0).getLoanEnd());
+            assertEquals(Collections.singletonList(added), second.get(1).getDueSoon());
+        }
+    }
+
+    /*
+     * L'outbox deve accodare una riga JSON per promemoria, con i prestiti come oggetti annidati.
+     * */
+    @Test
+    void testOutbox() throws IOException {
+        Loan loan = new Loan(mario, book3, TODAY.minusDays(1));
+        register.add(loan);
+        ReminderOutbox outbox = new ReminderOutbox(directory.resolve("promemoria.jsonl"));
+        ReminderScheduler scheduler = new ReminderScheduler(register, outbox, 3, fixed(Instant.EPOCH));
+
+        outbox.send(scheduler.collect(TODAY));
+        outbox.send(Collections.emptyList());
+        outbox.send(Collections.singletonList(new Reminder(anna, TODAY, Collections.emptyList(), Collections.emptyList())));
+
+        List<String> lines = Files.readAllLines(outbox.getFile(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertEquals("{\"data\":\"2026-03-10\",\"email\":\"m.rossi@studenti.unisa.it\",\"matricola\":\"0000000001\","
+                + "\"nome\":\"Mario\",\"cognome\":\"Rossi\",\"in_scadenza\":[],\"scaduti\":[{\"prestito\":\"" + loan.getLoanId()
+                + "\",\"isbn\":\"0000000000003\",\"titolo\":\"Senilità\",\"scadenza\":\"2026-03-09\"}]}", lines.get(0));
+        assertTrue(lines.get(1).startsWith("{\"data\":\"2026-03-10\",\"email\":\"a.bianchi@studenti.unisa.it\""));
+    }
+
+    private static Reminder reminderFor(List<Reminder> reminders, Student student) {
+        for (Reminder reminder : reminders)
+            if (reminder.getStudent() == student) return reminder;
+        throw new AssertionError("Nessun promemoria per " + student.getStudentId());
+    }
+
+    private static Clock fixed(Instant instant) {
+        return Clock.fixed(instant, ZONE);
+    }
+
+    /*
+     * Orologio spostabile in avanti durante il test, mentre lo scheduler attende il risveglio.
+     * */
+    private static final class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override public ZoneId getZone() { return ZONE; }
+        @Override public Clock withZone(ZoneId zone) { throw new UnsupportedOperationException(); }
+        @Override public Instant instant() { return instant; }
+    }
+}
@@ -0,0 +1,87 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    private Map<String, String> texts;
+    private SearchIndex<String> index;
+
+    @BeforeEach
+    void setUp() {
+        texts = new HashMap<>();
+        texts.put("a", "Niccolò Machiavelli Il Principe");
+        texts.put("b", "Italo Calvino Il barone rampante");
+        texts.put("c", "Italo Svevo La coscienza di Zeno 9788807900000");
+        index = new SearchIndex<>(texts::get);
+        for (String key : texts.keySet()) index.add(key);
+    }
+
+    /*
+     * Il metodo search() deve ignorare maiuscole, minuscole e accenti sia nel testo indicizzato che nella query.
+     * */
+    @Test
+    void testAccentFolding() {
+        assertEquals(Arrays.asList("a"), index.search("niccolo"));
+        assertEquals(Arrays.asList("a"), index.search("NICCOLÒ"));
+    }
+
+    /*
+     * Ogni token della query deve essere l'inizio di un token dell'elemento; più token vanno tutti soddisfatti.
+     * */
+    @Test
+    void testPrefixAndMultipleTokens() {
+        Collection<String> italo = index.search("ita");
+        assertEquals(2, italo.size());
+        assertTrue(italo.containsAll(Arrays.asList("b", "c")));
+
+        assertEquals(Arrays.asList("c"), index.search("italo sve"));
+        assertEquals(Arrays.asList("c"), index.search("978880"));
+        assertTrue(index.search("talo").isEmpty());
+        assertTrue(index.search("italo machiavelli").isEmpty());
+        assertEquals(3, index.search("  ").size());
+    }
+
+    /*
+     * I metodi update() e remove() devono mantenere l'indice coerente con il testo corrente degli elementi.
+     * */
+    @Test
+    void testUpdateAndRemove() {
+        texts.put("b", "Umberto Eco Il nome della rosa");
+        index.update("b");
+        assertEquals(Arrays.asList("c"), index.search("italo"));
+        assertEquals(Arrays.asList("b"), index.search("rosa"));
+        assertEquals(2, index.search("il").size());
+
+        index.remove("a");
+        assertTrue(index.search("principe").isEmpty());
+        assertEquals(Arrays.asList("b"), index.search("il"));
+        index.remove("a");
+        assertEquals(2, index.search("").size());
+    }
+
+    /*
+     * Un token condiviso da molti elementi deve restare coerente dopo inserimenti e rimozioni ripetute.
+     * */
+    @Test
+    void testSharedTokenPostings() {
+        SearchIndex<Integer> numbers = new SearchIndex<>(i -> "comune n" + i + (i % 2 == 0 ? " pari" : ""));
+        for (int i = 0; i < 10_000; i++) numbers.add(i);
+        for (int i = 0; i < 10_000; i += 3) numbers.remove(i);
+
+        assertEquals(6_666, numbers.search("comune").size());
+        assertEquals(3_333, numbers.search("pari").size());
+        assertEquals(Arrays.asList(9998), numbers.search("n9998"));
+        assertTrue(numbers.search("n9999").isEmpty());
+        for (int i = 0; i < 10_000; i++) numbers.remove(i);
+        assertTrue(numbers.search("comune").isEmpty());
+    }
+}
@@ -0,0 +1,264 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Confronto tra il formato snapshot e la serializzazione Java (.obj) su una biblioteca di grandi dimensioni:
+ * tempo di salvataggio, tempo di caricamento e dimensione del file; tempo di apertura dell'accesso mappato in memoria;
+ * rapporto di compressione e velocità dei codec di compressione; scalabilità della codifica parallela.
+ * Escluso dalla build ordinaria, si esegue con: mvn test -Pbenchmark
+ * Il numero di record (studenti + libri + prestiti) si imposta con -Dbenchmark.records (predefinito 1.000.000).
+ * */
+@Tag("benchmark")
+class SnapshotBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    @Test
+    void compareFormats() throws Exception {
+        int records = Integer.getInteger("benchmark.records", 1_000_000);
+        Library library = createLibrary(records);
+
+        Path snapshot = Files.createTempFile("library", ".lms");
+        Path serialized = Files.createTempFile("library", ".obj");
+        try {
+            long snapshotSave = Long.MAX_VALUE, snapshotLoad = Long.MAX_VALUE;
+            long objSave = Long.MAX_VALUE, objLoad = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(snapshot))) {
+                    new SnapshotWriter(out).write(library);
+                }
+                snapshotSave = Math.min(snapshotSave, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(serialized)))) {
+                    out.writeObject(library);
+                }
+                objSave = Math.min(objSave, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                Library fromSnapshot;
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(snapshot))) {
+                    fromSnapshot = new SnapshotReader(in).read();
+                }
+                snapshotLoad = Math.min(snapshotLoad, System.nanoTime() - start);
+                assertEquals(library.getLoanRegister().getRegisterList().size(), fromSnapshot.getLoanRegister().getRegisterList().size());
+                fromSnapshot = null;
+
+                start = System.nanoTime();
+                Library fromObj;
+                try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(serialized)))) {
+                    fromObj = (Library) in.readObject();
+                }
+                objLoad = Math.min(objLoad, System.nanoTime() - start);
+                assertEquals(library.getLoanRegister().getRegisterList().size(), fromObj.getLoanRegister().getRegisterList().size());
+                fromObj = null;
+            }
+
+            System.out.printf("%n%,d record, miglior tempo su %d ripetizioni%n", records, ROUNDS);
+            System.out.printf("%-10s %12s %12s %14s%n", "formato", "salvataggio", "caricamento", "dimensione");
+            System.out.printf("%-10s %9d ms %9d ms %,14d B%n", "snapshot", snapshotSave / 1_000_000, snapshotLoad / 1_000_000, Files.size(snapshot));
+            System.out.printf("%-10s %9d ms %9d ms %,14d B%n", ".obj", objSave / 1_000_000, objLoad / 1_000_000, Files.size(serialized));
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(serialized);
+        }
+    }
+
+    /*
+     * Tempo di apertura di MappedLibraryFile (apertura, prime 50 righe dei prestiti e 1.000 ricerche per loanId)
+     * su file di dimensioni diverse, confrontato con il caricamento completo.
+     * */
+    @Test
+    void compareMappedOpen() throws Exception {
+        int records = Integer.getInteger("benchmark.records", 1_000_000);
+        System.out.printf("%n%-12s %14s %14s %14s%n", "record", "apertura", "50 righe+1000", "caricamento");
+        for (int size : new int[]{10_000, records}) {
+            Library library = createLibrary(size);
+            List<String> loanIds = new ArrayList<>();
+            List<Loan> loans = library.getLoanRegister().getRegisterList();
+            for (int i = 0; i < 1_000; i++) loanIds.add(loans.get((int) ((long) i * loans.size() / 1_000)).getLoanId().toString());
+
+            Path file = Files.createTempFile("library", ".lms");
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    new SnapshotWriter(out).write(library);
+                }
+                library = null;
+                loans = null;
+
+                long open = Long.MAX_VALUE, access = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    try (MappedLibraryFile mapped = MappedLibraryFile.open(file)) {
+                        open = Math.min(open, System.nanoTime() - start);
+                        long accessStart = System.nanoTime();
+                        for (int i = 0; i < 50; i++) assertNotNull(mapped.getLoans().get(i).getStudent());
+                        for (String loanId : loanIds) assertNotNull(mapped.findLoan(loanId));
+                        access = Math.min(access, System.nanoTime() - accessStart);
+                    }
+                }
+
+                long start = System.nanoTime();
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                    assertNotNull(new SnapshotReader(in).read());
+                }
+                long load = System.nanoTime() - start;
+                System.out.printf("%,-12d %11.2f ms %11.2f ms %11d ms%n", size, open / 1e6, access / 1e6, load / 1_000_000);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /*
+     * Matrice formato x codec: dimensione, rapporto di compressione rispetto al file non compresso e velocità di
+     * salvataggio e caricamento (MB/s del contenuto non compresso). Lavora in memoria per non misurare il disco.
+     * */
+    @Test
+    void compareCodecs() throws Exception {
+        int records = Integer.getInteger("benchmark.records", 1_000_000);
+        Library library = createLibrary(records);
+        int loans = library.getLoanRegister().getRegisterList().size();
+
+        System.out.printf("%n%,d record, miglior tempo su %d ripetizioni%n", records, ROUNDS);
+        System.out.printf("%-10s %-13s %14s %9s %12s %10s %12s %10s%n",
+                "formato", "codec", "dimensione", "rapporto", "salvataggio", "MB/s", "caricamento", "MB/s");
+        for (boolean snapshot : new boolean[]{true, false}) {
+            long plainSize = 0;
+            for (CompressionCodec codec : Codecs.all()) {
+                long save = Long.MAX_VALUE, load = Long.MAX_VALUE;
+                byte[] bytes = null;
+                for (int round = 0; round < ROUNDS; round++) {
+                    ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 20);
+                    long start = System.nanoTime();
+                    try (OutputStream out = Codecs.compressing(buffer, codec)) {
+                        if (snapshot) {
+                            new SnapshotWriter(out).write(library);
+                        } else {
+                            ObjectOutputStream obj = new ObjectOutputStream(new BufferedOutputStream(out, 1 << 16));
+                            obj.writeObject(library);
+                            obj.flush();
+                        }
+                    }
+                    save = Math.min(save, System.nanoTime() - start);
+                    bytes = buffer.toByteArray();
+                    buffer = null;
+
+                    start = System.nanoTime();
+                    Library loaded;
+                    try (BufferedInputStream in = Codecs.decompressing(new BufferedInputStream(new ByteArrayInputStream(bytes), 1 << 16))) {
+                        loaded = snapshot ? new SnapshotReader(in).read() : (Library) new ObjectInputStream(in).readObject();
+                    }
+                    load = Math.min(load, System.nanoTime() - start);
+                    assertEquals(loans, loaded.getLoanRegister().getRegisterList().size());
+                }
+                if (codec == Codecs.NONE) plainSize = bytes.length;
+                double megabytes = plainSize / 1e6;
+                System.out.printf("%-10s %-13s %,14d %8.2fx %9d ms %10.1f %9d ms %10.1f%n", snapshot ? "snapshot" : ".obj",
+                        codec.getName(), bytes.length, (double) plainSize / bytes.length, save / 1_000_000,
+                        megabytes / (save / 1e9), load / 1_000_000, megabytes / (load / 1e9));
+            }
+        }
+    }
+
+    /*
+     * Scalabilità di codifica e decodifica al variare dei thread del ForkJoinPool (1, 2, 4, ... fino ai core
+     * disponibili): tempo di salvataggio in memoria e di caricamento, con lo speedup rispetto a un thread.
+     * */
+    @Test
+    void compareParallelism() throws Exception {
+        int records = Integer.getInteger("benchmark.records", 1_000_000);
+        Library library = createLibrary(records);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 20);
+        new SnapshotWriter(buffer).write(library);
+        byte[] bytes = buffer.toByteArray();
+
+        System.out.printf("%n%,d record, %d core, miglior tempo su %d ripetizioni%n", records,
+                Runtime.getRuntime().availableProcessors(), ROUNDS);
+        System.out.printf("%-8s %12s %8s %12s %8s%n", "thread", "salvataggio", "speedup", "caricamento", "speedup");
+        long baseSave = 0, baseLoad = 0;
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long save = Long.MAX_VALUE, load = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    buffer.reset();
+                    long start = System.nanoTime();
+                    new SnapshotWriter(buffer).setPool(pool).write(library);
+                    save = Math.min(save, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    Library loaded = new SnapshotReader(new ByteArrayInputStream(bytes)).setPool(pool).read();
+                    load = Math.min(load, System.nanoTime() - start);
+                    assertEquals(library.getLoanRegister().getRegisterList().size(), loaded.getLoanRegister().getRegisterList().size());
+                }
+                if (threads == 1) {
+                    baseSave = save;
+                    baseLoad = load;
+                }
+                System.out.printf("%-8d %9d ms %7.2fx %9d ms %7.2fx%n", threads, save / 1_000_000, (double) baseSave / save,
+                        load / 1_000_000, (double) baseLoad / load);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /*
+     * Crea una biblioteca con il numero di record indicato: 40% studenti, 40% libri e 20% prestiti,
+     * con autori scelti da un insieme ristretto come in un catalogo reale.
+     * */
+    static Library createLibrary(int records) {
+        Library library = new Library();
+        int students = records * 2 / 5;
+        int books = records * 2 / 5;
+        int loans = records - students - books;
+
+        List<List<String>> authorSets = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            List<String> authors = new ArrayList<>();
+            authors.add("Autore" + i + " Cognome" + (i % 97));
+            if (i % 3 == 0) authors.add("Coautore" + (i % 250) + " Rossi");
+            authorSets.add(authors);
+        }
+
+        Student[] studentArray = new Student[students];
+        for (int i = 0; i < students; i++) {
+            studentArray[i] = new Student("Nome" + (i % 1_000), "Cognome" + i, String.format("%010d", i), "s" + i + "@studenti.unisa.it");
+            library.getStudentRegister().add(studentArray[i]);
+        }
+        Book[] bookArray = new Book[books];
+        for (int i = 0; i < books; i++) {
+            bookArray[i] = new Book("Titolo del volume " + i, authorSets.get(i % authorSets.size()), String.format("%013d", i), 1900 + i % 125, 3);
+            library.getBookRegister().add(bookArray[i]);
+        }
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < loans; i++) {
+            Loan loan = new Loan(studentArray[i % students], bookArray[(i * 7) % books], start.plusDays(i % 365));
+            library.getLoanRegister().add(loan);
+            if (i % 2 == 0) loan.returnLoan();
+        }
+        return library;
+    }
+}
@@ -0,0 +1,206 @@
+package softeng.librarymanager.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTest {
+
+    private Library library;
+    private Student student1;
+    private Student student2;
+    private Book book1;
+    private Book book2;
+    private Loan activeLoan;
+    private Loan returnedLoan;
+
+    @BeforeEach
+    void setUp() {
+        library = new Library();
+        student1 = new Student("Niccolò", "Acerra", "0000000001", "n.acerra@studenti.unisa.it");
+        student2 = new Student("Natale", "Affinita", "0000000002", "n.affinita@studenti.unisa.it");
+        List<String> authors1 = new ArrayList<>(); authors1.add("Luca Rossi"); authors1.add("Paolo Verdi");
+        List<String> authors2 = new ArrayList<>(); authors2.add("Paolo Verdi");
+        book1 = new Book("Perché leggere i classici", authors1, "0000000000001", 1991, 3);
+        book2 = new Book("Manuale", authors2, "0000000000002", 2020, 1);
+        library.getStudentRegister().add(student1);
+        library.getStudentRegister().add(student2);
+        library.getBookRegister().add(book1);
+        library.getBookRegister().add(book2);
+
+        activeLoan = new Loan(student1, book1, LocalDate.of(2026, 1, 15));
+        returnedLoan = new Loan(student2, book2, LocalDate.of(1960, 3, 1));
+        library.getLoanRegister().add(activeLoan);
+        library.getLoanRegister().add(returnedLoan);
+        returnedLoan.returnLoan();
+    }
+
+    private static byte[] save(Library library) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SnapshotWriter(out).write(library);
+        return out.toByteArray();
+    }
+
+    private static Library load(byte[] bytes) throws IOException {
+        return new SnapshotReader(new ByteArrayInputStream(bytes)).read();
+    }
+
+    /*
+     * Una biblioteca scritta da SnapshotWriter e riletta da SnapshotReader deve contenere gli stessi dati,
+     * compresi identificativi e stato dei prestiti, copie disponibili e prestiti attivi degli studenti.
+     * */
+    @Test
+    void testRoundTrip() throws IOException {
+        byte[] bytes = save(library);
+        assertTrue(SnapshotReader.isSnapshot(bytes, bytes.length));
+        Library loaded = load(bytes);
+
+        Student loadedStudent = loaded.getStudentRegister().findById(student1.getStudentId());
+        assertEquals("Niccolò", loadedStudent.getName());
+        assertEquals(student1.getEmail(), loadedStudent.getEmail());
+        assertEquals(2, loaded.getStudentRegister().getRegisterList().size());
+
+        Book loadedBook = loaded.getBookRegister().findById(book1.getBookId());
+        assertEquals("Perché leggere i classici", loadedBook.getTitle());
+        assertEquals(Arrays.asList("Luca Rossi", "Paolo Verdi"), loadedBook.getAuthors());
+        assertEquals(1991, loadedBook.getPublishmentYear());
+        assertEquals(2, loadedBook.getAvailableCopies());
+        assertEquals(1, loaded.getBookRegister().findById(book2.getBookId()).getAvailableCopies());
+
+        Loan loadedActive = loaded.getLoanRegister().findById(activeLoan.getLoanId().toString());
+        assertSame(loadedStudent, loadedActive.getStudent());
+        assertSame(loadedBook, loadedActive.getBook());
+        assertEquals(activeLoan.getLoanEnd(), loadedActive.getLoanEnd());
+        assertFalse(loadedActive.isReturned());
+        assertEquals(1, loadedStudent.getActiveLoans().size());
+
+        Loan loadedReturned = loaded.getLoanRegister().findById(returnedLoan.getLoanId().toString());
+        assertTrue(loadedReturned.isReturned());
+        assertEquals(LocalDate.of(1960, 3, 1), loadedReturned.getLoanEnd());
+
+        // Gli indici derivati sono ricostruiti e la restituzione aggiorna l'unicità della coppia
+        assertFalse(loaded.getLoanRegister().isUnique(new Loan(loadedStudent, loadedBook, LocalDate.of(2030, 1, 1))));
+        loadedActive.returnLoan();
+        assertTrue(loaded.getLoanRegister().isUnique(new Loan(loadedStudent, loadedBook, LocalDate.of(2030, 1, 1))));
+        assertEquals(loadedActive, loaded.getLoanRegister().search("acerra classici").get(0));
+    }
+
+    /*
+     * Gli autori ripetuti devono essere scritti una sola volta grazie al dizionario.
+     * */
+    @Test
+    void testAuthorDictionary() throws IOException {
+        String bytes = new String(save(library), java.nio.charset.StandardCharsets.UTF_8);
+        assertEquals(bytes.indexOf("Paolo Verdi"), bytes.lastIndexOf("Paolo Verdi"));
+    }
+
+    /*
+     * Le sezioni di tipo sconosciuto devono essere ignorate, mentre firma, versione e riferimenti non validi
+     * devono essere segnalati con una IOException.
+     * */
+    @Test
+    void testInvalidContent() throws IOException {
+        byte[] bytes = save(library);
+
+        // Sezione sconosciuta (tipo 99, 2 byte) inserita subito dopo firma e versione
+        byte[] extended = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, extended, 0, 5);
+        extended[5] = 99;
+        extended[6] = 2;
+        System.arraycopy(bytes, 5, extended, 9, bytes.length - 5);
+        assertEquals(2, load(withChecksum(extended)).getLoanRegister().getRegisterList().size());
+
+        byte[] wrongMagic = bytes.clone();
+        wrongMagic[0] = 'X';
+        assertThrows(IOException.class, () -> load(wrongMagic));
+
+        byte[] wrongVersion = bytes.clone();
+        wrongVersion[4] = 9;
+        assertThrows(IOException.class, () -> load(wrongVersion));
+
+        assertThrows(IOException.class, () -> load(Arrays.copyOf(bytes, bytes.length - 3)));
+
+        Library withoutStudents = new Library();
+        withoutStudents.getBookRegister().add(book1);
+        LoanRegister loans = (LoanRegister) withoutStudents.getLoanRegister();
+        loans.restore(new Loan(activeLoan.getLoanId(), new Student("a", "b", "0000000009", "a@studenti.unisa.it"),
+                book1, LocalDate.of(2026, 1, 1), true));
+        assertThrows(IOException.class, () -> load(save(withoutStudents)));
+    }
+
+    /*
+     * Un byte alterato che lascia il contenuto decodificabile deve essere rilevato dal checksum,
+     * mentre uno snapshot con la sezione conclusiva vuota (versioni precedenti) deve essere accettato.
+     * */
+    @Test
+    void testChecksum() throws IOException {
+        byte[] bytes = save(library);
+        byte[] corrupted = bytes.clone();
+        int position = new String(bytes, java.nio.charset.StandardCharsets.ISO_8859_1).indexOf("Acerra");
+        corrupted[position] = 'B';
+        IOException ex = assertThrows(IOException.class, () -> load(corrupted));
+        assertTrue(ex.getMessage().contains("Checksum"));
+
+        byte[] legacy = Arrays.copyOf(bytes, bytes.length - 4);
+        legacy[legacy.length - 1] = 0;
+        assertEquals("Acerra", load(legacy).getStudentRegister().findById("0000000001").getSurname());
+    }
+
+    /*
+     * Con sezioni divise in più gruppi, il file non deve dipendere dal numero di thread, la lettura parallela
+     * deve ricostruire i registri nello stesso ordine e l'indice deve restare valido oltre il primo gruppo.
+     * */
+    @Test
+    void testShardedRoundTrip() throws Exception {
+        Library large = SnapshotBenchmark.createLibrary(3 * SnapshotWriter.SHARD_SIZE * 5 / 2);
+        ForkJoinPool sequential = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            ByteArrayOutputStream first = new ByteArrayOutputStream();
+            new SnapshotWriter(first).setPool(sequential).write(large);
+            ByteArrayOutputStream second = new ByteArrayOutputStream();
+            new SnapshotWriter(second).setPool(parallel).write(large);
+            byte[] bytes = first.toByteArray();
+            assertArrayEquals(bytes, second.toByteArray());
+
+            Library loaded = new SnapshotReader(new ByteArrayInputStream(bytes)).setPool(parallel).read();
+            List<Student> students = large.getStudentRegister().getRegisterList();
+            List<Loan> loans = large.getLoanRegister().getRegisterList();
+            assertEquals(students.size(), loaded.getStudentRegister().getRegisterList().size());
+            assertEquals(loans.size(), loaded.getLoanRegister().getRegisterList().size());
+            for (int i = 0; i < loans.size(); i += 1001) {
+                Loan loan = loaded.getLoanRegister().getRegisterList().get(i);
+                assertEquals(loans.get(i).getLoanId(), loan.getLoanId());
+                assertSame(loaded.getStudentRegister().findById(loan.getStudent().getStudentId()), loan.getStudent());
+            }
+
+            Student last = students.get(students.size() - 1);
+            assertEquals(last.getEmail(), loaded.getStudentRegister().findById(last.getStudentId()).getEmail());
+        } finally {
+            sequential.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    /*
+     * Ricalcola il checksum della sezione conclusiva (gli ultimi 6 byte) dopo una modifica del contenuto.
+     * */
+    private static byte[] withChecksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 6);
+        ByteBuffer.wrap(bytes, bytes.length - 4, 4).putInt((int) crc.getValue());
+        return bytes;
+    }
+}
@@ -97,6 +97,22 @@ class StudentRegisterTest {
         assertSame(modifiedStudent, student2);
     }
 
+    /*
+     * I metodi "findById()" e "modifyById()" devono individuare lo studente tramite la matricola,
+     * restituendo rispettivamente null e false se lo studente non è presente nel catalogo.
+     * */
+    @Test
+    void testFindAndModifyById() {
+        studentRegister.add(student2);
+
+        assertSame(student2, studentRegister.findById(student2.getStudentId()));
+        assertNull(studentRegister.findById(student1.getStudentId()));
+
+        assertTrue(studentRegister.modifyById(student2.getStudentId(), student3));
+        assertEquals(student3.getSurname(), student2.getSurname());
+        assertFalse(studentRegister.modifyById(student1.getStudentId(), student3));
+    }
+
     /*
      * Il metodo remove() deve garantire che, dato un parametro 'toRemove' presente nel catalogo, quest'ultimo
      * non risulti più presente nel catalogo al termine dell'operazione.
@@ -131,5 +147,29 @@ class StudentRegisterTest {
         assertTrue(studentRegister.isUnique(student3));
     }
 
+    /*
+     * Il metodo search() deve restituire, nell'ordine di visualizzazione, gli studenti le cui parole di Nome, Cognome,
+     * Matricola o Email iniziano con quelle della query, senza distinzione di maiuscole e accenti.
+     * */
+    @Test
+    void testSearch() {
+        studentRegister.add(student1);
+        studentRegister.add(student2);
+        studentRegister.add(student3);
+
+        List<Student> result = studentRegister.search("FABRIZIO ac");
+        assertEquals(2, result.size());
+        assertEquals(student3, result.get(0));
+        assertEquals(student1, result.get(1));
+        assertEquals(student2, studentRegister.search("n.affinita").get(0));
+        assertEquals(student1, studentRegister.search("0000000004").get(0));
+
+        studentRegister.modify(student2, new Student("Niccolò", "Arreca", "0000000001", "n.arreca@studenti.unisa.it"));
+        assertTrue(studentRegister.search("affinita").isEmpty());
+        assertEquals(student2, studentRegister.search("niccolo").get(0));
+
+        studentRegister.remove(student1);
+        assertEquals(1, studentRegister.search("acerra").size());
+    }
 
-}
\ No newline at end of file
+}
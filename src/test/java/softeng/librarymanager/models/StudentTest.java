@@ -59,6 +59,24 @@ class StudentTest {
         assertEquals("l.verdi@studenti.unisa.it", student.getEmail());
     }
 
+    //Le chiavi di ordinamento e ricerca sono calcolate una volta sola e ricalcolate da copy()
+    @Test
+    void testKeys() {
+        Student student = new Student(validName, validSurname, validStudentId, validEmail);
+        Student other = new Student("Mario", "Bianchi", "0000000001", validEmail);
+
+        assertSame(student.getSortKey(), student.getSortKey());
+        assertTrue(other.getSortKey().compareTo(student.getSortKey()) < 0);
+        assertTrue(student.getSearchKey().contains("mario rossi"));
+        assertTrue(student.getSearchKey().contains("rossi mario"));
+        assertTrue(student.getSearchKey().contains(validStudentId));
+
+        student.copy(new Student("Luca", "Verdi", "0987654321", validEmail));
+        assertTrue(student.getSearchKey().contains("verdi luca"));
+        assertFalse(student.getSearchKey().contains("rossi"));
+        assertTrue(other.getSortKey().compareTo(student.getSortKey()) < 0);
+    }
+
     @Test
     void testAddLoanLimit() {
         Student student = new Student(validName, validSurname, validStudentId, validEmail);
@@ -80,6 +98,18 @@ class StudentTest {
         assertThrows(IllegalStateException.class, () -> student.addActiveLoan(new Loan(s1, book, java.time.LocalDate.now().plusDays(7))));
     }
 
+    //Un'istanza diversa con lo stesso identificativo (es. ricostruita dal journal) deve liberare il posto del prestito
+    @Test
+    void testRemoveLoanByEquals() {
+        Student student = new Student(validName, validSurname, validStudentId, validEmail);
+        Book book = new Book("La roba", validAuthors, "1234567890123", 1880, 10);
+        Loan loan = new Loan(student, book, java.time.LocalDate.now().plusDays(7));
+        student.addActiveLoan(loan);
+
+        student.removeActiveLoan(new Loan(loan.getLoanId(), student, book, loan.getLoanEnd(), false));
+        assertTrue(student.getActiveLoans().isEmpty());
+    }
+
     @Test
     void testCompareTo() {
         Student student = new Student(validName, validSurname, validStudentId, validEmail);
@@ -0,0 +1,142 @@
+package softeng.librarymanager.server;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import softeng.librarymanager.models.Book;
+import softeng.librarymanager.models.Library;
+import softeng.librarymanager.models.Student;
+import softeng.librarymanager.models.Today;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Prova di carico del servizio HTTP: client concorrenti con un carico misto di ricerche (70%), prestiti e
+ * restituzioni (20%) ed elenchi dei prestiti scaduti (10%); riporta throughput, mediana e 99° percentile delle latenze.
+ * Escluso dalla build ordinaria, si esegue con: mvn test -Pbenchmark -Dtest=LibraryServerBenchmark
+ * Il numero di client si imposta con -Dbenchmark.clients (predefinito 32), quello delle richieste di ciascun client
+ * con -Dbenchmark.requests (predefinito 2.000); il catalogo contiene 10.000 studenti e 10.000 libri.
+ * */
+@Tag("benchmark")
+class LibraryServerBenchmark {
+
+    private static final int CATALOGUE = 10_000;
+    private static final String[] KINDS = {"ricerca", "prestito", "scaduti"};
+    private static final Pattern LOAN_ID = Pattern.compile("\"prestito\":\"([0-9a-f-]+)\"");
+
+    @Test
+    void mixedLoad() throws Exception {
+        int clients = Integer.getInteger("benchmark.clients", 32);
+        int requests = Integer.getInteger("benchmark.requests", 2_000);
+        // Come in ServerTool: senza questa proprietà ogni risposta attende l'ACK ritardato del client
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        Library library = new Library();
+        List<Student> students = new ArrayList<>();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < CATALOGUE; i++) {
+            students.add(new Student("Nome" + i, "Cognome" + i, String.format("%010d", i), "s" + i + "@studenti.unisa.it"));
+            books.add(new Book("Titolo " + i, new ArrayList<>(Arrays.asList("Autore " + i % 500)), String.format("%013d", i), 1900 + i % 120, 3));
+        }
+        library.getStudentRegister().addAll(students);
+        library.getBookRegister().addAll(books);
+        String due = Today.get().plusDays(30).toString();
+
+        try (LibraryServer server = LibraryServer.start(library, new InetSocketAddress("127.0.0.1", 0))) {
+            ExecutorService pool = Executors.newFixedThreadPool(clients);
+            try {
+                List<Future<long[][]>> results = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int c = 0; c < clients; c++) {
+                    int client = c;
+                    results.add(pool.submit(() -> {
+                        Random random = new Random(client);
+                        long[][] latencies = new long[KINDS.length][requests];
+                        int[] counts = new int[KINDS.length];
+                        String loanId = null;
+                        for (int i = 0; i < requests; i++) {
+                            int kind;
+                            long begin = System.nanoTime();
+                            if (i % 10 == 0) {
+                                kind = 1;
+                                String student = String.format("%010d", random.nextInt(CATALOGUE));
+                                String book = String.format("%013d", random.nextInt(CATALOGUE));
+                                LibraryServerTest.Response created = LibraryServerTest.request(server.getPort(), "POST",
+                                        "/prestiti", "matricola=" + student + "&isbn=" + book + "&scadenza=" + due);
+                                assertTrue(created.status == 201 || created.status == 409, created.body);
+                                Matcher id = LOAN_ID.matcher(created.body);
+                                loanId = id.find() ? id.group(1) : null;
+                            } else if (i % 10 == 1 && loanId != null) {
+                                kind = 1;
+                                assertEquals(200, LibraryServerTest.request(server.getPort(), "POST",
+                                        "/prestiti/" + loanId + "/restituzione", null).status);
+                            } else if (i % 10 == 5) {
+                                kind = 2;
+                                assertEquals(200, LibraryServerTest.request(server.getPort(), "GET",
+                                        "/prestiti/scaduti?data=" + Today.get().plusDays(31), null).status);
+                            } else {
+                                kind = 0;
+                                String path = random.nextBoolean() ? "/libri?q=autore+" + random.nextInt(500)
+                                        : "/studenti?q=cognome" + random.nextInt(CATALOGUE);
+                                assertEquals(200, LibraryServerTest.request(server.getPort(), "GET", path, null).status);
+                            }
+                            latencies[kind][counts[kind]++] = System.nanoTime() - begin;
+                        }
+                        for (int k = 0; k < KINDS.length; k++) latencies[k] = Arrays.copyOf(latencies[k], counts[k]);
+                        return latencies;
+                    }));
+                }
+
+                List<long[]> merged = new ArrayList<>();
+                for (int k = 0; k < KINDS.length; k++) merged.add(new long[0]);
+                for (Future<long[][]> result : results) {
+                    long[][] latencies = result.get();
+                    for (int k = 0; k < KINDS.length; k++) merged.set(k, concat(merged.get(k), latencies[k]));
+                }
+                long elapsed = System.nanoTime() - start;
+                long total = (long) clients * requests;
+
+                System.out.printf("%n%d client, %,d richieste in %.2f s: %,.0f richieste/s%n", clients, total,
+                        elapsed / 1e9, total / (elapsed / 1e9));
+                System.out.printf("%-10s %12s %12s %12s%n", "richiesta", "numero", "p50 (ms)", "p99 (ms)");
+                long[] all = new long[0];
+                for (int k = 0; k < KINDS.length; k++) {
+                    report(KINDS[k], merged.get(k));
+                    all = concat(all, merged.get(k));
+                }
+                report("totale", all);
+                assertEquals(total, all.length);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static long[] concat(long[] a, long[] b) {
+        long[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static void report(String kind, long[] latencies) {
+        Arrays.sort(latencies);
+        System.out.printf("%-10s %,12d %12.2f %12.2f%n", kind, latencies.length, percentile(latencies, 0.50) / 1e6,
+                percentile(latencies, 0.99) / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
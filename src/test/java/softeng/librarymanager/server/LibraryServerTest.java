@@ -0,0 +1,167 @@
+package softeng.librarymanager.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import softeng.librarymanager.models.Book;
+import softeng.librarymanager.models.Library;
+import softeng.librarymanager.models.LoanRegister;
+import softeng.librarymanager.models.Student;
+import softeng.librarymanager.models.Today;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryServerTest {
+
+    private static final Pattern LOAN_ID = Pattern.compile("\"prestito\":\"([0-9a-f-]+)\"");
+
+    private Library library;
+    private LoanRegister loans;
+    private Book book;
+    private LibraryServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        library = new Library();
+        loans = (LoanRegister) library.getLoanRegister();
+        library.getStudentRegister().addAll(Arrays.asList(
+                new Student("Mario", "Rossi", "0000000001", "m.rossi@studenti.unisa.it"),
+                new Student("Anna", "Bianchi", "0000000002", "a.bianchi@studenti.unisa.it")));
+        book = new Book("La roba", new ArrayList<>(Arrays.asList("Giovanni Verga")), "0000000000001", 1880, 1);
+        library.getBookRegister().add(book);
+        server = LibraryServer.start(library, new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    /*
+     * Ricerca, prestito, elenco degli scaduti e restituzione devono produrre le risposte e gli stati documentati e
+     * modificare la biblioteca come le operazioni dei registri.
+     * */
+    @Test
+    void testEndpoints() throws IOException {
+        Response search = request("GET", "/studenti?q=rossi", null);
+        assertEquals(200, search.status);
+        assertTrue(search.body.startsWith("{\"totale\":1,\"risultati\":[{\"nome\":\"Mario\""), search.body);
+        assertTrue(request("GET", "/libri?q=verga", null).body.contains("\"copie\":1"));
+
+        LocalDate due = Today.get().plusDays(1);
+        Response created = request("POST", "/prestiti", "matricola=0000000001&isbn=0000000000001&scadenza=" + due);
+        assertEquals(201, created.status, created.body);
+        Matcher id = LOAN_ID.matcher(created.body);
+        assertTrue(id.find());
+        assertEquals(0, book.getAvailableCopies());
+        assertEquals(1, loans.countActiveLoansOfStudent("0000000001"));
+
+        Response busy = request("POST", "/prestiti", "matricola=0000000002&isbn=0000000000001&scadenza=" + due);
+        assertEquals(409, busy.status);
+        assertTrue(busy.body.startsWith("{\"errore\":"));
+        assertEquals(404, request("POST", "/prestiti", "matricola=0000000009&isbn=0000000000001&scadenza=" + due).status);
+        assertEquals(400, request("POST", "/prestiti", "matricola=0000000002&isbn=0000000000001&scadenza=domani").status);
+        assertEquals(400, request("POST", "/prestiti", "matricola=0000000002").status);
+        assertEquals(405, request("POST", "/studenti", "").status);
+
+        assertTrue(request("GET", "/prestiti/scaduti", null).body.startsWith("{\"totale\":0,"));
+        Response overdue = request("GET", "/prestiti/scaduti?data=" + due.plusDays(1), null);
+        assertEquals(200, overdue.status);
+        assertTrue(overdue.body.contains(id.group(1)));
+        assertTrue(request("GET", "/prestiti?q=verga", null).body.contains(id.group(1)));
+
+        Response returned = request("POST", "/prestiti/" + id.group(1) + "/restituzione", null);
+        assertEquals(200, returned.status, returned.body);
+        assertTrue(returned.body.contains("\"restituito\":true"));
+        assertEquals(1, book.getAvailableCopies());
+        assertEquals(0, loans.countActiveLoansOfStudent("0000000001"));
+        assertEquals(409, request("POST", "/prestiti/" + id.group(1) + "/restituzione", null).status);
+        assertEquals(404, request("POST", "/prestiti/sconosciuto/restituzione", null).status);
+        assertEquals(404, request("POST", "/prestiti/restituzione", null).status);
+        assertEquals(404, request("POST", "/prestiti//restituzione", null).status);
+    }
+
+    /*
+     * Richieste di prestito concorrenti per un libro con una sola copia: esattamente una deve riuscire, le altre
+     * devono ricevere lo stato 409 senza modificare le copie.
+     * */
+    @Test
+    void testConcurrentCheckouts() throws Exception {
+        int clients = 8;
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < clients; i++)
+            students.add(new Student("Nome", "Cognome" + i, String.format("%010d", 100 + i), "s" + i + "@studenti.unisa.it"));
+        library.getStudentRegister().addAll(students);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (Student student : students)
+                statuses.add(pool.submit(() -> request("POST", "/prestiti", "matricola=" + student.getStudentId()
+                        + "&isbn=0000000000001&scadenza=" + Today.get().plusDays(7)).status));
+            int created = 0;
+            for (Future<Integer> status : statuses) {
+                int value = status.get(30, TimeUnit.SECONDS);
+                assertTrue(value == 201 || value == 409);
+                if (value == 201) created++;
+            }
+            assertEquals(1, created);
+            assertEquals(0, book.getAvailableCopies());
+            assertEquals(1, loans.getRegisterList().size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private Response request(String method, String path, String form) throws IOException {
+        return request(server.getPort(), method, path, form);
+    }
+
+    static Response request(int port, String method, String path, String form) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+        connection.setRequestMethod(method);
+        if (form != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(form.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) > 0; ) body.write(buffer, 0, n);
+        }
+        return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+    }
+}